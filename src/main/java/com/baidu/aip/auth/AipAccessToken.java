@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.auth;
+
+/**
+ * 不可变的access_token快照，刷新时整体替换，读取方无需加锁即可得到一致的token与过期时间
+ */
+public final class AipAccessToken {
+
+    private final String accessToken;
+    private final long expireTimeMillis;
+
+    /**
+     * @param accessToken access_token
+     * @param expireTimeMillis 过期时间(epoch毫秒)
+     */
+    public AipAccessToken(String accessToken, long expireTimeMillis) {
+        this.accessToken = accessToken;
+        this.expireTimeMillis = expireTimeMillis;
+    }
+
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    public long getExpireTimeMillis() {
+        return expireTimeMillis;
+    }
+
+    /**
+     * @param nowMillis 当前时间(epoch毫秒)
+     * @return 是否已过期
+     */
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expireTimeMillis;
+    }
+
+    /**
+     * @param aheadMillis 提前量(毫秒)
+     * @param nowMillis 当前时间(epoch毫秒)
+     * @return 是否将在aheadMillis内过期，此时应当刷新
+     */
+    public boolean expiresWithin(long aheadMillis, long nowMillis) {
+        return nowMillis + aheadMillis >= expireTimeMillis;
+    }
+}
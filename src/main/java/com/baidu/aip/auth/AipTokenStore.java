@@ -0,0 +1,240 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.auth;
+
+import com.baidu.aip.util.SignUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.util.Properties;
+
+/**
+ * 持久化的access_token存储，使短时运行的进程在启动时复用仍然有效的token，省去一次oauth请求
+ *
+ * 每个API Key对应目录下的一个文件，文件名为API Key的MD5，内容包含token、过期时间、用户类型的判定结果
+ * 以及Secret Key的MD5(Secret Key变更后旧内容不再被使用)。公有云用户只保存用户类型，启动时直接使用签名。写入时先写临时文件再重命名，读取方不会看到写了一半的文件；
+ * 写入过程持有同名.lock文件上的文件锁，多个进程同时刷新时依次写入。文件只允许所有者读写。
+ */
+public class AipTokenStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AipTokenStore.class);
+
+    private static final String FILE_PREFIX = "aip-token-";
+    private static final String FILE_SUFFIX = ".properties";
+    private static final String LOCK_SUFFIX = ".lock";
+    private static final String ACCESS_TOKEN_KEY = "access_token";
+    private static final String EXPIRE_TIME_KEY = "expire_time";
+    private static final String SECRET_KEY_MD5_KEY = "secret_key_md5";
+    private static final String CREDENTIAL_TYPE_KEY = "credential_type";
+
+    private final File directory;
+
+    /**
+     * @param directory 存放token文件的目录，不存在时在第一次写入时创建
+     */
+    public AipTokenStore(File directory) {
+        this.directory = directory;
+    }
+
+    public AipTokenStore(String directory) {
+        this(new File(directory));
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 读取API Key保存的token
+     * @param apiKey API Key
+     * @param secretKey Secret Key，与保存时不一致时视为没有token
+     * @return 未过期的token，没有或读取失败时返回null
+     */
+    public AipAccessToken load(String apiKey, String secretKey) {
+        Properties props = read(apiKey, secretKey);
+        if (props == null) {
+            return null;
+        }
+        String accessToken = props.getProperty(ACCESS_TOKEN_KEY);
+        String expireTime = props.getProperty(EXPIRE_TIME_KEY);
+        if (accessToken == null || expireTime == null) {
+            return null;
+        }
+        try {
+            AipAccessToken token = new AipAccessToken(accessToken, Long.parseLong(expireTime));
+            return token.isExpired(System.currentTimeMillis()) ? null : token;
+        } catch (NumberFormatException e) {
+            LOGGER.warn("invalid expire time in token store: " + expireTime);
+            return null;
+        }
+    }
+
+    /**
+     * 读取API Key保存的用户类型
+     * @param apiKey API Key
+     * @param secretKey Secret Key，与保存时不一致时视为没有判定结果
+     * @return AIP或BCE，没有判定结果时返回null
+     */
+    public ECredentialType loadCredentialType(String apiKey, String secretKey) {
+        Properties props = read(apiKey, secretKey);
+        if (props == null) {
+            return null;
+        }
+        String type = props.getProperty(CREDENTIAL_TYPE_KEY);
+        if (type == null) {
+            // 只保存了token的文件，token只在AIP用户通过权限验证后保存
+            return props.getProperty(ACCESS_TOKEN_KEY) == null ? null : ECredentialType.AIP;
+        }
+        try {
+            ECredentialType credentialType = ECredentialType.valueOf(type);
+            return credentialType == ECredentialType.AUTO ? null : credentialType;
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("invalid credential type in token store: " + type);
+            return null;
+        }
+    }
+
+    /**
+     * 保存AIP用户的token，替换已有内容
+     * @param apiKey API Key
+     * @param secretKey Secret Key
+     * @param token 新获取的token
+     */
+    public void save(String apiKey, String secretKey, AipAccessToken token) {
+        save(apiKey, secretKey, ECredentialType.AIP, token);
+    }
+
+    /**
+     * 保存用户类型的判定结果与token，替换已有内容
+     * @param apiKey API Key
+     * @param secretKey Secret Key
+     * @param credentialType 判定的用户类型
+     * @param token 新获取的token，公有云用户为null
+     */
+    public void save(String apiKey, String secretKey, ECredentialType credentialType, AipAccessToken token) {
+        Properties props = new Properties();
+        props.setProperty(SECRET_KEY_MD5_KEY, secretKeyMd5(secretKey));
+        props.setProperty(CREDENTIAL_TYPE_KEY, credentialType.name());
+        if (token != null) {
+            props.setProperty(ACCESS_TOKEN_KEY, token.getAccessToken());
+            props.setProperty(EXPIRE_TIME_KEY, Long.toString(token.getExpireTimeMillis()));
+        }
+        write(apiKey, props);
+    }
+
+    /**
+     * 删除API Key保存的token与用户类型
+     * @param apiKey API Key
+     */
+    public void remove(String apiKey) {
+        File file = getFile(apiKey);
+        if (file.exists() && !file.delete()) {
+            LOGGER.warn("delete token file failed: " + file);
+        }
+    }
+
+    private Properties read(String apiKey, String secretKey) {
+        File file = getFile(apiKey);
+        if (!file.isFile()) {
+            return null;
+        }
+        InputStream is = null;
+        try {
+            is = new FileInputStream(file);
+            Properties props = new Properties();
+            props.load(is);
+            return secretKeyMd5(secretKey).equals(props.getProperty(SECRET_KEY_MD5_KEY)) ? props : null;
+        } catch (IOException e) {
+            LOGGER.warn("read token file failed: " + e.getMessage());
+            return null;
+        } finally {
+            closeQuietly(is);
+        }
+    }
+
+    private void write(String apiKey, Properties props) {
+        if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+            LOGGER.warn("create token store directory failed: " + directory);
+            return;
+        }
+        File file = getFile(apiKey);
+        RandomAccessFile lockFile = null;
+        FileLock lock = null;
+        File tmp = null;
+        try {
+            lockFile = new RandomAccessFile(new File(directory, file.getName() + LOCK_SUFFIX), "rw");
+            lock = lockFile.getChannel().lock();
+            tmp = File.createTempFile(file.getName(), ".tmp", directory);
+            restrictToOwner(tmp);
+            FileOutputStream out = new FileOutputStream(tmp);
+            try {
+                props.store(out, null);
+                out.getFD().sync();
+            } finally {
+                out.close();
+            }
+            // 同一文件系统内的重命名是原子的；Windows上目标文件存在时重命名失败，先删除再重试
+            if (!tmp.renameTo(file) && !(file.delete() && tmp.renameTo(file))) {
+                LOGGER.warn("replace token file failed: " + file);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("write token file failed: " + e.getMessage());
+        } finally {
+            if (tmp != null && tmp.exists() && !tmp.delete()) {
+                tmp.deleteOnExit();
+            }
+            if (lock != null) {
+                try {
+                    lock.release();
+                } catch (IOException e) {
+                    LOGGER.debug("release token file lock failed: " + e.getMessage());
+                }
+            }
+            closeQuietly(lockFile);
+        }
+    }
+
+    private File getFile(String apiKey) {
+        return new File(directory, FILE_PREFIX + SignUtil.md5(apiKey == null ? "" : apiKey, "UTF-8") + FILE_SUFFIX);
+    }
+
+    private static String secretKeyMd5(String secretKey) {
+        return SignUtil.md5(secretKey == null ? "" : secretKey, "UTF-8");
+    }
+
+    private static void restrictToOwner(File file) {
+        file.setReadable(false, false);
+        file.setWritable(false, false);
+        file.setReadable(true, true);
+        file.setWritable(true, true);
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            LOGGER.debug("close token file failed: " + e.getMessage());
+        }
+    }
+}
@@ -12,9 +12,12 @@
  */
 package com.baidu.aip.auth;
 
-import com.baidu.aip.http.AipHttpClient;
+import com.baidu.aip.client.AipCallOptions;
+import com.baidu.aip.client.AipRetryPolicy;
 import com.baidu.aip.http.AipRequest;
 import com.baidu.aip.http.AipResponse;
+import com.baidu.aip.http.AipTransport;
+import com.baidu.aip.http.AipTransportFactory;
 import com.baidu.aip.util.AipClientConfiguration;
 import com.baidu.aip.util.AipClientConst;
 import com.baidu.aip.util.Util;
@@ -40,14 +43,48 @@ public class DevAuth {
             request.addBody("client_id", apiKey);
             request.addBody("client_secret", secretKey);
             request.setConfig(config);
-            int statusCode = 500;
-            AipResponse response = null;
-            // add retry
+            request.setIdempotent(true);
+            // 获取token同样受调用的截止时间与取消约束
+            AipCallOptions options = AipCallOptions.current();
+            if (options != null) {
+                request.setDeadlineNanos(options.getDeadlineNanos());
+            }
+            AipTransport transport = config == null ? AipTransportFactory.getDefault() : config.getTransport();
+            AipRetryPolicy retryPolicy = config == null || config.getRetryPolicy() == null
+                    ? AipRetryPolicy.getOAuthDefault() : config.getRetryPolicy();
+            retryPolicy.onRequest();
+            int statusCode;
+            AipResponse response;
+            // add retry, oauth is idempotent
             int cnt = 0;
-            while (statusCode == 500 && cnt < 3) {
-                response = AipHttpClient.post(request);
+            while (true) {
+                if (options != null) {
+                    options.register(request);
+                }
+                try {
+                    response = transport.execute(request);
+                } finally {
+                    if (options != null) {
+                        options.unregister(request);
+                    }
+                }
                 statusCode = response.getStatus();
                 cnt++;
+                if (statusCode == 200 || cnt >= retryPolicy.getMaxAttempts()
+                        || !retryPolicy.isRetryableStatus(statusCode, true)
+                        || !retryPolicy.tryAcquireRetry()) {
+                    break;
+                }
+                long backoff = retryPolicy.getBackoffMillis(cnt);
+                if (options != null && backoff >= options.getRemainingMillis()) {
+                    break;
+                }
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
             }
             String res = response.getBodyStr();
             if (res != null && !res.equals("")) {
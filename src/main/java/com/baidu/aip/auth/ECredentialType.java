@@ -0,0 +1,25 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.auth;
+
+/**
+ * API Key的认证方式
+ */
+public enum ECredentialType {
+    // 先请求oauth，失败或没有接口权限时再以公有云签名试探，由响应判定用户类型
+    AUTO,
+    // AIP用户，直接使用oauth获取的access_token
+    AIP,
+    // 公有云用户，直接使用bce-auth-v1签名，不请求oauth
+    BCE
+}
@@ -13,9 +13,12 @@
 
 package com.baidu.aip.bodyanalysis;
 
+import com.baidu.aip.client.AipCallback;
+import com.baidu.aip.client.AipFuture;
 import com.baidu.aip.client.BaseClient;
 import com.baidu.aip.error.AipError;
 import com.baidu.aip.http.AipRequest;
+import com.baidu.aip.util.AipClientConfiguration;
 import com.baidu.aip.util.Base64Util;
 import com.baidu.aip.util.Util;
 import org.json.JSONObject;
@@ -36,6 +39,16 @@ public class AipBodyAnalysis extends BaseClient {
         super(appId, apiKey, secretKey);
     }
 
+    /**
+     * @param appId 应用ID
+     * @param apiKey API Key
+     * @param secretKey Secret Key
+     * @param config 网络连接设置，开启warmUpOnInit时在构造后立即后台预热连接与access_token
+     */
+    public AipBodyAnalysis(String appId, String apiKey, String secretKey, AipClientConfiguration config) {
+        super(appId, apiKey, secretKey, config);
+    }
+
     /**
      * 人体关键点识别接口   
      * 对于输入的一张图片（可正常解码，且长宽比适宜），**检测图片中的所有人体，输出每个人体的21个主要关键点，包含头顶、五官、脖颈、四肢等部位，同时输出人体的坐标信息和数量**。
@@ -46,8 +59,22 @@ public class AipBodyAnalysis extends BaseClient {
      * @return JSONObject
      */
     public JSONObject bodyAnalysis(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(bodyAnalysisRequest(image, options));
+    }
+
+    /**
+     * bodyAnalysis的异步版本，参数与返回结果同bodyAnalysis(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> bodyAnalysis(byte[] image, HashMap<String, String> options,
+                                              AipCallback<JSONObject> callback) {
+        return requestServerAsync(bodyAnalysisRequest(image, options), null, callback);
+    }
+
+    private AipRequest bodyAnalysisRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -55,8 +82,7 @@ public class AipBodyAnalysis extends BaseClient {
             request.addBody(options);
         }
         request.setUri(BodyAnalysisConsts.BODY_ANALYSIS);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -89,8 +115,22 @@ public class AipBodyAnalysis extends BaseClient {
      * @return JSONObject
      */
     public JSONObject bodyAttr(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(bodyAttrRequest(image, options));
+    }
+
+    /**
+     * bodyAttr的异步版本，参数与返回结果同bodyAttr(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> bodyAttr(byte[] image, HashMap<String, String> options,
+                                          AipCallback<JSONObject> callback) {
+        return requestServerAsync(bodyAttrRequest(image, options), null, callback);
+    }
+
+    private AipRequest bodyAttrRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -98,8 +138,7 @@ public class AipBodyAnalysis extends BaseClient {
             request.addBody(options);
         }
         request.setUri(BodyAnalysisConsts.BODY_ATTR);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -134,8 +173,22 @@ public class AipBodyAnalysis extends BaseClient {
      * @return JSONObject
      */
     public JSONObject bodyNum(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(bodyNumRequest(image, options));
+    }
+
+    /**
+     * bodyNum的异步版本，参数与返回结果同bodyNum(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> bodyNum(byte[] image, HashMap<String, String> options,
+                                         AipCallback<JSONObject> callback) {
+        return requestServerAsync(bodyNumRequest(image, options), null, callback);
+    }
+
+    private AipRequest bodyNumRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -143,8 +196,7 @@ public class AipBodyAnalysis extends BaseClient {
             request.addBody(options);
         }
         request.setUri(BodyAnalysisConsts.BODY_NUM);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -178,8 +230,22 @@ public class AipBodyAnalysis extends BaseClient {
      * @return JSONObject
      */
     public JSONObject gesture(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(gestureRequest(image, options));
+    }
+
+    /**
+     * gesture的异步版本，参数与返回结果同gesture(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> gesture(byte[] image, HashMap<String, String> options,
+                                         AipCallback<JSONObject> callback) {
+        return requestServerAsync(gestureRequest(image, options), null, callback);
+    }
+
+    private AipRequest gestureRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -187,8 +253,7 @@ public class AipBodyAnalysis extends BaseClient {
             request.addBody(options);
         }
         request.setUri(BodyAnalysisConsts.GESTURE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -221,8 +286,22 @@ public class AipBodyAnalysis extends BaseClient {
      * @return JSONObject
      */
     public JSONObject bodySeg(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(bodySegRequest(image, options));
+    }
+
+    /**
+     * bodySeg的异步版本，参数与返回结果同bodySeg(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> bodySeg(byte[] image, HashMap<String, String> options,
+                                         AipCallback<JSONObject> callback) {
+        return requestServerAsync(bodySegRequest(image, options), null, callback);
+    }
+
+    private AipRequest bodySegRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -230,8 +309,7 @@ public class AipBodyAnalysis extends BaseClient {
             request.addBody(options);
         }
         request.setUri(BodyAnalysisConsts.BODY_SEG);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -265,8 +343,22 @@ public class AipBodyAnalysis extends BaseClient {
      * @return JSONObject
      */
     public JSONObject driverBehavior(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(driverBehaviorRequest(image, options));
+    }
+
+    /**
+     * driverBehavior的异步版本，参数与返回结果同driverBehavior(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> driverBehavior(byte[] image, HashMap<String, String> options,
+                                                AipCallback<JSONObject> callback) {
+        return requestServerAsync(driverBehaviorRequest(image, options), null, callback);
+    }
+
+    private AipRequest driverBehaviorRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -274,8 +366,7 @@ public class AipBodyAnalysis extends BaseClient {
             request.addBody(options);
         }
         request.setUri(BodyAnalysisConsts.DRIVER_BEHAVIOR);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -313,8 +404,22 @@ public class AipBodyAnalysis extends BaseClient {
      * @return JSONObject
      */
     public JSONObject bodyTracking(byte[] image, String dynamic, HashMap<String, String> options) {
+        return requestServerWithAuth(bodyTrackingRequest(image, dynamic, options));
+    }
+
+    /**
+     * bodyTracking的异步版本，参数与返回结果同bodyTracking(byte[], String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> bodyTracking(byte[] image, String dynamic, HashMap<String, String> options,
+                                              AipCallback<JSONObject> callback) {
+        return requestServerAsync(bodyTrackingRequest(image, dynamic, options), null, callback);
+    }
+
+    private AipRequest bodyTrackingRequest(byte[] image, String dynamic, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -324,8 +429,7 @@ public class AipBodyAnalysis extends BaseClient {
             request.addBody(options);
         }
         request.setUri(BodyAnalysisConsts.BODY_TRACKING);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.client;
+
+import com.baidu.aip.http.AipRequest;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 命名的并发隔离舱，为一组客户端或接口提供独立的并发名额
+ *
+ * 表格识别轮询、图库入库、语音合成等批量调用放在各自的隔离舱中，人脸认证等延迟敏感的调用放在另一个隔离舱中，
+ * 一组调用变慢或突增时只会耗尽自己的名额，不会占满其他调用可用的并发数。
+ * 名额不足时最多等待maxWaitMillis(默认不等待)，仍未获得则返回SDK118错误。
+ * <pre>
+ * face.setBulkhead(AipBulkhead.named("face", 50));
+ * ocr.setBulkhead(AipBulkhead.named("ocr-batch", 8));
+ * </pre>
+ * 同名的隔离舱在进程内唯一，多个客户端使用同一名字时共享名额。
+ * 隔离舱只限制并发调用数，不隔离底层连接：HttpURLConnection的keep-alive连接由JDK在进程内共享，
+ * HTTP/2下同一host的请求复用同一连接。
+ */
+public class AipBulkhead {
+
+    public static final int DEFAULT_MAX_CONCURRENT = 20;
+
+    private static final ConcurrentMap<String, AipBulkhead> NAMED = new ConcurrentHashMap<String, AipBulkhead>();
+
+    private final String name;
+    private final int maxConcurrent;
+    private final Semaphore permits;
+    private volatile long maxWaitMillis;
+
+    /**
+     * @param name 名字
+     * @param maxConcurrent 最大并发调用数
+     */
+    public AipBulkhead(String name, int maxConcurrent) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxWaitMillis = 0;
+    }
+
+    /**
+     * @param name 名字
+     * @return 同名的隔离舱，不存在时以默认大小创建
+     */
+    public static AipBulkhead named(String name) {
+        return named(name, DEFAULT_MAX_CONCURRENT);
+    }
+
+    /**
+     * @param name 名字
+     * @param maxConcurrent 最大并发调用数，仅在首次创建时生效
+     * @return 同名的隔离舱
+     */
+    public static AipBulkhead named(String name, int maxConcurrent) {
+        AipBulkhead bulkhead = NAMED.get(name);
+        if (bulkhead == null) {
+            AipBulkhead created = new AipBulkhead(name, maxConcurrent);
+            bulkhead = NAMED.putIfAbsent(name, created);
+            if (bulkhead == null) {
+                bulkhead = created;
+            }
+        }
+        return bulkhead;
+    }
+
+    /**
+     * 获取一个并发名额
+     * @param request 请求，等待时间不超过其截止时间
+     * @return 是否获得名额
+     */
+    public boolean tryAcquire(AipRequest request) {
+        boolean acquired;
+        long wait = maxWaitMillis;
+        long timeout = wait <= 0 ? 0 : request.capTimeoutMillis(wait);
+        try {
+            // 带超时的tryAcquire遵守公平性，不等待时也不会插队到正在等待的调用之前
+            acquired = timeout >= 0 && permits.tryAcquire(timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        return acquired;
+    }
+
+    /**
+     * 归还并发名额
+     */
+    public void release() {
+        permits.release();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * @return 正在进行的调用数
+     */
+    public int getActiveCount() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    /**
+     * @return 等待名额的调用数
+     */
+    public int getQueueLength() {
+        return permits.getQueueLength();
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    /**
+     * @param maxWaitMillis 名额不足时的最长等待时间(毫秒)，0表示不等待
+     */
+    public void setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.client;
+
+import com.baidu.aip.http.AipRequest;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单次调用的选项：截止时间、取消与优先级
+ *
+ * 截止时间覆盖一次接口调用的全部耗时，包括获取access_token、限流与并发排队、重试等待以及HTTP请求本身。
+ * 到达截止时间或被取消时，正在进行的HTTP请求会被中止，接口返回SDK116/SDK117错误。
+ * 选项通过attach()绑定到当前线程，对该线程上的所有接口调用生效；BaseClient.async()会把提交线程的选项
+ * 传递到执行线程。
+ * <pre>
+ * AipCallOptions options = AipCallOptions.withTimeout(1500).attach();
+ * try {
+ *     client.search(image, imageType, groupIdList, null);
+ * } finally {
+ *     options.detach();
+ * }
+ * </pre>
+ * 其他线程可以调用options.cancel()取消正在进行的调用。
+ * 批量任务可以在线程上绑定AipCallOptions.withPriority(EPriority.BATCH)，使其只使用实时请求剩余的QPS配额。
+ */
+public class AipCallOptions {
+
+    // 每个线程上绑定的选项栈，同一选项可以同时绑定到多个线程
+    private static final ThreadLocal<Binding> CURRENT = new ThreadLocal<Binding>();
+
+    private static final ScheduledThreadPoolExecutor DEADLINE_TIMER;
+
+    static {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "aip-deadline-timer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        DEADLINE_TIMER = timer;
+    }
+
+    private final AipCallOptions parent;
+    private final long deadlineNanos;
+    private final Set<AipRequest> inFlight;
+    private volatile boolean cancelled;
+    private volatile EPriority priority;
+    private ScheduledFuture<?> deadlineTimer;
+
+    public AipCallOptions() {
+        this(null, 0);
+    }
+
+    private AipCallOptions(AipCallOptions parent, long deadlineNanos) {
+        this.parent = parent;
+        this.deadlineNanos = deadlineNanos;
+        this.inFlight = Collections.newSetFromMap(new ConcurrentHashMap<AipRequest, Boolean>());
+        this.cancelled = false;
+    }
+
+    /**
+     * @param timeoutMillis 从现在起的超时时间(毫秒)
+     * @return 带截止时间的选项
+     */
+    public static AipCallOptions withTimeout(long timeoutMillis) {
+        return new AipCallOptions(null, deadlineAfter(timeoutMillis));
+    }
+
+    /**
+     * @param priority 请求优先级
+     * @return 指定优先级的选项
+     */
+    public static AipCallOptions withPriority(EPriority priority) {
+        return new AipCallOptions().setPriority(priority);
+    }
+
+    /**
+     * @return 当前线程绑定的选项，没有时返回null
+     */
+    public static AipCallOptions current() {
+        Binding binding = CURRENT.get();
+        return binding == null ? null : binding.options;
+    }
+
+    /**
+     * 创建继承截止时间与取消状态的子选项，取消子选项不影响父选项
+     * @param timeoutMillis 子选项的超时时间(毫秒)，不大于0表示只继承父选项的截止时间
+     * @return 子选项
+     */
+    public AipCallOptions child(long timeoutMillis) {
+        long deadline = timeoutMillis > 0 ? deadlineAfter(timeoutMillis) : 0;
+        if (deadline == 0 || (deadlineNanos != 0 && deadlineNanos - deadline < 0)) {
+            deadline = deadlineNanos;
+        }
+        return new AipCallOptions(this, deadline);
+    }
+
+    /**
+     * 绑定到当前线程，之前绑定的选项保存在当前线程上
+     * @return this
+     */
+    public AipCallOptions attach() {
+        CURRENT.set(new Binding(this, CURRENT.get()));
+        return this;
+    }
+
+    /**
+     * 解除与当前线程的绑定，恢复当前线程上attach()之前的选项
+     */
+    public void detach() {
+        Binding binding = CURRENT.get();
+        if (binding != null && binding.options == this) {
+            if (binding.previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(binding.previous);
+            }
+        }
+    }
+
+    /**
+     * @return 请求优先级，未设置时继承父选项，默认为INTERACTIVE
+     */
+    public EPriority getPriority() {
+        if (priority != null) {
+            return priority;
+        }
+        return parent == null ? EPriority.INTERACTIVE : parent.getPriority();
+    }
+
+    public AipCallOptions setPriority(EPriority priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    /**
+     * 取消调用，中止正在进行的请求
+     */
+    public void cancel() {
+        cancelled = true;
+        abortInFlight();
+    }
+
+    public boolean isCancelled() {
+        return cancelled || (parent != null && parent.isCancelled());
+    }
+
+    public boolean isExpired() {
+        return deadlineNanos != 0 && System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    /**
+     * @return 是否已取消或超过截止时间
+     */
+    public boolean isDone() {
+        return isCancelled() || isExpired();
+    }
+
+    /**
+     * @return 基于System.nanoTime()的截止时间，0表示没有截止时间
+     */
+    public long getDeadlineNanos() {
+        return deadlineNanos;
+    }
+
+    /**
+     * @return 距截止时间的剩余毫秒数，没有截止时间时返回Long.MAX_VALUE
+     */
+    public long getRemainingMillis() {
+        if (deadlineNanos == 0) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+    }
+
+    /**
+     * 登记正在进行的请求，取消或超时时中止该请求
+     * @param request 请求
+     */
+    public void register(AipRequest request) {
+        inFlight.add(request);
+        if (parent != null) {
+            parent.register(request);
+        }
+        scheduleDeadline();
+        if (isDone()) {
+            request.abort();
+        }
+    }
+
+    public void unregister(AipRequest request) {
+        inFlight.remove(request);
+        if (parent != null) {
+            parent.unregister(request);
+        }
+        cancelDeadline();
+    }
+
+    /**
+     * 包装任务，使其在执行线程上绑定指定的选项
+     * @param options 选项
+     * @param call 任务
+     * @param <T> 返回类型
+     * @return 包装后的任务
+     */
+    public static <T> Callable<T> wrap(final AipCallOptions options, final Callable<T> call) {
+        return new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                options.attach();
+                try {
+                    return call.call();
+                } finally {
+                    options.detach();
+                }
+            }
+        };
+    }
+
+    /**
+     * 只在有请求进行时保留截止时间的定时任务，调用结束后不在定时器中残留
+     */
+    private synchronized void scheduleDeadline() {
+        if (deadlineNanos == 0 || deadlineTimer != null || inFlight.isEmpty()) {
+            return;
+        }
+        deadlineTimer = DEADLINE_TIMER.schedule(new Runnable() {
+            @Override
+            public void run() {
+                abortInFlight();
+            }
+        }, deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    private synchronized void cancelDeadline() {
+        if (deadlineTimer == null || !inFlight.isEmpty()) {
+            return;
+        }
+        deadlineTimer.cancel(false);
+        deadlineTimer = null;
+        DEADLINE_TIMER.purge();
+    }
+
+    private void abortInFlight() {
+        for (AipRequest request : inFlight) {
+            request.abort();
+        }
+    }
+
+    private static long deadlineAfter(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        // 0表示没有截止时间
+        return deadline == 0 ? 1 : deadline;
+    }
+
+    /**
+     * 一个线程上的一次attach()
+     */
+    private static class Binding {
+        private final AipCallOptions options;
+        private final Binding previous;
+
+        Binding(AipCallOptions options, Binding previous) {
+            this.options = options;
+            this.previous = previous;
+        }
+    }
+}
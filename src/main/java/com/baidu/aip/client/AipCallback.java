@@ -0,0 +1,32 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.client;
+
+/**
+ * 异步调用结果回调，在执行请求的线程中被调用
+ * @param <T> 接口返回类型，一般为JSONObject
+ */
+public interface AipCallback<T> {
+
+    /**
+     * 请求完成
+     * @param result 接口返回结果，服务端错误同样以error_code的形式返回
+     */
+    void onSuccess(T result);
+
+    /**
+     * 请求过程中抛出异常
+     * @param e 异常
+     */
+    void onFailure(Throwable e);
+}
@@ -0,0 +1,334 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.client;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * 按接口地址划分的熔断器
+ *
+ * 1. CLOSED: 正常放行，在最近windowSize次调用中统计失败率与慢调用率，调用数达到minimumCalls后，
+ *    任一比例达到阈值即进入OPEN
+ * 2. OPEN: 直接拒绝请求，不再等待网络超时；openDurationMillis后进入HALF_OPEN
+ * 3. HALF_OPEN: 最多放行halfOpenCalls个探测请求，全部完成后按同样的阈值判断，恢复CLOSED或重新进入OPEN
+ *
+ * 失败指网络错误、非200状态码或表示服务端故障的错误码(默认为1、2、282000)；参数错误等业务错误不计入失败。
+ * 同一个熔断器可以被多个客户端共享，此时它们共享每个接口的状态。
+ */
+public class AipCircuitBreaker {
+
+    public static final int DEFAULT_WINDOW_SIZE = 50;
+    public static final int DEFAULT_MINIMUM_CALLS = 20;
+    public static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+    public static final double DEFAULT_SLOW_CALL_RATE_THRESHOLD = 0.8;
+    public static final long DEFAULT_SLOW_CALL_MILLIS = 5000;
+    public static final long DEFAULT_OPEN_DURATION_MILLIS = 30000;
+    public static final int DEFAULT_HALF_OPEN_CALLS = 5;
+
+    // 1: Unknown error, 2: Service temporarily unavailable, 282000: internal error
+    private static final Integer[] DEFAULT_FAILURE_ERROR_CODES = {1, 2, 282000};
+
+    private static final AipCircuitBreaker DEFAULT_BREAKER = new AipCircuitBreaker();
+
+    private final ConcurrentMap<String, Circuit> circuits;
+    private final Set<Integer> failureErrorCodes;
+    private volatile int windowSize;
+    private volatile int minimumCalls;
+    private volatile double failureRateThreshold;
+    private volatile double slowCallRateThreshold;
+    private volatile long slowCallMillis;
+    private volatile long openDurationMillis;
+    private volatile int halfOpenCalls;
+
+    public AipCircuitBreaker() {
+        this.circuits = new ConcurrentHashMap<String, Circuit>();
+        this.failureErrorCodes = new CopyOnWriteArraySet<Integer>(Arrays.asList(DEFAULT_FAILURE_ERROR_CODES));
+        this.windowSize = DEFAULT_WINDOW_SIZE;
+        this.minimumCalls = DEFAULT_MINIMUM_CALLS;
+        this.failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+        this.slowCallRateThreshold = DEFAULT_SLOW_CALL_RATE_THRESHOLD;
+        this.slowCallMillis = DEFAULT_SLOW_CALL_MILLIS;
+        this.openDurationMillis = DEFAULT_OPEN_DURATION_MILLIS;
+        this.halfOpenCalls = DEFAULT_HALF_OPEN_CALLS;
+    }
+
+    /**
+     * @return 进程内共享的熔断器
+     */
+    public static AipCircuitBreaker getDefault() {
+        return DEFAULT_BREAKER;
+    }
+
+    /**
+     * 请求放行判断
+     * @param url 接口地址
+     * @return Permit对象，熔断中返回null
+     */
+    public Permit acquire(String url) {
+        Circuit circuit = circuits.get(url);
+        if (circuit == null) {
+            Circuit created = new Circuit();
+            circuit = circuits.putIfAbsent(url, created);
+            if (circuit == null) {
+                circuit = created;
+            }
+        }
+        return circuit.acquire(System.currentTimeMillis()) ? new Permit(circuit) : null;
+    }
+
+    /**
+     * @param url 接口地址
+     * @return 接口当前的熔断状态
+     */
+    public ECircuitState getState(String url) {
+        Circuit circuit = circuits.get(url);
+        return circuit == null ? ECircuitState.CLOSED : circuit.getState();
+    }
+
+    /**
+     * @return 所有已统计接口的熔断状态
+     */
+    public Map<String, ECircuitState> getStates() {
+        Map<String, ECircuitState> states = new HashMap<String, ECircuitState>();
+        for (Map.Entry<String, Circuit> entry : circuits.entrySet()) {
+            states.put(entry.getKey(), entry.getValue().getState());
+        }
+        return states;
+    }
+
+    /**
+     * 手动恢复接口为CLOSED状态
+     * @param url 接口地址
+     */
+    public void reset(String url) {
+        circuits.remove(url);
+    }
+
+    /**
+     * @param status HTTP状态码，0表示网络错误
+     * @param errorCode 服务端返回的error_code，没有时为0
+     * @return 是否计为失败
+     */
+    public boolean isFailure(int status, int errorCode) {
+        return status != 200 || failureErrorCodes.contains(errorCode);
+    }
+
+    public void addFailureErrorCode(int errorCode) {
+        failureErrorCodes.add(errorCode);
+    }
+
+    public void removeFailureErrorCode(int errorCode) {
+        failureErrorCodes.remove(errorCode);
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public void setWindowSize(int windowSize) {
+        this.windowSize = windowSize;
+    }
+
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    public void setMinimumCalls(int minimumCalls) {
+        this.minimumCalls = minimumCalls;
+    }
+
+    public double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public void setFailureRateThreshold(double failureRateThreshold) {
+        this.failureRateThreshold = failureRateThreshold;
+    }
+
+    public double getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    public void setSlowCallRateThreshold(double slowCallRateThreshold) {
+        this.slowCallRateThreshold = slowCallRateThreshold;
+    }
+
+    public long getSlowCallMillis() {
+        return slowCallMillis;
+    }
+
+    public void setSlowCallMillis(long slowCallMillis) {
+        this.slowCallMillis = slowCallMillis;
+    }
+
+    public long getOpenDurationMillis() {
+        return openDurationMillis;
+    }
+
+    public void setOpenDurationMillis(long openDurationMillis) {
+        this.openDurationMillis = openDurationMillis;
+    }
+
+    public int getHalfOpenCalls() {
+        return halfOpenCalls;
+    }
+
+    public void setHalfOpenCalls(int halfOpenCalls) {
+        this.halfOpenCalls = halfOpenCalls;
+    }
+
+    private class Circuit {
+        private ECircuitState state;
+        private long openUntil;
+        // 最近调用结果的环形缓冲区，bit0为失败，bit1为慢调用
+        private byte[] outcomes;
+        private int next;
+        private int calls;
+        private int failures;
+        private int slowCalls;
+        // HALF_OPEN状态下已放行与已完成的探测数
+        private int probesIssued;
+
+        Circuit() {
+            this.state = ECircuitState.CLOSED;
+            reset(windowSize);
+        }
+
+        private void reset(int size) {
+            outcomes = new byte[Math.max(1, size)];
+            next = 0;
+            calls = 0;
+            failures = 0;
+            slowCalls = 0;
+            probesIssued = 0;
+        }
+
+        synchronized boolean acquire(long now) {
+            if (state == ECircuitState.OPEN) {
+                if (now < openUntil) {
+                    return false;
+                }
+                state = ECircuitState.HALF_OPEN;
+                reset(halfOpenCalls);
+            }
+            if (state == ECircuitState.HALF_OPEN) {
+                if (probesIssued >= outcomes.length) {
+                    return false;
+                }
+                probesIssued++;
+            }
+            return true;
+        }
+
+        synchronized void cancel() {
+            if (state == ECircuitState.HALF_OPEN && probesIssued > calls) {
+                probesIssued--;
+            }
+        }
+
+        synchronized void record(boolean failed, boolean slow, long now) {
+            if (state == ECircuitState.OPEN) {
+                return;
+            }
+            byte outcome = (byte) ((failed ? 1 : 0) | (slow ? 2 : 0));
+            if (calls == outcomes.length) {
+                byte evicted = outcomes[next];
+                failures -= evicted & 1;
+                slowCalls -= (evicted >> 1) & 1;
+            } else {
+                calls++;
+            }
+            outcomes[next] = outcome;
+            next = (next + 1) % outcomes.length;
+            failures += outcome & 1;
+            slowCalls += (outcome >> 1) & 1;
+
+            if (state == ECircuitState.HALF_OPEN) {
+                if (calls < outcomes.length) {
+                    return;
+                }
+                if (exceedsThreshold()) {
+                    open(now);
+                } else {
+                    state = ECircuitState.CLOSED;
+                    reset(windowSize);
+                }
+            } else if (calls >= minimumCalls && exceedsThreshold()) {
+                open(now);
+            }
+        }
+
+        private boolean exceedsThreshold() {
+            return failures >= calls * failureRateThreshold || slowCalls >= calls * slowCallRateThreshold;
+        }
+
+        private void open(long now) {
+            state = ECircuitState.OPEN;
+            openUntil = now + openDurationMillis;
+        }
+
+        synchronized ECircuitState getState() {
+            return state;
+        }
+    }
+
+    public class Permit {
+        private final Circuit circuit;
+        private volatile long startMillis;
+        private boolean released;
+
+        Permit(Circuit circuit) {
+            this.circuit = circuit;
+            this.startMillis = System.currentTimeMillis();
+            this.released = false;
+        }
+
+        /**
+         * 请求即将发出时调用，之前在本地排队的时间不计入慢调用统计
+         */
+        public void start() {
+            this.startMillis = System.currentTimeMillis();
+        }
+
+        /**
+         * 记录本次调用的结果
+         * @param status HTTP状态码，0表示网络错误
+         * @param errorCode 服务端返回的error_code，没有时为0
+         */
+        public void release(int status, int errorCode) {
+            if (released) {
+                return;
+            }
+            released = true;
+            long now = System.currentTimeMillis();
+            circuit.record(isFailure(status, errorCode), now - startMillis >= slowCallMillis, now);
+        }
+
+        /**
+         * 请求未实际发出时归还，不计入统计
+         */
+        public void cancel() {
+            if (released) {
+                return;
+            }
+            released = true;
+            circuit.cancel();
+        }
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.client;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按服务域名划分的自适应并发限制
+ *
+ * 每个域名维护一个并发窗口，窗口内的请求直接发出，超出的请求排队等待。窗口大小根据观测到的RTT调整:
+ * 1. 最近30秒内的最小RTT近似无排队时的延迟，每收到约一个窗口的响应后以这批响应的平均RTT作为当前延迟
+ * 2. gradient = 1.5 * minRtt / 当前延迟，限制在[0.5, 1]之间；延迟上升超过容忍范围时gradient变小，窗口随之收缩
+ * 3. newLimit = limit * gradient + sqrt(limit)，其中sqrt(limit)为允许的排队余量，延迟平稳时窗口缓慢增长
+ * 4. 请求被服务端拒绝(网络错误、429/503、QPS超限)时窗口乘以backoffRatio，即AIMD中的乘性减
+ * 5. 实际并发不足窗口一半时不扩大窗口，避免空闲时窗口无限增长
+ *
+ * 同一个限制器可以被多个客户端共享，此时它们共享每个域名的并发窗口。
+ */
+public class AipConcurrencyLimiter {
+
+    public static final int DEFAULT_INITIAL_LIMIT = 20;
+    public static final int DEFAULT_MIN_LIMIT = 1;
+    public static final int DEFAULT_MAX_LIMIT = 200;
+    public static final double DEFAULT_SMOOTHING = 0.2;
+    public static final double DEFAULT_BACKOFF_RATIO = 0.9;
+
+    private static final long MIN_RTT_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final int RTT_WARM_UP_SAMPLES = 10;
+    // 当前延迟不超过最小RTT的1.5倍时视为正常波动，不收缩窗口
+    private static final double RTT_TOLERANCE = 1.5;
+
+    private static final AipConcurrencyLimiter DEFAULT_LIMITER = new AipConcurrencyLimiter();
+
+    private final ConcurrentMap<String, HostLimit> hosts;
+    private volatile int initialLimit;
+    private volatile int minLimit;
+    private volatile int maxLimit;
+    private volatile double smoothing;
+    private volatile double backoffRatio;
+    private volatile long queueTimeoutMillis;
+
+    public AipConcurrencyLimiter() {
+        this(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT);
+    }
+
+    public AipConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this.hosts = new ConcurrentHashMap<String, HostLimit>();
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = DEFAULT_SMOOTHING;
+        this.backoffRatio = DEFAULT_BACKOFF_RATIO;
+        this.queueTimeoutMillis = 0;
+    }
+
+    /**
+     * @return 进程内共享的并发限制器
+     */
+    public static AipConcurrencyLimiter getDefault() {
+        return DEFAULT_LIMITER;
+    }
+
+    /**
+     * 获取一个并发名额，窗口已满时排队等待
+     * @param host 服务域名
+     * @return Permit对象，排队超过queueTimeoutMillis返回null
+     * @throws InterruptedException 等待过程中线程被中断
+     */
+    public Permit acquire(String host) throws InterruptedException {
+        return getHostLimit(host).acquire(queueTimeoutMillis);
+    }
+
+    /**
+     * 获取一个并发名额，最多等待timeoutMillis与queueTimeoutMillis中较小者
+     * @param host 服务域名
+     * @param timeoutMillis 调用方允许的最长等待时间(毫秒)
+     * @return Permit对象，超时返回null
+     * @throws InterruptedException 等待过程中线程被中断
+     */
+    public Permit acquire(String host, long timeoutMillis) throws InterruptedException {
+        if (timeoutMillis <= 0) {
+            return null;
+        }
+        long timeout = queueTimeoutMillis > 0 ? Math.min(queueTimeoutMillis, timeoutMillis) : timeoutMillis;
+        return getHostLimit(host).acquire(timeout);
+    }
+
+    /**
+     * @param host 服务域名
+     * @return 当前并发窗口大小
+     */
+    public int getLimit(String host) {
+        HostLimit limit = hosts.get(host);
+        return limit == null ? initialLimit : limit.getLimit();
+    }
+
+    /**
+     * @param host 服务域名
+     * @return 正在进行中的请求数
+     */
+    public int getInFlight(String host) {
+        HostLimit limit = hosts.get(host);
+        return limit == null ? 0 : limit.getInFlight();
+    }
+
+    /**
+     * @param host 服务域名
+     * @return 等待并发名额的请求数，持续大于0说明调用方受限于服务端容量
+     */
+    public int getQueueDepth(String host) {
+        HostLimit limit = hosts.get(host);
+        return limit == null ? 0 : limit.getQueueDepth();
+    }
+
+    /**
+     * @return 每个域名的当前并发窗口大小
+     */
+    public Map<String, Integer> getLimits() {
+        Map<String, Integer> limits = new HashMap<String, Integer>();
+        for (Map.Entry<String, HostLimit> entry : hosts.entrySet()) {
+            limits.put(entry.getKey(), entry.getValue().getLimit());
+        }
+        return limits;
+    }
+
+    private HostLimit getHostLimit(String host) {
+        HostLimit limit = hosts.get(host);
+        if (limit == null) {
+            HostLimit created = new HostLimit(initialLimit);
+            limit = hosts.putIfAbsent(host, created);
+            if (limit == null) {
+                limit = created;
+            }
+        }
+        return limit;
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public void setInitialLimit(int initialLimit) {
+        this.initialLimit = initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public void setMinLimit(int minLimit) {
+        this.minLimit = minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+    }
+
+    public double getSmoothing() {
+        return smoothing;
+    }
+
+    public void setSmoothing(double smoothing) {
+        this.smoothing = smoothing;
+    }
+
+    public double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    public void setBackoffRatio(double backoffRatio) {
+        this.backoffRatio = backoffRatio;
+    }
+
+    public long getQueueTimeoutMillis() {
+        return queueTimeoutMillis;
+    }
+
+    /**
+     * @param queueTimeoutMillis 排队等待的最长时间(毫秒)，0表示一直等待
+     */
+    public void setQueueTimeoutMillis(long queueTimeoutMillis) {
+        this.queueTimeoutMillis = queueTimeoutMillis;
+    }
+
+    private class HostLimit {
+        private double limit;
+        private int inFlight;
+        private int queued;
+        private double minRtt;
+        private double windowMinRtt;
+        private long windowStart;
+        private long samples;
+        private double roundRttSum;
+        private int roundSamples;
+        private int roundMaxInFlight;
+
+        HostLimit(int initialLimit) {
+            this.limit = initialLimit;
+            this.inFlight = 0;
+            this.queued = 0;
+            this.samples = 0;
+        }
+
+        synchronized Permit acquire(long timeoutMillis) throws InterruptedException {
+            long deadline = timeoutMillis > 0 ? System.currentTimeMillis() + timeoutMillis : 0;
+            queued++;
+            try {
+                while (inFlight >= (int) limit) {
+                    if (deadline == 0) {
+                        wait();
+                    } else {
+                        long remaining = deadline - System.currentTimeMillis();
+                        if (remaining <= 0) {
+                            return null;
+                        }
+                        wait(remaining);
+                    }
+                }
+            } finally {
+                queued--;
+            }
+            inFlight++;
+            return new Permit(this);
+        }
+
+        synchronized void release(long rttNanos, boolean dropped) {
+            int observedInFlight = inFlight;
+            inFlight--;
+            if (rttNanos < 0) {
+                // 被取消的请求不参与窗口调整
+                notifyAll();
+                return;
+            }
+            if (dropped) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (rttNanos > 0) {
+                update(rttNanos, observedInFlight);
+            }
+            notifyAll();
+        }
+
+        private void update(long rttNanos, int observedInFlight) {
+            long now = System.nanoTime();
+            if (samples == 0) {
+                minRtt = rttNanos;
+                windowMinRtt = rttNanos;
+                windowStart = now;
+            }
+            samples++;
+            minRtt = Math.min(minRtt, rttNanos);
+            windowMinRtt = Math.min(windowMinRtt, rttNanos);
+            // 每个窗口结束时用窗口内的最小RTT替换历史最小值，使其能跟随网络与服务端的变化
+            if (now - windowStart > MIN_RTT_WINDOW_NANOS) {
+                minRtt = windowMinRtt;
+                windowMinRtt = rttNanos;
+                windowStart = now;
+            }
+            // 每收到约一个窗口的响应(即大约一个RTT)调整一次，避免按单个请求调整导致窗口振荡
+            roundRttSum += rttNanos;
+            roundSamples++;
+            roundMaxInFlight = Math.max(roundMaxInFlight, observedInFlight);
+            if (roundSamples < Math.max(1, (int) limit)) {
+                return;
+            }
+            double shortRtt = roundRttSum / roundSamples;
+            int maxInFlight = roundMaxInFlight;
+            roundRttSum = 0;
+            roundSamples = 0;
+            roundMaxInFlight = 0;
+            if (samples <= RTT_WARM_UP_SAMPLES || maxInFlight < limit / 2) {
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * minRtt / shortRtt));
+            double newLimit = limit * gradient + Math.sqrt(limit);
+            newLimit = limit * (1 - smoothing) + newLimit * smoothing;
+            limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        }
+
+        synchronized int getLimit() {
+            return (int) limit;
+        }
+
+        synchronized int getInFlight() {
+            return inFlight;
+        }
+
+        synchronized int getQueueDepth() {
+            return queued;
+        }
+    }
+
+    public static class Permit {
+        private final HostLimit hostLimit;
+        private final long startNanos;
+        private boolean released;
+
+        Permit(HostLimit hostLimit) {
+            this.hostLimit = hostLimit;
+            this.startNanos = System.nanoTime();
+            this.released = false;
+        }
+
+        /**
+         * 归还并发名额并记录本次请求的RTT
+         * @param dropped 请求是否因服务端过载或网络错误失败
+         */
+        public void release(boolean dropped) {
+            if (released) {
+                return;
+            }
+            released = true;
+            hostLimit.release(System.nanoTime() - startNanos, dropped);
+        }
+
+        /**
+         * 请求被取消时归还并发名额，不记录RTT
+         */
+        public void cancel() {
+            if (released) {
+                return;
+            }
+            released = true;
+            hostLimit.release(-1, false);
+        }
+    }
+}
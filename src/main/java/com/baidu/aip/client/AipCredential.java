@@ -0,0 +1,322 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.client;
+
+import com.baidu.aip.auth.AipAccessToken;
+import com.baidu.aip.auth.ECredentialType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 一个API Key的认证状态：access_token、用户类型(AIP用户或公有云用户)的判定结果以及正在进行的刷新
+ *
+ * 进程内按API Key共享，使用相同API Key创建的AipOcr、AipFace、AipNlp等客户端共用同一个token，
+ * 只请求一次oauth，也只进行一次用户类型的判定。同一API Key以不同的Secret Key创建客户端时
+ * (如更换了密钥)，使用新的认证状态替换旧的。
+ *
+ * 指定了认证方式(AIP或BCE)时不再试探用户类型：AIP直接请求oauth，BCE直接使用公有云签名。
+ */
+public class AipCredential {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AipCredential.class);
+
+    private static final ConcurrentMap<String, AipCredential> REGISTRY = new ConcurrentHashMap<String, AipCredential>();
+
+    private final String apiKey;
+    private final String secretKey;
+    private final AtomicBoolean isAuthorized;
+    private final AtomicBoolean isBceKey;
+    private final AuthState state;
+    private volatile ECredentialType credentialType;
+    private volatile AipAccessToken token;
+    // 正在进行的token刷新，保证同一时间只有一个线程请求oauth
+    private final AtomicReference<FutureTask<Void>> tokenRefresh;
+    // 已调度的后台刷新
+    private final AtomicReference<ScheduledFuture<?>> scheduledRefresh;
+    // 使用该认证状态的客户端，只持有弱引用；后台刷新时使用其中任一仍存活的客户端
+    private final Map<BaseClient, Boolean> clients;
+
+    AipCredential(String apiKey, String secretKey) {
+        this.apiKey = apiKey;
+        this.secretKey = secretKey;
+        this.isAuthorized = new AtomicBoolean(false);
+        this.isBceKey = new AtomicBoolean(false);
+        this.state = new AuthState();
+        this.credentialType = ECredentialType.AUTO;
+        this.token = null;
+        this.tokenRefresh = new AtomicReference<FutureTask<Void>>();
+        this.scheduledRefresh = new AtomicReference<ScheduledFuture<?>>();
+        this.clients = Collections.synchronizedMap(new WeakHashMap<BaseClient, Boolean>());
+    }
+
+    /**
+     * @param apiKey API Key
+     * @param secretKey Secret Key
+     * @return 该API Key在进程内共享的认证状态
+     */
+    public static AipCredential get(String apiKey, String secretKey) {
+        String key = apiKey == null ? "" : apiKey;
+        while (true) {
+            AipCredential credential = REGISTRY.get(key);
+            if (credential != null && equals(credential.secretKey, secretKey)) {
+                return credential;
+            }
+            AipCredential created = new AipCredential(apiKey, secretKey);
+            if (credential == null) {
+                if (REGISTRY.putIfAbsent(key, created) == null) {
+                    return created;
+                }
+            } else if (REGISTRY.replace(key, credential, created)) {
+                LOGGER.info(String.format("secret key of api key[%s] changed, discard cached access_token", apiKey));
+                AipTokenRefresher.cancel(credential.scheduledRefresh.getAndSet(null));
+                return created;
+            }
+        }
+    }
+
+    /**
+     * 丢弃API Key共享的认证状态，之后创建的客户端重新获取token并判定用户类型，已创建的客户端不受影响
+     * @param apiKey API Key
+     */
+    public static void invalidate(String apiKey) {
+        AipCredential credential = REGISTRY.remove(apiKey == null ? "" : apiKey);
+        if (credential != null) {
+            AipTokenRefresher.cancel(credential.scheduledRefresh.getAndSet(null));
+        }
+    }
+
+    private static boolean equals(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    public String getApiKey() {
+        return apiKey;
+    }
+
+    /**
+     * @return 当前token，尚未获取时返回null
+     */
+    public AipAccessToken getToken() {
+        return token;
+    }
+
+    void setToken(AipAccessToken token) {
+        this.token = token;
+    }
+
+    /**
+     * @return 用户类型的判定状态
+     */
+    public EAuthState getAuthState() {
+        return state.getState();
+    }
+
+    public ECredentialType getCredentialType() {
+        return credentialType;
+    }
+
+    /**
+     * 指定认证方式，同一API Key的所有客户端生效
+     * AIP：尚未确认为AIP用户时回到初始状态，下一次请求直接获取token，不再以公有云签名试探；
+     * BCE：直接进入公有云用户状态，不请求oauth；AUTO：保留已判定的用户类型
+     * @param credentialType 认证方式
+     */
+    void setCredentialType(ECredentialType credentialType) {
+        synchronized (state) {
+            this.credentialType = credentialType;
+            switch (credentialType) {
+                case AIP: {
+                    if (state.getState() != EAuthState.STATE_TRUE_AIP_USER) {
+                        state.setState(EAuthState.STATE_UNKNOWN);
+                        isBceKey.set(false);
+                        isAuthorized.set(false);
+                    }
+                    break;
+                }
+                case BCE: {
+                    state.setState(EAuthState.STATE_TRUE_CLOUD_USER);
+                    isBceKey.set(true);
+                    isAuthorized.set(false);
+                    token = null;
+                    AipTokenRefresher.cancel(scheduledRefresh.getAndSet(null));
+                    break;
+                }
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * 恢复持久化的公有云用户判定结果
+     * @return 是否恢复，已经开始判定用户类型时不恢复
+     */
+    boolean restoreCloudUser() {
+        synchronized (state) {
+            if (state.getState() != EAuthState.STATE_UNKNOWN || token != null) {
+                return false;
+            }
+            state.setState(EAuthState.STATE_TRUE_CLOUD_USER);
+            isBceKey.set(true);
+            return true;
+        }
+    }
+
+    /**
+     * 恢复持久化的token：oauth获取的token在保存前已通过权限验证，恢复后直接视为AIP用户
+     * @param stored 持久化的token
+     * @return 是否恢复，已经开始判定用户类型时不恢复
+     */
+    boolean restore(AipAccessToken stored) {
+        synchronized (state) {
+            if (state.getState() != EAuthState.STATE_UNKNOWN || token != null) {
+                return false;
+            }
+            token = stored;
+            state.setState(EAuthState.STATE_TRUE_AIP_USER);
+            isBceKey.set(false);
+            isAuthorized.set(true);
+            return true;
+        }
+    }
+
+    AtomicBoolean getIsAuthorized() {
+        return isAuthorized;
+    }
+
+    AtomicBoolean getIsBceKey() {
+        return isBceKey;
+    }
+
+    AuthState getState() {
+        return state;
+    }
+
+    AtomicReference<FutureTask<Void>> getTokenRefresh() {
+        return tokenRefresh;
+    }
+
+    AtomicReference<ScheduledFuture<?>> getScheduledRefresh() {
+        return scheduledRefresh;
+    }
+
+    void addClient(BaseClient client) {
+        clients.put(client, Boolean.TRUE);
+    }
+
+    /**
+     * @return 一个仍存活且开启了后台刷新的客户端，用于发出oauth请求；没有时返回null
+     */
+    BaseClient getRefreshClient() {
+        synchronized (clients) {
+            for (BaseClient client : clients.keySet()) {
+                if (client != null && client.isTokenRefreshEnabled()) {
+                    return client;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 用户类型判定的状态机，由oauth结果与公有云签名请求的响应驱动；
+     * 指定为AIP时oauth成功即为AIP用户、失败保持初始状态，指定为BCE时不再转移
+     */
+    public class AuthState {
+
+        private volatile EAuthState state;
+
+        public AuthState() {
+            state = EAuthState.STATE_UNKNOWN;
+        }
+
+        public String toString() {
+            return state.name();
+        }
+
+        public EAuthState getState() {
+            return state;
+        }
+
+        public void setState(EAuthState state) {
+            this.state = state;
+        }
+
+        public synchronized void transfer(boolean value) {
+            if (credentialType == ECredentialType.AIP) {
+                if (value) {
+                    state = EAuthState.STATE_TRUE_AIP_USER;
+                    isBceKey.set(false);
+                    isAuthorized.set(true);
+                }
+                return;
+            }
+            if (credentialType == ECredentialType.BCE) {
+                return;
+            }
+            switch (state) {
+                case STATE_UNKNOWN: {
+                    if (value) {
+                        state = EAuthState.STATE_AIP_AUTH_OK;
+                        isBceKey.set(false);
+                    }
+                    else {
+                        state = EAuthState.STATE_TRUE_CLOUD_USER;
+                        isBceKey.set(true);
+                    }
+                    break;
+                }
+                case STATE_AIP_AUTH_OK: {
+                    if (value) {
+                        state = EAuthState.STATE_TRUE_AIP_USER;
+                        isBceKey.set(false);
+                        isAuthorized.set(true);
+                    }
+                    else {
+                        state = EAuthState.STATE_POSSIBLE_CLOUD_USER;
+                        isBceKey.set(true);
+                    }
+                    break;
+                }
+                case STATE_TRUE_AIP_USER:
+                    break;
+                case STATE_POSSIBLE_CLOUD_USER: {
+                    if (value) {
+                        state = EAuthState.STATE_TRUE_CLOUD_USER;
+                        isBceKey.set(true);
+                    }
+                    else {
+                        state = EAuthState.STATE_TRUE_AIP_USER;
+                        isBceKey.set(false);
+                        isAuthorized.set(true);
+                    }
+                    break;
+                }
+                case STATE_TRUE_CLOUD_USER:
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+}
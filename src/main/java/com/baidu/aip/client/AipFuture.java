@@ -0,0 +1,140 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.client;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 异步接口调用的结果，由请求完成的回调设置，不占用等待结果的线程
+ * 取消时中止该次调用正在进行的请求；结果设置后在设置结果的线程中回调callback，被取消时不回调
+ * @param <T> 接口返回类型
+ */
+public class AipFuture<T> implements Future<T> {
+
+    private static final int RUNNING = 0;
+    private static final int SUCCEEDED = 1;
+    private static final int FAILED = 2;
+    private static final int CANCELLED = 3;
+
+    private final AipCallOptions options;
+    private final AipCallback<T> callback;
+    private int state;
+    private T result;
+    private Throwable exception;
+
+    /**
+     * @param options 调用选项，取消时一同取消，可以为null
+     * @param callback 结果回调，可以为null
+     */
+    AipFuture(AipCallOptions options, AipCallback<T> callback) {
+        this.options = options;
+        this.callback = callback;
+        this.state = RUNNING;
+    }
+
+    /**
+     * @param result 接口返回结果
+     * @return 是否设置成功，已完成或已取消时返回false
+     */
+    boolean set(T result) {
+        if (!complete(SUCCEEDED, result, null)) {
+            return false;
+        }
+        if (callback != null) {
+            callback.onSuccess(result);
+        }
+        return true;
+    }
+
+    /**
+     * @param e 调用过程中抛出的异常
+     * @return 是否设置成功，已完成或已取消时返回false
+     */
+    boolean setException(Throwable e) {
+        if (!complete(FAILED, null, e)) {
+            return false;
+        }
+        if (callback != null) {
+            callback.onFailure(e);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        if (!complete(CANCELLED, null, null)) {
+            return false;
+        }
+        if (options != null) {
+            options.cancel();
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized boolean isCancelled() {
+        return state == CANCELLED;
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        return state != RUNNING;
+    }
+
+    @Override
+    public synchronized T get() throws InterruptedException, ExecutionException {
+        while (state == RUNNING) {
+            wait();
+        }
+        return report();
+    }
+
+    @Override
+    public synchronized T get(long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (state == RUNNING) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new TimeoutException();
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return report();
+    }
+
+    private T report() throws ExecutionException {
+        if (state == CANCELLED) {
+            throw new CancellationException();
+        }
+        if (state == FAILED) {
+            throw new ExecutionException(exception);
+        }
+        return result;
+    }
+
+    private synchronized boolean complete(int state, T result, Throwable exception) {
+        if (this.state != RUNNING) {
+            return false;
+        }
+        this.state = state;
+        this.result = result;
+        this.exception = exception;
+        notifyAll();
+        return true;
+    }
+}
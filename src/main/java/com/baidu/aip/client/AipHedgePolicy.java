@@ -0,0 +1,455 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.client;
+
+import com.baidu.aip.http.AipRequest;
+import com.baidu.aip.http.AipResponse;
+import com.baidu.aip.http.AipTransport;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对冲请求策略，用于降低只读接口的尾延迟
+ *
+ * 请求发出后，如果在最近延迟的percentile分位值内仍未返回，则在另一个连接上发出相同的请求，
+ * 采用先返回的结果并中止另一个请求。
+ * 1. 只对客户端声明的只读接口(如人脸搜索)生效，通过addEndpoint()可以进一步限定为其中的部分接口，非幂等接口永远不会对冲
+ * 2. 每个接口至少有minSamples个延迟样本后才开始对冲
+ * 3. 对冲预算限制额外流量：每个请求存入budgetRatio个令牌，每次对冲消耗1个，默认额外流量不超过10%
+ */
+public class AipHedgePolicy {
+
+    public static final double DEFAULT_PERCENTILE = 0.95;
+    public static final long DEFAULT_MIN_DELAY_MILLIS = 10;
+    public static final int DEFAULT_MIN_SAMPLES = 20;
+    public static final double DEFAULT_BUDGET_RATIO = 0.1;
+    public static final int DEFAULT_BUDGET_MAX_TOKENS = 50;
+
+    private static final int LATENCY_WINDOW_SIZE = 256;
+    private static final int TOKEN_SCALE = 1000;
+
+    private static final ScheduledExecutorService HEDGE_TIMER;
+
+    static {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "aip-hedge-timer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        HEDGE_TIMER = timer;
+    }
+
+    private final ConcurrentMap<String, LatencyWindow> latencies;
+    private final Set<String> endpoints;
+    private final AtomicLong budgetTokens;
+    private final AtomicLong hedgedRequests;
+    private final AtomicLong hedgeWins;
+    private volatile double percentile;
+    private volatile long minDelayMillis;
+    private volatile int minSamples;
+    private volatile double budgetRatio;
+    private volatile int budgetMaxTokens;
+
+    public AipHedgePolicy() {
+        this(DEFAULT_PERCENTILE);
+    }
+
+    /**
+     * @param percentile 触发对冲的延迟分位，如0.95表示请求耗时超过最近延迟的p95时对冲
+     */
+    public AipHedgePolicy(double percentile) {
+        this.latencies = new ConcurrentHashMap<String, LatencyWindow>();
+        this.endpoints = new CopyOnWriteArraySet<String>();
+        this.budgetTokens = new AtomicLong(0);
+        this.hedgedRequests = new AtomicLong(0);
+        this.hedgeWins = new AtomicLong(0);
+        this.percentile = percentile;
+        this.minDelayMillis = DEFAULT_MIN_DELAY_MILLIS;
+        this.minSamples = DEFAULT_MIN_SAMPLES;
+        this.budgetRatio = DEFAULT_BUDGET_RATIO;
+        this.budgetMaxTokens = DEFAULT_BUDGET_MAX_TOKENS;
+    }
+
+    /**
+     * 发送请求，超过对冲延迟仍未返回时发出对冲请求
+     * @param transport 传输层
+     * @param request 请求，必须已完成签名
+     * @param executor 发送对冲请求的线程池
+     * @return 先成功返回的响应
+     */
+    public AipResponse execute(AipTransport transport, AipRequest request, Executor executor) {
+        return execute(transport, transport, request, executor);
+    }
+
+    /**
+     * 发送请求，超过对冲延迟仍未返回时发出对冲请求
+     * 原请求在调用线程上执行，只有对冲请求占用线程池，线程池已满时不会阻塞原请求
+     * @param transport 发送原请求的传输层
+     * @param hedgeTransport 发送对冲请求的传输层，调用方可以借此让对冲请求同样经过限流与并发限制；
+     *                       执行时线程上绑定了调用方的AipCallOptions
+     * @param request 请求，必须已完成签名
+     * @param executor 发送对冲请求的线程池
+     * @return 先成功返回的响应
+     */
+    public AipResponse execute(AipTransport transport, AipTransport hedgeTransport, AipRequest request,
+                               Executor executor) {
+        String url = request.getUri().toString();
+        LatencyWindow window = getWindow(url);
+        onRequest();
+        long delayMillis = window.getHedgeDelayMillis();
+        long primaryStart = System.nanoTime();
+        if (delayMillis < 0) {
+            AipResponse response = transport.execute(request);
+            window.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - primaryStart));
+            return response;
+        }
+
+        if (!request.isStreamingBody()) {
+            // 两个请求共享编码好的body
+            request.getBodyBytes();
+        }
+        // 使用副本发送，中止落后的请求不影响调用方之后重试原请求
+        // 副本同样登记到调用选项中，取消或超时时一并中止
+        AipCallOptions options = AipCallOptions.current();
+        Attempt primary = new Attempt(transport, request.copy(), options);
+        Hedge hedge = new Hedge(hedgeTransport, request, options, primary, executor);
+        ScheduledFuture<?> timer = HEDGE_TIMER.schedule(hedge, delayMillis, TimeUnit.MILLISECONDS);
+        try {
+            primary.call();
+        } catch (RuntimeException e) {
+            Attempt second = hedge.close();
+            if (second != null) {
+                second.abortUnlessDone();
+            }
+            primary.abortUnlessDone();
+            throw e;
+        } finally {
+            timer.cancel(false);
+        }
+        Attempt winner = primary;
+        Attempt second = hedge.close();
+        if (second != null) {
+            if (primary.isSuccess()) {
+                second.abortUnlessDone();
+            } else {
+                // 原请求失败或被先成功的对冲请求中止时，等待对冲请求的结果
+                try {
+                    second.await();
+                    if (second.isSuccess() || primary.response.getStatus() == 0) {
+                        winner = second;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    second.abortUnlessDone();
+                }
+            }
+        }
+        primary.abortUnlessDone();
+        if (winner == second) {
+            hedgeWins.incrementAndGet();
+        }
+        // 记录调用方实际等待的时间，而不是先返回的请求自身的耗时
+        window.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - primaryStart));
+        return winner.response;
+    }
+
+    /**
+     * @param url 接口地址
+     * @return 当前的对冲延迟(毫秒)，样本不足时返回-1
+     */
+    public long getHedgeDelayMillis(String url) {
+        LatencyWindow window = latencies.get(url);
+        return window == null ? -1 : window.getHedgeDelayMillis();
+    }
+
+    /**
+     * 只对指定的接口对冲，未添加任何接口时对客户端声明的全部只读接口对冲；不在只读接口中的接口不会生效
+     * @param url 接口地址
+     */
+    public void addEndpoint(String url) {
+        endpoints.add(url);
+    }
+
+    public void addEndpoints(String... urls) {
+        endpoints.addAll(Arrays.asList(urls));
+    }
+
+    public void removeEndpoint(String url) {
+        endpoints.remove(url);
+    }
+
+    /**
+     * @param url 客户端声明的只读接口
+     * @return 该接口是否在本策略限定的范围内
+     */
+    public boolean isHedgedEndpoint(String url) {
+        return endpoints.isEmpty() || endpoints.contains(url);
+    }
+
+    private void onRequest() {
+        long deposit = (long) (budgetRatio * TOKEN_SCALE);
+        long max = (long) budgetMaxTokens * TOKEN_SCALE;
+        while (true) {
+            long current = budgetTokens.get();
+            long next = Math.min(max, current + deposit);
+            if (next == current || budgetTokens.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    private boolean tryAcquireHedge() {
+        while (true) {
+            long current = budgetTokens.get();
+            if (current < TOKEN_SCALE) {
+                return false;
+            }
+            if (budgetTokens.compareAndSet(current, current - TOKEN_SCALE)) {
+                return true;
+            }
+        }
+    }
+
+    private LatencyWindow getWindow(String url) {
+        LatencyWindow window = latencies.get(url);
+        if (window == null) {
+            LatencyWindow created = new LatencyWindow();
+            window = latencies.putIfAbsent(url, created);
+            if (window == null) {
+                window = created;
+            }
+        }
+        return window;
+    }
+
+    /**
+     * @return 已发出的对冲请求数
+     */
+    public long getHedgedRequests() {
+        return hedgedRequests.get();
+    }
+
+    /**
+     * @return 对冲请求先于原请求返回的次数
+     */
+    public long getHedgeWins() {
+        return hedgeWins.get();
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public void setPercentile(double percentile) {
+        this.percentile = percentile;
+    }
+
+    public long getMinDelayMillis() {
+        return minDelayMillis;
+    }
+
+    public void setMinDelayMillis(long minDelayMillis) {
+        this.minDelayMillis = minDelayMillis;
+    }
+
+    public int getMinSamples() {
+        return minSamples;
+    }
+
+    public void setMinSamples(int minSamples) {
+        this.minSamples = minSamples;
+    }
+
+    public double getBudgetRatio() {
+        return budgetRatio;
+    }
+
+    public void setBudgetRatio(double budgetRatio) {
+        this.budgetRatio = budgetRatio;
+    }
+
+    public int getBudgetMaxTokens() {
+        return budgetMaxTokens;
+    }
+
+    public void setBudgetMaxTokens(int budgetMaxTokens) {
+        this.budgetMaxTokens = budgetMaxTokens;
+    }
+
+    /**
+     * 最近LATENCY_WINDOW_SIZE个请求的延迟，分位值每16个样本重新计算一次
+     */
+    private class LatencyWindow {
+        private final long[] samples = new long[LATENCY_WINDOW_SIZE];
+        private int next;
+        private int count;
+        private int sinceUpdate;
+        private long delayMillis = -1;
+
+        synchronized void record(long millis) {
+            samples[next] = millis;
+            next = (next + 1) % samples.length;
+            if (count < samples.length) {
+                count++;
+            }
+            if (++sinceUpdate >= 16 || delayMillis < 0) {
+                sinceUpdate = 0;
+                delayMillis = computeDelay();
+            }
+        }
+
+        synchronized long getHedgeDelayMillis() {
+            return delayMillis;
+        }
+
+        private long computeDelay() {
+            if (count < minSamples) {
+                return -1;
+            }
+            long[] sorted = new long[count];
+            System.arraycopy(samples, 0, sorted, 0, count);
+            Arrays.sort(sorted);
+            int index = Math.min(count - 1, (int) Math.ceil(percentile * count) - 1);
+            return Math.max(minDelayMillis, sorted[Math.max(0, index)]);
+        }
+    }
+
+    /**
+     * 到达对冲延迟时由定时器触发，原请求仍未完成且预算允许时在线程池中发出对冲请求
+     */
+    private class Hedge implements Runnable {
+        private final AipTransport transport;
+        private final AipRequest request;
+        private final AipCallOptions options;
+        private final Attempt primary;
+        private final Executor executor;
+        private Attempt attempt;
+        private boolean closed;
+
+        Hedge(AipTransport transport, AipRequest request, AipCallOptions options, Attempt primary,
+              Executor executor) {
+            this.transport = transport;
+            this.request = request;
+            this.options = options;
+            this.primary = primary;
+            this.executor = executor;
+        }
+
+        @Override
+        public synchronized void run() {
+            if (closed || primary.done || !tryAcquireHedge()) {
+                return;
+            }
+            final Attempt hedge = new Attempt(transport, request.copy(), options);
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (options != null) {
+                            options.attach();
+                        }
+                        try {
+                            hedge.call();
+                        } finally {
+                            if (options != null) {
+                                options.detach();
+                            }
+                        }
+                        if (hedge.isSuccess()) {
+                            // 对冲请求先成功时中止原请求，调用线程随即返回
+                            primary.abortUnlessDone();
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                hedge.abortUnlessDone();
+                return;
+            }
+            hedgedRequests.incrementAndGet();
+            attempt = hedge;
+        }
+
+        /**
+         * 原请求结束后调用，此后不再发出对冲请求
+         * @return 已发出的对冲请求，没有时返回null
+         */
+        synchronized Attempt close() {
+            closed = true;
+            return attempt;
+        }
+    }
+
+    private static class Attempt {
+        private final AipTransport transport;
+        private final AipRequest request;
+        private final AipCallOptions options;
+        private final CountDownLatch finished;
+        private volatile boolean done;
+        private volatile AipResponse response;
+
+        Attempt(AipTransport transport, AipRequest request, AipCallOptions options) {
+            this.transport = transport;
+            this.request = request;
+            this.options = options;
+            this.finished = new CountDownLatch(1);
+            if (options != null) {
+                options.register(request);
+            }
+        }
+
+        void call() {
+            try {
+                response = transport.execute(request);
+            } finally {
+                if (response == null) {
+                    response = new AipResponse();
+                }
+                done = true;
+                finished.countDown();
+            }
+        }
+
+        void await() throws InterruptedException {
+            finished.await();
+        }
+
+        boolean isSuccess() {
+            return done && !request.isAborted() && response.getStatus() == 200;
+        }
+
+        void abortUnlessDone() {
+            if (options != null) {
+                options.unregister(request);
+            }
+            if (!done) {
+                request.abort();
+            }
+        }
+    }
+}
@@ -0,0 +1,463 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.client;
+
+import com.baidu.aip.util.AipClientConst;
+
+import java.util.Calendar;
+import java.util.LinkedList;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按接口地址划分的令牌桶QPS限流器
+ *
+ * 百度AI开放平台的QPS配额按应用(即API Key)和接口分别计算，超限时返回错误码18。
+ * 在本地按相同粒度限流，可以避免突发流量下发出注定失败的请求。使用同一API Key的所有客户端实例
+ * 通过getShared()共享同一个限流器，从而共享配额。
+ *
+ * 令牌以qps的速率匀速生成，桶中最多保存burst个令牌；令牌不足时请求排队等待，等待时间超过调用方允许的时长
+ * 则直接拒绝，不消耗令牌。未配置QPS的接口不限流。
+ *
+ * 排队的请求按优先级获得令牌：INTERACTIVE请求优先，BATCH请求使用剩余的配额；两种请求都在等待时，
+ * BATCH请求至少获得minBatchShare比例的令牌，不会被持续的INTERACTIVE流量饿死。同一优先级内先到先得。
+ *
+ * 限流器同时根据服务端的反馈调整:
+ * 1. 收到错误码18(QPS超限)时，以最近被服务端接受的请求速率(即服务端的实际上限)乘以0.9作为该接口学习到的
+ *    QPS上限(每秒最多下调一次)，之后每秒没有再超限时上调5%，即AIMD；实际生效的是学习到的上限与手动配置的上限中较小者
+ * 2. 收到错误码17(日配额用尽)时，该接口的调用在配额重置(北京时间零点)前直接返回错误，不再发出请求
+ */
+public class AipRateLimiter {
+
+    public static final double DEFAULT_MIN_BATCH_SHARE = 0.1;
+
+    private static final double MIN_LEARNED_QPS = 0.5;
+    private static final double LEARNED_DECREASE_RATIO = 0.9;
+    private static final double LEARNED_INCREASE_RATIO = 0.05;
+    private static final long FEEDBACK_INTERVAL_MILLIS = 1000;
+    // 日配额按北京时间零点重置
+    private static final TimeZone QUOTA_TIME_ZONE = TimeZone.getTimeZone("GMT+08:00");
+
+    private static final ConcurrentMap<String, AipRateLimiter> SHARED =
+            new ConcurrentHashMap<String, AipRateLimiter>();
+
+    private final ConcurrentMap<String, TokenBucket> buckets;
+    private final ConcurrentMap<String, Feedback> feedbacks;
+    private volatile double defaultQps;
+    private volatile double minBatchShare;
+
+    public AipRateLimiter() {
+        this.buckets = new ConcurrentHashMap<String, TokenBucket>();
+        this.feedbacks = new ConcurrentHashMap<String, Feedback>();
+        this.defaultQps = 0;
+        this.minBatchShare = DEFAULT_MIN_BATCH_SHARE;
+    }
+
+    /**
+     * @param apiKey API Key
+     * @return 该API Key对应的共享限流器
+     */
+    public static AipRateLimiter getShared(String apiKey) {
+        AipRateLimiter limiter = SHARED.get(apiKey);
+        if (limiter == null) {
+            AipRateLimiter created = new AipRateLimiter();
+            limiter = SHARED.putIfAbsent(apiKey, created);
+            if (limiter == null) {
+                limiter = created;
+            }
+        }
+        return limiter;
+    }
+
+    /**
+     * 设置接口的QPS上限，突发容量为1秒的配额
+     * @param url 接口地址，如OcrConsts.GENERAL_BASIC
+     * @param qps 每秒请求数，不大于0表示不限流
+     */
+    public void setQps(String url, double qps) {
+        setQps(url, qps, Math.max(1, (int) qps));
+    }
+
+    /**
+     * 设置接口的QPS上限
+     * @param url 接口地址
+     * @param qps 每秒请求数，不大于0表示不限流
+     * @param burst 空闲时最多积累的令牌数
+     */
+    public void setQps(String url, double qps, int burst) {
+        Feedback feedback = feedbacks.get(url);
+        double learned = feedback == null ? 0 : feedback.getLearnedQps();
+        if (qps <= 0 && learned <= 0) {
+            buckets.remove(url);
+            return;
+        }
+        TokenBucket bucket = new TokenBucket(Math.max(0, qps), burst);
+        bucket.setLearnedQps(learned);
+        buckets.put(url, bucket);
+    }
+
+    /**
+     * @param url 接口地址
+     * @return 接口的QPS上限，0表示不限流
+     */
+    public double getQps(String url) {
+        TokenBucket bucket = getBucket(url);
+        return bucket == null ? 0 : bucket.getQps();
+    }
+
+    /**
+     * @param url 接口地址
+     * @return 根据服务端QPS超限错误学习到的上限，0表示没有
+     */
+    public double getLearnedQps(String url) {
+        Feedback feedback = feedbacks.get(url);
+        return feedback == null ? 0 : feedback.getLearnedQps();
+    }
+
+    /**
+     * 记录服务端的响应，根据QPS超限与日配额错误调整限流
+     * @param url 接口地址
+     * @param errorCode 响应中的error_code，没有时为0
+     */
+    public void onResponse(String url, int errorCode) {
+        Feedback feedback = feedbacks.get(url);
+        if (feedback == null) {
+            Feedback created = new Feedback();
+            feedback = feedbacks.putIfAbsent(url, created);
+            if (feedback == null) {
+                feedback = created;
+            }
+        }
+        long now = System.currentTimeMillis();
+        if (errorCode == AipClientConst.DAILY_LIMIT_ERROR_CODE) {
+            feedback.dailyLimitUntil = nextQuotaReset(now);
+            return;
+        }
+        double learned = feedback.onResponse(errorCode == AipClientConst.QPS_LIMIT_ERROR_CODE, now);
+        if (learned < 0) {
+            return;
+        }
+        TokenBucket bucket = buckets.get(url);
+        if (bucket == null && learned > 0) {
+            TokenBucket created = new TokenBucket(Math.max(0, defaultQps), Math.max(1, (int) defaultQps));
+            bucket = buckets.putIfAbsent(url, created);
+            if (bucket == null) {
+                bucket = created;
+            }
+        }
+        if (bucket != null) {
+            bucket.setLearnedQps(learned);
+        }
+    }
+
+    /**
+     * @param url 接口地址
+     * @return 接口的日配额是否已用尽且尚未重置
+     */
+    public boolean isDailyLimitReached(String url) {
+        Feedback feedback = feedbacks.get(url);
+        return feedback != null && feedback.dailyLimitUntil > System.currentTimeMillis();
+    }
+
+    /**
+     * 手动解除接口的日配额熔断，如在控制台提升配额后
+     * @param url 接口地址
+     */
+    public void resetDailyLimit(String url) {
+        Feedback feedback = feedbacks.get(url);
+        if (feedback != null) {
+            feedback.dailyLimitUntil = 0;
+        }
+    }
+
+    private static long nextQuotaReset(long now) {
+        Calendar c = Calendar.getInstance(QUOTA_TIME_ZONE);
+        c.setTimeInMillis(now);
+        c.add(Calendar.DATE, 1);
+        c.set(Calendar.HOUR_OF_DAY, 0);
+        c.set(Calendar.MINUTE, 0);
+        c.set(Calendar.SECOND, 0);
+        c.set(Calendar.MILLISECOND, 0);
+        return c.getTimeInMillis();
+    }
+
+    /**
+     * 设置未单独配置的接口的QPS上限，每个接口各自计算
+     * @param qps 每秒请求数，不大于0表示不限流
+     */
+    public void setDefaultQps(double qps) {
+        this.defaultQps = qps;
+    }
+
+    public double getDefaultQps() {
+        return defaultQps;
+    }
+
+    /**
+     * 以INTERACTIVE优先级获取一个令牌
+     * @param url 接口地址
+     * @param mode 令牌不足时的处理方式
+     * @param timeoutMillis TIMEOUT模式下的最长等待时间(毫秒)
+     * @return 是否获得令牌
+     * @throws InterruptedException 等待过程中线程被中断
+     */
+    public boolean acquire(String url, ERateLimitMode mode, long timeoutMillis) throws InterruptedException {
+        return acquire(url, EPriority.INTERACTIVE, mode, timeoutMillis);
+    }
+
+    /**
+     * 获取一个令牌
+     * @param url 接口地址
+     * @param priority 请求优先级
+     * @param mode 令牌不足时的处理方式
+     * @param timeoutMillis TIMEOUT模式下的最长等待时间(毫秒)
+     * @return 是否获得令牌
+     * @throws InterruptedException 等待过程中线程被中断
+     */
+    public boolean acquire(String url, EPriority priority, ERateLimitMode mode, long timeoutMillis)
+            throws InterruptedException {
+        TokenBucket bucket = getBucket(url);
+        if (bucket == null || bucket.getQps() <= 0) {
+            return true;
+        }
+        long maxWaitNanos;
+        if (mode == ERateLimitMode.FAIL_FAST) {
+            maxWaitNanos = 0;
+        } else if (mode == ERateLimitMode.TIMEOUT) {
+            maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeoutMillis));
+        } else {
+            maxWaitNanos = Long.MAX_VALUE;
+        }
+        return bucket.acquire(priority, maxWaitNanos);
+    }
+
+    /**
+     * @param url 接口地址
+     * @param priority 优先级
+     * @return 该接口上等待令牌的请求数
+     */
+    public int getQueueDepth(String url, EPriority priority) {
+        TokenBucket bucket = buckets.get(url);
+        return bucket == null ? 0 : bucket.getQueueDepth(priority);
+    }
+
+    public double getMinBatchShare() {
+        return minBatchShare;
+    }
+
+    /**
+     * 两种优先级的请求都在等待时，BATCH请求至少获得的令牌比例，用于防止批量任务被饿死
+     * @param minBatchShare 0到1之间，默认0.1
+     */
+    public void setMinBatchShare(double minBatchShare) {
+        this.minBatchShare = minBatchShare;
+    }
+
+    private TokenBucket getBucket(String url) {
+        TokenBucket bucket = buckets.get(url);
+        if (bucket != null) {
+            return bucket;
+        }
+        double qps = defaultQps;
+        if (qps <= 0) {
+            return null;
+        }
+        TokenBucket created = new TokenBucket(qps, Math.max(1, (int) qps));
+        bucket = buckets.putIfAbsent(url, created);
+        return bucket == null ? created : bucket;
+    }
+
+    private class TokenBucket {
+        private final double configuredQps;
+        private final int burst;
+        private volatile double qps;
+        private double intervalNanos;
+        private double maxPermits;
+        private double storedPermits;
+        private long lastRefill;
+        private final LinkedList<Object> interactiveWaiters;
+        private final LinkedList<Object> batchWaiters;
+        // BATCH请求等待期间已连续发放给INTERACTIVE请求的令牌数
+        private int grantsSinceBatch;
+
+        TokenBucket(double qps, int burst) {
+            this.configuredQps = qps;
+            this.burst = Math.max(1, burst);
+            this.lastRefill = System.nanoTime();
+            this.interactiveWaiters = new LinkedList<Object>();
+            this.batchWaiters = new LinkedList<Object>();
+            this.grantsSinceBatch = 0;
+            setRate(qps);
+            this.storedPermits = this.maxPermits;
+        }
+
+        double getQps() {
+            return qps;
+        }
+
+        /**
+         * @param learnedQps 学习到的上限，0表示没有，实际速率取其与手动配置的上限中较小者
+         */
+        synchronized void setLearnedQps(double learnedQps) {
+            refill(System.nanoTime());
+            double rate = configuredQps;
+            if (learnedQps > 0 && (rate <= 0 || learnedQps < rate)) {
+                rate = learnedQps;
+            }
+            setRate(rate);
+            storedPermits = Math.min(storedPermits, maxPermits);
+            notifyAll();
+        }
+
+        private void setRate(double rate) {
+            this.qps = rate;
+            this.intervalNanos = rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+            this.maxPermits = Math.max(1, Math.min(burst, (int) rate));
+        }
+
+        synchronized boolean acquire(EPriority priority, long maxWaitNanos) throws InterruptedException {
+            long start = System.nanoTime();
+            refill(start);
+            if (storedPermits >= 1 && interactiveWaiters.isEmpty() && batchWaiters.isEmpty()) {
+                storedPermits -= 1;
+                return true;
+            }
+            boolean batch = priority == EPriority.BATCH;
+            LinkedList<Object> queue = batch ? batchWaiters : interactiveWaiters;
+            Object waiter = new Object();
+            queue.addLast(waiter);
+            try {
+                while (true) {
+                    long now = System.nanoTime();
+                    refill(now);
+                    if (storedPermits >= 1 && isNext(waiter)) {
+                        storedPermits -= 1;
+                        if (batch) {
+                            grantsSinceBatch = 0;
+                        } else if (!batchWaiters.isEmpty()) {
+                            grantsSinceBatch++;
+                        }
+                        return true;
+                    }
+                    long remaining = maxWaitNanos == Long.MAX_VALUE ? Long.MAX_VALUE : maxWaitNanos - (now - start);
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    // 有令牌但未轮到时等待前面的请求取走令牌后唤醒
+                    long waitNanos = storedPermits >= 1 ? remaining
+                            : (long) Math.ceil((1 - storedPermits) * intervalNanos);
+                    TimeUnit.NANOSECONDS.timedWait(this, Math.max(1, Math.min(waitNanos, remaining)));
+                }
+            } finally {
+                queue.remove(waiter);
+                notifyAll();
+            }
+        }
+
+        /**
+         * INTERACTIVE请求优先；BATCH请求在没有INTERACTIVE请求等待，或已连续让出足够多令牌时获得令牌
+         */
+        private boolean isNext(Object waiter) {
+            double share = minBatchShare;
+            boolean batchDue = !batchWaiters.isEmpty() && share > 0 && grantsSinceBatch >= Math.ceil(1 / share) - 1;
+            if (!interactiveWaiters.isEmpty() && interactiveWaiters.getFirst() == waiter) {
+                return !batchDue;
+            }
+            if (!batchWaiters.isEmpty() && batchWaiters.getFirst() == waiter) {
+                return interactiveWaiters.isEmpty() || batchDue;
+            }
+            return false;
+        }
+
+        private void refill(long now) {
+            if (intervalNanos <= 0) {
+                storedPermits = maxPermits;
+                lastRefill = now;
+            } else if (now > lastRefill) {
+                storedPermits = Math.min(maxPermits, storedPermits + (now - lastRefill) / intervalNanos);
+                lastRefill = now;
+            }
+        }
+
+        synchronized int getQueueDepth(EPriority priority) {
+            return priority == EPriority.BATCH ? batchWaiters.size() : interactiveWaiters.size();
+        }
+    }
+
+    /**
+     * 接口的服务端反馈：实际发送速率、学习到的QPS上限与日配额状态
+     */
+    private static class Feedback {
+        private long windowStart;
+        private int windowCount;
+        private int windowAccepted;
+        private double measuredQps;
+        private double acceptedQps;
+        private double learnedQps;
+        private long lastChange;
+        private long lastLimited;
+        private volatile long dailyLimitUntil;
+
+        Feedback() {
+            this.windowStart = System.currentTimeMillis();
+        }
+
+        synchronized double getLearnedQps() {
+            return learnedQps;
+        }
+
+        /**
+         * @return 调整后的学习上限(0表示不再限制)，未调整时返回-1
+         */
+        synchronized double onResponse(boolean qpsLimited, long now) {
+            long elapsed = now - windowStart;
+            if (elapsed >= FEEDBACK_INTERVAL_MILLIS) {
+                measuredQps = windowCount * 1000.0 / elapsed;
+                acceptedQps = windowAccepted * 1000.0 / elapsed;
+                windowStart = now;
+                windowCount = 0;
+                windowAccepted = 0;
+            }
+            windowCount++;
+            if (!qpsLimited) {
+                windowAccepted++;
+            }
+            if (qpsLimited) {
+                long previous = lastLimited;
+                lastLimited = now;
+                if (now - previous < FEEDBACK_INTERVAL_MILLIS) {
+                    return -1;
+                }
+                // 以最近被接受的请求速率为基准乘性下调，尚无完整统计周期时按一个周期估算
+                double accepted = acceptedQps > 0 ? acceptedQps : windowAccepted * 1000.0 / FEEDBACK_INTERVAL_MILLIS;
+                double base = learnedQps > 0 ? Math.min(learnedQps, accepted) : accepted;
+                learnedQps = Math.max(MIN_LEARNED_QPS, base * LEARNED_DECREASE_RATIO);
+                lastChange = now;
+                return learnedQps;
+            }
+            if (learnedQps <= 0 || now - lastChange < FEEDBACK_INTERVAL_MILLIS
+                    || now - lastLimited < FEEDBACK_INTERVAL_MILLIS) {
+                return -1;
+            }
+            learnedQps += Math.max(MIN_LEARNED_QPS, learnedQps * LEARNED_INCREASE_RATIO);
+            lastChange = now;
+            if (learnedQps > measuredQps * 2 + 1) {
+                // 实际速率远低于学习到的上限，不再限制
+                learnedQps = 0;
+            }
+            return learnedQps;
+        }
+    }
+}
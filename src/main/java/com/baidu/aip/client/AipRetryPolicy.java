@@ -0,0 +1,232 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.client;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 请求重试策略
+ *
+ * 1. 网络错误(status为0)与可重试的HTTP状态码只对幂等接口重试，客户端声明的非幂等接口(如人脸库、图库的增删改)不重试
+ * 2. 服务端明确返回的可重试错误码(如服务暂不可用、QPS超限)表示请求未被处理，对所有接口重试
+ * 3. 重试间隔为指数退避加full jitter，即在[0, min(maxDelay, baseDelay * 2^n))内随机取值，避免多个客户端同时重试
+ * 4. 重试预算限制重试流量：每个请求存入budgetRatio个令牌，每次重试消耗1个，令牌不足时不再重试
+ *
+ * 同一个策略对象可以被多个客户端共享，此时它们共享同一个重试预算。
+ */
+public class AipRetryPolicy {
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final long DEFAULT_BASE_DELAY_MILLIS = 100;
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 5000;
+    public static final double DEFAULT_BUDGET_RATIO = 0.1;
+    public static final int DEFAULT_BUDGET_MIN_TOKENS = 10;
+    public static final int DEFAULT_BUDGET_MAX_TOKENS = 100;
+
+    // 2: Service temporarily unavailable, 18: Open api qps request limit reached, 282000: internal error
+    private static final Integer[] DEFAULT_RETRYABLE_ERROR_CODES = {2, 18, 282000};
+    private static final Integer[] DEFAULT_RETRYABLE_STATUS = {0, 429, 500, 502, 503, 504};
+
+    private static final int TOKEN_SCALE = 1000;
+
+    private static final AipRetryPolicy OAUTH_DEFAULT = new AipRetryPolicy();
+
+    private final Random random;
+    private volatile int maxAttempts;
+    private volatile long baseDelayMillis;
+    private volatile long maxDelayMillis;
+    private volatile double budgetRatio;
+    private volatile int budgetMaxTokens;
+    private final AtomicLong budgetTokens;
+    private final Set<Integer> retryableStatusCodes;
+    private final Set<Integer> retryableErrorCodes;
+    private final Set<String> nonIdempotentEndpoints;
+
+    public AipRetryPolicy() {
+        this(DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_DELAY_MILLIS, DEFAULT_MAX_DELAY_MILLIS);
+    }
+
+    public AipRetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        this.random = new Random();
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.budgetRatio = DEFAULT_BUDGET_RATIO;
+        this.budgetMaxTokens = DEFAULT_BUDGET_MAX_TOKENS;
+        this.budgetTokens = new AtomicLong((long) DEFAULT_BUDGET_MIN_TOKENS * TOKEN_SCALE);
+        this.retryableStatusCodes = new CopyOnWriteArraySet<Integer>(Arrays.asList(DEFAULT_RETRYABLE_STATUS));
+        this.retryableErrorCodes = new CopyOnWriteArraySet<Integer>(Arrays.asList(DEFAULT_RETRYABLE_ERROR_CODES));
+        this.nonIdempotentEndpoints = new CopyOnWriteArraySet<String>();
+    }
+
+    /**
+     * @return 未配置重试策略时获取access_token使用的策略
+     */
+    public static AipRetryPolicy getOAuthDefault() {
+        return OAUTH_DEFAULT;
+    }
+
+    /**
+     * 每个新请求(不含重试)调用一次，向重试预算中存入令牌
+     */
+    public void onRequest() {
+        long deposit = (long) (budgetRatio * TOKEN_SCALE);
+        long max = (long) budgetMaxTokens * TOKEN_SCALE;
+        while (true) {
+            long current = budgetTokens.get();
+            long next = Math.min(max, current + deposit);
+            if (next == current || budgetTokens.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 从重试预算中取出一次重试的令牌
+     * @return 预算不足时返回false
+     */
+    public boolean tryAcquireRetry() {
+        while (true) {
+            long current = budgetTokens.get();
+            if (current < TOKEN_SCALE) {
+                return false;
+            }
+            if (budgetTokens.compareAndSet(current, current - TOKEN_SCALE)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param retry 第几次重试，从1开始
+     * @return 重试前等待的时间(毫秒)
+     */
+    public long getBackoffMillis(int retry) {
+        long maxDelay = maxDelayMillis;
+        long cap = baseDelayMillis << Math.min(retry - 1, 30);
+        if (cap <= 0 || cap > maxDelay) {
+            cap = maxDelay;
+        }
+        if (cap <= 0) {
+            return 0;
+        }
+        return (long) (random.nextDouble() * cap);
+    }
+
+    /**
+     * 判断一次失败的HTTP请求是否可以重试
+     * @param status HTTP状态码，网络错误时为0
+     * @param idempotent 接口是否幂等
+     * @return 是否可以重试
+     */
+    public boolean isRetryableStatus(int status, boolean idempotent) {
+        return idempotent && retryableStatusCodes.contains(status);
+    }
+
+    /**
+     * @param errorCode 服务端返回的error_code
+     * @return 是否为表示请求未被处理、可以重试的错误码
+     */
+    public boolean isRetryableErrorCode(int errorCode) {
+        return retryableErrorCodes.contains(errorCode);
+    }
+
+    /**
+     * @param url 接口地址
+     * @return 是否被声明为非幂等接口
+     */
+    public boolean isNonIdempotentEndpoint(String url) {
+        return nonIdempotentEndpoints.contains(url);
+    }
+
+    /**
+     * 声明非幂等接口，网络错误时不重试
+     * @param url 接口地址
+     */
+    public void addNonIdempotentEndpoint(String url) {
+        nonIdempotentEndpoints.add(url);
+    }
+
+    public void addRetryableErrorCode(int errorCode) {
+        retryableErrorCodes.add(errorCode);
+    }
+
+    public void removeRetryableErrorCode(int errorCode) {
+        retryableErrorCodes.remove(errorCode);
+    }
+
+    public void addRetryableStatusCode(int status) {
+        retryableStatusCodes.add(status);
+    }
+
+    public void removeRetryableStatusCode(int status) {
+        retryableStatusCodes.remove(status);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public long getBaseDelayMillis() {
+        return baseDelayMillis;
+    }
+
+    public void setBaseDelayMillis(long baseDelayMillis) {
+        this.baseDelayMillis = baseDelayMillis;
+    }
+
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    public void setMaxDelayMillis(long maxDelayMillis) {
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    public double getBudgetRatio() {
+        return budgetRatio;
+    }
+
+    /**
+     * @param budgetRatio 重试流量占请求流量的最大比例，如0.1表示每10个请求最多重试1次
+     */
+    public void setBudgetRatio(double budgetRatio) {
+        this.budgetRatio = budgetRatio;
+    }
+
+    public int getBudgetMaxTokens() {
+        return budgetMaxTokens;
+    }
+
+    /**
+     * @param budgetMaxTokens 重试预算最多累积的令牌数，即突发情况下最多连续重试的次数
+     */
+    public void setBudgetMaxTokens(int budgetMaxTokens) {
+        this.budgetMaxTokens = budgetMaxTokens;
+    }
+
+    /**
+     * @return 当前剩余的重试次数预算
+     */
+    public long getBudgetTokens() {
+        return budgetTokens.get() / TOKEN_SCALE;
+    }
+}
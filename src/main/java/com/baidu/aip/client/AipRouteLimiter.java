@@ -0,0 +1,192 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.client;
+
+import com.baidu.aip.http.AipRequest;
+import com.baidu.aip.util.AipClientConfiguration;
+
+import java.net.Proxy;
+import java.net.URI;
+import java.util.HashMap;
+
+/**
+ * 按 (scheme, host, port, proxy) 划分路由，限制每个路由及全部路由上同时进行的请求数
+ *
+ * 本类只限制并发请求数，不持有也不复用socket：HTTP/1.1连接的复用由JDK HttpURLConnection的keep-alive缓存完成，
+ * 需要时可以调用AipHttpClient.setJdkMaxConnections()调整缓存大小。默认不启用，需要时通过
+ * BaseClient.setRouteLimiter()设置，多个客户端可以共享同一个实例。
+ * 名额不足时最多等待maxWaitMillis(默认5秒，不超过调用的截止时间)，仍未获得则返回SDK119错误。
+ */
+public class AipRouteLimiter {
+
+    public static final int DEFAULT_MAX_PER_ROUTE = 20;
+    public static final int DEFAULT_MAX_TOTAL = 200;
+    public static final long DEFAULT_MAX_WAIT_MILLIS = 5000;
+
+    private int maxPerRoute;
+    private int maxTotal;
+    private volatile long maxWaitMillis;
+
+    private final HashMap<String, Route> routes;
+    private int totalActive;
+
+    public AipRouteLimiter() {
+        this(DEFAULT_MAX_PER_ROUTE, DEFAULT_MAX_TOTAL);
+    }
+
+    public AipRouteLimiter(int maxPerRoute, int maxTotal) {
+        this.maxPerRoute = maxPerRoute;
+        this.maxTotal = maxTotal;
+        this.maxWaitMillis = DEFAULT_MAX_WAIT_MILLIS;
+        this.routes = new HashMap<String, Route>();
+        this.totalActive = 0;
+    }
+
+    /**
+     * 获取请求所在路由的一个名额
+     * @param request 请求，等待时间不超过其截止时间
+     * @return Permit对象，等待超时或线程被中断时返回null
+     */
+    public Permit tryAcquire(AipRequest request) {
+        long wait = maxWaitMillis;
+        long timeout = request.capTimeoutMillis(Math.max(0, wait));
+        if (wait <= 0 && timeout > 0) {
+            // 不等待，capTimeoutMillis(0)返回的是剩余时间
+            timeout = 0;
+        }
+        if (timeout < 0 || request.isAborted()) {
+            return null;
+        }
+        AipClientConfiguration config = request.getConfig();
+        String key = routeKey(request.getTargetUri(), config == null ? Proxy.NO_PROXY : config.getProxy());
+        try {
+            return acquire(key, timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private synchronized Permit acquire(String key, long timeoutMillis) throws InterruptedException {
+        Route route = routes.get(key);
+        if (route == null) {
+            route = new Route(key);
+            routes.put(key, route);
+        }
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (route.active >= maxPerRoute || totalActive >= maxTotal) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                if (route.active == 0) {
+                    routes.remove(key);
+                }
+                return null;
+            }
+            wait(remaining);
+        }
+        route.active++;
+        totalActive++;
+        return new Permit(route);
+    }
+
+    /**
+     * 归还名额
+     * @param permit tryAcquire()返回的对象
+     */
+    public synchronized void release(Permit permit) {
+        if (permit == null || permit.released) {
+            return;
+        }
+        permit.released = true;
+        Route route = permit.route;
+        route.active--;
+        totalActive--;
+        if (route.active == 0 && routes.get(route.key) == route) {
+            routes.remove(route.key);
+        }
+        notifyAll();
+    }
+
+    private static String routeKey(URI uri, Proxy proxy) {
+        int port = uri.getPort();
+        if (port == -1) {
+            port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+        }
+        return String.format("%s://%s:%d|%s", uri.getScheme(), uri.getHost(), port,
+                proxy == null ? Proxy.NO_PROXY : proxy);
+    }
+
+    /**
+     * @return 正在进行的请求数
+     */
+    public synchronized int getActiveCount() {
+        return totalActive;
+    }
+
+    public synchronized int getRouteCount() {
+        return routes.size();
+    }
+
+    public synchronized int getMaxPerRoute() {
+        return maxPerRoute;
+    }
+
+    public synchronized void setMaxPerRoute(int maxPerRoute) {
+        this.maxPerRoute = maxPerRoute;
+        notifyAll();
+    }
+
+    public synchronized int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public synchronized void setMaxTotal(int maxTotal) {
+        this.maxTotal = maxTotal;
+        notifyAll();
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    /**
+     * @param maxWaitMillis 名额不足时的最长等待时间(毫秒)，0表示不等待
+     */
+    public void setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    private static class Route {
+        private final String key;
+        private int active;
+
+        Route(String key) {
+            this.key = key;
+            this.active = 0;
+        }
+    }
+
+    public static class Permit {
+        private final Route route;
+        private boolean released;
+
+        Permit(Route route) {
+            this.route = route;
+            this.released = false;
+        }
+
+        public String getRoute() {
+            return route.key;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.client;
+
+import com.baidu.aip.auth.AipAccessToken;
+
+import java.util.Random;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 后台提前刷新access_token
+ *
+ * 所有客户端共享一个调度线程。token在进入按需刷新的窗口(过期前一天)之前被刷新，刷新时间随机提前
+ * 最多1小时(不超过剩余时间的10%)，避免同时启动的进程在同一时刻请求oauth。刷新失败时按指数退避重试，
+ * 期间继续使用旧token。oauth请求在客户端的异步线程池中执行，不阻塞调度线程。
+ * 调度任务持有的是同一API Key共享的AipCredential，执行时任选一个仍存活的客户端，使用它的线程池与网络设置；
+ * 调度时的客户端被回收不影响其他客户端的刷新，所有客户端都被回收后刷新停止。
+ */
+final class AipTokenRefresher {
+
+    static final long MAX_JITTER_MILLIS = TimeUnit.HOURS.toMillis(1);
+    static final long RETRY_BASE_MILLIS = 5000;
+    static final long RETRY_MAX_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final ScheduledThreadPoolExecutor SCHEDULER;
+    private static final Random RANDOM = new Random();
+
+    static {
+        SCHEDULER = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "aip-token-refresher");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    private AipTokenRefresher() {
+    }
+
+    /**
+     * @param credential 需要刷新的认证状态
+     * @param delayMillis 延迟(毫秒)
+     * @param attempt 已连续失败的次数
+     * @return 调度任务，用于在重新调度时取消
+     */
+    static ScheduledFuture<?> schedule(AipCredential credential, long delayMillis, int attempt) {
+        return SCHEDULER.schedule(new RefreshTask(credential, attempt),
+                Math.max(0, delayMillis), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 取消已调度的刷新并清理调度队列
+     */
+    static void cancel(ScheduledFuture<?> future) {
+        if (future != null && future.cancel(false)) {
+            SCHEDULER.purge();
+        }
+    }
+
+    /**
+     * @param token 当前token
+     * @param aheadMillis 按需刷新的提前量(毫秒)
+     * @return 距离后台刷新的时间(毫秒)
+     */
+    static long getRefreshDelayMillis(AipAccessToken token, long aheadMillis) {
+        long window = token.getExpireTimeMillis() - aheadMillis - System.currentTimeMillis();
+        if (window <= 0) {
+            return 0;
+        }
+        long jitter = (long) (nextDouble() * Math.min(MAX_JITTER_MILLIS, window / 10));
+        return window - jitter;
+    }
+
+    /**
+     * @param attempt 已连续失败的次数，从1开始
+     * @return 带随机抖动的重试等待时间(毫秒)
+     */
+    static long getRetryDelayMillis(int attempt) {
+        long max = RETRY_BASE_MILLIS << Math.min(attempt - 1, 16);
+        return (long) (nextDouble() * Math.min(RETRY_MAX_MILLIS, max));
+    }
+
+    private static double nextDouble() {
+        synchronized (RANDOM) {
+            return RANDOM.nextDouble();
+        }
+    }
+
+    private static class RefreshTask implements Runnable {
+        private final AipCredential credential;
+        private final int attempt;
+
+        RefreshTask(AipCredential credential, int attempt) {
+            this.credential = credential;
+            this.attempt = attempt;
+        }
+
+        @Override
+        public void run() {
+            final BaseClient target = credential.getRefreshClient();
+            if (target == null) {
+                return;
+            }
+            Runnable refresh = new Runnable() {
+                @Override
+                public void run() {
+                    if (!target.refreshTokenInBackground()) {
+                        target.scheduleTokenRefreshRetry(attempt + 1);
+                    }
+                }
+            };
+            try {
+                target.getTokenRefreshExecutor().execute(refresh);
+            } catch (RejectedExecutionException e) {
+                target.scheduleTokenRefreshRetry(attempt + 1);
+            }
+        }
+    }
+}
@@ -12,121 +12,151 @@
  */
 package com.baidu.aip.client;
 
+import com.baidu.aip.auth.AipAccessToken;
+import com.baidu.aip.auth.AipTokenStore;
+import com.baidu.aip.auth.ECredentialType;
 import com.baidu.aip.auth.CloudAuth;
 import com.baidu.aip.auth.DevAuth;
 import com.baidu.aip.error.AipError;
-import com.baidu.aip.http.AipHttpClient;
+import com.baidu.aip.http.AipAsyncTransport;
 import com.baidu.aip.http.AipRequest;
 import com.baidu.aip.http.AipResponse;
+import com.baidu.aip.http.AipTransport;
+import com.baidu.aip.http.AipTransportFactory;
+import com.baidu.aip.http.EBodyStreamingMode;
 import com.baidu.aip.http.Headers;
 import com.baidu.aip.http.HttpContentType;
 import com.baidu.aip.http.HttpMethodName;
 import com.baidu.aip.util.AipClientConfiguration;
 import com.baidu.aip.util.AipClientConst;
-import com.baidu.aip.util.SignUtil;
 import com.baidu.aip.util.Util;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
 import java.net.Proxy;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 public abstract class BaseClient {
 
     protected String appId;
     protected String aipKey;
     protected String aipToken;
+    // 同一API Key的客户端共享的认证状态与access_token
+    protected AipCredential credential;
+    /**
+     * @deprecated access_token由同一API Key的客户端共享，请使用getAccessTokenValue()；
+     * 本字段只是每次请求前从AipCredential同步的副本，修改它不会影响请求
+     */
+    @Deprecated
     protected String accessToken;   // 不适用于使用公有云ak/sk的用户
     protected AtomicBoolean isAuthorized;
     protected AtomicBoolean isBceKey;   // 是否为公有云用户
+    /**
+     * @deprecated 同accessToken，access_token过期时间的副本
+     */
+    @Deprecated
     protected Calendar expireDate;
+    /**
+     * @deprecated 认证状态由同一API Key的客户端共享，请使用credential.getState()
+     */
+    @Deprecated
     protected AuthState state;
     protected AipClientConfiguration config;
     protected static final Logger LOGGER = LoggerFactory.getLogger(BaseClient.class);
 
-    class AuthState {
+    // access_token在过期前一天开始刷新
+    private static final long TOKEN_REFRESH_AHEAD_MILLIS = TimeUnit.DAYS.toMillis(1);
 
-        private EAuthState state;
+    // 最近一次同步到accessToken/expireDate字段的token
+    private volatile AipAccessToken legacyToken;
 
-        public AuthState() {
-            state = EAuthState.STATE_UNKNOWN;
-        }
+
+    // 异步调用重试的等待不占用线程，到时后交给异步线程池
+    private static final ScheduledExecutorService RETRY_TIMER;
+
+    static {
+        RETRY_TIMER = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "aip-retry-timer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /*
+     * BaseClient constructor, default as AIP user
+     */
+    protected BaseClient(String appId, String apiKey, String secretKey) {
+        this.appId = appId;
+        this.aipKey = apiKey;
+        this.aipToken = secretKey;
+        credential = AipCredential.get(apiKey, secretKey);
+        credential.addClient(this);
+        isAuthorized = credential.getIsAuthorized();
+        isBceKey = credential.getIsBceKey();
+        state = new AuthState();
+    }
+
+    /**
+     * 认证状态机，保留以兼容访问state字段的子类，所有操作转发给AipCredential中共享的状态
+     * @deprecated 请使用credential.getState()
+     */
+    @Deprecated
+    class AuthState {
 
         public String toString() {
-            return state.name();
+            return credential.getState().toString();
         }
 
         public EAuthState getState() {
-            return state;
+            return credential.getState().getState();
         }
 
         public void setState(EAuthState state) {
-            this.state = state;
+            credential.getState().setState(state);
         }
 
         public void transfer(boolean value) {
-            switch (state) {
-                case STATE_UNKNOWN: {
-                    if (value) {
-                        state = EAuthState.STATE_AIP_AUTH_OK;
-                        isBceKey.set(false);
-                    }
-                    else {
-                        state = EAuthState.STATE_TRUE_CLOUD_USER;
-                        isBceKey.set(true);
-                    }
-                    break;
-                }
-                case STATE_AIP_AUTH_OK: {
-                    if (value) {
-                        state = EAuthState.STATE_TRUE_AIP_USER;
-                        isBceKey.set(false);
-                        isAuthorized.set(true);
-                    }
-                    else {
-                        state = EAuthState.STATE_POSSIBLE_CLOUD_USER;
-                        isBceKey.set(true);
-                    }
-                    break;
-                }
-                case STATE_TRUE_AIP_USER:
-                    break;
-                case STATE_POSSIBLE_CLOUD_USER: {
-                    if (value) {
-                        state = EAuthState.STATE_TRUE_CLOUD_USER;
-                        isBceKey.set(true);
-                    }
-                    else {
-                        state = EAuthState.STATE_TRUE_AIP_USER;
-                        isBceKey.set(false);
-                        isAuthorized.set(true);
-                    }
-                    break;
-                }
-                case STATE_TRUE_CLOUD_USER:
-                    break;
-                default:
-                    break;
-            }
+            credential.getState().transfer(value);
         }
     }
 
     /*
-     * BaseClient constructor, default as AIP user
+     * BaseClient constructor with network config, start warming up in background if config.isWarmUpOnInit()
      */
-    protected BaseClient(String appId, String apiKey, String secretKey) {
-        this.appId = appId;
-        this.aipKey = apiKey;
-        this.aipToken = secretKey;
-        isAuthorized = new AtomicBoolean(false);
-        isBceKey = new AtomicBoolean(false);
-        accessToken = null;
-        expireDate = null;
-        state = new AuthState();
+    protected BaseClient(String appId, String apiKey, String secretKey, AipClientConfiguration config) {
+        this(appId, apiKey, secretKey);
+        this.config = config;
+        initCredential();
+        if (config != null && config.isWarmUpOnInit()) {
+            warmUpAsync();
+        }
     }
 
     /**
@@ -176,178 +206,1424 @@ public abstract class BaseClient {
     }
 
     /**
-     * get OAuth access token, synchronized function
-     * @param config 网络连接设置
+     * 设置每个服务地址的并发请求数限制，多个客户端可以共享同一个实例，为null时不限制
+     * @param routeLimiter 并发请求数限制
      */
-    protected synchronized void getAccessToken(AipClientConfiguration config) {
-        if (!needAuth()) {
-            if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug(String.format("app[%s] no need to auth", this.appId));
-            }
-            return;
+    public void setRouteLimiter(AipRouteLimiter routeLimiter) {
+        if (config == null) {
+            config = new AipClientConfiguration();
         }
-        JSONObject res = DevAuth.oauth(aipKey, aipToken, config);
-        if (res == null) {
-            LOGGER.warn("oauth get null response");
-            return;
+        this.config.setRouteLimiter(routeLimiter);
+    }
+
+    /**
+     * 在Java 11及以上版本使用支持HTTP/2多路复用的传输层，默认关闭，低版本Java上不生效
+     * @param http2Enabled 是否使用HTTP/2
+     */
+    public void setHttp2Enabled(boolean http2Enabled) {
+        if (config == null) {
+            config = new AipClientConfiguration();
         }
-        if (!res.isNull("access_token")) {
-            // openAPI认证成功
-            state.transfer(true);
-            accessToken = res.getString("access_token");
-
-            LOGGER.info("get access_token success. current state: " + state.toString());
-            Integer expireSec = res.getInt("expires_in");
-            Calendar c = Calendar.getInstance();
-            c.add(Calendar.SECOND, expireSec);
-            expireDate = c;
-            // isBceKey.set(false);
-            // 验证接口权限
-            String[] scope = res.getString("scope").split(" ");
-            boolean hasRight = false;
-            for (String str : scope) {
-                if (AipClientConst.AI_ACCESS_RIGHT.contains(str)) {
-                    // 权限验证通过
-                    hasRight = true;
-                    break;
-                }
-            }
-            state.transfer(hasRight);
-            if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug("current state after check priviledge: " + state.toString());
-            }
+        this.config.setHttp2Enabled(http2Enabled);
+    }
+
+    /**
+     * 设置网络传输层实现，默认使用基于HttpURLConnection的AipHttpClient
+     * @param transport 传输层实现
+     */
+    public void setTransport(AipTransport transport) {
+        if (config == null) {
+            config = new AipClientConfiguration();
         }
-        else if (!res.isNull("error_code")) {
-            state.transfer(false);
-            LOGGER.warn("oauth get error, current state: " + state.toString());
+        this.config.setTransport(transport);
+    }
+
+    /**
+     * @return 当前使用的网络传输层实现
+     */
+    protected AipTransport getTransport() {
+        return config == null ? AipTransportFactory.getDefault() : config.getTransport();
+    }
+
+    /**
+     * 设置请求body的发送方式，上传大图片时可使用流式发送以降低内存占用
+     * @param mode body发送方式
+     */
+    public void setBodyStreamingMode(EBodyStreamingMode mode) {
+        if (config == null) {
+            config = new AipClientConfiguration();
         }
+        this.config.setBodyStreamingMode(mode);
     }
 
-    /*
-     *   需要重新获取access_token的条件：
-     *   1. 是DEV用户，即 isBceKey为false
-     *   2. isAuthorized为false，或isAuthorized为true，但当前时间晚于expireDate前一天
+    /**
+     * 对指定接口启用请求body的gzip压缩，仅适用于服务端接受Content-Encoding: gzip的接口，
+     * 使用公有云ak/sk签名的请求不压缩
+     * @param urls 接口地址，如OcrConsts.GENERAL_BASIC
      */
-    protected Boolean needAuth() {
-        if (isBceKey.get()) {
-            return false;
+    public void enableRequestCompression(String... urls) {
+        if (config == null) {
+            config = new AipClientConfiguration();
+        }
+        this.config.setRequestCompressionEnabled(true);
+        for (String url : urls) {
+            this.config.addRequestCompressionEndpoint(url);
         }
-        Calendar c = Calendar.getInstance();
-        c.add(Calendar.DATE, 1);
-        return !isAuthorized.get() || c.after(expireDate);
     }
 
-    /*
-     *  为DEV创建的用户填充body
+    /**
+     * 设置请求重试策略，默认不重试
+     * @param retryPolicy 重试策略
      */
-    protected void preOperation(AipRequest request) {
-        if (needAuth()) {
-            getAccessToken(config);
+    public void setRetryPolicy(AipRetryPolicy retryPolicy) {
+        if (config == null) {
+            config = new AipClientConfiguration();
         }
+        this.config.setRetryPolicy(retryPolicy);
+    }
 
-        request.setHttpMethod(HttpMethodName.POST);
-        request.addHeader(Headers.CONTENT_TYPE, HttpContentType.FORM_URLENCODE_DATA);
-        request.addHeader("accept", "*/*");
-        request.setConfig(config);
+    /**
+     * 设置接口的本地QPS上限，使用同一API Key的所有客户端共享该配额
+     * @param url 接口地址
+     * @param qps 每秒请求数，不大于0表示不限流
+     */
+    public void setQpsLimit(String url, double qps) {
+        getRateLimiter().setQps(url, qps);
     }
 
-    /*
-     *  为公有云用户填充http header，传入的request中body&param已经ready
-     *  对于DEV用户，则将access_token放到url中
+    /**
+     * 设置未单独配置的接口的本地QPS上限
+     * @param qps 每秒请求数，不大于0表示不限流
      */
-    protected void postOperation(AipRequest request) {
-        if (isBceKey.get()) {
-            // add aipSdk param
-            request.addParam("aipSdk", "java");
+    public void setDefaultQpsLimit(double qps) {
+        getRateLimiter().setDefaultQps(qps);
+    }
 
-            String bodyStr = request.getBodyStr();
+    /**
+     * 设置本地QPS超限时的处理方式
+     * @param mode 阻塞等待、限时等待或立即失败
+     * @param timeoutMillis TIMEOUT模式下的最长等待时间(毫秒)
+     */
+    public void setRateLimitMode(ERateLimitMode mode, long timeoutMillis) {
+        if (config == null) {
+            config = new AipClientConfiguration();
+        }
+        this.config.setRateLimitMode(mode);
+        this.config.setRateLimitTimeoutMillis(timeoutMillis);
+    }
 
-            try {
-                int len = bodyStr.getBytes(request.getContentEncoding()).length;
-                request.addHeader(Headers.CONTENT_LENGTH, Integer.toString(len));
-            } catch (UnsupportedEncodingException e) {
-                e.printStackTrace();
-            }
+    /**
+     * @return 当前客户端使用的QPS限流器
+     */
+    public AipRateLimiter getRateLimiter() {
+        if (config != null && config.getRateLimiter() != null) {
+            return config.getRateLimiter();
+        }
+        return AipRateLimiter.getShared(aipKey);
+    }
 
-            request.addHeader(Headers.CONTENT_MD5, SignUtil.md5(bodyStr, request.getContentEncoding()));
+    /**
+     * 设置自适应并发限制器，如AipConcurrencyLimiter.getDefault()，为null时不限制
+     * @param concurrencyLimiter 并发限制器
+     */
+    public void setConcurrencyLimiter(AipConcurrencyLimiter concurrencyLimiter) {
+        if (config == null) {
+            config = new AipClientConfiguration();
+        }
+        this.config.setConcurrencyLimiter(concurrencyLimiter);
+    }
 
-            String timestamp = Util.getCanonicalTime();
-            request.addHeader(Headers.HOST, request.getUri().getHost());
-            request.addHeader(Headers.BCE_DATE, timestamp);
-            request.addHeader(Headers.AUTHORIZATION, CloudAuth.sign(request, this.aipKey, this.aipToken, timestamp));
+    /**
+     * 设置按接口熔断的熔断器，如AipCircuitBreaker.getDefault()，为null时不熔断
+     * @param circuitBreaker 熔断器
+     */
+    public void setCircuitBreaker(AipCircuitBreaker circuitBreaker) {
+        if (config == null) {
+            config = new AipClientConfiguration();
         }
-        else {
-            request.addParam("aipSdk", "java");
-            request.addParam("access_token", accessToken);
+        this.config.setCircuitBreaker(circuitBreaker);
+    }
+
+    /**
+     * 设置只读接口的对冲请求策略，为null时不对冲
+     * @param hedgePolicy 对冲策略
+     */
+    public void setHedgePolicy(AipHedgePolicy hedgePolicy) {
+        if (config == null) {
+            config = new AipClientConfiguration();
         }
+        this.config.setHedgePolicy(hedgePolicy);
     }
 
     /**
-     * send request to server
-     * @param request AipRequest object
-     * @return JSONObject of server response
+     * 将所有请求发往指定地址，如本地的AipStubServer，请求路径保持不变
+     * @param endpoint 如 http://127.0.0.1:8090，为null时使用接口的默认地址
      */
-    protected JSONObject requestServer(AipRequest request) {
-        // 请求API
-        AipResponse response = AipHttpClient.post(request);
-        String resData = response.getBodyStr();
-        Integer status = response.getStatus();
-        if (status.equals(200) && !resData.equals("")) {
-            try {
-                JSONObject res =  new JSONObject(resData);
-                if (state.getState().equals(EAuthState.STATE_POSSIBLE_CLOUD_USER)) {
-                    boolean cloudAuthState = res.isNull("error_code")
-                            || res.getInt("error_code") != AipClientConst.IAM_ERROR_CODE;
-                    state.transfer(cloudAuthState);
-                    if (LOGGER.isDebugEnabled()) {
-                        LOGGER.debug("state after cloud auth: " + state.toString());
-                    }
-                    if (!cloudAuthState) {
-                        return Util.getGeneralError(
-                                AipClientConst.OPENAPI_NO_ACCESS_ERROR_CODE,
-                                AipClientConst.OPENAPI_NO_ACCESS_ERROR_MSG);
-                    }
-                }
-                return res;
-            } catch (JSONException e) {
-                return Util.getGeneralError(-1, resData);
-            }
+    public void setEndpoint(String endpoint) {
+        if (config == null) {
+            config = new AipClientConfiguration();
         }
-        else {
-            LOGGER.warn(String.format("call failed! response status: %d, data: %s", status, resData));
-            return AipError.NET_TIMEOUT_ERROR.toJsonResult();
+        this.config.setEndpoint(endpoint);
+    }
+
+    /**
+     * 开启后在后台提前刷新access_token，请求不再承担刷新token的延迟；所有客户端共享一个调度线程
+     * @param tokenRefreshEnabled 是否开启
+     */
+    public void setTokenRefreshEnabled(boolean tokenRefreshEnabled) {
+        if (config == null) {
+            config = new AipClientConfiguration();
+        }
+        this.config.setTokenRefreshEnabled(tokenRefreshEnabled);
+        if (tokenRefreshEnabled) {
+            scheduleTokenRefresh(credential.getToken());
+        } else {
+            AipTokenRefresher.cancel(credential.getScheduledRefresh().getAndSet(null));
+        }
+    }
 
+    /**
+     * 设置access_token的持久化存储，立即从中恢复仍然有效的token，之后获取的token会写回存储
+     * @param tokenStore 持久化存储，为null时不持久化
+     */
+    public void setTokenStore(AipTokenStore tokenStore) {
+        if (config == null) {
+            config = new AipClientConfiguration();
         }
+        this.config.setTokenStore(tokenStore);
+        initCredential();
     }
 
+    /**
+     * 指定API Key的认证方式，省去判定用户类型的请求：AIP直接请求oauth，BCE直接使用公有云签名、不请求oauth。
+     * 同一API Key的所有客户端共享认证状态，指定后对它们同时生效
+     * @param credentialType 认证方式，默认AUTO
+     */
+    public void setCredentialType(ECredentialType credentialType) {
+        if (config == null) {
+            config = new AipClientConfiguration();
+        }
+        this.config.setCredentialType(credentialType);
+        credential.setCredentialType(this.config.getCredentialType());
+        initCredential();
+    }
 
-    // getters and setters for UT
-    private void setAccessToken(String accessToken) {
-        this.accessToken = accessToken;
+    /**
+     * 设置客户端的隔离舱，该客户端的所有调用共享隔离舱的并发名额
+     * @param bulkhead 隔离舱，为null时不隔离
+     */
+    public void setBulkhead(AipBulkhead bulkhead) {
+        if (config == null) {
+            config = new AipClientConfiguration();
+        }
+        this.config.setBulkhead(bulkhead);
     }
 
-    private AtomicBoolean getIsAuthorized() {
-        return isAuthorized;
+    /**
+     * 为一组接口单独指定隔离舱
+     * @param bulkhead 隔离舱，为null时恢复使用客户端的隔离舱
+     * @param urls 接口地址
+     */
+    public void setBulkhead(AipBulkhead bulkhead, String... urls) {
+        if (config == null) {
+            config = new AipClientConfiguration();
+        }
+        for (String url : urls) {
+            this.config.setBulkhead(url, bulkhead);
+        }
     }
 
-    private void setIsAuthorized(boolean isAuthorized) {
-        this.isAuthorized.set(isAuthorized);
+    /**
+     * 设置异步调用默认使用的线程池
+     * @param executor 线程池
+     */
+    public void setAsyncExecutor(Executor executor) {
+        if (config == null) {
+            config = new AipClientConfiguration();
+        }
+        this.config.setAsyncExecutor(executor);
     }
 
-    private AtomicBoolean getIsBceKey() {
-        return isBceKey;
+    /**
+     * 异步调用任意接口，调用在异步线程池中以阻塞方式执行，每个进行中的调用占用一个线程。
+     * 只发出一次请求的接口另有以AipCallback为最后一个参数的异步版本，等待响应不占用线程；
+     * 本方法适用于发出多次请求或对结果做后续处理的接口(如表格识别的同步接口、语音合成)与多个接口的组合调用，例如：
+     * <pre>
+     * Future&lt;JSONObject&gt; f = client.async(new Callable&lt;JSONObject&gt;() {
+     *     public JSONObject call() {
+     *         return client.basicGeneral(image, options);
+     *     }
+     * });
+     * </pre>
+     * @param call 接口调用
+     * @param <T> 接口返回类型
+     * @return Future
+     */
+    public <T> Future<T> async(Callable<T> call) {
+        return async(call, null, null);
     }
 
-    private void setIsBceKey(boolean isBceKey) {
-        this.isBceKey.set(isBceKey);
+    /**
+     * 异步调用任意接口，完成后回调callback
+     * @param call 接口调用
+     * @param callback 结果回调，可以为null
+     * @param <T> 接口返回类型
+     * @return Future
+     */
+    public <T> Future<T> async(Callable<T> call, AipCallback<T> callback) {
+        return async(call, callback, null);
+    }
+
+    /**
+     * 在指定线程池中异步调用任意接口，完成后回调callback
+     * @param call 接口调用
+     * @param callback 结果回调，可以为null
+     * @param executor 执行请求的线程池，为null时使用配置中的线程池
+     * @param <T> 接口返回类型
+     * @return Future
+     */
+    public <T> Future<T> async(Callable<T> call, final AipCallback<T> callback, Executor executor) {
+        if (executor == null) {
+            executor = getAsyncExecutor();
+        }
+        // 继承提交线程的截止时间，取消Future时中止该次调用
+        AipCallOptions current = AipCallOptions.current();
+        final AipCallOptions options = current == null ? new AipCallOptions() : current.child(0);
+        FutureTask<T> task = new FutureTask<T>(AipCallOptions.wrap(options, call)) {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                options.cancel();
+                return super.cancel(mayInterruptIfRunning);
+            }
+
+            @Override
+            protected void done() {
+                if (callback == null || isCancelled()) {
+                    return;
+                }
+                try {
+                    callback.onSuccess(get());
+                } catch (ExecutionException e) {
+                    callback.onFailure(e.getCause());
+                } catch (InterruptedException e) {
+                    callback.onFailure(e);
+                }
+            }
+        };
+        executor.execute(task);
+        return task;
     }
 
-    private Calendar getExpireDate() {
-        return expireDate;
+    /**
+     * 预热客户端：解析服务域名、建立到服务与OAuth域名的连接并获取access_token，各项并行进行，
+     * 用于避免首个请求串行承担DNS查询、TLS握手与OAuth请求的耗时
+     * @param timeoutMillis 等待预热完成的超时时间（单位：毫秒）
+     * @return 是否在超时前全部预热成功
+     */
+    public boolean warmUp(long timeoutMillis) {
+        Future<Boolean> future = warmUpAsync();
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOGGER.warn("warm up failed: " + e.getCause());
+        } catch (TimeoutException e) {
+            LOGGER.warn(String.format("app[%s] warm up not finished in %d ms", appId, timeoutMillis));
+        }
+        return false;
     }
 
-    private void setExpireDate(Calendar expireDate) {
-        this.expireDate = expireDate;
+    /**
+     * 在后台预热客户端，不阻塞调用线程
+     * @return 预热全部成功时结果为true
+     */
+    public Future<Boolean> warmUpAsync() {
+        final Executor executor = config == null
+                ? AipClientConfiguration.getDefaultAsyncExecutor() : config.getAsyncExecutor();
+        final List<FutureTask<Boolean>> tasks = new ArrayList<FutureTask<Boolean>>();
+        tasks.add(new FutureTask<Boolean>(new Callable<Boolean>() {
+            public Boolean call() {
+                if (needAuth()) {
+                    getAccessToken(config);
+                }
+                return isBceKey.get() || isAuthorized.get();
+            }
+        }));
+        int connections = config == null ? 1 : Math.max(1, config.getWarmUpConnections());
+        for (final String url : getWarmUpUrls()) {
+            for (int i = 0; i < connections; i++) {
+                tasks.add(new FutureTask<Boolean>(new Callable<Boolean>() {
+                    public Boolean call() {
+                        return warmUpConnection(url);
+                    }
+                }));
+            }
+        }
+        for (FutureTask<Boolean> task : tasks) {
+            executor.execute(task);
+        }
+        FutureTask<Boolean> all = new FutureTask<Boolean>(new Callable<Boolean>() {
+            public Boolean call() throws Exception {
+                boolean success = true;
+                for (FutureTask<Boolean> task : tasks) {
+                    success &= task.get();
+                }
+                return success;
+            }
+        });
+        executor.execute(all);
+        return all;
+    }
+
+    /**
+     * @return 预热时需要建立连接的服务地址，子类访问其他域名时需覆盖
+     */
+    protected List<String> getWarmUpUrls() {
+        URI oauth = URI.create(AipClientConst.OAUTH_URL);
+        return Collections.singletonList(String.format("%s://%s/", oauth.getScheme(), oauth.getHost()));
+    }
+
+    /*
+     * 解析域名并向服务发送一个空请求，响应读完后连接进入JDK的keep-alive缓存等待复用；服务端返回的错误不影响预热效果
+     */
+    private boolean warmUpConnection(String url) {
+        try {
+            InetAddress.getAllByName(URI.create(url).getHost());
+        } catch (UnknownHostException e) {
+            LOGGER.warn("warm up resolve host failed: " + e.getMessage());
+            return false;
+        }
+        AipRequest request = new AipRequest();
+        request.setUri(url);
+        request.setConfig(config);
+        request.setIdempotent(true);
+        AipResponse response = getTransport().execute(request);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(String.format("warm up %s, status: %d", url, response.getStatus()));
+        }
+        return response.getStatus() != 0;
+    }
+
+    /**
+     * get OAuth access token, single-flight: 同一时间只有一个线程请求oauth，
+     * 其他线程在已有token未过期时继续使用旧token，没有可用token时等待本次刷新完成
+     * @param config 网络连接设置
+     */
+    protected void getAccessToken(AipClientConfiguration config) {
+        if (!needAuth()) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug(String.format("app[%s] no need to auth", this.appId));
+            }
+            return;
+        }
+        refreshToken(config, false);
+    }
+
+    /*
+     * force为true时即使token未进入刷新窗口也重新获取，用于后台提前刷新
+     */
+    private void refreshToken(final AipClientConfiguration config, final boolean force) {
+        AtomicReference<FutureTask<Void>> tokenRefresh = credential.getTokenRefresh();
+        FutureTask<Void> task = tokenRefresh.get();
+        if (task == null) {
+            FutureTask<Void> created = new FutureTask<Void>(new Callable<Void>() {
+                public Void call() {
+                    if (force || needAuth()) {
+                        fetchAccessToken(config);
+                    }
+                    return null;
+                }
+            });
+            if (tokenRefresh.compareAndSet(null, created)) {
+                try {
+                    created.run();
+                } finally {
+                    tokenRefresh.compareAndSet(created, null);
+                }
+                return;
+            }
+            task = tokenRefresh.get();
+        }
+        AipAccessToken current = credential.getToken();
+        if (task == null || (!force && current != null && !current.isExpired(System.currentTimeMillis()))) {
+            return;
+        }
+        awaitTokenRefresh(task);
+    }
+
+    /*
+     * 应用指定的认证方式，并从持久化存储中恢复用户类型的判定结果与仍然有效的token，同一API Key已有token时不读取
+     */
+    private void initCredential() {
+        if (config == null) {
+            return;
+        }
+        ECredentialType declared = config.getCredentialType();
+        if (declared != ECredentialType.AUTO && declared != credential.getCredentialType()) {
+            credential.setCredentialType(declared);
+        }
+        AipTokenStore tokenStore = config.getTokenStore();
+        if (tokenStore == null || credential.getToken() != null || isBceKey.get()) {
+            return;
+        }
+        if (tokenStore.loadCredentialType(aipKey, aipToken) == ECredentialType.BCE) {
+            if (declared == ECredentialType.AUTO && credential.restoreCloudUser()) {
+                LOGGER.info(String.format("app[%s] load cloud user state from %s", appId, tokenStore.getDirectory()));
+            }
+            return;
+        }
+        AipAccessToken stored = tokenStore.load(aipKey, aipToken);
+        if (stored != null && credential.restore(stored)) {
+            LOGGER.info(String.format("app[%s] load access_token from %s", appId, tokenStore.getDirectory()));
+            scheduleTokenRefresh(stored);
+        }
+    }
+
+    /*
+     * 用户类型确定后写入持久化存储：AIP用户保存token，公有云用户只保存类型
+     */
+    private void storeCredential() {
+        AipTokenStore tokenStore = config == null ? null : config.getTokenStore();
+        if (tokenStore == null) {
+            return;
+        }
+        EAuthState current = credential.getState().getState();
+        if (current == EAuthState.STATE_TRUE_AIP_USER && credential.getToken() != null) {
+            tokenStore.save(aipKey, aipToken, ECredentialType.AIP, credential.getToken());
+        } else if (current == EAuthState.STATE_TRUE_CLOUD_USER) {
+            tokenStore.save(aipKey, aipToken, ECredentialType.BCE, null);
+        }
+    }
+
+    /**
+     * 由AipTokenRefresher在后台调用，刷新完成前其他线程继续使用旧token
+     * @return 是否无需重试：获得了新token，或已不需要后台刷新
+     */
+    boolean refreshTokenInBackground() {
+        if (!isTokenRefreshEnabled()) {
+            return true;
+        }
+        AipAccessToken before = credential.getToken();
+        refreshToken(config, true);
+        return credential.getToken() != before;
+    }
+
+    void scheduleTokenRefreshRetry(int attempt) {
+        if (!isTokenRefreshEnabled()) {
+            return;
+        }
+        long delay = AipTokenRefresher.getRetryDelayMillis(attempt);
+        LOGGER.warn(String.format("background refresh access_token failed, retry after %d ms, attempt: %d",
+                delay, attempt));
+        AipTokenRefresher.cancel(credential.getScheduledRefresh()
+                .getAndSet(AipTokenRefresher.schedule(credential, delay, attempt)));
+    }
+
+    /**
+     * @return 是否由本客户端参与后台刷新token
+     */
+    boolean isTokenRefreshEnabled() {
+        return !isBceKey.get() && config != null && config.isTokenRefreshEnabled();
+    }
+
+    Executor getTokenRefreshExecutor() {
+        return getAsyncExecutor();
+    }
+
+    /*
+     * 获得新token后按其过期时间调度下一次后台刷新
+     */
+    private void scheduleTokenRefresh(AipAccessToken current) {
+        if (current == null || config == null || !config.isTokenRefreshEnabled()) {
+            return;
+        }
+        long delay = AipTokenRefresher.getRefreshDelayMillis(current, TOKEN_REFRESH_AHEAD_MILLIS);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(String.format("app[%s] schedule access_token refresh after %d ms", appId, delay));
+        }
+        AipTokenRefresher.cancel(credential.getScheduledRefresh()
+                .getAndSet(AipTokenRefresher.schedule(credential, delay, 0)));
+    }
+
+    private void awaitTokenRefresh(FutureTask<Void> task) {
+        AipCallOptions options = AipCallOptions.current();
+        try {
+            if (options == null || options.getDeadlineNanos() == 0) {
+                task.get();
+            } else {
+                task.get(Math.max(0, options.getRemainingMillis()), TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOGGER.warn("refresh access_token failed: " + e.getCause());
+        } catch (TimeoutException e) {
+            LOGGER.debug("wait for access_token refresh timeout");
+        }
+    }
+
+    private void fetchAccessToken(AipClientConfiguration config) {
+        JSONObject res = DevAuth.oauth(aipKey, aipToken, config);
+        if (res == null) {
+            LOGGER.warn("oauth get null response");
+            return;
+        }
+        if (!res.isNull("access_token")) {
+            // openAPI认证成功
+            credential.getState().transfer(true);
+            long expireSec = res.getLong("expires_in");
+            credential.setToken(new AipAccessToken(res.getString("access_token"),
+                    System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(expireSec)));
+
+            LOGGER.info("get access_token success. current state: " + credential.getState().toString());
+            // 验证接口权限
+            String[] scope = res.getString("scope").split(" ");
+            boolean hasRight = false;
+            for (String str : scope) {
+                if (AipClientConst.AI_ACCESS_RIGHT.contains(str)) {
+                    // 权限验证通过
+                    hasRight = true;
+                    break;
+                }
+            }
+            credential.getState().transfer(hasRight);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("current state after check priviledge: " + credential.getState().toString());
+            }
+            // 指定为AIP用户时没有接口权限也直接使用token，由接口返回权限错误
+            if (credential.getState().getState() == EAuthState.STATE_TRUE_AIP_USER) {
+                storeCredential();
+                scheduleTokenRefresh(credential.getToken());
+            }
+        }
+        else if (!res.isNull("error_code")) {
+            credential.getState().transfer(false);
+            LOGGER.warn("oauth get error, current state: " + credential.getState().toString());
+            storeCredential();
+        }
+    }
+
+    /*
+     *   需要重新获取access_token的条件：
+     *   1. 是DEV用户，即 isBceKey为false
+     *   2. isAuthorized为false，或isAuthorized为true，但当前时间晚于过期时间前一天
+     *   只读取volatile的token快照，不加锁也不分配对象
+     */
+    protected Boolean needAuth() {
+        if (isBceKey.get()) {
+            return false;
+        }
+        AipAccessToken current = credential.getToken();
+        return !isAuthorized.get() || current == null
+                || current.expiresWithin(TOKEN_REFRESH_AHEAD_MILLIS, System.currentTimeMillis());
+    }
+
+    /**
+     * @return 当前的access_token，尚未获取时返回null；不适用于使用公有云ak/sk的用户
+     */
+    protected String getAccessTokenValue() {
+        AipAccessToken current = credential.getToken();
+        return current == null ? null : current.getAccessToken();
+    }
+
+    /*
+     *  为DEV创建的用户填充body
+     */
+    protected void preOperation(AipRequest request) {
+        authorize();
+        initRequest(request);
+    }
+
+    /**
+     * 需要时获取或刷新access_token
+     */
+    private void authorize() {
+        AipCallOptions options = AipCallOptions.current();
+        // 已超时或取消的调用不再获取token，由requestServer返回错误
+        if (needAuth() && (options == null || !options.isDone())) {
+            getAccessToken(config);
+        }
+        syncLegacyToken();
+    }
+
+    /**
+     * 填充请求方法、公共header与调用的截止时间，不获取access_token，
+     * 填充参数与body后交给requestServerWithAuth或requestServerAsync发送
+     * @param request 请求
+     */
+    protected void initRequest(AipRequest request) {
+        AipCallOptions options = AipCallOptions.current();
+        if (options != null) {
+            request.setDeadlineNanos(options.getDeadlineNanos());
+        }
+        request.setHttpMethod(HttpMethodName.POST);
+        request.addHeader(Headers.CONTENT_TYPE, HttpContentType.FORM_URLENCODE_DATA);
+        request.addHeader("accept", "*/*");
+        request.setConfig(config);
+    }
+
+    /*
+     *  为公有云用户填充http header，传入的request中body&param已经ready
+     *  对于DEV用户，则将access_token放到url中
+     */
+    protected void postOperation(AipRequest request) {
+        if (isBceKey.get()) {
+            // add aipSdk param
+            request.addParam("aipSdk", "java");
+
+            // 先取MD5：流式body的MD5与长度在同一次编码中得到
+            String bodyMd5 = request.getBodyMd5();
+            request.addHeader(Headers.CONTENT_LENGTH, Long.toString(request.getBodyLength()));
+            request.addHeader(Headers.CONTENT_MD5, bodyMd5);
+
+            String timestamp = Util.getCanonicalTime();
+            request.addHeader(Headers.HOST, request.getUri().getHost());
+            request.addHeader(Headers.BCE_DATE, timestamp);
+            request.addHeader(Headers.AUTHORIZATION, CloudAuth.sign(request, this.aipKey, this.aipToken, timestamp));
+        }
+        else {
+            request.addParam("aipSdk", "java");
+            request.addParam("access_token", getAccessTokenValue());
+        }
+    }
+
+    /**
+     * send request to server
+     * @param request AipRequest object
+     * @return JSONObject of server response
+     */
+    protected JSONObject requestServer(AipRequest request) {
+        return requestServer(request, false).getResult();
+    }
+
+    /**
+     * 获取access_token、填充认证信息后发送请求
+     * @param request 通过initRequest填充、已设置参数与body的请求
+     * @return JSONObject of server response
+     */
+    protected JSONObject requestServerWithAuth(AipRequest request) {
+        authorize();
+        postOperation(request);
+        return requestServer(request);
+    }
+
+    /**
+     * 异步发送请求：access_token的获取、认证信息的填充与本地QPS、并发限制的排队在线程池中进行，不阻塞调用线程；
+     * 请求经过与同步调用相同的限流、熔断、隔离舱、并发限制与重试。传输层实现了AipAsyncTransport时
+     * (Java 11+的HTTP/2传输层)等待响应与重试的等待不占用线程，否则请求在线程池中阻塞执行。
+     * 调用继承当前线程AipCallOptions的截止时间与优先级
+     * @param request 通过initRequest填充、已设置参数与body的请求
+     * @param executor 执行请求的线程池，为null时使用配置中的异步线程池
+     * @param callback 结果回调，可以为null，在传输层或线程池的线程中被调用
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    protected AipFuture<JSONObject> requestServerAsync(final AipRequest request, Executor executor,
+                                                       AipCallback<JSONObject> callback) {
+        final Executor callExecutor = executor == null ? getAsyncExecutor() : executor;
+        AipCallOptions current = AipCallOptions.current();
+        final AipCallOptions options = current == null ? new AipCallOptions() : current.child(0);
+        final AipFuture<JSONObject> future = new AipFuture<JSONObject>(options, callback);
+        try {
+            callExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    options.attach();
+                    try {
+                        authorize();
+                        postOperation(request);
+                    } catch (RuntimeException e) {
+                        future.setException(e);
+                        return;
+                    } finally {
+                        options.detach();
+                    }
+                    new AsyncCall(request, options, future, callExecutor).start();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.setException(e);
+        }
+        return future;
+    }
+
+    /**
+     * 与requestServer相同的限流、隔离舱、重试与超时流程，服务端返回非JSON数据(如合成的音频)时视为成功
+     * @param request AipRequest object
+     * @return 服务端返回的数据或错误信息
+     */
+    protected ServerResult requestServerForResponse(AipRequest request) {
+        return requestServer(request, true);
+    }
+
+    private ServerResult requestServer(AipRequest request, boolean acceptBinary) {
+        AipCallOptions options = AipCallOptions.current();
+        AipRetryPolicy retryPolicy = prepareRetry(request);
+        for (int attempt = 1; ; attempt++) {
+            Admission admission = new Admission();
+            JSONObject rejected = beginAttempt(request, options, admission);
+            if (rejected != null) {
+                return new ServerResult(rejected, null);
+            }
+            AipResponse response = null;
+            JSONObject res = null;
+            boolean binary = false;
+            try {
+                // 请求API
+                response = execute(request);
+                binary = acceptBinary && response.getStatus() == 200 && !isJsonBody(response);
+                res = binary ? new JSONObject() : parseResponse(response);
+                onServerResponse(request, response, res);
+            } finally {
+                endAttempt(request, options, admission, response, res);
+            }
+            if (options != null && options.isDone()) {
+                return new ServerResult(getCallOptionsError(options), null);
+            }
+            ServerResult result = new ServerResult(res, binary ? response.getBody() : null);
+            long backoff = getRetryBackoff(request, retryPolicy, attempt, response, res, options);
+            if (backoff < 0) {
+                return result;
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return result;
+            }
+        }
+    }
+
+    /**
+     * @return 响应是否为JSON，没有content-type时按body的第一个非空白字符判断
+     */
+    private static boolean isJsonBody(AipResponse response) {
+        String contentType = response.getHeaderValue(Headers.CONTENT_TYPE);
+        if (contentType != null) {
+            return contentType.contains("json");
+        }
+        ByteBuffer body = response.getBodyBuffer();
+        while (body.hasRemaining()) {
+            byte b = body.get();
+            if (!Character.isWhitespace(b)) {
+                return b == '{';
+            }
+        }
+        return true;
+    }
+
+    private AipRetryPolicy prepareRetry(AipRequest request) {
+        AipRetryPolicy retryPolicy = config == null ? null : config.getRetryPolicy();
+        // 传输层只在请求幂等时才会在失效连接上重发已经写出的body
+        request.setIdempotent(isIdempotent(request.getUri().toString(), retryPolicy));
+        if (retryPolicy != null) {
+            retryPolicy.onRequest();
+        }
+        return retryPolicy;
+    }
+
+    /**
+     * 一次请求发出前获取QPS令牌与各项名额，并登记到调用选项以便取消
+     * @return 可以发出时返回null，否则返回错误信息
+     */
+    private JSONObject beginAttempt(AipRequest request, AipCallOptions options, Admission admission) {
+        if (options != null && options.isDone()) {
+            return getCallOptionsError(options);
+        }
+        JSONObject rejected = acquireRateLimit(request);
+        if (rejected != null) {
+            return options != null && options.isDone() ? getCallOptionsError(options) : rejected;
+        }
+        rejected = admit(request, options, admission);
+        if (rejected != null) {
+            admission.cancel();
+            return rejected;
+        }
+        if (options != null) {
+            options.register(request);
+        }
+        return null;
+    }
+
+    private void onServerResponse(AipRequest request, AipResponse response, JSONObject res) {
+        if (response.getStatus() == 200) {
+            // QPS超限与日配额错误以HTTP 200返回，交给限流器调整该接口的发送速率
+            getRateLimiter().onResponse(request.getUri().toString(), res.optInt("error_code", 0));
+        }
+    }
+
+    private void endAttempt(AipRequest request, AipCallOptions options, Admission admission,
+                            AipResponse response, JSONObject res) {
+        if (options != null) {
+            options.unregister(request);
+        }
+        if (options != null && options.isDone()) {
+            admission.cancel();
+        } else {
+            admission.release(response, res);
+        }
+    }
+
+    /**
+     * @return 重试前的等待时间(毫秒)，不重试时返回-1
+     */
+    private long getRetryBackoff(AipRequest request, AipRetryPolicy retryPolicy, int attempt,
+                                 AipResponse response, JSONObject res, AipCallOptions options) {
+        if (retryPolicy == null || attempt >= retryPolicy.getMaxAttempts()
+                || !isRetryable(retryPolicy, response, res, request.isIdempotent())
+                || !retryPolicy.tryAcquireRetry()) {
+            return -1;
+        }
+        long backoff = retryPolicy.getBackoffMillis(attempt);
+        if (options != null && backoff >= options.getRemainingMillis()) {
+            // 等待后已没有时间重试
+            return -1;
+        }
+        LOGGER.info(String.format("retry %s after %d ms, attempt: %d, status: %d",
+                request.getUri(), backoff, attempt, response.getStatus()));
+        return backoff;
+    }
+
+    /**
+     * 依次通过熔断器、隔离舱、服务地址的并发请求数限制与自适应并发限制
+     * @return 全部通过返回null，否则返回错误信息，已获得的名额记录在admission中
+     */
+    private JSONObject admit(AipRequest request, AipCallOptions options, Admission admission) {
+        String url = request.getUri().toString();
+        AipCircuitBreaker circuitBreaker = config == null ? null : config.getCircuitBreaker();
+        if (circuitBreaker != null) {
+            admission.circuit = circuitBreaker.acquire(url);
+            if (admission.circuit == null) {
+                return AipError.CIRCUIT_OPEN_ERROR.toJsonResult();
+            }
+        }
+        AipBulkhead bulkhead = getBulkhead(url);
+        if (bulkhead != null) {
+            if (!bulkhead.tryAcquire(request)) {
+                return options != null && options.isDone() ? getCallOptionsError(options)
+                        : AipError.BULKHEAD_FULL_ERROR.toJsonResult();
+            }
+            admission.bulkhead = bulkhead;
+        }
+        AipRouteLimiter routeLimiter = config == null ? null : config.getRouteLimiter();
+        if (routeLimiter != null) {
+            admission.route = routeLimiter.tryAcquire(request);
+            if (admission.route == null) {
+                return options != null && options.isDone() ? getCallOptionsError(options)
+                        : AipError.ROUTE_LIMIT_ERROR.toJsonResult();
+            }
+            admission.routeLimiter = routeLimiter;
+        }
+        AipConcurrencyLimiter concurrencyLimiter = config == null ? null : config.getConcurrencyLimiter();
+        if (concurrencyLimiter != null) {
+            try {
+                String host = request.getUri().getHost();
+                admission.permit = options == null ? concurrencyLimiter.acquire(host)
+                        : concurrencyLimiter.acquire(host, options.getRemainingMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (admission.permit == null) {
+                return options != null && options.isDone() ? getCallOptionsError(options)
+                        : AipError.CONCURRENCY_LIMIT_ERROR.toJsonResult();
+            }
+        }
+        if (admission.circuit != null) {
+            // 熔断器最先判断以便快速失败，慢调用的计时从排队结束后开始
+            admission.circuit.start();
+        }
+        return null;
+    }
+
+    /**
+     * @param url 接口地址
+     * @return 接口使用的隔离舱，没有时返回null
+     */
+    protected AipBulkhead getBulkhead(String url) {
+        return config == null ? null : config.getBulkhead(url);
+    }
+
+    private AipResponse execute(AipRequest request) {
+        AipHedgePolicy hedgePolicy = getHedgePolicy(request);
+        if (hedgePolicy != null) {
+            HedgeTransport hedgeTransport = new HedgeTransport();
+            AipResponse response = hedgePolicy.execute(getTransport(), hedgeTransport, request,
+                    config.getAsyncExecutor());
+            hedgeTransport.onWinner(response);
+            return response;
+        }
+        return getTransport().execute(request);
+    }
+
+    /**
+     * 异步发送请求：传输层支持时直接异步发送，阻塞的传输层与对冲请求在异步线程池中执行
+     */
+    private void executeAsync(final AipRequest request, final AipCallback<AipResponse> callback,
+                              Executor executor) {
+        AipTransport transport = getTransport();
+        if (transport instanceof AipAsyncTransport && getHedgePolicy(request) == null) {
+            ((AipAsyncTransport) transport).executeAsync(request, callback);
+            return;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                AipResponse response;
+                try {
+                    response = execute(request);
+                } catch (RuntimeException e) {
+                    callback.onFailure(e);
+                    return;
+                }
+                callback.onSuccess(response);
+            }
+        });
+    }
+
+    /**
+     * @return 请求使用的对冲策略，不对冲时返回null
+     */
+    private AipHedgePolicy getHedgePolicy(AipRequest request) {
+        AipHedgePolicy hedgePolicy = config == null ? null : config.getHedgePolicy();
+        if (hedgePolicy != null) {
+            String url = request.getUri().toString();
+            // 只对客户端声明的只读接口对冲，策略中的接口列表只能缩小范围
+            if (getHedgeableUrls().contains(url) && hedgePolicy.isHedgedEndpoint(url)
+                    && request.isIdempotent()) {
+                return hedgePolicy;
+            }
+        }
+        return null;
+    }
+
+    private Executor getAsyncExecutor() {
+        return config == null ? AipClientConfiguration.getDefaultAsyncExecutor() : config.getAsyncExecutor();
+    }
+
+    /**
+     * 一次异步调用：与requestServer相同的步骤，在请求完成的回调中决定结束还是在等待后重试
+     */
+    private class AsyncCall implements AipCallback<AipResponse> {
+        private final AipRequest request;
+        private final AipCallOptions options;
+        private final AipFuture<JSONObject> result;
+        private final Executor executor;
+        private final AipRetryPolicy retryPolicy;
+        private int attempt;
+        private Admission admission;
+
+        AsyncCall(AipRequest request, AipCallOptions options, AipFuture<JSONObject> result, Executor executor) {
+            this.request = request;
+            this.options = options;
+            this.result = result;
+            this.executor = executor;
+            this.retryPolicy = prepareRetry(request);
+            this.attempt = 0;
+        }
+
+        void start() {
+            if (result.isDone()) {
+                return;
+            }
+            attempt++;
+            admission = new Admission();
+            JSONObject rejected;
+            // 限流器按当前线程的选项确定优先级与等待时间
+            options.attach();
+            try {
+                rejected = beginAttempt(request, options, admission);
+            } catch (RuntimeException e) {
+                admission.cancel();
+                result.setException(e);
+                return;
+            } finally {
+                options.detach();
+            }
+            if (rejected != null) {
+                result.set(rejected);
+                return;
+            }
+            try {
+                executeAsync(request, this, executor);
+            } catch (RejectedExecutionException e) {
+                onFailure(e);
+            }
+        }
+
+        @Override
+        public void onSuccess(AipResponse response) {
+            JSONObject res = null;
+            try {
+                res = parseResponse(response);
+                onServerResponse(request, response, res);
+            } catch (RuntimeException e) {
+                endAttempt(request, options, admission, response, null);
+                result.setException(e);
+                return;
+            }
+            endAttempt(request, options, admission, response, res);
+            if (options.isDone()) {
+                result.set(getCallOptionsError(options));
+                return;
+            }
+            long backoff = getRetryBackoff(request, retryPolicy, attempt, response, res, options);
+            if (backoff < 0) {
+                result.set(res);
+                return;
+            }
+            try {
+                RETRY_TIMER.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        retry();
+                    }
+                }, backoff, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                result.set(res);
+            }
+        }
+
+        @Override
+        public void onFailure(Throwable e) {
+            options.unregister(request);
+            admission.cancel();
+            result.setException(e);
+        }
+
+        private void retry() {
+            // 重试前的排队可能阻塞，不在定时线程中进行
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        start();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                result.setException(e);
+            }
+        }
+    }
+
+    /**
+     * 按接口与当前调用的优先级获取本地QPS令牌，重试的请求同样需要获取令牌
+     * 接口的日配额已用尽时不再发出请求，直接返回与服务端相同的错误码
+     * @param request 请求
+     * @return 获取成功返回null，否则返回错误信息
+     */
+    protected JSONObject acquireRateLimit(AipRequest request) {
+        String url = request.getUri().toString();
+        if (getRateLimiter().isDailyLimitReached(url)) {
+            return Util.getGeneralError(AipClientConst.DAILY_LIMIT_ERROR_CODE, AipClientConst.DAILY_LIMIT_ERROR_MSG);
+        }
+        ERateLimitMode mode = config == null ? ERateLimitMode.BLOCK : config.getRateLimitMode();
+        long timeoutMillis = config == null ? 0 : config.getRateLimitTimeoutMillis();
+        AipCallOptions options = AipCallOptions.current();
+        EPriority priority = options == null ? EPriority.INTERACTIVE : options.getPriority();
+        if (options != null && options.getDeadlineNanos() != 0 && mode != ERateLimitMode.FAIL_FAST) {
+            // 等待令牌的时间不超过调用的剩余时间
+            long remaining = options.getRemainingMillis();
+            timeoutMillis = mode == ERateLimitMode.BLOCK ? remaining : Math.min(timeoutMillis, remaining);
+            mode = ERateLimitMode.TIMEOUT;
+        }
+        try {
+            if (getRateLimiter().acquire(url, priority, mode, timeoutMillis)) {
+                return null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return AipError.RATE_LIMIT_ERROR.toJsonResult();
+    }
+
+    /**
+     * 发送对冲请求的传输层：对冲请求同样经过限流、熔断、隔离舱与并发限制，未获准时不发出
+     * 对冲请求只是为了降低尾延迟，不等待QPS令牌。
+     * 胜出的响应由requestServer交给限流器，这里只把落后的对冲响应交给限流器，每个响应只统计一次
+     */
+    private class HedgeTransport implements AipTransport {
+        private AipRequest hedgeRequest;
+        private AipResponse hedgeResponse;
+        private JSONObject hedgeResult;
+        private AipResponse winner;
+
+        @Override
+        public AipResponse execute(AipRequest request) {
+            String url = request.getUri().toString();
+            AipCallOptions options = AipCallOptions.current();
+            EPriority priority = options == null ? EPriority.INTERACTIVE : options.getPriority();
+            try {
+                if (getRateLimiter().isDailyLimitReached(url)
+                        || !getRateLimiter().acquire(url, priority, ERateLimitMode.FAIL_FAST, 0)) {
+                    return new AipResponse();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new AipResponse();
+            }
+            Admission admission = new Admission();
+            if (admit(request, options, admission) != null) {
+                admission.cancel();
+                return new AipResponse();
+            }
+            AipResponse response = null;
+            JSONObject res = null;
+            try {
+                response = getTransport().execute(request);
+                if (response.getStatus() == 200) {
+                    try {
+                        res = new JSONObject(new JSONTokener(response.getBodyReader()));
+                    } catch (JSONException e) {
+                        res = Util.getGeneralError(-1, response.getBodyStr());
+                    }
+                    onHedgeResponse(request, response, res);
+                } else {
+                    res = AipError.NET_TIMEOUT_ERROR.toJsonResult();
+                }
+            } finally {
+                if (options != null && options.isDone() || request.isAborted()) {
+                    admission.cancel();
+                } else {
+                    admission.release(response, res);
+                }
+            }
+            return response;
+        }
+
+        private synchronized void onHedgeResponse(AipRequest request, AipResponse response, JSONObject res) {
+            if (winner != null) {
+                if (winner != response) {
+                    onServerResponse(request, response, res);
+                }
+                return;
+            }
+            hedgeRequest = request;
+            hedgeResponse = response;
+            hedgeResult = res;
+        }
+
+        /**
+         * 对冲策略返回后调用，对冲请求落后时统计它的响应
+         * @param response 胜出的响应
+         */
+        synchronized void onWinner(AipResponse response) {
+            winner = response;
+            if (hedgeResponse != null && hedgeResponse != response) {
+                onServerResponse(hedgeRequest, hedgeResponse, hedgeResult);
+            }
+            hedgeRequest = null;
+            hedgeResponse = null;
+            hedgeResult = null;
+        }
+    }
+
+    /**
+     * requestServerForResponse的结果：服务端返回非JSON数据时为data，否则为JSON结果或错误信息
+     */
+    protected static class ServerResult {
+        private final JSONObject result;
+        private final byte[] data;
+
+        ServerResult(JSONObject result, byte[] data) {
+            this.result = result;
+            this.data = data;
+        }
+
+        /**
+         * @return JSON结果或错误信息，返回非JSON数据时为空的JSONObject
+         */
+        public JSONObject getResult() {
+            return result;
+        }
+
+        /**
+         * @return 服务端返回的非JSON数据，没有时返回null
+         */
+        public byte[] getData() {
+            return data;
+        }
+    }
+
+    /**
+     * 一次请求已获得的熔断器、隔离舱、服务地址与并发名额
+     */
+    private class Admission {
+        private AipCircuitBreaker.Permit circuit;
+        private AipBulkhead bulkhead;
+        private AipRouteLimiter routeLimiter;
+        private AipRouteLimiter.Permit route;
+        private AipConcurrencyLimiter.Permit permit;
+
+        /**
+         * 请求未完成时归还名额，不计入统计
+         */
+        void cancel() {
+            if (permit != null) {
+                permit.cancel();
+            }
+            if (routeLimiter != null) {
+                routeLimiter.release(route);
+            }
+            if (bulkhead != null) {
+                bulkhead.release();
+            }
+            if (circuit != null) {
+                circuit.cancel();
+            }
+        }
+
+        void release(AipResponse response, JSONObject res) {
+            if (permit != null) {
+                permit.release(res == null || isOverloaded(response, res));
+            }
+            if (routeLimiter != null) {
+                routeLimiter.release(route);
+            }
+            if (bulkhead != null) {
+                bulkhead.release();
+            }
+            if (circuit != null) {
+                if (res == null) {
+                    circuit.release(0, 0);
+                } else {
+                    circuit.release(response.getStatus(), res.optInt("error_code", 0));
+                }
+            }
+        }
+    }
+
+    private static JSONObject getCallOptionsError(AipCallOptions options) {
+        if (options.isCancelled()) {
+            return AipError.CALL_CANCELLED_ERROR.toJsonResult();
+        }
+        return AipError.DEADLINE_EXCEEDED_ERROR.toJsonResult();
+    }
+
+    /**
+     * @return 请求是否因网络错误或服务端过载失败，用于收缩并发窗口
+     */
+    private boolean isOverloaded(AipResponse response, JSONObject res) {
+        int status = response.getStatus();
+        if (status != 200) {
+            return status == 0 || status == 429 || status == 503;
+        }
+        return res.optInt("error_code", 0) == AipClientConst.QPS_LIMIT_ERROR_CODE;
+    }
+
+    private boolean isRetryable(AipRetryPolicy retryPolicy, AipResponse response, JSONObject res,
+                                boolean idempotent) {
+        if (response.getStatus() != 200) {
+            return retryPolicy.isRetryableStatus(response.getStatus(), idempotent);
+        }
+        return !res.isNull("error_code") && retryPolicy.isRetryableErrorCode(res.optInt("error_code", 0));
+    }
+
+    /**
+     * @param url 接口地址
+     * @param retryPolicy 重试策略，可以为null
+     * @return 接口是否幂等，即网络错误时是否可以安全地重发
+     */
+    protected boolean isIdempotent(String url, AipRetryPolicy retryPolicy) {
+        return !getNonIdempotentUrls().contains(url)
+                && (retryPolicy == null || !retryPolicy.isNonIdempotentEndpoint(url));
+    }
+
+    /**
+     * @return 会修改服务端数据的非幂等接口，子类按需覆盖
+     */
+    protected Set<String> getNonIdempotentUrls() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * @return 设置对冲策略后默认对冲的只读接口，子类按需覆盖
+     */
+    protected Set<String> getHedgeableUrls() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * parse server response, and update auth state when probing cloud user
+     * @param response response from transport
+     * @return JSONObject of server response
+     */
+    private JSONObject parseResponse(AipResponse response) {
+        Integer status = response.getStatus();
+        if (status.equals(200) && response.getBodyLength() > 0) {
+            try {
+                // 直接从响应缓冲区解析，不再生成完整的body字符串
+                JSONObject res =  new JSONObject(new JSONTokener(response.getBodyReader()));
+                if (credential.getState().getState().equals(EAuthState.STATE_POSSIBLE_CLOUD_USER)) {
+                    boolean cloudAuthState = res.isNull("error_code")
+                            || res.getInt("error_code") != AipClientConst.IAM_ERROR_CODE;
+                    credential.getState().transfer(cloudAuthState);
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug("state after cloud auth: " + credential.getState().toString());
+                    }
+                    storeCredential();
+                    if (!cloudAuthState) {
+                        return Util.getGeneralError(
+                                AipClientConst.OPENAPI_NO_ACCESS_ERROR_CODE,
+                                AipClientConst.OPENAPI_NO_ACCESS_ERROR_MSG);
+                    }
+                }
+                return res;
+            } catch (JSONException e) {
+                return Util.getGeneralError(-1, response.getBodyStr());
+            }
+        }
+        else {
+            LOGGER.warn(String.format("call failed! response status: %d, data: %s", status, response.getBodyStr()));
+            return AipError.NET_TIMEOUT_ERROR.toJsonResult();
+
+        }
+    }
+
+
+    /**
+     * 把共享的access_token同步到兼容旧版本的accessToken与expireDate字段，token未变化时不分配对象
+     */
+    @SuppressWarnings("deprecation")
+    private void syncLegacyToken() {
+        AipAccessToken current = credential.getToken();
+        if (current == legacyToken) {
+            return;
+        }
+        legacyToken = current;
+        if (current == null) {
+            accessToken = null;
+            expireDate = null;
+            return;
+        }
+        Calendar date = Calendar.getInstance();
+        date.setTimeInMillis(current.getExpireTimeMillis());
+        accessToken = current.getAccessToken();
+        expireDate = date;
+    }
+
+    // getters and setters for UT
+    private AipAccessToken getToken() {
+        return credential.getToken();
+    }
+
+    private void setToken(AipAccessToken token) {
+        credential.setToken(token);
+    }
+
+    private AtomicBoolean getIsAuthorized() {
+        return isAuthorized;
+    }
+
+    private void setIsAuthorized(boolean isAuthorized) {
+        this.isAuthorized.set(isAuthorized);
+    }
+
+    private AtomicBoolean getIsBceKey() {
+        return isBceKey;
+    }
+
+    private void setIsBceKey(boolean isBceKey) {
+        this.isBceKey.set(isBceKey);
     }
 
 }
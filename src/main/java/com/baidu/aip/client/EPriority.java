@@ -0,0 +1,23 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.client;
+
+/**
+ * 请求优先级，在QPS配额内INTERACTIVE请求优先获得令牌
+ */
+public enum EPriority {
+    // 面向用户的实时请求
+    INTERACTIVE,
+    // 离线批量任务，使用剩余的配额
+    BATCH
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.client;
+
+/**
+ * 本地QPS限流时请求的处理方式
+ */
+public enum ERateLimitMode {
+    // 一直等待直到获得令牌
+    BLOCK,
+    // 最多等待rateLimitTimeoutMillis，超时返回错误
+    TIMEOUT,
+    // 没有可用令牌时立即返回错误
+    FAIL_FAST
+}
@@ -12,12 +12,15 @@
  */
 package com.baidu.aip.contentcensor;
 
+import com.baidu.aip.client.AipCallback;
+import com.baidu.aip.client.AipFuture;
 import com.baidu.aip.client.BaseClient;
 import com.baidu.aip.error.AipError;
 import com.baidu.aip.http.AipRequest;
 import com.baidu.aip.http.EBodyFormat;
 import com.baidu.aip.http.Headers;
 import com.baidu.aip.http.HttpContentType;
+import com.baidu.aip.util.AipClientConfiguration;
 import com.baidu.aip.util.Base64Util;
 import com.baidu.aip.util.ImageUtil;
 import com.baidu.aip.util.Util;
@@ -36,6 +39,16 @@ public class AipContentCensor extends BaseClient {
         super(appId, aipKey, aipToken);
     }
 
+    /**
+     * @param appId 应用ID
+     * @param aipKey API Key
+     * @param aipToken Secret Key
+     * @param config 网络连接设置，开启warmUpOnInit时在构造后立即后台预热连接与access_token
+     */
+    public AipContentCensor(String appId, String aipKey, String aipToken, AipClientConfiguration config) {
+        super(appId, aipKey, aipToken, config);
+    }
+
     /**
      * 色情识别接口
      * @param imgPath 本地图片路径
@@ -133,17 +146,27 @@ public class AipContentCensor extends BaseClient {
      * @return JSONObject
      */
     public JSONObject antiTerror(byte[] imgData) {
-        AipRequest request = new AipRequest();
+        return requestServerWithAuth(antiTerrorRequest(imgData));
+    }
 
-        preOperation(request);
+    /**
+     * antiTerror的异步版本，参数与返回结果同antiTerror(byte[])
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> antiTerror(byte[] imgData, AipCallback<JSONObject> callback) {
+        return requestServerAsync(antiTerrorRequest(imgData), null, callback);
+    }
+
+    private AipRequest antiTerrorRequest(byte[] imgData) {
+        AipRequest request = new AipRequest();
+        initRequest(request);
         // add API params
         String base64Content = Base64Util.encode(imgData);
 
         request.addBody("image", base64Content);
         request.setUri(ContentCensorConsts.ANTI_TERROR_URL);
-        postOperation(request);
-
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -170,7 +193,7 @@ public class AipContentCensor extends BaseClient {
 
         request.addBody("imgUrl", imgPath);
 
-        return imageCensorCombHelper(request, scenes, options);
+        return requestServerWithAuth(imageCensorCombHelper(request, scenes, options));
     }
 
     /**
@@ -181,6 +204,20 @@ public class AipContentCensor extends BaseClient {
      * @return JSONObject
      */
     public JSONObject imageCensorComb(byte[] imgData, List<String> scenes, HashMap<String, String> options) {
+        return requestServerWithAuth(imageCensorCombRequest(imgData, scenes, options));
+    }
+
+    /**
+     * imageCensorComb的异步版本，参数与返回结果同imageCensorComb(byte[], List, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> imageCensorComb(byte[] imgData, List<String> scenes, HashMap<String, String> options,
+                                                 AipCallback<JSONObject> callback) {
+        return requestServerAsync(imageCensorCombRequest(imgData, scenes, options), null, callback);
+    }
+
+    private AipRequest imageCensorCombRequest(byte[] imgData, List<String> scenes, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
 
         String base64Content = Base64Util.encode(imgData);
@@ -189,8 +226,8 @@ public class AipContentCensor extends BaseClient {
         return imageCensorCombHelper(request, scenes, options);
     }
 
-    private JSONObject imageCensorCombHelper(AipRequest request, List<String> scenes, HashMap<String, String> options) {
-        preOperation(request);
+    private AipRequest imageCensorCombHelper(AipRequest request, List<String> scenes, HashMap<String, String> options) {
+        initRequest(request);
         JSONArray obj = new JSONArray();
         for (String scene : scenes) {
             obj.put(scene);
@@ -205,8 +242,7 @@ public class AipContentCensor extends BaseClient {
         request.setUri(ContentCensorConsts.IMAGE_CENSOR_COMB_URL);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
         request.addHeader(Headers.CONTENT_TYPE, HttpContentType.JSON_DATA);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -236,7 +272,7 @@ public class AipContentCensor extends BaseClient {
         AipRequest request = new AipRequest();
         request.addBody("imgUrls", Util.mkString(imgPaths.iterator(), ','));
 
-        return faceAuditHelper(request, options);
+        return requestServerWithAuth(faceAuditHelper(request, options));
     }
 
     /**
@@ -246,6 +282,20 @@ public class AipContentCensor extends BaseClient {
      * @return JSONObject
      */
     public JSONObject faceAudit(byte[][] imgData, HashMap<String, String> options) {
+        return requestServerWithAuth(faceAuditRequest(imgData, options));
+    }
+
+    /**
+     * faceAudit的异步版本，参数与返回结果同faceAudit(byte[][], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> faceAudit(byte[][] imgData, HashMap<String, String> options,
+                                           AipCallback<JSONObject> callback) {
+        return requestServerAsync(faceAuditRequest(imgData, options), null, callback);
+    }
+
+    private AipRequest faceAuditRequest(byte[][] imgData, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
         ArrayList<String> buffer = new ArrayList<String>();
         for (byte[] data : imgData) {
@@ -264,11 +314,10 @@ public class AipContentCensor extends BaseClient {
         return faceAuditHelper(request, options);
     }
 
-    private JSONObject faceAuditHelper(AipRequest request, HashMap<String, String> options) {
-        preOperation(request);
+    private AipRequest faceAuditHelper(AipRequest request, HashMap<String, String> options) {
+        initRequest(request);
         request.setUri(ContentCensorConsts.FACE_AUDIT_URL);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -277,14 +326,26 @@ public class AipContentCensor extends BaseClient {
      * @return JSONObject
      */
     public JSONObject report(JSONArray reportData) {
+        return requestServerWithAuth(reportRequest(reportData));
+    }
+
+    /**
+     * report的异步版本，参数与返回结果同report(JSONArray)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> report(JSONArray reportData, AipCallback<JSONObject> callback) {
+        return requestServerAsync(reportRequest(reportData), null, callback);
+    }
+
+    private AipRequest reportRequest(JSONArray reportData) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         request.addBody("feedback", reportData);
         request.setUri(ContentCensorConsts.REPORT_URL);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
         request.addHeader(Headers.CONTENT_TYPE, HttpContentType.JSON_DATA);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
 
@@ -311,7 +372,7 @@ public class AipContentCensor extends BaseClient {
 
         request.addBody("imgUrl", image);
 
-        return imageCensorUserDefinedHelper(request, options);
+        return requestServerWithAuth(imageCensorUserDefinedHelper(request, options));
     }
 
     /**
@@ -322,6 +383,20 @@ public class AipContentCensor extends BaseClient {
      * @return JSONObject
      */
     public JSONObject imageCensorUserDefined(byte[] imgData, HashMap<String, String> options) {
+        return requestServerWithAuth(imageCensorUserDefinedRequest(imgData, options));
+    }
+
+    /**
+     * imageCensorUserDefined的异步版本，参数与返回结果同imageCensorUserDefined(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> imageCensorUserDefined(byte[] imgData, HashMap<String, String> options,
+                                                        AipCallback<JSONObject> callback) {
+        return requestServerAsync(imageCensorUserDefinedRequest(imgData, options), null, callback);
+    }
+
+    private AipRequest imageCensorUserDefinedRequest(byte[] imgData, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
 
         String base64Content = Base64Util.encode(imgData);
@@ -330,8 +405,8 @@ public class AipContentCensor extends BaseClient {
         return imageCensorUserDefinedHelper(request, options);
     }
 
-    private JSONObject imageCensorUserDefinedHelper(AipRequest request, HashMap<String, String> options) {
-        preOperation(request);
+    private AipRequest imageCensorUserDefinedHelper(AipRequest request, HashMap<String, String> options) {
+        initRequest(request);
 
         if (options != null) {
             for (Map.Entry<String, String> entry : options.entrySet()) {
@@ -339,8 +414,7 @@ public class AipContentCensor extends BaseClient {
             }
         }
         request.setUri(ContentCensorConsts.USER_DEFINED_IMAGE_URL);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -350,6 +424,19 @@ public class AipContentCensor extends BaseClient {
      * @return JSONObject
      */
     public JSONObject textCensorUserDefined(String text) {
+        return requestServerWithAuth(textCensorUserDefinedRequest(text));
+    }
+
+    /**
+     * textCensorUserDefined的异步版本，参数与返回结果同textCensorUserDefined(String)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> textCensorUserDefined(String text, AipCallback<JSONObject> callback) {
+        return requestServerAsync(textCensorUserDefinedRequest(text), null, callback);
+    }
+
+    private AipRequest textCensorUserDefinedRequest(String text) {
         AipRequest request = new AipRequest();
 
         request.addBody("text", text);
@@ -357,8 +444,8 @@ public class AipContentCensor extends BaseClient {
         return textCensorUserDefinedHelper(request, null);
     }
 
-    private JSONObject textCensorUserDefinedHelper(AipRequest request, HashMap<String, String> options) {
-        preOperation(request);
+    private AipRequest textCensorUserDefinedHelper(AipRequest request, HashMap<String, String> options) {
+        initRequest(request);
 
         if (options != null) {
             for (Map.Entry<String, String> entry : options.entrySet()) {
@@ -366,13 +453,26 @@ public class AipContentCensor extends BaseClient {
             }
         }
         request.setUri(ContentCensorConsts.USER_DEFINED_TEXT_URL);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     public JSONObject antiSpam(String content, HashMap<String, String> options) {
+        return requestServerWithAuth(antiSpamRequest(content, options));
+    }
+
+    /**
+     * antiSpam的异步版本，参数与返回结果同antiSpam(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> antiSpam(String content, HashMap<String, String> options,
+                                          AipCallback<JSONObject> callback) {
+        return requestServerAsync(antiSpamRequest(content, options), null, callback);
+    }
+
+    private AipRequest antiSpamRequest(String content, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
 
         request.addBody("content", content);
         if (options != null) {
@@ -380,8 +480,7 @@ public class AipContentCensor extends BaseClient {
         }
 
         request.setUri(ContentCensorConsts.TXT_CENSOR_URL);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     private JSONObject checkParam(byte[] imgData) {
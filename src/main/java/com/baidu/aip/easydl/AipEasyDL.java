@@ -1,5 +1,7 @@
 package com.baidu.aip.easydl;
 
+import com.baidu.aip.client.AipCallback;
+import com.baidu.aip.client.AipFuture;
 import com.baidu.aip.client.BaseClient;
 import com.baidu.aip.error.AipError;
 import com.baidu.aip.http.AipRequest;
@@ -7,6 +9,7 @@ import com.baidu.aip.http.EBodyFormat;
 import com.baidu.aip.http.Headers;
 import com.baidu.aip.http.HttpCharacterEncoding;
 import com.baidu.aip.http.HttpContentType;
+import com.baidu.aip.util.AipClientConfiguration;
 import com.baidu.aip.util.Base64Util;
 import com.baidu.aip.util.Util;
 import org.json.JSONObject;
@@ -20,6 +23,16 @@ public class AipEasyDL extends BaseClient {
         super(appId, apiKey, secretKey);
     }
 
+    /**
+     * @param appId 应用ID
+     * @param apiKey API Key
+     * @param secretKey Secret Key
+     * @param config 网络连接设置，开启warmUpOnInit时在构造后立即后台预热连接与access_token
+     */
+    public AipEasyDL(String appId, String apiKey, String secretKey, AipClientConfiguration config) {
+        super(appId, apiKey, secretKey, config);
+    }
+
     /**
      * easyDL通用请求方法
      * @param url 服务的url
@@ -46,8 +59,22 @@ public class AipEasyDL extends BaseClient {
      * @return Json返回
      */
     public JSONObject sendImageRequest(String url, byte[] image, HashMap<String, Object> options) {
+        return requestServerWithAuth(sendImageRequestRequest(url, image, options));
+    }
+
+    /**
+     * sendImageRequest的异步版本，参数与返回结果同sendImageRequest(String, byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> sendImageRequest(String url, byte[] image, HashMap<String, Object> options,
+                                                  AipCallback<JSONObject> callback) {
+        return requestServerAsync(sendImageRequestRequest(url, image, options), null, callback);
+    }
+
+    private AipRequest sendImageRequestRequest(String url, byte[] image, HashMap<String, Object> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         String content = Base64Util.encode(image);
         request.addBody("image", content);
         if (options != null) {
@@ -58,8 +85,7 @@ public class AipEasyDL extends BaseClient {
                 HttpCharacterEncoding.ENCODE_UTF8);
         request.addHeader(Headers.CONTENT_TYPE, HttpContentType.JSON_DATA);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -88,8 +114,22 @@ public class AipEasyDL extends BaseClient {
      * @return Json返回
      */
     public JSONObject sendSoundRequest(String url, byte[] data, HashMap<String, Object> options) {
+        return requestServerWithAuth(sendSoundRequestRequest(url, data, options));
+    }
+
+    /**
+     * sendSoundRequest的异步版本，参数与返回结果同sendSoundRequest(String, byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> sendSoundRequest(String url, byte[] data, HashMap<String, Object> options,
+                                                  AipCallback<JSONObject> callback) {
+        return requestServerAsync(sendSoundRequestRequest(url, data, options), null, callback);
+    }
+
+    private AipRequest sendSoundRequestRequest(String url, byte[] data, HashMap<String, Object> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         String content = Base64Util.encode(data);
         request.addBody("sound", content);
         if (options != null) {
@@ -100,8 +140,7 @@ public class AipEasyDL extends BaseClient {
                 HttpCharacterEncoding.ENCODE_UTF8);
         request.addHeader(Headers.CONTENT_TYPE, HttpContentType.JSON_DATA);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
 }
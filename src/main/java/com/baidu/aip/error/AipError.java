@@ -28,7 +28,14 @@ public enum AipError {
     UNSUPPORTED_IMAGE_FORMAT_ERROR("SDK109", "unsupported image format"),
     ILLEGAL_REQUEST_ID_ERROR("SDK110", "illegal request id found: "),     // 填充具体id
     ASYNC_TIMEOUT_ERROR("SDK111", "wait for aysnc result timeout"),
-    DOWNLOAD_FILE_ERROR("SDK112", "download file failed");
+    DOWNLOAD_FILE_ERROR("SDK112", "download file failed"),
+    RATE_LIMIT_ERROR("SDK113", "client side qps limit reached"),
+    CONCURRENCY_LIMIT_ERROR("SDK114", "wait for concurrency limit timeout"),
+    CIRCUIT_OPEN_ERROR("SDK115", "circuit breaker is open for this api"),
+    DEADLINE_EXCEEDED_ERROR("SDK116", "call deadline exceeded"),
+    CALL_CANCELLED_ERROR("SDK117", "call cancelled"),
+    BULKHEAD_FULL_ERROR("SDK118", "bulkhead is full"),
+    ROUTE_LIMIT_ERROR("SDK119", "wait for route limit timeout");
 
     private final String errorCode;
     private final String errorMsg;
@@ -13,10 +13,13 @@
 
 package com.baidu.aip.face;
 
+import com.baidu.aip.client.AipCallback;
+import com.baidu.aip.client.AipFuture;
 import com.baidu.aip.client.BaseClient;
 import com.baidu.aip.error.AipError;
 import com.baidu.aip.http.AipRequest;
 import com.baidu.aip.http.EBodyFormat;
+import com.baidu.aip.util.AipClientConfiguration;
 import com.baidu.aip.util.Base64Util;
 import com.baidu.aip.util.Util;
 import org.json.JSONObject;
@@ -24,6 +27,7 @@ import org.json.JSONArray;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.Set;
 import java.util.List;
 
 public class AipFace extends BaseClient {
@@ -32,6 +36,16 @@ public class AipFace extends BaseClient {
         super(appId, apiKey, secretKey);
     }
 
+    /**
+     * @param appId 应用ID
+     * @param apiKey API Key
+     * @param secretKey Secret Key
+     * @param config 网络连接设置，开启warmUpOnInit时在构造后立即后台预热连接与access_token
+     */
+    public AipFace(String appId, String apiKey, String secretKey, AipClientConfiguration config) {
+        super(appId, apiKey, secretKey, config);
+    }
+
     /**
      * 人脸检测接口   
      *
@@ -46,8 +60,22 @@ public class AipFace extends BaseClient {
      * @return JSONObject
      */
     public JSONObject detect(String image, String imageType, HashMap<String, String> options) {
+        return requestServerWithAuth(detectRequest(image, imageType, options));
+    }
+
+    /**
+     * detect的异步版本，参数与返回结果同detect(String, String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> detect(String image, String imageType, HashMap<String, String> options,
+                                        AipCallback<JSONObject> callback) {
+        return requestServerAsync(detectRequest(image, imageType, options), null, callback);
+    }
+
+    private AipRequest detectRequest(String image, String imageType, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("image", image);
         
@@ -57,8 +85,7 @@ public class AipFace extends BaseClient {
         }
         request.setUri(FaceConsts.DETECT);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -78,8 +105,22 @@ public class AipFace extends BaseClient {
      * @return JSONObject
      */
     public JSONObject search(String image, String imageType, String groupIdList, HashMap<String, String> options) {
+        return requestServerWithAuth(searchRequest(image, imageType, groupIdList, options));
+    }
+
+    /**
+     * search的异步版本，参数与返回结果同search(String, String, String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> search(String image, String imageType, String groupIdList,
+                                        HashMap<String, String> options, AipCallback<JSONObject> callback) {
+        return requestServerAsync(searchRequest(image, imageType, groupIdList, options), null, callback);
+    }
+
+    private AipRequest searchRequest(String image, String imageType, String groupIdList, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("image", image);
         
@@ -91,8 +132,7 @@ public class AipFace extends BaseClient {
         }
         request.setUri(FaceConsts.SEARCH);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -111,8 +151,22 @@ public class AipFace extends BaseClient {
      * @return JSONObject
      */
     public JSONObject multiSearch(String image, String imageType, String groupIdList, HashMap<String, String> options) {
+        return requestServerWithAuth(multiSearchRequest(image, imageType, groupIdList, options));
+    }
+
+    /**
+     * multiSearch的异步版本，参数与返回结果同multiSearch(String, String, String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> multiSearch(String image, String imageType, String groupIdList,
+                                             HashMap<String, String> options, AipCallback<JSONObject> callback) {
+        return requestServerAsync(multiSearchRequest(image, imageType, groupIdList, options), null, callback);
+    }
+
+    private AipRequest multiSearchRequest(String image, String imageType, String groupIdList, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("image", image);
         
@@ -124,8 +178,7 @@ public class AipFace extends BaseClient {
         }
         request.setUri(FaceConsts.MULTI_SEARCH);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -144,8 +197,22 @@ public class AipFace extends BaseClient {
      * @return JSONObject
      */
     public JSONObject addUser(String image, String imageType, String groupId, String userId, HashMap<String, String> options) {
+        return requestServerWithAuth(addUserRequest(image, imageType, groupId, userId, options));
+    }
+
+    /**
+     * addUser的异步版本，参数与返回结果同addUser(String, String, String, String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> addUser(String image, String imageType, String groupId, String userId,
+                                         HashMap<String, String> options, AipCallback<JSONObject> callback) {
+        return requestServerAsync(addUserRequest(image, imageType, groupId, userId, options), null, callback);
+    }
+
+    private AipRequest addUserRequest(String image, String imageType, String groupId, String userId, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("image", image);
         
@@ -159,8 +226,7 @@ public class AipFace extends BaseClient {
         }
         request.setUri(FaceConsts.USER_ADD);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -179,8 +245,22 @@ public class AipFace extends BaseClient {
      * @return JSONObject
      */
     public JSONObject updateUser(String image, String imageType, String groupId, String userId, HashMap<String, String> options) {
+        return requestServerWithAuth(updateUserRequest(image, imageType, groupId, userId, options));
+    }
+
+    /**
+     * updateUser的异步版本，参数与返回结果同updateUser(String, String, String, String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> updateUser(String image, String imageType, String groupId, String userId,
+                                            HashMap<String, String> options, AipCallback<JSONObject> callback) {
+        return requestServerAsync(updateUserRequest(image, imageType, groupId, userId, options), null, callback);
+    }
+
+    private AipRequest updateUserRequest(String image, String imageType, String groupId, String userId, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("image", image);
         
@@ -194,8 +274,7 @@ public class AipFace extends BaseClient {
         }
         request.setUri(FaceConsts.USER_UPDATE);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -209,8 +288,22 @@ public class AipFace extends BaseClient {
      * @return JSONObject
      */
     public JSONObject faceDelete(String userId, String groupId, String faceToken, HashMap<String, String> options) {
+        return requestServerWithAuth(faceDeleteRequest(userId, groupId, faceToken, options));
+    }
+
+    /**
+     * faceDelete的异步版本，参数与返回结果同faceDelete(String, String, String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> faceDelete(String userId, String groupId, String faceToken,
+                                            HashMap<String, String> options, AipCallback<JSONObject> callback) {
+        return requestServerAsync(faceDeleteRequest(userId, groupId, faceToken, options), null, callback);
+    }
+
+    private AipRequest faceDeleteRequest(String userId, String groupId, String faceToken, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("user_id", userId);
         
@@ -222,8 +315,7 @@ public class AipFace extends BaseClient {
         }
         request.setUri(FaceConsts.FACE_DELETE);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -236,8 +328,22 @@ public class AipFace extends BaseClient {
      * @return JSONObject
      */
     public JSONObject getUser(String userId, String groupId, HashMap<String, String> options) {
+        return requestServerWithAuth(getUserRequest(userId, groupId, options));
+    }
+
+    /**
+     * getUser的异步版本，参数与返回结果同getUser(String, String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> getUser(String userId, String groupId, HashMap<String, String> options,
+                                         AipCallback<JSONObject> callback) {
+        return requestServerAsync(getUserRequest(userId, groupId, options), null, callback);
+    }
+
+    private AipRequest getUserRequest(String userId, String groupId, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("user_id", userId);
         
@@ -247,8 +353,7 @@ public class AipFace extends BaseClient {
         }
         request.setUri(FaceConsts.USER_GET);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -261,8 +366,22 @@ public class AipFace extends BaseClient {
      * @return JSONObject
      */
     public JSONObject faceGetlist(String userId, String groupId, HashMap<String, String> options) {
+        return requestServerWithAuth(faceGetlistRequest(userId, groupId, options));
+    }
+
+    /**
+     * faceGetlist的异步版本，参数与返回结果同faceGetlist(String, String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> faceGetlist(String userId, String groupId, HashMap<String, String> options,
+                                             AipCallback<JSONObject> callback) {
+        return requestServerAsync(faceGetlistRequest(userId, groupId, options), null, callback);
+    }
+
+    private AipRequest faceGetlistRequest(String userId, String groupId, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("user_id", userId);
         
@@ -272,8 +391,7 @@ public class AipFace extends BaseClient {
         }
         request.setUri(FaceConsts.FACE_GETLIST);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -287,8 +405,22 @@ public class AipFace extends BaseClient {
      * @return JSONObject
      */
     public JSONObject getGroupUsers(String groupId, HashMap<String, String> options) {
+        return requestServerWithAuth(getGroupUsersRequest(groupId, options));
+    }
+
+    /**
+     * getGroupUsers的异步版本，参数与返回结果同getGroupUsers(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> getGroupUsers(String groupId, HashMap<String, String> options,
+                                               AipCallback<JSONObject> callback) {
+        return requestServerAsync(getGroupUsersRequest(groupId, options), null, callback);
+    }
+
+    private AipRequest getGroupUsersRequest(String groupId, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("group_id", groupId);
         if (options != null) {
@@ -296,8 +428,7 @@ public class AipFace extends BaseClient {
         }
         request.setUri(FaceConsts.GROUP_GETUSERS);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -311,8 +442,22 @@ public class AipFace extends BaseClient {
      * @return JSONObject
      */
     public JSONObject userCopy(String userId, HashMap<String, String> options) {
+        return requestServerWithAuth(userCopyRequest(userId, options));
+    }
+
+    /**
+     * userCopy的异步版本，参数与返回结果同userCopy(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> userCopy(String userId, HashMap<String, String> options,
+                                          AipCallback<JSONObject> callback) {
+        return requestServerAsync(userCopyRequest(userId, options), null, callback);
+    }
+
+    private AipRequest userCopyRequest(String userId, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("user_id", userId);
         if (options != null) {
@@ -320,8 +465,7 @@ public class AipFace extends BaseClient {
         }
         request.setUri(FaceConsts.USER_COPY);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -334,8 +478,22 @@ public class AipFace extends BaseClient {
      * @return JSONObject
      */
     public JSONObject deleteUser(String groupId, String userId, HashMap<String, String> options) {
+        return requestServerWithAuth(deleteUserRequest(groupId, userId, options));
+    }
+
+    /**
+     * deleteUser的异步版本，参数与返回结果同deleteUser(String, String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> deleteUser(String groupId, String userId, HashMap<String, String> options,
+                                            AipCallback<JSONObject> callback) {
+        return requestServerAsync(deleteUserRequest(groupId, userId, options), null, callback);
+    }
+
+    private AipRequest deleteUserRequest(String groupId, String userId, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("group_id", groupId);
         
@@ -345,8 +503,7 @@ public class AipFace extends BaseClient {
         }
         request.setUri(FaceConsts.USER_DELETE);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -358,8 +515,22 @@ public class AipFace extends BaseClient {
      * @return JSONObject
      */
     public JSONObject groupAdd(String groupId, HashMap<String, String> options) {
+        return requestServerWithAuth(groupAddRequest(groupId, options));
+    }
+
+    /**
+     * groupAdd的异步版本，参数与返回结果同groupAdd(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> groupAdd(String groupId, HashMap<String, String> options,
+                                          AipCallback<JSONObject> callback) {
+        return requestServerAsync(groupAddRequest(groupId, options), null, callback);
+    }
+
+    private AipRequest groupAddRequest(String groupId, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("group_id", groupId);
         if (options != null) {
@@ -367,8 +538,7 @@ public class AipFace extends BaseClient {
         }
         request.setUri(FaceConsts.GROUP_ADD);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -380,8 +550,22 @@ public class AipFace extends BaseClient {
      * @return JSONObject
      */
     public JSONObject groupDelete(String groupId, HashMap<String, String> options) {
+        return requestServerWithAuth(groupDeleteRequest(groupId, options));
+    }
+
+    /**
+     * groupDelete的异步版本，参数与返回结果同groupDelete(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> groupDelete(String groupId, HashMap<String, String> options,
+                                             AipCallback<JSONObject> callback) {
+        return requestServerAsync(groupDeleteRequest(groupId, options), null, callback);
+    }
+
+    private AipRequest groupDeleteRequest(String groupId, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("group_id", groupId);
         if (options != null) {
@@ -389,8 +573,7 @@ public class AipFace extends BaseClient {
         }
         request.setUri(FaceConsts.GROUP_DELETE);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -403,15 +586,27 @@ public class AipFace extends BaseClient {
      * @return JSONObject
      */
     public JSONObject getGroupList(HashMap<String, String> options) {
+        return requestServerWithAuth(getGroupListRequest(options));
+    }
+
+    /**
+     * getGroupList的异步版本，参数与返回结果同getGroupList(HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> getGroupList(HashMap<String, String> options, AipCallback<JSONObject> callback) {
+        return requestServerAsync(getGroupListRequest(options), null, callback);
+    }
+
+    private AipRequest getGroupListRequest(HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         if (options != null) {
             request.addBody(options);
         }
         request.setUri(FaceConsts.GROUP_GETLIST);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -428,8 +623,22 @@ public class AipFace extends BaseClient {
      * @return JSONObject
      */
     public JSONObject personVerify(String image, String imageType, String idCardNumber, String name, HashMap<String, String> options) {
+        return requestServerWithAuth(personVerifyRequest(image, imageType, idCardNumber, name, options));
+    }
+
+    /**
+     * personVerify的异步版本，参数与返回结果同personVerify(String, String, String, String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> personVerify(String image, String imageType, String idCardNumber, String name,
+                                              HashMap<String, String> options, AipCallback<JSONObject> callback) {
+        return requestServerAsync(personVerifyRequest(image, imageType, idCardNumber, name, options), null, callback);
+    }
+
+    private AipRequest personVerifyRequest(String image, String imageType, String idCardNumber, String name, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("image", image);
         
@@ -443,8 +652,7 @@ public class AipFace extends BaseClient {
         }
         request.setUri(FaceConsts.PERSON_VERIFY);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -456,15 +664,27 @@ public class AipFace extends BaseClient {
      * @return JSONObject
      */
     public JSONObject videoSessioncode(HashMap<String, String> options) {
+        return requestServerWithAuth(videoSessioncodeRequest(options));
+    }
+
+    /**
+     * videoSessioncode的异步版本，参数与返回结果同videoSessioncode(HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> videoSessioncode(HashMap<String, String> options, AipCallback<JSONObject> callback) {
+        return requestServerAsync(videoSessioncodeRequest(options), null, callback);
+    }
+
+    private AipRequest videoSessioncodeRequest(HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         if (options != null) {
             request.addBody(options);
         }
         request.setUri(FaceConsts.VIDEO_SESSIONCODE);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -477,8 +697,22 @@ public class AipFace extends BaseClient {
      * @return JSONObject
      */
     public JSONObject videoFaceliveness(String sessionId, byte[] video, HashMap<String, String> options) {
+        return requestServerWithAuth(videoFacelivenessRequest(sessionId, video, options));
+    }
+
+    /**
+     * videoFaceliveness的异步版本，参数与返回结果同videoFaceliveness(String, byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> videoFaceliveness(String sessionId, byte[] video, HashMap<String, String> options,
+                                                   AipCallback<JSONObject> callback) {
+        return requestServerAsync(videoFacelivenessRequest(sessionId, video, options), null, callback);
+    }
+
+    private AipRequest videoFacelivenessRequest(String sessionId, byte[] video, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
 
         request.addBody("session_id", sessionId);
 
@@ -488,8 +722,7 @@ public class AipFace extends BaseClient {
             request.addBody(options);
         }
         request.setUri(FaceConsts.VIDEO_FACELIVENESS);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -525,9 +758,21 @@ public class AipFace extends BaseClient {
      * @return JSONObject
      */
     public JSONObject match(List<MatchRequest> input) {
-        AipRequest request = new AipRequest();
+        return requestServerWithAuth(matchRequest(input));
+    }
+
+    /**
+     * match的异步版本，参数与返回结果同match(List)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> match(List<MatchRequest> input, AipCallback<JSONObject> callback) {
+        return requestServerAsync(matchRequest(input), null, callback);
+    }
 
-        preOperation(request);
+    private AipRequest matchRequest(List<MatchRequest> input) {
+        AipRequest request = new AipRequest();
+        initRequest(request);
         JSONArray arr = new JSONArray();
         for (MatchRequest req : input) {
             arr.put(req.toJsonObject());
@@ -535,8 +780,7 @@ public class AipFace extends BaseClient {
         request.addBody("body", arr.toString());
         request.setBodyFormat(EBodyFormat.RAW_JSON_ARRAY);
         request.setUri(FaceConsts.MATCH);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -550,9 +794,21 @@ public class AipFace extends BaseClient {
      * @return JSONObject
      */
     public JSONObject faceverify(List<FaceVerifyRequest> input) {
-        AipRequest request = new AipRequest();
+        return requestServerWithAuth(faceverifyRequest(input));
+    }
+
+    /**
+     * faceverify的异步版本，参数与返回结果同faceverify(List)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> faceverify(List<FaceVerifyRequest> input, AipCallback<JSONObject> callback) {
+        return requestServerAsync(faceverifyRequest(input), null, callback);
+    }
 
-        preOperation(request);
+    private AipRequest faceverifyRequest(List<FaceVerifyRequest> input) {
+        AipRequest request = new AipRequest();
+        initRequest(request);
         JSONArray arr = new JSONArray();
         for (FaceVerifyRequest req : input) {
             arr.put(req.toJsonObject());
@@ -560,17 +816,29 @@ public class AipFace extends BaseClient {
         request.addBody("body", arr.toString());
         request.setBodyFormat(EBodyFormat.RAW_JSON_ARRAY);
         request.setUri(FaceConsts.FACEVERIFY);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
      * 身份证与名字比对接口
      */
     public JSONObject idMatch(String idCardNum, String name, HashMap<String, Object> options) {
-        AipRequest request = new AipRequest();
+        return requestServerWithAuth(idMatchRequest(idCardNum, name, options));
+    }
+
+    /**
+     * idMatch的异步版本，参数与返回结果同idMatch(String, String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> idMatch(String idCardNum, String name, HashMap<String, Object> options,
+                                         AipCallback<JSONObject> callback) {
+        return requestServerAsync(idMatchRequest(idCardNum, name, options), null, callback);
+    }
 
-        preOperation(request);
+    private AipRequest idMatchRequest(String idCardNum, String name, HashMap<String, Object> options) {
+        AipRequest request = new AipRequest();
+        initRequest(request);
         request.addBody("id_card_number", idCardNum);
         request.addBody("name", name);
         if (options != null) {
@@ -578,9 +846,16 @@ public class AipFace extends BaseClient {
         }
         request.setUri(FaceConsts.ID_MATCH);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
+    }
 
+    @Override
+    protected Set<String> getNonIdempotentUrls() {
+        return FaceConsts.NON_IDEMPOTENT_URLS;
     }
 
-}
\ No newline at end of file
+    @Override
+    protected Set<String> getHedgeableUrls() {
+        return FaceConsts.HEDGEABLE_URLS;
+    }
+}
@@ -13,6 +13,10 @@
 
 package com.baidu.aip.face;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
 public class FaceConsts {
 
     static final String DETECT =
@@ -74,4 +78,22 @@ public class FaceConsts {
     static final String ID_MATCH =
             "https://aip.baidubce.com/rest/2.0/face/v3/person/idmatch";
 
-}
\ No newline at end of file
+    /**
+     * 会修改服务端数据的接口，网络错误时不自动重试
+     */
+    static final Set<String> NON_IDEMPOTENT_URLS = new HashSet<String>(Arrays.asList(
+            USER_ADD,
+            USER_UPDATE,
+            FACE_DELETE,
+            USER_COPY,
+            USER_DELETE,
+            GROUP_ADD,
+            GROUP_DELETE));
+
+    /**
+     * 对延迟敏感的只读接口，设置对冲策略后默认对冲
+     */
+    static final Set<String> HEDGEABLE_URLS = new HashSet<String>(Arrays.asList(
+            SEARCH,
+            MULTI_SEARCH));
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.http;
+
+import com.baidu.aip.client.AipCallback;
+
+/**
+ * 支持异步发送的传输层，等待响应期间不占用线程
+ *
+ * BaseClient.requestServerAsync()通过本接口发送请求；未实现本接口的AipTransport在客户端的异步线程池中以阻塞方式执行。
+ * (SDK以Java 6为目标，接口不能提供默认实现，因此以子接口的形式提供)
+ */
+public interface AipAsyncTransport extends AipTransport {
+
+    /**
+     * 异步发送请求，完成后在传输层的线程中回调
+     * 网络错误与中止不回调onFailure，而是以status为0的AipResponse回调onSuccess，与execute保持一致
+     *
+     * @param request 请求内容，header/param/body均已填充完毕
+     * @param callback 完成回调
+     */
+    void executeAsync(AipRequest request, AipCallback<AipResponse> callback);
+}
@@ -12,89 +12,241 @@
  */
 package com.baidu.aip.http;
 
-import java.io.ByteArrayOutputStream;
-import java.io.DataOutputStream;
+import com.baidu.aip.util.AipClientConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.UnsupportedEncodingException;
+import java.io.OutputStream;
+import java.net.ConnectException;
 import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
 import java.net.Proxy;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+public class AipHttpClient implements AipTransport {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AipHttpClient.class);
+
+    private static final AipHttpClient DEFAULT_CLIENT = new AipHttpClient();
 
-public class AipHttpClient {
+    private static final int STREAM_BUFFER_SIZE = 8192;
 
+    private static final String ACCEPT_ENCODING = "Accept-Encoding";
+
+    private static final String MAX_CONNECTIONS_PROPERTY = "http.maxConnections";
 
     /**
-     * post方式请求服务器(https协议)
+     * @return 默认的传输层实现
+     */
+    public static AipHttpClient getDefault() {
+        return DEFAULT_CLIENT;
+    }
+
+    /**
+     * post方式请求服务器(https协议)，使用默认的传输层实现
      *
      * @param request 请求内容
      * @return AipResponse
      */
     public static AipResponse post(AipRequest request) {
-        String url;
+        return DEFAULT_CLIENT.execute(request);
+    }
+
+    /**
+     * post方式请求服务器(https协议)
+     *
+     * @param request 请求内容
+     * @return AipResponse
+     */
+    public AipResponse execute(AipRequest request) {
+        AipClientConfiguration config = request.getConfig();
+        Proxy proxy = config == null ? Proxy.NO_PROXY : config.getProxy();
+
+        // JDK缓存的keep-alive连接可能已被服务端关闭，此时在可以安全重发的情况下在新连接上重发一次
+        for (int attempt = 0; ; attempt++) {
+            if (request.isAborted()) {
+                return new AipResponse();
+            }
+            Exchange exchange = new Exchange();
+            try {
+                return execute(request, proxy, exchange);
+            } catch (IOException e) {
+                if (request.isAborted() || request.capTimeoutMillis(0) < 0) {
+                    LOGGER.debug("request aborted or deadline exceeded: " + request.getUri());
+                    return new AipResponse();
+                }
+                if (attempt == 0 && isStaleConnectionError(e) && canResend(request, exchange.bodyWritten)) {
+                    LOGGER.debug("stale keep-alive connection, retry on a new one: " + e.getMessage());
+                    continue;
+                }
+                e.printStackTrace();
+                return new AipResponse();
+            } catch (RuntimeException e) {
+                // 中止时连接被断开，HttpURLConnection可能抛出IOException以外的异常
+                if (request.isAborted()) {
+                    LOGGER.debug("request aborted: " + request.getUri());
+                    return new AipResponse();
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 设置JDK keep-alive缓存中每个目标地址保留的空闲连接数(系统属性 http.maxConnections，JDK默认为5)，
+     * 并发请求数超过该值时，多出的连接在请求结束后被关闭而不是复用。该属性为JVM全局设置，
+     * 会影响应用中所有HttpURLConnection，并且只在JDK第一次建立keep-alive连接前读取，需在任何请求发出之前调用；
+     * 已设置过该属性时不覆盖
+     * @param maxConnections 每个目标地址的空闲连接数
+     * @return 是否设置成功
+     */
+    public static boolean setJdkMaxConnections(int maxConnections) {
+        if (System.getProperty(MAX_CONNECTIONS_PROPERTY) != null) {
+            return false;
+        }
+        System.setProperty(MAX_CONNECTIONS_PROPERTY, Integer.toString(maxConnections));
+        return true;
+    }
+
+    /**
+     * 判断异常是否可能由已被服务端关闭的keep-alive连接导致(无法得知连接是否取自JDK缓存)；
+     * 是否可以重发还取决于请求本身，见canResend
+     */
+    static boolean isStaleConnectionError(Exception e) {
+        return e instanceof SocketException && !(e instanceof ConnectException);
+    }
+
+    /**
+     * 连接断开后能否重发：body尚未开始写入时服务端不会处理该请求，总是可以重发；
+     * 已经写入时只重发幂等且body可以重新生成的请求，非幂等接口(如人脸注册、图库入库)与流式body不重发
+     */
+    static boolean canResend(AipRequest request, boolean bodyWritten) {
+        if (!bodyWritten) {
+            return true;
+        }
+        return request.isIdempotent() && !request.isStreamingBody();
+    }
+
+    private AipResponse execute(AipRequest request, Proxy proxy, Exchange exchange) throws IOException {
         String charset = request.getContentEncoding();
-        String content = request.getBodyStr();
         HashMap<String, String> header = request.getHeaders();
         AipResponse response = new AipResponse();
 
-        DataOutputStream out = null;
+        OutputStream out = null;
         InputStream is = null;
         try {
-            if (request.getParams().isEmpty()) {
-                url = request.getUri().toString();
-            }
-            else {
-                url = String.format("%s?%s", request.getUri().toString(), request.getParamStr());
-            }
-
-            URL console = new URL(url);
-            Proxy proxy = request.getConfig() == null ? Proxy.NO_PROXY : request.getConfig().getProxy();
-            HttpURLConnection conn = (HttpURLConnection) console.openConnection(proxy);
+            URL console = new URL(buildUrl(request));
+            final HttpURLConnection conn = (HttpURLConnection) console.openConnection(proxy);
+            request.setAbortAction(new Runnable() {
+                @Override
+                public void run() {
+                    conn.disconnect();
+                }
+            });
 
-            // set timeout
-            if (request.getConfig() != null) {
-                conn.setConnectTimeout(request.getConfig().getConnectionTimeoutMillis());
-                conn.setReadTimeout(request.getConfig().getSocketTimeoutMillis());
+            // set timeout, 不超过调用的剩余时间
+            AipClientConfiguration config = request.getConfig();
+            long connectTimeout = request.capTimeoutMillis(config == null ? 0 : config.getConnectionTimeoutMillis());
+            long readTimeout = request.capTimeoutMillis(config == null ? 0 : config.getSocketTimeoutMillis());
+            if (connectTimeout < 0 || readTimeout < 0) {
+                throw new SocketTimeoutException("call deadline exceeded");
             }
+            conn.setConnectTimeout((int) Math.min(Integer.MAX_VALUE, connectTimeout));
+            conn.setReadTimeout((int) Math.min(Integer.MAX_VALUE, readTimeout));
             conn.setDoOutput(true);
+            // 与AipHttp2Client一致，不跟随重定向，3xx响应原样返回
+            conn.setInstanceFollowRedirects(false);
+            byte[] content = null;
+            boolean compressed = isRequestCompressed(request);
+            if (compressed) {
+                // 压缩后的长度未知，以chunked方式边压缩边发送
+                conn.setChunkedStreamingMode(STREAM_BUFFER_SIZE);
+            }
+            else if (!request.isStreamingBody()) {
+                // body长度已知，直接写入socket，避免HttpURLConnection再缓存一份完整的body
+                content = request.getBodyBytes();
+                conn.setFixedLengthStreamingMode(content.length);
+            }
+            else if (config != null && config.getBodyStreamingMode() == EBodyStreamingMode.CHUNKED
+                    && !header.containsKey(Headers.CONTENT_LENGTH)) {
+                conn.setChunkedStreamingMode(STREAM_BUFFER_SIZE);
+            }
+            else {
+                long length = request.getBodyLength();
+                if (length >= 0 && length <= Integer.MAX_VALUE) {
+                    conn.setFixedLengthStreamingMode((int) length);
+                } else {
+                    // Java 6没有long参数的setFixedLengthStreamingMode，超过2GB或长度未知时以chunked方式发送
+                    conn.setChunkedStreamingMode(STREAM_BUFFER_SIZE);
+                }
+            }
             // 添加header
             for (Map.Entry<String, String> entry : header.entrySet()) {
                 conn.setRequestProperty(entry.getKey(), entry.getValue());
             }
+            if (isResponseCompressionEnabled(request) && conn.getRequestProperty(ACCEPT_ENCODING) == null) {
+                conn.setRequestProperty(ACCEPT_ENCODING, "gzip, deflate");
+            }
+            if (compressed) {
+                conn.setRequestProperty(Headers.CONTENT_ENCODING, "gzip");
+            }
 
             conn.connect();
-            out = new DataOutputStream(conn.getOutputStream());
-            out.write(content.getBytes(charset));
-            out.flush();
+            OutputStream connOut = conn.getOutputStream();
+            // 此后连接断开时服务端可能已经收到并处理了请求
+            exchange.bodyWritten = true;
+            if (compressed) {
+                GZIPOutputStream gzip = new GZIPOutputStream(connOut, STREAM_BUFFER_SIZE);
+                out = gzip;
+                request.writeBody(gzip);
+                gzip.finish();
+            }
+            else if (content != null) {
+                out = connOut;
+                out.write(content);
+            }
+            else {
+                // 边编码边写入连接，不在内存中保存完整的body
+                out = new BufferedOutputStream(connOut, STREAM_BUFFER_SIZE);
+                request.writeBody(out);
+            }
+            // 在读取响应前关闭，chunked方式在此写出结束块；读取响应时连接会关闭输出流，之后不能再关闭
+            out.close();
+            out = null;
             int statusCode = conn.getResponseCode();
             response.setHeader(conn.getHeaderFields());
             response.setStatus(statusCode);
             response.setCharset(charset);
             if (statusCode != 200) {
+                // 读完错误信息，连接才能回到keep-alive缓存
+                is = conn.getErrorStream();
+                if (is != null) {
+                    drain(is);
+                }
                 return response;
             }
 
             is = conn.getInputStream();
             if (is != null) {
-                ByteArrayOutputStream outStream = new ByteArrayOutputStream();
-                byte[] buffer = new byte[1024];
-                int len = 0;
-                while ((len = is.read(buffer)) != -1) {
-                    outStream.write(buffer, 0, len);
-                }
-                response.setBody(outStream.toByteArray());
+                readResponseBody(is, conn.getContentLength(), conn.getContentEncoding(), response);
             }
             return response;
-        } catch (MalformedURLException e) {
-            e.printStackTrace();
-        } catch (UnsupportedEncodingException e) {
-            e.printStackTrace();
-        } catch (IOException e) {
-            e.printStackTrace();
         } finally {
+            request.setAbortAction(null);
             if (out != null) {
                 try {
                     out.close();
@@ -110,7 +262,183 @@ public class AipHttpClient {
                 }
             }
         }
-        return response;
     }
 
-}
\ No newline at end of file
+    /**
+     * @return 带query参数的完整请求地址
+     */
+    static String buildUrl(AipRequest request) {
+        String url = request.getTargetUri().toString();
+        if (request.getParams().isEmpty()) {
+            return url;
+        }
+        return String.format("%s?%s", url, request.getParamStr());
+    }
+
+    /**
+     * 读取并按Content-Encoding解码响应body，同时记录从网络读取的原始字节数
+     * @param in 连接的输入流
+     * @param contentLength 响应的Content-Length，未知时为-1
+     * @param encoding 响应的Content-Encoding，可以为null
+     * @param response 读取结果
+     * @throws IOException 读取错误
+     */
+    static void readResponseBody(InputStream in, int contentLength, String encoding,
+                                 AipResponse response) throws IOException {
+        CountingInputStream raw = new CountingInputStream(in);
+        InputStream is = raw;
+        try {
+            if (contentLength != 0 && "gzip".equalsIgnoreCase(encoding)) {
+                is = new GZIPInputStream(raw, STREAM_BUFFER_SIZE);
+                readBody(is, -1, response);
+            }
+            else if (contentLength != 0 && "deflate".equalsIgnoreCase(encoding)) {
+                is = new InflaterInputStream(raw, new Inflater(), STREAM_BUFFER_SIZE);
+                readBody(is, -1, response);
+            }
+            else {
+                readBody(is, contentLength, response);
+            }
+        } finally {
+            if (is != raw) {
+                // 释放Inflater占用的native内存
+                is.close();
+            }
+        }
+        response.setRawBodyLength(raw.getCount());
+    }
+
+    /**
+     * 读取响应body。Content-Length已知时直接读入恰好大小的数组；长度未知时(chunked或解压后的数据)
+     * 先读入池化的定长缓冲区，读完后按实际长度分配数组并复制一次，缓冲区立即归还。
+     * 两种方式得到的body数组都恰好为body长度，交给AipResponse后不再复制
+     */
+    private static void readBody(InputStream is, int contentLength, AipResponse response) throws IOException {
+        if (contentLength >= 0) {
+            byte[] body = new byte[contentLength];
+            int off = 0;
+            while (off < contentLength) {
+                int len = is.read(body, off, contentLength - off);
+                if (len == -1) {
+                    throw new EOFException(String.format("expect %d bytes, got %d", contentLength, off));
+                }
+                off += len;
+            }
+            response.setBody(body);
+            return;
+        }
+        AipBufferPool pool = AipBufferPool.getDefault();
+        List<byte[]> chunks = new ArrayList<byte[]>();
+        try {
+            byte[] chunk = pool.acquire();
+            chunks.add(chunk);
+            int pos = 0;
+            long total = 0;
+            while (true) {
+                if (pos == chunk.length) {
+                    chunk = pool.acquire();
+                    chunks.add(chunk);
+                    pos = 0;
+                }
+                int len = is.read(chunk, pos, chunk.length - pos);
+                if (len == -1) {
+                    break;
+                }
+                pos += len;
+                total += len;
+                if (total > Integer.MAX_VALUE) {
+                    throw new IOException("response body too large");
+                }
+            }
+            byte[] body = new byte[(int) total];
+            int off = 0;
+            for (byte[] c : chunks) {
+                int len = Math.min(c.length, body.length - off);
+                System.arraycopy(c, 0, body, off, len);
+                off += len;
+            }
+            response.setBody(body);
+        } finally {
+            for (byte[] c : chunks) {
+                pool.release(c);
+            }
+        }
+    }
+
+    static boolean isResponseCompressionEnabled(AipRequest request) {
+        return request.getConfig() == null || request.getConfig().isResponseCompressionEnabled();
+    }
+
+    /**
+     * 只压缩白名单中的接口；公有云签名请求的Content-Length与Content-MD5针对原始body计算，不压缩
+     */
+    static boolean isRequestCompressed(AipRequest request) {
+        AipClientConfiguration config = request.getConfig();
+        if (config == null || !config.isRequestCompressionEnabled()) {
+            return false;
+        }
+        if (request.getHeaders().containsKey(Headers.AUTHORIZATION)) {
+            return false;
+        }
+        return config.getRequestCompressionEndpoints().contains(request.getUri().toString());
+    }
+
+    private static void drain(InputStream is) throws IOException {
+        AipBufferPool pool = AipBufferPool.getDefault();
+        byte[] buffer = pool.acquire();
+        try {
+            while (is.read(buffer) != -1) {
+                // discard
+            }
+        } finally {
+            pool.release(buffer);
+        }
+    }
+
+    /**
+     * 统计从连接中读取的原始(压缩)字节数
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private long count = 0;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * 一次发送的状态
+     */
+    private static class Exchange {
+        private boolean bodyWritten;
+    }
+}
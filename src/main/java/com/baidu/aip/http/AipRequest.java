@@ -13,14 +13,25 @@
 package com.baidu.aip.http;
 
 import com.baidu.aip.util.AipClientConfiguration;
+import com.baidu.aip.util.SignUtil;
 import com.baidu.aip.util.Util;
 import org.json.JSONObject;
 
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public class AipRequest {
     private HashMap<String, String> headers;
@@ -31,7 +42,13 @@ public class AipRequest {
     private EBodyFormat bodyFormat;
     private String contentEncoding;
     private AipClientConfiguration config;
-
+    private byte[] bodyBytes;
+    private long bodyLength = -1;
+    private String bodyMd5;
+    private long deadlineNanos;
+    private boolean idempotent;
+    private volatile boolean aborted;
+    private volatile Runnable abortAction;
 
     public AipRequest() {
         headers = new HashMap<String, String>();
@@ -48,12 +65,97 @@ public class AipRequest {
         params = bodyParams;
     }
 
+    /**
+     * 复制一个内容相同、可独立发送和中止的请求，已编码的body会被共享
+     * @return 请求副本
+     */
+    public AipRequest copy() {
+        AipRequest other = new AipRequest(new HashMap<String, String>(headers), new HashMap<String, String>(params));
+        other.body = body == null ? null : new HashMap<String, Object>(body);
+        other.uri = uri;
+        other.httpMethod = httpMethod;
+        other.bodyFormat = bodyFormat;
+        other.contentEncoding = contentEncoding;
+        other.config = config;
+        other.bodyBytes = bodyBytes;
+        other.bodyLength = bodyLength;
+        other.bodyMd5 = bodyMd5;
+        other.deadlineNanos = deadlineNanos;
+        other.idempotent = idempotent;
+        return other;
+    }
+
+    /**
+     * 中止请求：尚未发出的请求不再发出，正在进行的请求关闭连接，transport返回status为0的响应
+     */
+    public void abort() {
+        aborted = true;
+        Runnable action = abortAction;
+        if (action != null) {
+            action.run();
+        }
+    }
+
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    /**
+     * @return 基于System.nanoTime()的截止时间，0表示没有截止时间
+     */
+    public long getDeadlineNanos() {
+        return deadlineNanos;
+    }
+
+    public void setDeadlineNanos(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * @return 请求是否幂等，即body已经发出后仍可以安全地重发，默认为false
+     */
+    public boolean isIdempotent() {
+        return idempotent;
+    }
+
+    public void setIdempotent(boolean idempotent) {
+        this.idempotent = idempotent;
+    }
+
+    /**
+     * 按截止时间收紧超时设置
+     * @param timeoutMillis 配置的超时时间(毫秒)，0表示不超时
+     * @return 不超过剩余时间的超时时间，已超过截止时间时返回-1
+     */
+    public long capTimeoutMillis(long timeoutMillis) {
+        if (deadlineNanos == 0) {
+            return timeoutMillis;
+        }
+        long remaining = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+        if (remaining <= 0) {
+            return -1;
+        }
+        return timeoutMillis <= 0 ? remaining : Math.min(timeoutMillis, remaining);
+    }
+
+    /**
+     * 由transport设置中止正在进行的请求的方式，请求结束后置为null
+     * @param abortAction 中止操作
+     */
+    void setAbortAction(Runnable abortAction) {
+        this.abortAction = abortAction;
+        if (aborted && abortAction != null) {
+            abortAction.run();
+        }
+    }
+
     public String getContentEncoding() {
         return contentEncoding;
     }
 
     public void setContentEncoding(String contentEncoding) {
         this.contentEncoding = contentEncoding;
+        resetBodyCache();
     }
 
     public EBodyFormat getBodyFormat() {
@@ -62,12 +164,14 @@ public class AipRequest {
 
     public void setBodyFormat(EBodyFormat bodyFormat) {
         this.bodyFormat = bodyFormat;
+        resetBodyCache();
     }
 
     public void addHeader(String key, String value) {
         headers.put(key, value);
         if (key.equals(Headers.CONTENT_ENCODING)) {
             this.contentEncoding = value;
+            resetBodyCache();
         }
     }
 
@@ -77,11 +181,13 @@ public class AipRequest {
 
     public void addBody(String key, Object value) {
         body.put(key, value);
+        resetBodyCache();
     }
 
     public void addBody(HashMap other) {
         if (other != null) {
             body.putAll(other);
+            resetBodyCache();
         }
     }
 
@@ -119,6 +225,131 @@ public class AipRequest {
         return "";
     }
 
+    /**
+     * get encoded body bytes, the body is serialized only once and cached until body,
+     * bodyFormat or contentEncoding is changed through this class.
+     * Content-Length, Content-MD5 and the transport all share the returned buffer, do not modify it.
+     * @return encoded body
+     */
+    public byte[] getBodyBytes() {
+        if (bodyBytes == null) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try {
+                writeBody(out);
+            } catch (IOException e) {
+                // ByteArrayOutputStream不会抛出IOException，仅可能是不支持的字符集
+                e.printStackTrace();
+            }
+            bodyBytes = out.toByteArray();
+        }
+        return bodyBytes;
+    }
+
+    /**
+     * encode body depending on bodyFormat and write it to out directly,
+     * the output is identical to the bytes of getBodyStr()
+     * @param out output stream, not flushed or closed
+     * @throws IOException error writing to out
+     */
+    public void writeBody(OutputStream out) throws IOException {
+        if (bodyBytes != null) {
+            out.write(bodyBytes);
+            return;
+        }
+        if (bodyFormat.equals(EBodyFormat.FORM_KV)) {
+            boolean first = true;
+            for (Map.Entry<String, Object> entry : body.entrySet()) {
+                if (!first) {
+                    out.write('&');
+                }
+                first = false;
+                Util.uriEncode(entry.getKey(), true, out);
+                if (entry.getValue() != null && !entry.getValue().equals("")) {
+                    out.write('=');
+                    Util.uriEncode(entry.getValue().toString(), true, out);
+                }
+            }
+        }
+        else if (bodyFormat.equals(EBodyFormat.RAW_JSON)) {
+            JSONObject json = new JSONObject();
+            for (Map.Entry<String, Object> entry : body.entrySet()) {
+                json.put(entry.getKey(), entry.getValue());
+            }
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, contentEncoding));
+            json.write(writer);
+            writer.flush();
+        }
+        else if (bodyFormat.equals(EBodyFormat.RAW_JSON_ARRAY)) {
+            String str = (String) body.get("body");
+            if (str != null) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, contentEncoding));
+                writer.write(str);
+                writer.flush();
+            }
+        }
+    }
+
+    /**
+     * @return 是否以流式方式发送body，由config中的bodyStreamingMode决定
+     */
+    public boolean isStreamingBody() {
+        return config != null && config.getBodyStreamingMode() != null
+                && config.getBodyStreamingMode() != EBodyStreamingMode.NONE;
+    }
+
+    /**
+     * @return 编码后body的长度，流式模式下通过一次不保存数据的编码计算，只计数而不计算MD5
+     */
+    public long getBodyLength() {
+        if (!isStreamingBody()) {
+            return getBodyBytes().length;
+        }
+        if (bodyLength < 0) {
+            CountingOutputStream counter = new CountingOutputStream();
+            try {
+                writeBody(counter);
+                bodyLength = counter.count;
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return bodyLength;
+    }
+
+    /**
+     * @return 编码后body的MD5，只有公有云签名需要；流式模式下与长度在同一次编码中计算，
+     * 签名需要在发送前得到MD5，因此发送时仍会再编码一次
+     */
+    public String getBodyMd5() {
+        if (!isStreamingBody()) {
+            return SignUtil.md5(getBodyBytes());
+        }
+        if (bodyMd5 == null) {
+            digestBody();
+        }
+        return bodyMd5;
+    }
+
+    private void digestBody() {
+        try {
+            MessageDigest md = MessageDigest.getInstance("MD5");
+            CountingOutputStream counter = new CountingOutputStream();
+            writeBody(new DigestOutputStream(counter, md));
+            bodyLength = counter.count;
+            bodyMd5 = SignUtil.encodeHex(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            e.printStackTrace();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void resetBodyCache() {
+        bodyBytes = null;
+        bodyLength = -1;
+        bodyMd5 = null;
+    }
+
     public String getParamStr() {
         StringBuffer buffer = new StringBuffer();
         for (Map.Entry<String, String> entry : params.entrySet()) {
@@ -136,6 +367,7 @@ public class AipRequest {
 
     public void setBody(HashMap<String, Object> body) {
         this.body = body;
+        resetBodyCache();
     }
 
     public void setParams(HashMap<String, String> params) {
@@ -154,6 +386,24 @@ public class AipRequest {
         return uri;
     }
 
+    /**
+     * @return 实际发送的地址，配置了endpoint时替换uri的scheme、host与端口，签名与限流等仍使用getUri()
+     */
+    public URI getTargetUri() {
+        String endpoint = config == null ? null : config.getEndpoint();
+        if (endpoint == null || uri == null) {
+            return uri;
+        }
+        URI base = URI.create(endpoint);
+        try {
+            return new URI(base.getScheme(), uri.getUserInfo(), base.getHost(), base.getPort(),
+                    uri.getPath(), uri.getQuery(), uri.getFragment());
+        } catch (URISyntaxException e) {
+            e.printStackTrace();
+            return uri;
+        }
+    }
+
     public void setUri(URI uri) {
         this.uri = uri;
     }
@@ -181,4 +431,21 @@ public class AipRequest {
     public void setConfig(AipClientConfiguration config) {
         this.config = config;
     }
+
+    /**
+     * 只计数不保存数据的输出流
+     */
+    private static class CountingOutputStream extends OutputStream {
+        private long count = 0;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
 }
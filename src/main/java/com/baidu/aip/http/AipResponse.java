@@ -12,7 +12,12 @@
  */
 package com.baidu.aip.http;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -21,12 +26,16 @@ public class AipResponse {
 
     private Map<String, List<String>> header;
     private byte[] body;
+    private int bodyLength;
+    private long rawBodyLength;
     private String charset;
     private int status;
 
     public AipResponse() {
         status = 0;
         charset = "UTF-8";
+        bodyLength = 0;
+        rawBodyLength = 0;
     }
 
     public int getStatus() {
@@ -42,10 +51,10 @@ public class AipResponse {
             return "";
         }
         try {
-            return new String(body, charset);
+            return new String(body, 0, bodyLength, charset);
         } catch (UnsupportedEncodingException e) {
             e.printStackTrace();
-            return new String(body);
+            return new String(body, 0, bodyLength);
         }
     }
 
@@ -53,6 +62,18 @@ public class AipResponse {
         return header;
     }
 
+    /**
+     * @param name header名，不区分大小写(HTTP/2的header名均为小写)
+     * @return header的第一个值，没有时返回null
+     */
+    public String getHeaderValue(String name) {
+        if (header == null) {
+            return null;
+        }
+        List<String> values = header.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
     public void setHeader(Map<String, List<String>> header) {
         this.header = new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER);
         for (Map.Entry<String, List<String>> entry: header.entrySet()) {
@@ -62,12 +83,81 @@ public class AipResponse {
         }
     }
 
+    /**
+     * @return body数据；AipHttpClient读取的body数组恰好为body长度，直接返回而不复制，
+     * 只有通过setBody(byte[], int)设置了更大的缓冲区时才会截取一次
+     */
     public byte[] getBody() {
+        if (body != null && bodyLength != body.length) {
+            byte[] trimmed = new byte[bodyLength];
+            System.arraycopy(body, 0, trimmed, 0, bodyLength);
+            body = trimmed;
+        }
         return body;
     }
 
     public void setBody(byte[] body) {
         this.body = body;
+        this.bodyLength = body == null ? 0 : body.length;
+    }
+
+    /**
+     * @param body 数据缓冲区
+     * @param length 缓冲区中有效数据的长度
+     */
+    public void setBody(byte[] body, int length) {
+        this.body = body;
+        this.bodyLength = length;
+    }
+
+    /**
+     * @return 解压后的body字节数
+     */
+    public int getBodyLength() {
+        return bodyLength;
+    }
+
+    /**
+     * @return 从网络读取的body字节数，响应经过gzip/deflate压缩时为压缩后的大小
+     */
+    public long getRawBodyLength() {
+        return rawBodyLength;
+    }
+
+    public void setRawBodyLength(long rawBodyLength) {
+        this.rawBodyLength = rawBodyLength;
+    }
+
+    /**
+     * @return 只读的body视图，不复制数据
+     */
+    public ByteBuffer getBodyBuffer() {
+        if (body == null) {
+            return ByteBuffer.allocate(0);
+        }
+        return ByteBuffer.wrap(body, 0, bodyLength).asReadOnlyBuffer();
+    }
+
+    /**
+     * @return 按charset解码body的Reader，不复制数据
+     */
+    public Reader getBodyReader() {
+        try {
+            return new InputStreamReader(getBodyStream(), charset);
+        } catch (UnsupportedEncodingException e) {
+            e.printStackTrace();
+            return new InputStreamReader(getBodyStream());
+        }
+    }
+
+    /**
+     * @return 读取body的输入流，不复制数据
+     */
+    public InputStream getBodyStream() {
+        if (body == null) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+        return new ByteArrayInputStream(body, 0, bodyLength);
     }
 
     public String getCharset() {
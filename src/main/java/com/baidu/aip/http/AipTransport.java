@@ -0,0 +1,31 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.http;
+
+/**
+ * 网络传输层接口，BaseClient与DevAuth的所有请求都通过该接口发出
+ *
+ * 默认实现为基于HttpURLConnection的AipHttpClient，可通过AipClientConfiguration.setTransport
+ * 替换为其他HTTP实现、测试桩或带监控的实现。
+ */
+public interface AipTransport {
+
+    /**
+     * 发送请求并读取完整响应
+     * 网络错误不抛出异常，而是返回status为0的AipResponse
+     *
+     * @param request 请求内容，header/param/body均已填充完毕
+     * @return AipResponse
+     */
+    AipResponse execute(AipRequest request);
+}
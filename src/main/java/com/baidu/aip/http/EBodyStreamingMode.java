@@ -0,0 +1,23 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.http;
+
+/**
+ * 请求body的发送方式
+ * NONE: 先编码为完整的byte数组再发送
+ * FIXED_LENGTH: 先流式计算编码后的长度，再边编码边写入连接，不在内存中保存完整body
+ * CHUNKED: 边编码边以chunked方式写入连接；需要签名Content-Length的公有云请求自动使用FIXED_LENGTH
+ */
+public enum EBodyStreamingMode {
+    NONE, FIXED_LENGTH, CHUNKED
+}
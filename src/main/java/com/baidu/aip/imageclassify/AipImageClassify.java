@@ -13,15 +13,19 @@
 
 package com.baidu.aip.imageclassify;
 
+import com.baidu.aip.client.AipCallback;
+import com.baidu.aip.client.AipFuture;
 import com.baidu.aip.client.BaseClient;
 import com.baidu.aip.error.AipError;
 import com.baidu.aip.http.AipRequest;
+import com.baidu.aip.util.AipClientConfiguration;
 import com.baidu.aip.util.Base64Util;
 import com.baidu.aip.util.Util;
 import org.json.JSONObject;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.Set;
 
 public class AipImageClassify extends BaseClient {
 
@@ -29,6 +33,16 @@ public class AipImageClassify extends BaseClient {
         super(appId, apiKey, secretKey);
     }
 
+    /**
+     * @param appId 应用ID
+     * @param apiKey API Key
+     * @param secretKey Secret Key
+     * @param config 网络连接设置，开启warmUpOnInit时在构造后立即后台预热连接与access_token
+     */
+    public AipImageClassify(String appId, String apiKey, String secretKey, AipClientConfiguration config) {
+        super(appId, apiKey, secretKey, config);
+    }
+
     /**
      * 通用物体识别接口   
      * 该请求用于通用物体及场景识别，即对于输入的一张图片（可正常解码，且长宽比适宜），输出图片中的多个物体及场景标签。
@@ -40,8 +54,22 @@ public class AipImageClassify extends BaseClient {
      * @return JSONObject
      */
     public JSONObject advancedGeneral(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(advancedGeneralRequest(image, options));
+    }
+
+    /**
+     * advancedGeneral的异步版本，参数与返回结果同advancedGeneral(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> advancedGeneral(byte[] image, HashMap<String, String> options,
+                                                 AipCallback<JSONObject> callback) {
+        return requestServerAsync(advancedGeneralRequest(image, options), null, callback);
+    }
+
+    private AipRequest advancedGeneralRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -49,8 +77,7 @@ public class AipImageClassify extends BaseClient {
             request.addBody(options);
         }
         request.setUri(ImageClassifyConsts.ADVANCED_GENERAL);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -86,8 +113,22 @@ public class AipImageClassify extends BaseClient {
      * @return JSONObject
      */
     public JSONObject dishDetect(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(dishDetectRequest(image, options));
+    }
+
+    /**
+     * dishDetect的异步版本，参数与返回结果同dishDetect(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> dishDetect(byte[] image, HashMap<String, String> options,
+                                            AipCallback<JSONObject> callback) {
+        return requestServerAsync(dishDetectRequest(image, options), null, callback);
+    }
+
+    private AipRequest dishDetectRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -95,8 +136,7 @@ public class AipImageClassify extends BaseClient {
             request.addBody(options);
         }
         request.setUri(ImageClassifyConsts.DISH_DETECT);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -133,8 +173,22 @@ public class AipImageClassify extends BaseClient {
      * @return JSONObject
      */
     public JSONObject carDetect(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(carDetectRequest(image, options));
+    }
+
+    /**
+     * carDetect的异步版本，参数与返回结果同carDetect(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> carDetect(byte[] image, HashMap<String, String> options,
+                                           AipCallback<JSONObject> callback) {
+        return requestServerAsync(carDetectRequest(image, options), null, callback);
+    }
+
+    private AipRequest carDetectRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -142,8 +196,7 @@ public class AipImageClassify extends BaseClient {
             request.addBody(options);
         }
         request.setUri(ImageClassifyConsts.CAR_DETECT);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -178,8 +231,22 @@ public class AipImageClassify extends BaseClient {
      * @return JSONObject
      */
     public JSONObject logoSearch(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(logoSearchRequest(image, options));
+    }
+
+    /**
+     * logoSearch的异步版本，参数与返回结果同logoSearch(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> logoSearch(byte[] image, HashMap<String, String> options,
+                                            AipCallback<JSONObject> callback) {
+        return requestServerAsync(logoSearchRequest(image, options), null, callback);
+    }
+
+    private AipRequest logoSearchRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -187,8 +254,7 @@ public class AipImageClassify extends BaseClient {
             request.addBody(options);
         }
         request.setUri(ImageClassifyConsts.LOGO_SEARCH);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -222,8 +288,22 @@ public class AipImageClassify extends BaseClient {
      * @return JSONObject
      */
     public JSONObject logoAdd(byte[] image, String brief, HashMap<String, String> options) {
+        return requestServerWithAuth(logoAddRequest(image, brief, options));
+    }
+
+    /**
+     * logoAdd的异步版本，参数与返回结果同logoAdd(byte[], String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> logoAdd(byte[] image, String brief, HashMap<String, String> options,
+                                         AipCallback<JSONObject> callback) {
+        return requestServerAsync(logoAddRequest(image, brief, options), null, callback);
+    }
+
+    private AipRequest logoAddRequest(byte[] image, String brief, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -233,8 +313,7 @@ public class AipImageClassify extends BaseClient {
             request.addBody(options);
         }
         request.setUri(ImageClassifyConsts.LOGO_ADD);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -267,8 +346,22 @@ public class AipImageClassify extends BaseClient {
      * @return JSONObject
      */
     public JSONObject logoDeleteByImage(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(logoDeleteByImageRequest(image, options));
+    }
+
+    /**
+     * logoDeleteByImage的异步版本，参数与返回结果同logoDeleteByImage(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> logoDeleteByImage(byte[] image, HashMap<String, String> options,
+                                                   AipCallback<JSONObject> callback) {
+        return requestServerAsync(logoDeleteByImageRequest(image, options), null, callback);
+    }
+
+    private AipRequest logoDeleteByImageRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -276,8 +369,7 @@ public class AipImageClassify extends BaseClient {
             request.addBody(options);
         }
         request.setUri(ImageClassifyConsts.LOGO_DELETE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -309,16 +401,29 @@ public class AipImageClassify extends BaseClient {
      * @return JSONObject
      */
     public JSONObject logoDeleteBySign(String contSign, HashMap<String, String> options) {
+        return requestServerWithAuth(logoDeleteBySignRequest(contSign, options));
+    }
+
+    /**
+     * logoDeleteBySign的异步版本，参数与返回结果同logoDeleteBySign(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> logoDeleteBySign(String contSign, HashMap<String, String> options,
+                                                  AipCallback<JSONObject> callback) {
+        return requestServerAsync(logoDeleteBySignRequest(contSign, options), null, callback);
+    }
+
+    private AipRequest logoDeleteBySignRequest(String contSign, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("cont_sign", contSign);
         if (options != null) {
             request.addBody(options);
         }
         request.setUri(ImageClassifyConsts.LOGO_DELETE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -333,8 +438,22 @@ public class AipImageClassify extends BaseClient {
      * @return JSONObject
      */
     public JSONObject animalDetect(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(animalDetectRequest(image, options));
+    }
+
+    /**
+     * animalDetect的异步版本，参数与返回结果同animalDetect(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> animalDetect(byte[] image, HashMap<String, String> options,
+                                              AipCallback<JSONObject> callback) {
+        return requestServerAsync(animalDetectRequest(image, options), null, callback);
+    }
+
+    private AipRequest animalDetectRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -342,8 +461,7 @@ public class AipImageClassify extends BaseClient {
             request.addBody(options);
         }
         request.setUri(ImageClassifyConsts.ANIMAL_DETECT);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -378,8 +496,22 @@ public class AipImageClassify extends BaseClient {
      * @return JSONObject
      */
     public JSONObject plantDetect(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(plantDetectRequest(image, options));
+    }
+
+    /**
+     * plantDetect的异步版本，参数与返回结果同plantDetect(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> plantDetect(byte[] image, HashMap<String, String> options,
+                                             AipCallback<JSONObject> callback) {
+        return requestServerAsync(plantDetectRequest(image, options), null, callback);
+    }
+
+    private AipRequest plantDetectRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -387,8 +519,7 @@ public class AipImageClassify extends BaseClient {
             request.addBody(options);
         }
         request.setUri(ImageClassifyConsts.PLANT_DETECT);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -422,8 +553,22 @@ public class AipImageClassify extends BaseClient {
      * @return JSONObject
      */
     public JSONObject objectDetect(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(objectDetectRequest(image, options));
+    }
+
+    /**
+     * objectDetect的异步版本，参数与返回结果同objectDetect(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> objectDetect(byte[] image, HashMap<String, String> options,
+                                              AipCallback<JSONObject> callback) {
+        return requestServerAsync(objectDetectRequest(image, options), null, callback);
+    }
+
+    private AipRequest objectDetectRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -431,8 +576,7 @@ public class AipImageClassify extends BaseClient {
             request.addBody(options);
         }
         request.setUri(ImageClassifyConsts.OBJECT_DETECT);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -465,8 +609,22 @@ public class AipImageClassify extends BaseClient {
      * @return JSONObject
      */
     public JSONObject landmark(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(landmarkRequest(image, options));
+    }
+
+    /**
+     * landmark的异步版本，参数与返回结果同landmark(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> landmark(byte[] image, HashMap<String, String> options,
+                                          AipCallback<JSONObject> callback) {
+        return requestServerAsync(landmarkRequest(image, options), null, callback);
+    }
+
+    private AipRequest landmarkRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -474,8 +632,7 @@ public class AipImageClassify extends BaseClient {
             request.addBody(options);
         }
         request.setUri(ImageClassifyConsts.LANDMARK);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -509,8 +666,22 @@ public class AipImageClassify extends BaseClient {
      * @return JSONObject
      */
     public JSONObject flower(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(flowerRequest(image, options));
+    }
+
+    /**
+     * flower的异步版本，参数与返回结果同flower(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> flower(byte[] image, HashMap<String, String> options,
+                                        AipCallback<JSONObject> callback) {
+        return requestServerAsync(flowerRequest(image, options), null, callback);
+    }
+
+    private AipRequest flowerRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -518,8 +689,7 @@ public class AipImageClassify extends BaseClient {
             request.addBody(options);
         }
         request.setUri(ImageClassifyConsts.FLOWER);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -554,8 +724,22 @@ public class AipImageClassify extends BaseClient {
      * @return JSONObject
      */
     public JSONObject ingredient(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(ingredientRequest(image, options));
+    }
+
+    /**
+     * ingredient的异步版本，参数与返回结果同ingredient(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> ingredient(byte[] image, HashMap<String, String> options,
+                                            AipCallback<JSONObject> callback) {
+        return requestServerAsync(ingredientRequest(image, options), null, callback);
+    }
+
+    private AipRequest ingredientRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -563,8 +747,7 @@ public class AipImageClassify extends BaseClient {
             request.addBody(options);
         }
         request.setUri(ImageClassifyConsts.INGREDIENT);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -597,8 +780,22 @@ public class AipImageClassify extends BaseClient {
      * @return JSONObject
      */
     public JSONObject redwine(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(redwineRequest(image, options));
+    }
+
+    /**
+     * redwine的异步版本，参数与返回结果同redwine(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> redwine(byte[] image, HashMap<String, String> options,
+                                         AipCallback<JSONObject> callback) {
+        return requestServerAsync(redwineRequest(image, options), null, callback);
+    }
+
+    private AipRequest redwineRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -606,8 +803,7 @@ public class AipImageClassify extends BaseClient {
             request.addBody(options);
         }
         request.setUri(ImageClassifyConsts.REDWINE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -639,8 +835,22 @@ public class AipImageClassify extends BaseClient {
      * @return JSONObject
      */
     public JSONObject currency(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(currencyRequest(image, options));
+    }
+
+    /**
+     * currency的异步版本，参数与返回结果同currency(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> currency(byte[] image, HashMap<String, String> options,
+                                          AipCallback<JSONObject> callback) {
+        return requestServerAsync(currencyRequest(image, options), null, callback);
+    }
+
+    private AipRequest currencyRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -648,8 +858,7 @@ public class AipImageClassify extends BaseClient {
             request.addBody(options);
         }
         request.setUri(ImageClassifyConsts.CURRENCY);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -671,4 +880,8 @@ public class AipImageClassify extends BaseClient {
         }
     }
 
-}
\ No newline at end of file
+    @Override
+    protected Set<String> getNonIdempotentUrls() {
+        return ImageClassifyConsts.NON_IDEMPOTENT_URLS;
+    }
+}
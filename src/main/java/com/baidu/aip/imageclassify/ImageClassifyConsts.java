@@ -13,6 +13,10 @@
 
 package com.baidu.aip.imageclassify;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
 public class ImageClassifyConsts {
 
     static final String ADVANCED_GENERAL = "https://aip.baidubce.com/rest/2.0/image-classify/v2/advanced_general";
@@ -43,4 +47,10 @@ public class ImageClassifyConsts {
 
     static final String CURRENCY = "https://aip.baidubce.com/rest/2.0/image-classify/v1/currency";
 
-}
\ No newline at end of file
+    /**
+     * 会修改服务端数据的接口，网络错误时不自动重试
+     */
+    static final Set<String> NON_IDEMPOTENT_URLS = new HashSet<String>(Arrays.asList(
+            LOGO_ADD,
+            LOGO_DELETE));
+}
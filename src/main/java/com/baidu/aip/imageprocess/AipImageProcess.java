@@ -13,9 +13,12 @@
 
 package com.baidu.aip.imageprocess;
 
+import com.baidu.aip.client.AipCallback;
+import com.baidu.aip.client.AipFuture;
 import com.baidu.aip.client.BaseClient;
 import com.baidu.aip.error.AipError;
 import com.baidu.aip.http.AipRequest;
+import com.baidu.aip.util.AipClientConfiguration;
 import com.baidu.aip.util.Base64Util;
 import com.baidu.aip.util.Util;
 import org.json.JSONObject;
@@ -29,6 +32,16 @@ public class AipImageProcess extends BaseClient {
         super(appId, apiKey, secretKey);
     }
 
+    /**
+     * @param appId 应用ID
+     * @param apiKey API Key
+     * @param secretKey Secret Key
+     * @param config 网络连接设置，开启warmUpOnInit时在构造后立即后台预热连接与access_token
+     */
+    public AipImageProcess(String appId, String apiKey, String secretKey, AipClientConfiguration config) {
+        super(appId, apiKey, secretKey, config);
+    }
+
     /**
      * 图像无损放大接口   
      * 输入一张图片，可以在尽量保持图像质量的条件下，将图像在长宽方向各放大两倍。
@@ -39,8 +52,22 @@ public class AipImageProcess extends BaseClient {
      * @return JSONObject
      */
     public JSONObject imageQualityEnhance(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(imageQualityEnhanceRequest(image, options));
+    }
+
+    /**
+     * imageQualityEnhance的异步版本，参数与返回结果同imageQualityEnhance(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> imageQualityEnhance(byte[] image, HashMap<String, String> options,
+                                                     AipCallback<JSONObject> callback) {
+        return requestServerAsync(imageQualityEnhanceRequest(image, options), null, callback);
+    }
+
+    private AipRequest imageQualityEnhanceRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -48,8 +75,7 @@ public class AipImageProcess extends BaseClient {
             request.addBody(options);
         }
         request.setUri(ImageProcessConsts.IMAGE_QUALITY_ENHANCE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -81,8 +107,22 @@ public class AipImageProcess extends BaseClient {
      * @return JSONObject
      */
     public JSONObject dehaze(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(dehazeRequest(image, options));
+    }
+
+    /**
+     * dehaze的异步版本，参数与返回结果同dehaze(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> dehaze(byte[] image, HashMap<String, String> options,
+                                        AipCallback<JSONObject> callback) {
+        return requestServerAsync(dehazeRequest(image, options), null, callback);
+    }
+
+    private AipRequest dehazeRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -90,8 +130,7 @@ public class AipImageProcess extends BaseClient {
             request.addBody(options);
         }
         request.setUri(ImageProcessConsts.DEHAZE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -123,8 +162,22 @@ public class AipImageProcess extends BaseClient {
      * @return JSONObject
      */
     public JSONObject contrastEnhance(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(contrastEnhanceRequest(image, options));
+    }
+
+    /**
+     * contrastEnhance的异步版本，参数与返回结果同contrastEnhance(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> contrastEnhance(byte[] image, HashMap<String, String> options,
+                                                 AipCallback<JSONObject> callback) {
+        return requestServerAsync(contrastEnhanceRequest(image, options), null, callback);
+    }
+
+    private AipRequest contrastEnhanceRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -132,8 +185,7 @@ public class AipImageProcess extends BaseClient {
             request.addBody(options);
         }
         request.setUri(ImageProcessConsts.CONTRAST_ENHANCE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -165,8 +217,22 @@ public class AipImageProcess extends BaseClient {
      * @return JSONObject
      */
     public JSONObject colourize(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(colourizeRequest(image, options));
+    }
+
+    /**
+     * colourize的异步版本，参数与返回结果同colourize(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> colourize(byte[] image, HashMap<String, String> options,
+                                           AipCallback<JSONObject> callback) {
+        return requestServerAsync(colourizeRequest(image, options), null, callback);
+    }
+
+    private AipRequest colourizeRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -174,8 +240,7 @@ public class AipImageProcess extends BaseClient {
             request.addBody(options);
         }
         request.setUri(ImageProcessConsts.COLOURIZE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -207,8 +272,22 @@ public class AipImageProcess extends BaseClient {
      * @return JSONObject
      */
     public JSONObject stretchRestore(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(stretchRestoreRequest(image, options));
+    }
+
+    /**
+     * stretchRestore的异步版本，参数与返回结果同stretchRestore(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> stretchRestore(byte[] image, HashMap<String, String> options,
+                                                AipCallback<JSONObject> callback) {
+        return requestServerAsync(stretchRestoreRequest(image, options), null, callback);
+    }
+
+    private AipRequest stretchRestoreRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -216,8 +295,7 @@ public class AipImageProcess extends BaseClient {
             request.addBody(options);
         }
         request.setUri(ImageProcessConsts.STRETCH_RESTORE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
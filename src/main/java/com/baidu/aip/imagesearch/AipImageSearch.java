@@ -13,15 +13,19 @@
 
 package com.baidu.aip.imagesearch;
 
+import com.baidu.aip.client.AipCallback;
+import com.baidu.aip.client.AipFuture;
 import com.baidu.aip.client.BaseClient;
 import com.baidu.aip.error.AipError;
 import com.baidu.aip.http.AipRequest;
+import com.baidu.aip.util.AipClientConfiguration;
 import com.baidu.aip.util.Base64Util;
 import com.baidu.aip.util.Util;
 import org.json.JSONObject;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.Set;
 
 public class AipImageSearch extends BaseClient {
 
@@ -29,6 +33,16 @@ public class AipImageSearch extends BaseClient {
         super(appId, apiKey, secretKey);
     }
 
+    /**
+     * @param appId 应用ID
+     * @param apiKey API Key
+     * @param secretKey Secret Key
+     * @param config 网络连接设置，开启warmUpOnInit时在构造后立即后台预热连接与access_token
+     */
+    public AipImageSearch(String appId, String apiKey, String secretKey, AipClientConfiguration config) {
+        super(appId, apiKey, secretKey, config);
+    }
+
     /**
      * 相同图检索—入库接口   
      * **该接口实现单张图片入库，入库时需要同步提交图片及可关联至本地图库的摘要信息（具体变量为brief，具体可传入图片在本地标记id、图片url、图片名称等）；同时可提交分类维度信息（具体变量为tags，最多可传入2个tag），方便对图库中的图片进行管理、分类检索。****注：重复添加完全相同的图片会返回错误。**
@@ -41,8 +55,22 @@ public class AipImageSearch extends BaseClient {
      * @return JSONObject
      */
     public JSONObject sameHqAdd(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(sameHqAddRequest(image, options));
+    }
+
+    /**
+     * sameHqAdd的异步版本，参数与返回结果同sameHqAdd(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> sameHqAdd(byte[] image, HashMap<String, String> options,
+                                           AipCallback<JSONObject> callback) {
+        return requestServerAsync(sameHqAddRequest(image, options), null, callback);
+    }
+
+    private AipRequest sameHqAddRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -50,8 +78,7 @@ public class AipImageSearch extends BaseClient {
             request.addBody(options);
         }
         request.setUri(ImageSearchConsts.SAME_HQ_ADD);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -87,16 +114,29 @@ public class AipImageSearch extends BaseClient {
      * @return JSONObject
      */
     public JSONObject sameHqAddUrl(String url, HashMap<String, String> options) {
+        return requestServerWithAuth(sameHqAddUrlRequest(url, options));
+    }
+
+    /**
+     * sameHqAddUrl的异步版本，参数与返回结果同sameHqAddUrl(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> sameHqAddUrl(String url, HashMap<String, String> options,
+                                              AipCallback<JSONObject> callback) {
+        return requestServerAsync(sameHqAddUrlRequest(url, options), null, callback);
+    }
+
+    private AipRequest sameHqAddUrlRequest(String url, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("url", url);
         if (options != null) {
             request.addBody(options);
         }
         request.setUri(ImageSearchConsts.SAME_HQ_ADD);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -113,8 +153,22 @@ public class AipImageSearch extends BaseClient {
      * @return JSONObject
      */
     public JSONObject sameHqSearch(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(sameHqSearchRequest(image, options));
+    }
+
+    /**
+     * sameHqSearch的异步版本，参数与返回结果同sameHqSearch(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> sameHqSearch(byte[] image, HashMap<String, String> options,
+                                              AipCallback<JSONObject> callback) {
+        return requestServerAsync(sameHqSearchRequest(image, options), null, callback);
+    }
+
+    private AipRequest sameHqSearchRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -122,8 +176,7 @@ public class AipImageSearch extends BaseClient {
             request.addBody(options);
         }
         request.setUri(ImageSearchConsts.SAME_HQ_SEARCH);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -163,16 +216,29 @@ public class AipImageSearch extends BaseClient {
      * @return JSONObject
      */
     public JSONObject sameHqSearchUrl(String url, HashMap<String, String> options) {
+        return requestServerWithAuth(sameHqSearchUrlRequest(url, options));
+    }
+
+    /**
+     * sameHqSearchUrl的异步版本，参数与返回结果同sameHqSearchUrl(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> sameHqSearchUrl(String url, HashMap<String, String> options,
+                                                 AipCallback<JSONObject> callback) {
+        return requestServerAsync(sameHqSearchUrlRequest(url, options), null, callback);
+    }
+
+    private AipRequest sameHqSearchUrlRequest(String url, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("url", url);
         if (options != null) {
             request.addBody(options);
         }
         request.setUri(ImageSearchConsts.SAME_HQ_SEARCH);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -187,8 +253,22 @@ public class AipImageSearch extends BaseClient {
      * @return JSONObject
      */
     public JSONObject sameHqUpdate(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(sameHqUpdateRequest(image, options));
+    }
+
+    /**
+     * sameHqUpdate的异步版本，参数与返回结果同sameHqUpdate(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> sameHqUpdate(byte[] image, HashMap<String, String> options,
+                                              AipCallback<JSONObject> callback) {
+        return requestServerAsync(sameHqUpdateRequest(image, options), null, callback);
+    }
+
+    private AipRequest sameHqUpdateRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -196,8 +276,7 @@ public class AipImageSearch extends BaseClient {
             request.addBody(options);
         }
         request.setUri(ImageSearchConsts.SAME_HQ_UPDATE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -233,16 +312,29 @@ public class AipImageSearch extends BaseClient {
      * @return JSONObject
      */
     public JSONObject sameHqUpdateUrl(String url, HashMap<String, String> options) {
+        return requestServerWithAuth(sameHqUpdateUrlRequest(url, options));
+    }
+
+    /**
+     * sameHqUpdateUrl的异步版本，参数与返回结果同sameHqUpdateUrl(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> sameHqUpdateUrl(String url, HashMap<String, String> options,
+                                                 AipCallback<JSONObject> callback) {
+        return requestServerAsync(sameHqUpdateUrlRequest(url, options), null, callback);
+    }
+
+    private AipRequest sameHqUpdateUrlRequest(String url, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("url", url);
         if (options != null) {
             request.addBody(options);
         }
         request.setUri(ImageSearchConsts.SAME_HQ_UPDATE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -257,16 +349,29 @@ public class AipImageSearch extends BaseClient {
      * @return JSONObject
      */
     public JSONObject sameHqUpdateContSign(String contSign, HashMap<String, String> options) {
+        return requestServerWithAuth(sameHqUpdateContSignRequest(contSign, options));
+    }
+
+    /**
+     * sameHqUpdateContSign的异步版本，参数与返回结果同sameHqUpdateContSign(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> sameHqUpdateContSign(String contSign, HashMap<String, String> options,
+                                                      AipCallback<JSONObject> callback) {
+        return requestServerAsync(sameHqUpdateContSignRequest(contSign, options), null, callback);
+    }
+
+    private AipRequest sameHqUpdateContSignRequest(String contSign, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("cont_sign", contSign);
         if (options != null) {
             request.addBody(options);
         }
         request.setUri(ImageSearchConsts.SAME_HQ_UPDATE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -279,8 +384,22 @@ public class AipImageSearch extends BaseClient {
      * @return JSONObject
      */
     public JSONObject sameHqDeleteByImage(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(sameHqDeleteByImageRequest(image, options));
+    }
+
+    /**
+     * sameHqDeleteByImage的异步版本，参数与返回结果同sameHqDeleteByImage(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> sameHqDeleteByImage(byte[] image, HashMap<String, String> options,
+                                                     AipCallback<JSONObject> callback) {
+        return requestServerAsync(sameHqDeleteByImageRequest(image, options), null, callback);
+    }
+
+    private AipRequest sameHqDeleteByImageRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -288,8 +407,7 @@ public class AipImageSearch extends BaseClient {
             request.addBody(options);
         }
         request.setUri(ImageSearchConsts.SAME_HQ_DELETE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -321,16 +439,29 @@ public class AipImageSearch extends BaseClient {
      * @return JSONObject
      */
     public JSONObject sameHqDeleteByUrl(String url, HashMap<String, String> options) {
+        return requestServerWithAuth(sameHqDeleteByUrlRequest(url, options));
+    }
+
+    /**
+     * sameHqDeleteByUrl的异步版本，参数与返回结果同sameHqDeleteByUrl(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> sameHqDeleteByUrl(String url, HashMap<String, String> options,
+                                                   AipCallback<JSONObject> callback) {
+        return requestServerAsync(sameHqDeleteByUrlRequest(url, options), null, callback);
+    }
+
+    private AipRequest sameHqDeleteByUrlRequest(String url, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("url", url);
         if (options != null) {
             request.addBody(options);
         }
         request.setUri(ImageSearchConsts.SAME_HQ_DELETE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -343,16 +474,29 @@ public class AipImageSearch extends BaseClient {
      * @return JSONObject
      */
     public JSONObject sameHqDeleteBySign(String contSign, HashMap<String, String> options) {
+        return requestServerWithAuth(sameHqDeleteBySignRequest(contSign, options));
+    }
+
+    /**
+     * sameHqDeleteBySign的异步版本，参数与返回结果同sameHqDeleteBySign(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> sameHqDeleteBySign(String contSign, HashMap<String, String> options,
+                                                    AipCallback<JSONObject> callback) {
+        return requestServerAsync(sameHqDeleteBySignRequest(contSign, options), null, callback);
+    }
+
+    private AipRequest sameHqDeleteBySignRequest(String contSign, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("cont_sign", contSign);
         if (options != null) {
             request.addBody(options);
         }
         request.setUri(ImageSearchConsts.SAME_HQ_DELETE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -367,8 +511,22 @@ public class AipImageSearch extends BaseClient {
      * @return JSONObject
      */
     public JSONObject similarAdd(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(similarAddRequest(image, options));
+    }
+
+    /**
+     * similarAdd的异步版本，参数与返回结果同similarAdd(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> similarAdd(byte[] image, HashMap<String, String> options,
+                                            AipCallback<JSONObject> callback) {
+        return requestServerAsync(similarAddRequest(image, options), null, callback);
+    }
+
+    private AipRequest similarAddRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -376,8 +534,7 @@ public class AipImageSearch extends BaseClient {
             request.addBody(options);
         }
         request.setUri(ImageSearchConsts.SIMILAR_ADD);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -413,16 +570,29 @@ public class AipImageSearch extends BaseClient {
      * @return JSONObject
      */
     public JSONObject similarAddUrl(String url, HashMap<String, String> options) {
+        return requestServerWithAuth(similarAddUrlRequest(url, options));
+    }
+
+    /**
+     * similarAddUrl的异步版本，参数与返回结果同similarAddUrl(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> similarAddUrl(String url, HashMap<String, String> options,
+                                               AipCallback<JSONObject> callback) {
+        return requestServerAsync(similarAddUrlRequest(url, options), null, callback);
+    }
+
+    private AipRequest similarAddUrlRequest(String url, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("url", url);
         if (options != null) {
             request.addBody(options);
         }
         request.setUri(ImageSearchConsts.SIMILAR_ADD);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -439,8 +609,22 @@ public class AipImageSearch extends BaseClient {
      * @return JSONObject
      */
     public JSONObject similarSearch(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(similarSearchRequest(image, options));
+    }
+
+    /**
+     * similarSearch的异步版本，参数与返回结果同similarSearch(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> similarSearch(byte[] image, HashMap<String, String> options,
+                                               AipCallback<JSONObject> callback) {
+        return requestServerAsync(similarSearchRequest(image, options), null, callback);
+    }
+
+    private AipRequest similarSearchRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -448,8 +632,7 @@ public class AipImageSearch extends BaseClient {
             request.addBody(options);
         }
         request.setUri(ImageSearchConsts.SIMILAR_SEARCH);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -489,16 +672,29 @@ public class AipImageSearch extends BaseClient {
      * @return JSONObject
      */
     public JSONObject similarSearchUrl(String url, HashMap<String, String> options) {
+        return requestServerWithAuth(similarSearchUrlRequest(url, options));
+    }
+
+    /**
+     * similarSearchUrl的异步版本，参数与返回结果同similarSearchUrl(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> similarSearchUrl(String url, HashMap<String, String> options,
+                                                  AipCallback<JSONObject> callback) {
+        return requestServerAsync(similarSearchUrlRequest(url, options), null, callback);
+    }
+
+    private AipRequest similarSearchUrlRequest(String url, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("url", url);
         if (options != null) {
             request.addBody(options);
         }
         request.setUri(ImageSearchConsts.SIMILAR_SEARCH);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -513,8 +709,22 @@ public class AipImageSearch extends BaseClient {
      * @return JSONObject
      */
     public JSONObject similarUpdate(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(similarUpdateRequest(image, options));
+    }
+
+    /**
+     * similarUpdate的异步版本，参数与返回结果同similarUpdate(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> similarUpdate(byte[] image, HashMap<String, String> options,
+                                               AipCallback<JSONObject> callback) {
+        return requestServerAsync(similarUpdateRequest(image, options), null, callback);
+    }
+
+    private AipRequest similarUpdateRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -522,8 +732,7 @@ public class AipImageSearch extends BaseClient {
             request.addBody(options);
         }
         request.setUri(ImageSearchConsts.SIMILAR_UPDATE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -559,16 +768,29 @@ public class AipImageSearch extends BaseClient {
      * @return JSONObject
      */
     public JSONObject similarUpdateUrl(String url, HashMap<String, String> options) {
+        return requestServerWithAuth(similarUpdateUrlRequest(url, options));
+    }
+
+    /**
+     * similarUpdateUrl的异步版本，参数与返回结果同similarUpdateUrl(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> similarUpdateUrl(String url, HashMap<String, String> options,
+                                                  AipCallback<JSONObject> callback) {
+        return requestServerAsync(similarUpdateUrlRequest(url, options), null, callback);
+    }
+
+    private AipRequest similarUpdateUrlRequest(String url, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("url", url);
         if (options != null) {
             request.addBody(options);
         }
         request.setUri(ImageSearchConsts.SIMILAR_UPDATE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -583,16 +805,29 @@ public class AipImageSearch extends BaseClient {
      * @return JSONObject
      */
     public JSONObject similarUpdateContSign(String contSign, HashMap<String, String> options) {
+        return requestServerWithAuth(similarUpdateContSignRequest(contSign, options));
+    }
+
+    /**
+     * similarUpdateContSign的异步版本，参数与返回结果同similarUpdateContSign(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> similarUpdateContSign(String contSign, HashMap<String, String> options,
+                                                       AipCallback<JSONObject> callback) {
+        return requestServerAsync(similarUpdateContSignRequest(contSign, options), null, callback);
+    }
+
+    private AipRequest similarUpdateContSignRequest(String contSign, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("cont_sign", contSign);
         if (options != null) {
             request.addBody(options);
         }
         request.setUri(ImageSearchConsts.SIMILAR_UPDATE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -605,8 +840,22 @@ public class AipImageSearch extends BaseClient {
      * @return JSONObject
      */
     public JSONObject similarDeleteByImage(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(similarDeleteByImageRequest(image, options));
+    }
+
+    /**
+     * similarDeleteByImage的异步版本，参数与返回结果同similarDeleteByImage(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> similarDeleteByImage(byte[] image, HashMap<String, String> options,
+                                                      AipCallback<JSONObject> callback) {
+        return requestServerAsync(similarDeleteByImageRequest(image, options), null, callback);
+    }
+
+    private AipRequest similarDeleteByImageRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -614,8 +863,7 @@ public class AipImageSearch extends BaseClient {
             request.addBody(options);
         }
         request.setUri(ImageSearchConsts.SIMILAR_DELETE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -647,16 +895,29 @@ public class AipImageSearch extends BaseClient {
      * @return JSONObject
      */
     public JSONObject similarDeleteByUrl(String url, HashMap<String, String> options) {
+        return requestServerWithAuth(similarDeleteByUrlRequest(url, options));
+    }
+
+    /**
+     * similarDeleteByUrl的异步版本，参数与返回结果同similarDeleteByUrl(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> similarDeleteByUrl(String url, HashMap<String, String> options,
+                                                    AipCallback<JSONObject> callback) {
+        return requestServerAsync(similarDeleteByUrlRequest(url, options), null, callback);
+    }
+
+    private AipRequest similarDeleteByUrlRequest(String url, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("url", url);
         if (options != null) {
             request.addBody(options);
         }
         request.setUri(ImageSearchConsts.SIMILAR_DELETE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -669,16 +930,29 @@ public class AipImageSearch extends BaseClient {
      * @return JSONObject
      */
     public JSONObject similarDeleteBySign(String contSign, HashMap<String, String> options) {
+        return requestServerWithAuth(similarDeleteBySignRequest(contSign, options));
+    }
+
+    /**
+     * similarDeleteBySign的异步版本，参数与返回结果同similarDeleteBySign(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> similarDeleteBySign(String contSign, HashMap<String, String> options,
+                                                     AipCallback<JSONObject> callback) {
+        return requestServerAsync(similarDeleteBySignRequest(contSign, options), null, callback);
+    }
+
+    private AipRequest similarDeleteBySignRequest(String contSign, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("cont_sign", contSign);
         if (options != null) {
             request.addBody(options);
         }
         request.setUri(ImageSearchConsts.SIMILAR_DELETE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -694,8 +968,22 @@ public class AipImageSearch extends BaseClient {
      * @return JSONObject
      */
     public JSONObject productAdd(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(productAddRequest(image, options));
+    }
+
+    /**
+     * productAdd的异步版本，参数与返回结果同productAdd(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> productAdd(byte[] image, HashMap<String, String> options,
+                                            AipCallback<JSONObject> callback) {
+        return requestServerAsync(productAddRequest(image, options), null, callback);
+    }
+
+    private AipRequest productAddRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -703,8 +991,7 @@ public class AipImageSearch extends BaseClient {
             request.addBody(options);
         }
         request.setUri(ImageSearchConsts.PRODUCT_ADD);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -742,16 +1029,29 @@ public class AipImageSearch extends BaseClient {
      * @return JSONObject
      */
     public JSONObject productAddUrl(String url, HashMap<String, String> options) {
+        return requestServerWithAuth(productAddUrlRequest(url, options));
+    }
+
+    /**
+     * productAddUrl的异步版本，参数与返回结果同productAddUrl(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> productAddUrl(String url, HashMap<String, String> options,
+                                               AipCallback<JSONObject> callback) {
+        return requestServerAsync(productAddUrlRequest(url, options), null, callback);
+    }
+
+    private AipRequest productAddUrlRequest(String url, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("url", url);
         if (options != null) {
             request.addBody(options);
         }
         request.setUri(ImageSearchConsts.PRODUCT_ADD);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -768,8 +1068,22 @@ public class AipImageSearch extends BaseClient {
      * @return JSONObject
      */
     public JSONObject productSearch(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(productSearchRequest(image, options));
+    }
+
+    /**
+     * productSearch的异步版本，参数与返回结果同productSearch(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> productSearch(byte[] image, HashMap<String, String> options,
+                                               AipCallback<JSONObject> callback) {
+        return requestServerAsync(productSearchRequest(image, options), null, callback);
+    }
+
+    private AipRequest productSearchRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -777,8 +1091,7 @@ public class AipImageSearch extends BaseClient {
             request.addBody(options);
         }
         request.setUri(ImageSearchConsts.PRODUCT_SEARCH);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -818,16 +1131,29 @@ public class AipImageSearch extends BaseClient {
      * @return JSONObject
      */
     public JSONObject productSearchUrl(String url, HashMap<String, String> options) {
+        return requestServerWithAuth(productSearchUrlRequest(url, options));
+    }
+
+    /**
+     * productSearchUrl的异步版本，参数与返回结果同productSearchUrl(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> productSearchUrl(String url, HashMap<String, String> options,
+                                                  AipCallback<JSONObject> callback) {
+        return requestServerAsync(productSearchUrlRequest(url, options), null, callback);
+    }
+
+    private AipRequest productSearchUrlRequest(String url, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("url", url);
         if (options != null) {
             request.addBody(options);
         }
         request.setUri(ImageSearchConsts.PRODUCT_SEARCH);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -843,8 +1169,22 @@ public class AipImageSearch extends BaseClient {
      * @return JSONObject
      */
     public JSONObject productUpdate(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(productUpdateRequest(image, options));
+    }
+
+    /**
+     * productUpdate的异步版本，参数与返回结果同productUpdate(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> productUpdate(byte[] image, HashMap<String, String> options,
+                                               AipCallback<JSONObject> callback) {
+        return requestServerAsync(productUpdateRequest(image, options), null, callback);
+    }
+
+    private AipRequest productUpdateRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -852,8 +1192,7 @@ public class AipImageSearch extends BaseClient {
             request.addBody(options);
         }
         request.setUri(ImageSearchConsts.PRODUCT_UPDATE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -891,16 +1230,29 @@ public class AipImageSearch extends BaseClient {
      * @return JSONObject
      */
     public JSONObject productUpdateUrl(String url, HashMap<String, String> options) {
+        return requestServerWithAuth(productUpdateUrlRequest(url, options));
+    }
+
+    /**
+     * productUpdateUrl的异步版本，参数与返回结果同productUpdateUrl(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> productUpdateUrl(String url, HashMap<String, String> options,
+                                                  AipCallback<JSONObject> callback) {
+        return requestServerAsync(productUpdateUrlRequest(url, options), null, callback);
+    }
+
+    private AipRequest productUpdateUrlRequest(String url, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("url", url);
         if (options != null) {
             request.addBody(options);
         }
         request.setUri(ImageSearchConsts.PRODUCT_UPDATE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -916,16 +1268,29 @@ public class AipImageSearch extends BaseClient {
      * @return JSONObject
      */
     public JSONObject productUpdateContSign(String contSign, HashMap<String, String> options) {
+        return requestServerWithAuth(productUpdateContSignRequest(contSign, options));
+    }
+
+    /**
+     * productUpdateContSign的异步版本，参数与返回结果同productUpdateContSign(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> productUpdateContSign(String contSign, HashMap<String, String> options,
+                                                       AipCallback<JSONObject> callback) {
+        return requestServerAsync(productUpdateContSignRequest(contSign, options), null, callback);
+    }
+
+    private AipRequest productUpdateContSignRequest(String contSign, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("cont_sign", contSign);
         if (options != null) {
             request.addBody(options);
         }
         request.setUri(ImageSearchConsts.PRODUCT_UPDATE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -938,8 +1303,22 @@ public class AipImageSearch extends BaseClient {
      * @return JSONObject
      */
     public JSONObject productDeleteByImage(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(productDeleteByImageRequest(image, options));
+    }
+
+    /**
+     * productDeleteByImage的异步版本，参数与返回结果同productDeleteByImage(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> productDeleteByImage(byte[] image, HashMap<String, String> options,
+                                                      AipCallback<JSONObject> callback) {
+        return requestServerAsync(productDeleteByImageRequest(image, options), null, callback);
+    }
+
+    private AipRequest productDeleteByImageRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -947,8 +1326,7 @@ public class AipImageSearch extends BaseClient {
             request.addBody(options);
         }
         request.setUri(ImageSearchConsts.PRODUCT_DELETE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -980,16 +1358,29 @@ public class AipImageSearch extends BaseClient {
      * @return JSONObject
      */
     public JSONObject productDeleteByUrl(String url, HashMap<String, String> options) {
+        return requestServerWithAuth(productDeleteByUrlRequest(url, options));
+    }
+
+    /**
+     * productDeleteByUrl的异步版本，参数与返回结果同productDeleteByUrl(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> productDeleteByUrl(String url, HashMap<String, String> options,
+                                                    AipCallback<JSONObject> callback) {
+        return requestServerAsync(productDeleteByUrlRequest(url, options), null, callback);
+    }
+
+    private AipRequest productDeleteByUrlRequest(String url, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("url", url);
         if (options != null) {
             request.addBody(options);
         }
         request.setUri(ImageSearchConsts.PRODUCT_DELETE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -1002,16 +1393,33 @@ public class AipImageSearch extends BaseClient {
      * @return JSONObject
      */
     public JSONObject productDeleteBySign(String contSign, HashMap<String, String> options) {
+        return requestServerWithAuth(productDeleteBySignRequest(contSign, options));
+    }
+
+    /**
+     * productDeleteBySign的异步版本，参数与返回结果同productDeleteBySign(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> productDeleteBySign(String contSign, HashMap<String, String> options,
+                                                     AipCallback<JSONObject> callback) {
+        return requestServerAsync(productDeleteBySignRequest(contSign, options), null, callback);
+    }
+
+    private AipRequest productDeleteBySignRequest(String contSign, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("cont_sign", contSign);
         if (options != null) {
             request.addBody(options);
         }
         request.setUri(ImageSearchConsts.PRODUCT_DELETE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
-}
\ No newline at end of file
+    @Override
+    protected Set<String> getNonIdempotentUrls() {
+        return ImageSearchConsts.NON_IDEMPOTENT_URLS;
+    }
+}
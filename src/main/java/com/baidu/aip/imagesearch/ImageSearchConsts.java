@@ -13,6 +13,10 @@
 
 package com.baidu.aip.imagesearch;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
 public class ImageSearchConsts {
 
     static final String SAME_HQ_ADD =
@@ -51,4 +55,17 @@ public class ImageSearchConsts {
     static final String PRODUCT_DELETE =
             "https://aip.baidubce.com/rest/2.0/image-classify/v1/realtime_search/product/delete";
 
-}
\ No newline at end of file
+    /**
+     * 会修改服务端数据的接口，网络错误时不自动重试
+     */
+    static final Set<String> NON_IDEMPOTENT_URLS = new HashSet<String>(Arrays.asList(
+            SAME_HQ_ADD,
+            SAME_HQ_UPDATE,
+            SAME_HQ_DELETE,
+            SIMILAR_ADD,
+            SIMILAR_UPDATE,
+            SIMILAR_DELETE,
+            PRODUCT_ADD,
+            PRODUCT_UPDATE,
+            PRODUCT_DELETE));
+}
@@ -13,11 +13,15 @@
 
 package com.baidu.aip.kg;
 
+import com.baidu.aip.client.AipCallback;
+import com.baidu.aip.client.AipFuture;
 import com.baidu.aip.client.BaseClient;
 import com.baidu.aip.http.AipRequest;
+import com.baidu.aip.util.AipClientConfiguration;
 import org.json.JSONObject;
 
 import java.util.HashMap;
+import java.util.Set;
 
 public class AipKnowledgeGraphic extends BaseClient {
 
@@ -25,6 +29,16 @@ public class AipKnowledgeGraphic extends BaseClient {
         super(appId, apiKey, secretKey);
     }
 
+    /**
+     * @param appId 应用ID
+     * @param apiKey API Key
+     * @param secretKey Secret Key
+     * @param config 网络连接设置，开启warmUpOnInit时在构造后立即后台预热连接与access_token
+     */
+    public AipKnowledgeGraphic(String appId, String apiKey, String secretKey, AipClientConfiguration config) {
+        super(appId, apiKey, secretKey, config);
+    }
+
     /**
      * 创建任务接口   
      * 创建一个新的信息抽取任务
@@ -40,8 +54,23 @@ public class AipKnowledgeGraphic extends BaseClient {
      * @return JSONObject
      */
     public JSONObject createTask(String name, String templateContent, String inputMappingFile, String outputFile, String urlPattern, HashMap<String, String> options) {
+        return requestServerWithAuth(createTaskRequest(name, templateContent, inputMappingFile, outputFile, urlPattern, options));
+    }
+
+    /**
+     * createTask的异步版本，参数与返回结果同createTask(String, String, String, String, String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> createTask(String name, String templateContent, String inputMappingFile,
+                                            String outputFile, String urlPattern, HashMap<String, String> options,
+                                            AipCallback<JSONObject> callback) {
+        return requestServerAsync(createTaskRequest(name, templateContent, inputMappingFile, outputFile, urlPattern, options), null, callback);
+    }
+
+    private AipRequest createTaskRequest(String name, String templateContent, String inputMappingFile, String outputFile, String urlPattern, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("name", name);
         
@@ -56,8 +85,7 @@ public class AipKnowledgeGraphic extends BaseClient {
             request.addBody(options);
         }
         request.setUri(KnowledgeGraphicConsts.CREATE_TASK);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -75,16 +103,28 @@ public class AipKnowledgeGraphic extends BaseClient {
      * @return JSONObject
      */
     public JSONObject updateTask(int id, HashMap<String, String> options) {
+        return requestServerWithAuth(updateTaskRequest(id, options));
+    }
+
+    /**
+     * updateTask的异步版本，参数与返回结果同updateTask(int, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> updateTask(int id, HashMap<String, String> options, AipCallback<JSONObject> callback) {
+        return requestServerAsync(updateTaskRequest(id, options), null, callback);
+    }
+
+    private AipRequest updateTaskRequest(int id, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("id", id);
         if (options != null) {
             request.addBody(options);
         }
         request.setUri(KnowledgeGraphicConsts.UPDATE_TASK);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -97,16 +137,29 @@ public class AipKnowledgeGraphic extends BaseClient {
      * @return JSONObject
      */
     public JSONObject getTaskInfo(int id, HashMap<String, String> options) {
+        return requestServerWithAuth(getTaskInfoRequest(id, options));
+    }
+
+    /**
+     * getTaskInfo的异步版本，参数与返回结果同getTaskInfo(int, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> getTaskInfo(int id, HashMap<String, String> options,
+                                             AipCallback<JSONObject> callback) {
+        return requestServerAsync(getTaskInfoRequest(id, options), null, callback);
+    }
+
+    private AipRequest getTaskInfoRequest(int id, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("id", id);
         if (options != null) {
             request.addBody(options);
         }
         request.setUri(KnowledgeGraphicConsts.TASK_INFO);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -123,14 +176,26 @@ public class AipKnowledgeGraphic extends BaseClient {
      * @return JSONObject
      */
     public JSONObject getUserTasks(HashMap<String, String> options) {
+        return requestServerWithAuth(getUserTasksRequest(options));
+    }
+
+    /**
+     * getUserTasks的异步版本，参数与返回结果同getUserTasks(HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> getUserTasks(HashMap<String, String> options, AipCallback<JSONObject> callback) {
+        return requestServerAsync(getUserTasksRequest(options), null, callback);
+    }
+
+    private AipRequest getUserTasksRequest(HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         if (options != null) {
             request.addBody(options);
         }
         request.setUri(KnowledgeGraphicConsts.TASK_QUERY);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -143,16 +208,28 @@ public class AipKnowledgeGraphic extends BaseClient {
      * @return JSONObject
      */
     public JSONObject startTask(int id, HashMap<String, String> options) {
+        return requestServerWithAuth(startTaskRequest(id, options));
+    }
+
+    /**
+     * startTask的异步版本，参数与返回结果同startTask(int, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> startTask(int id, HashMap<String, String> options, AipCallback<JSONObject> callback) {
+        return requestServerAsync(startTaskRequest(id, options), null, callback);
+    }
+
+    private AipRequest startTaskRequest(int id, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("id", id);
         if (options != null) {
             request.addBody(options);
         }
         request.setUri(KnowledgeGraphicConsts.TASK_START);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -165,16 +242,33 @@ public class AipKnowledgeGraphic extends BaseClient {
      * @return JSONObject
      */
     public JSONObject getTaskStatus(int id, HashMap<String, String> options) {
+        return requestServerWithAuth(getTaskStatusRequest(id, options));
+    }
+
+    /**
+     * getTaskStatus的异步版本，参数与返回结果同getTaskStatus(int, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> getTaskStatus(int id, HashMap<String, String> options,
+                                               AipCallback<JSONObject> callback) {
+        return requestServerAsync(getTaskStatusRequest(id, options), null, callback);
+    }
+
+    private AipRequest getTaskStatusRequest(int id, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("id", id);
         if (options != null) {
             request.addBody(options);
         }
         request.setUri(KnowledgeGraphicConsts.TASK_STATUS);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
-}
\ No newline at end of file
+    @Override
+    protected Set<String> getNonIdempotentUrls() {
+        return KnowledgeGraphicConsts.NON_IDEMPOTENT_URLS;
+    }
+}
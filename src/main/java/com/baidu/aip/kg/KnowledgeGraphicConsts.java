@@ -13,6 +13,10 @@
 
 package com.baidu.aip.kg;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
 public class KnowledgeGraphicConsts {
 
     static final String CREATE_TASK = "https://aip.baidubce.com/rest/2.0/kg/v1/pie/task_create";
@@ -27,4 +31,11 @@ public class KnowledgeGraphicConsts {
 
     static final String TASK_STATUS = "https://aip.baidubce.com/rest/2.0/kg/v1/pie/task_status";
 
-}
\ No newline at end of file
+    /**
+     * 会修改服务端数据的接口，网络错误时不自动重试
+     */
+    static final Set<String> NON_IDEMPOTENT_URLS = new HashSet<String>(Arrays.asList(
+            CREATE_TASK,
+            UPDATE_TASK,
+            TASK_START));
+}
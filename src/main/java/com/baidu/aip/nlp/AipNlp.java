@@ -13,12 +13,15 @@
 
 package com.baidu.aip.nlp;
 
+import com.baidu.aip.client.AipCallback;
+import com.baidu.aip.client.AipFuture;
 import com.baidu.aip.client.BaseClient;
 import com.baidu.aip.http.AipRequest;
 import com.baidu.aip.http.EBodyFormat;
 import com.baidu.aip.http.Headers;
 import com.baidu.aip.http.HttpCharacterEncoding;
 import com.baidu.aip.http.HttpContentType;
+import com.baidu.aip.util.AipClientConfiguration;
 import org.json.JSONObject;
 
 import java.util.HashMap;
@@ -29,6 +32,16 @@ public class AipNlp extends BaseClient {
         super(appId, apiKey, secretKey);
     }
 
+    /**
+     * @param appId 应用ID
+     * @param apiKey API Key
+     * @param secretKey Secret Key
+     * @param config 网络连接设置，开启warmUpOnInit时在构造后立即后台预热连接与access_token
+     */
+    public AipNlp(String appId, String apiKey, String secretKey, AipClientConfiguration config) {
+        super(appId, apiKey, secretKey, config);
+    }
+
     /**
      * 词法分析接口
      * 词法分析接口向用户提供分词、词性标注、专名识别三大功能；能够识别出文本串中的基本词汇（分词），对这些词汇进行重组、标注组合后词汇的词性，并进一步识别出命名实体。
@@ -39,8 +52,21 @@ public class AipNlp extends BaseClient {
      * @return JSONObject
      */
     public JSONObject lexer(String text, HashMap<String, Object> options) {
+        return requestServerWithAuth(lexerRequest(text, options));
+    }
+
+    /**
+     * lexer的异步版本，参数与返回结果同lexer(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> lexer(String text, HashMap<String, Object> options, AipCallback<JSONObject> callback) {
+        return requestServerAsync(lexerRequest(text, options), null, callback);
+    }
+
+    private AipRequest lexerRequest(String text, HashMap<String, Object> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("text", text);
         
@@ -51,8 +77,7 @@ public class AipNlp extends BaseClient {
         request.addHeader(Headers.CONTENT_ENCODING, HttpCharacterEncoding.ENCODE_GBK);
         request.addHeader(Headers.CONTENT_TYPE, HttpContentType.JSON_DATA);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -65,8 +90,22 @@ public class AipNlp extends BaseClient {
      * @return JSONObject
      */
     public JSONObject lexerCustom(String text, HashMap<String, Object> options) {
+        return requestServerWithAuth(lexerCustomRequest(text, options));
+    }
+
+    /**
+     * lexerCustom的异步版本，参数与返回结果同lexerCustom(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> lexerCustom(String text, HashMap<String, Object> options,
+                                             AipCallback<JSONObject> callback) {
+        return requestServerAsync(lexerCustomRequest(text, options), null, callback);
+    }
+
+    private AipRequest lexerCustomRequest(String text, HashMap<String, Object> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("text", text);
         
@@ -77,8 +116,7 @@ public class AipNlp extends BaseClient {
         request.addHeader(Headers.CONTENT_ENCODING, HttpCharacterEncoding.ENCODE_GBK);
         request.addHeader(Headers.CONTENT_TYPE, HttpContentType.JSON_DATA);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -92,8 +130,22 @@ public class AipNlp extends BaseClient {
      * @return JSONObject
      */
     public JSONObject depParser(String text, HashMap<String, Object> options) {
+        return requestServerWithAuth(depParserRequest(text, options));
+    }
+
+    /**
+     * depParser的异步版本，参数与返回结果同depParser(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> depParser(String text, HashMap<String, Object> options,
+                                           AipCallback<JSONObject> callback) {
+        return requestServerAsync(depParserRequest(text, options), null, callback);
+    }
+
+    private AipRequest depParserRequest(String text, HashMap<String, Object> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("text", text);
         
@@ -104,8 +156,7 @@ public class AipNlp extends BaseClient {
         request.addHeader(Headers.CONTENT_ENCODING, HttpCharacterEncoding.ENCODE_GBK);
         request.addHeader(Headers.CONTENT_TYPE, HttpContentType.JSON_DATA);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -118,8 +169,22 @@ public class AipNlp extends BaseClient {
      * @return JSONObject
      */
     public JSONObject wordEmbedding(String word, HashMap<String, Object> options) {
+        return requestServerWithAuth(wordEmbeddingRequest(word, options));
+    }
+
+    /**
+     * wordEmbedding的异步版本，参数与返回结果同wordEmbedding(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> wordEmbedding(String word, HashMap<String, Object> options,
+                                               AipCallback<JSONObject> callback) {
+        return requestServerAsync(wordEmbeddingRequest(word, options), null, callback);
+    }
+
+    private AipRequest wordEmbeddingRequest(String word, HashMap<String, Object> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("word", word);
         
@@ -130,8 +195,7 @@ public class AipNlp extends BaseClient {
         request.addHeader(Headers.CONTENT_ENCODING, HttpCharacterEncoding.ENCODE_GBK);
         request.addHeader(Headers.CONTENT_TYPE, HttpContentType.JSON_DATA);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -144,8 +208,22 @@ public class AipNlp extends BaseClient {
      * @return JSONObject
      */
     public JSONObject dnnlmCn(String text, HashMap<String, Object> options) {
+        return requestServerWithAuth(dnnlmCnRequest(text, options));
+    }
+
+    /**
+     * dnnlmCn的异步版本，参数与返回结果同dnnlmCn(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> dnnlmCn(String text, HashMap<String, Object> options,
+                                         AipCallback<JSONObject> callback) {
+        return requestServerAsync(dnnlmCnRequest(text, options), null, callback);
+    }
+
+    private AipRequest dnnlmCnRequest(String text, HashMap<String, Object> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("text", text);
         
@@ -156,8 +234,7 @@ public class AipNlp extends BaseClient {
         request.addHeader(Headers.CONTENT_ENCODING, HttpCharacterEncoding.ENCODE_GBK);
         request.addHeader(Headers.CONTENT_TYPE, HttpContentType.JSON_DATA);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -172,8 +249,22 @@ public class AipNlp extends BaseClient {
      * @return JSONObject
      */
     public JSONObject wordSimEmbedding(String word1, String word2, HashMap<String, Object> options) {
+        return requestServerWithAuth(wordSimEmbeddingRequest(word1, word2, options));
+    }
+
+    /**
+     * wordSimEmbedding的异步版本，参数与返回结果同wordSimEmbedding(String, String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> wordSimEmbedding(String word1, String word2, HashMap<String, Object> options,
+                                                  AipCallback<JSONObject> callback) {
+        return requestServerAsync(wordSimEmbeddingRequest(word1, word2, options), null, callback);
+    }
+
+    private AipRequest wordSimEmbeddingRequest(String word1, String word2, HashMap<String, Object> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("word_1", word1);
         
@@ -186,8 +277,7 @@ public class AipNlp extends BaseClient {
         request.addHeader(Headers.CONTENT_ENCODING, HttpCharacterEncoding.ENCODE_GBK);
         request.addHeader(Headers.CONTENT_TYPE, HttpContentType.JSON_DATA);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -202,8 +292,22 @@ public class AipNlp extends BaseClient {
      * @return JSONObject
      */
     public JSONObject simnet(String text1, String text2, HashMap<String, Object> options) {
+        return requestServerWithAuth(simnetRequest(text1, text2, options));
+    }
+
+    /**
+     * simnet的异步版本，参数与返回结果同simnet(String, String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> simnet(String text1, String text2, HashMap<String, Object> options,
+                                        AipCallback<JSONObject> callback) {
+        return requestServerAsync(simnetRequest(text1, text2, options), null, callback);
+    }
+
+    private AipRequest simnetRequest(String text1, String text2, HashMap<String, Object> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("text_1", text1);
         
@@ -216,8 +320,7 @@ public class AipNlp extends BaseClient {
         request.addHeader(Headers.CONTENT_ENCODING, HttpCharacterEncoding.ENCODE_GBK);
         request.addHeader(Headers.CONTENT_TYPE, HttpContentType.JSON_DATA);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -232,8 +335,22 @@ public class AipNlp extends BaseClient {
      * @return JSONObject
      */
     public JSONObject commentTag(String text, ESimnetType type, HashMap<String, Object> options) {
+        return requestServerWithAuth(commentTagRequest(text, type, options));
+    }
+
+    /**
+     * commentTag的异步版本，参数与返回结果同commentTag(String, ESimnetType, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> commentTag(String text, ESimnetType type, HashMap<String, Object> options,
+                                            AipCallback<JSONObject> callback) {
+        return requestServerAsync(commentTagRequest(text, type, options), null, callback);
+    }
+
+    private AipRequest commentTagRequest(String text, ESimnetType type, HashMap<String, Object> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("text", text);
         request.addBody("type", type.ordinal());
@@ -244,8 +361,7 @@ public class AipNlp extends BaseClient {
         request.addHeader(Headers.CONTENT_ENCODING, HttpCharacterEncoding.ENCODE_GBK);
         request.addHeader(Headers.CONTENT_TYPE, HttpContentType.JSON_DATA);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -258,8 +374,22 @@ public class AipNlp extends BaseClient {
      * @return JSONObject
      */
     public JSONObject sentimentClassify(String text, HashMap<String, Object> options) {
+        return requestServerWithAuth(sentimentClassifyRequest(text, options));
+    }
+
+    /**
+     * sentimentClassify的异步版本，参数与返回结果同sentimentClassify(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> sentimentClassify(String text, HashMap<String, Object> options,
+                                                   AipCallback<JSONObject> callback) {
+        return requestServerAsync(sentimentClassifyRequest(text, options), null, callback);
+    }
+
+    private AipRequest sentimentClassifyRequest(String text, HashMap<String, Object> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("text", text);
         
@@ -270,8 +400,7 @@ public class AipNlp extends BaseClient {
         request.addHeader(Headers.CONTENT_ENCODING, HttpCharacterEncoding.ENCODE_GBK);
         request.addHeader(Headers.CONTENT_TYPE, HttpContentType.JSON_DATA);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -285,8 +414,22 @@ public class AipNlp extends BaseClient {
      * @return JSONObject
      */
     public JSONObject keyword(String title, String content, HashMap<String, Object> options) {
+        return requestServerWithAuth(keywordRequest(title, content, options));
+    }
+
+    /**
+     * keyword的异步版本，参数与返回结果同keyword(String, String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> keyword(String title, String content, HashMap<String, Object> options,
+                                         AipCallback<JSONObject> callback) {
+        return requestServerAsync(keywordRequest(title, content, options), null, callback);
+    }
+
+    private AipRequest keywordRequest(String title, String content, HashMap<String, Object> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("title", title);
         
@@ -299,8 +442,7 @@ public class AipNlp extends BaseClient {
         request.addHeader(Headers.CONTENT_ENCODING, HttpCharacterEncoding.ENCODE_GBK);
         request.addHeader(Headers.CONTENT_TYPE, HttpContentType.JSON_DATA);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -314,8 +456,22 @@ public class AipNlp extends BaseClient {
      * @return JSONObject
      */
     public JSONObject topic(String title, String content, HashMap<String, Object> options) {
+        return requestServerWithAuth(topicRequest(title, content, options));
+    }
+
+    /**
+     * topic的异步版本，参数与返回结果同topic(String, String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> topic(String title, String content, HashMap<String, Object> options,
+                                       AipCallback<JSONObject> callback) {
+        return requestServerAsync(topicRequest(title, content, options), null, callback);
+    }
+
+    private AipRequest topicRequest(String title, String content, HashMap<String, Object> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("title", title);
         
@@ -328,8 +484,7 @@ public class AipNlp extends BaseClient {
         request.addHeader(Headers.CONTENT_ENCODING, HttpCharacterEncoding.ENCODE_GBK);
         request.addHeader(Headers.CONTENT_TYPE, HttpContentType.JSON_DATA);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -342,8 +497,21 @@ public class AipNlp extends BaseClient {
      * @return JSONObject
      */
     public JSONObject ecnet(String text, HashMap<String, Object> options) {
+        return requestServerWithAuth(ecnetRequest(text, options));
+    }
+
+    /**
+     * ecnet的异步版本，参数与返回结果同ecnet(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> ecnet(String text, HashMap<String, Object> options, AipCallback<JSONObject> callback) {
+        return requestServerAsync(ecnetRequest(text, options), null, callback);
+    }
+
+    private AipRequest ecnetRequest(String text, HashMap<String, Object> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("text", text);
         
@@ -354,8 +522,7 @@ public class AipNlp extends BaseClient {
         request.addHeader(Headers.CONTENT_ENCODING, HttpCharacterEncoding.ENCODE_GBK);
         request.addHeader(Headers.CONTENT_TYPE, HttpContentType.JSON_DATA);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -369,8 +536,22 @@ public class AipNlp extends BaseClient {
      * @return JSONObject
      */
     public JSONObject emotion(String text, HashMap<String, Object> options) {
+        return requestServerWithAuth(emotionRequest(text, options));
+    }
+
+    /**
+     * emotion的异步版本，参数与返回结果同emotion(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> emotion(String text, HashMap<String, Object> options,
+                                         AipCallback<JSONObject> callback) {
+        return requestServerAsync(emotionRequest(text, options), null, callback);
+    }
+
+    private AipRequest emotionRequest(String text, HashMap<String, Object> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("text", text);
         
@@ -381,8 +562,7 @@ public class AipNlp extends BaseClient {
         request.addHeader(Headers.CONTENT_ENCODING, HttpCharacterEncoding.ENCODE_GBK);
         request.addHeader(Headers.CONTENT_TYPE, HttpContentType.JSON_DATA);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -397,8 +577,22 @@ public class AipNlp extends BaseClient {
      * @return JSONObject
      */
     public JSONObject newsSummary(String content, int maxSummaryLen, HashMap<String, Object> options) {
+        return requestServerWithAuth(newsSummaryRequest(content, maxSummaryLen, options));
+    }
+
+    /**
+     * newsSummary的异步版本，参数与返回结果同newsSummary(String, int, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> newsSummary(String content, int maxSummaryLen, HashMap<String, Object> options,
+                                             AipCallback<JSONObject> callback) {
+        return requestServerAsync(newsSummaryRequest(content, maxSummaryLen, options), null, callback);
+    }
+
+    private AipRequest newsSummaryRequest(String content, int maxSummaryLen, HashMap<String, Object> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("content", content);
         
@@ -411,8 +605,7 @@ public class AipNlp extends BaseClient {
         request.addHeader(Headers.CONTENT_ENCODING, HttpCharacterEncoding.ENCODE_GBK);
         request.addHeader(Headers.CONTENT_TYPE, HttpContentType.JSON_DATA);
         request.setBodyFormat(EBodyFormat.RAW_JSON);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
 }
\ No newline at end of file
@@ -13,15 +13,19 @@
 
 package com.baidu.aip.ocr;
 
+import com.baidu.aip.client.AipCallback;
+import com.baidu.aip.client.AipFuture;
 import com.baidu.aip.client.BaseClient;
 import com.baidu.aip.error.AipError;
 import com.baidu.aip.http.AipRequest;
+import com.baidu.aip.util.AipClientConfiguration;
 import com.baidu.aip.util.Base64Util;
 import com.baidu.aip.util.Util;
 import org.json.JSONObject;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.Set;
 import java.util.Calendar;
 
 public class AipOcr extends BaseClient {
@@ -30,6 +34,16 @@ public class AipOcr extends BaseClient {
         super(appId, apiKey, secretKey);
     }
 
+    /**
+     * @param appId 应用ID
+     * @param apiKey API Key
+     * @param secretKey Secret Key
+     * @param config 网络连接设置，开启warmUpOnInit时在构造后立即后台预热连接与access_token
+     */
+    public AipOcr(String appId, String apiKey, String secretKey, AipClientConfiguration config) {
+        super(appId, apiKey, secretKey, config);
+    }
+
     /**
      * 通用文字识别接口   
      * 用户向服务请求识别某张图中的所有文字
@@ -44,8 +58,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject basicGeneral(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(basicGeneralRequest(image, options));
+    }
+
+    /**
+     * basicGeneral的异步版本，参数与返回结果同basicGeneral(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> basicGeneral(byte[] image, HashMap<String, String> options,
+                                              AipCallback<JSONObject> callback) {
+        return requestServerAsync(basicGeneralRequest(image, options), null, callback);
+    }
+
+    private AipRequest basicGeneralRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -53,8 +81,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.GENERAL_BASIC);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -94,16 +121,29 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject basicGeneralUrl(String url, HashMap<String, String> options) {
+        return requestServerWithAuth(basicGeneralUrlRequest(url, options));
+    }
+
+    /**
+     * basicGeneralUrl的异步版本，参数与返回结果同basicGeneralUrl(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> basicGeneralUrl(String url, HashMap<String, String> options,
+                                                 AipCallback<JSONObject> callback) {
+        return requestServerAsync(basicGeneralUrlRequest(url, options), null, callback);
+    }
+
+    private AipRequest basicGeneralUrlRequest(String url, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("url", url);
         if (options != null) {
             request.addBody(options);
         }
         request.setUri(OcrConsts.GENERAL_BASIC);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -118,8 +158,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject basicAccurateGeneral(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(basicAccurateGeneralRequest(image, options));
+    }
+
+    /**
+     * basicAccurateGeneral的异步版本，参数与返回结果同basicAccurateGeneral(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> basicAccurateGeneral(byte[] image, HashMap<String, String> options,
+                                                      AipCallback<JSONObject> callback) {
+        return requestServerAsync(basicAccurateGeneralRequest(image, options), null, callback);
+    }
+
+    private AipRequest basicAccurateGeneralRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -127,8 +181,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.ACCURATE_BASIC);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -168,8 +221,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject general(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(generalRequest(image, options));
+    }
+
+    /**
+     * general的异步版本，参数与返回结果同general(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> general(byte[] image, HashMap<String, String> options,
+                                         AipCallback<JSONObject> callback) {
+        return requestServerAsync(generalRequest(image, options), null, callback);
+    }
+
+    private AipRequest generalRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -177,8 +244,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.GENERAL);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -222,16 +288,29 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject generalUrl(String url, HashMap<String, String> options) {
+        return requestServerWithAuth(generalUrlRequest(url, options));
+    }
+
+    /**
+     * generalUrl的异步版本，参数与返回结果同generalUrl(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> generalUrl(String url, HashMap<String, String> options,
+                                            AipCallback<JSONObject> callback) {
+        return requestServerAsync(generalUrlRequest(url, options), null, callback);
+    }
+
+    private AipRequest generalUrlRequest(String url, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("url", url);
         if (options != null) {
             request.addBody(options);
         }
         request.setUri(OcrConsts.GENERAL);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -248,8 +327,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject accurateGeneral(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(accurateGeneralRequest(image, options));
+    }
+
+    /**
+     * accurateGeneral的异步版本，参数与返回结果同accurateGeneral(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> accurateGeneral(byte[] image, HashMap<String, String> options,
+                                                 AipCallback<JSONObject> callback) {
+        return requestServerAsync(accurateGeneralRequest(image, options), null, callback);
+    }
+
+    private AipRequest accurateGeneralRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -257,8 +350,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.ACCURATE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -298,8 +390,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject enhancedGeneral(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(enhancedGeneralRequest(image, options));
+    }
+
+    /**
+     * enhancedGeneral的异步版本，参数与返回结果同enhancedGeneral(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> enhancedGeneral(byte[] image, HashMap<String, String> options,
+                                                 AipCallback<JSONObject> callback) {
+        return requestServerAsync(enhancedGeneralRequest(image, options), null, callback);
+    }
+
+    private AipRequest enhancedGeneralRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -307,8 +413,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.GENERAL_ENHANCED);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -348,16 +453,29 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject enhancedGeneralUrl(String url, HashMap<String, String> options) {
+        return requestServerWithAuth(enhancedGeneralUrlRequest(url, options));
+    }
+
+    /**
+     * enhancedGeneralUrl的异步版本，参数与返回结果同enhancedGeneralUrl(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> enhancedGeneralUrl(String url, HashMap<String, String> options,
+                                                    AipCallback<JSONObject> callback) {
+        return requestServerAsync(enhancedGeneralUrlRequest(url, options), null, callback);
+    }
+
+    private AipRequest enhancedGeneralUrlRequest(String url, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("url", url);
         if (options != null) {
             request.addBody(options);
         }
         request.setUri(OcrConsts.GENERAL_ENHANCED);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -372,8 +490,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject webImage(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(webImageRequest(image, options));
+    }
+
+    /**
+     * webImage的异步版本，参数与返回结果同webImage(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> webImage(byte[] image, HashMap<String, String> options,
+                                          AipCallback<JSONObject> callback) {
+        return requestServerAsync(webImageRequest(image, options), null, callback);
+    }
+
+    private AipRequest webImageRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -381,8 +513,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.WEB_IMAGE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -418,16 +549,29 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject webImageUrl(String url, HashMap<String, String> options) {
+        return requestServerWithAuth(webImageUrlRequest(url, options));
+    }
+
+    /**
+     * webImageUrl的异步版本，参数与返回结果同webImageUrl(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> webImageUrl(String url, HashMap<String, String> options,
+                                             AipCallback<JSONObject> callback) {
+        return requestServerAsync(webImageUrlRequest(url, options), null, callback);
+    }
+
+    private AipRequest webImageUrlRequest(String url, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("url", url);
         if (options != null) {
             request.addBody(options);
         }
         request.setUri(OcrConsts.WEB_IMAGE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -443,8 +587,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject idcard(byte[] image, String idCardSide, HashMap<String, String> options) {
+        return requestServerWithAuth(idcardRequest(image, idCardSide, options));
+    }
+
+    /**
+     * idcard的异步版本，参数与返回结果同idcard(byte[], String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> idcard(byte[] image, String idCardSide, HashMap<String, String> options,
+                                        AipCallback<JSONObject> callback) {
+        return requestServerAsync(idcardRequest(image, idCardSide, options), null, callback);
+    }
+
+    private AipRequest idcardRequest(byte[] image, String idCardSide, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -454,8 +612,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.IDCARD);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -490,8 +647,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject bankcard(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(bankcardRequest(image, options));
+    }
+
+    /**
+     * bankcard的异步版本，参数与返回结果同bankcard(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> bankcard(byte[] image, HashMap<String, String> options,
+                                          AipCallback<JSONObject> callback) {
+        return requestServerAsync(bankcardRequest(image, options), null, callback);
+    }
+
+    private AipRequest bankcardRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -499,8 +670,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.BANKCARD);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -533,8 +703,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject drivingLicense(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(drivingLicenseRequest(image, options));
+    }
+
+    /**
+     * drivingLicense的异步版本，参数与返回结果同drivingLicense(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> drivingLicense(byte[] image, HashMap<String, String> options,
+                                                AipCallback<JSONObject> callback) {
+        return requestServerAsync(drivingLicenseRequest(image, options), null, callback);
+    }
+
+    private AipRequest drivingLicenseRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -542,8 +726,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.DRIVING_LICENSE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -578,8 +761,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject vehicleLicense(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(vehicleLicenseRequest(image, options));
+    }
+
+    /**
+     * vehicleLicense的异步版本，参数与返回结果同vehicleLicense(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> vehicleLicense(byte[] image, HashMap<String, String> options,
+                                                AipCallback<JSONObject> callback) {
+        return requestServerAsync(vehicleLicenseRequest(image, options), null, callback);
+    }
+
+    private AipRequest vehicleLicenseRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -587,8 +784,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.VEHICLE_LICENSE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -623,8 +819,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject plateLicense(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(plateLicenseRequest(image, options));
+    }
+
+    /**
+     * plateLicense的异步版本，参数与返回结果同plateLicense(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> plateLicense(byte[] image, HashMap<String, String> options,
+                                              AipCallback<JSONObject> callback) {
+        return requestServerAsync(plateLicenseRequest(image, options), null, callback);
+    }
+
+    private AipRequest plateLicenseRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -632,8 +842,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.LICENSE_PLATE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -666,8 +875,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject businessLicense(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(businessLicenseRequest(image, options));
+    }
+
+    /**
+     * businessLicense的异步版本，参数与返回结果同businessLicense(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> businessLicense(byte[] image, HashMap<String, String> options,
+                                                 AipCallback<JSONObject> callback) {
+        return requestServerAsync(businessLicenseRequest(image, options), null, callback);
+    }
+
+    private AipRequest businessLicenseRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -675,8 +898,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.BUSINESS_LICENSE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -712,8 +934,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject receipt(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(receiptRequest(image, options));
+    }
+
+    /**
+     * receipt的异步版本，参数与返回结果同receipt(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> receipt(byte[] image, HashMap<String, String> options,
+                                         AipCallback<JSONObject> callback) {
+        return requestServerAsync(receiptRequest(image, options), null, callback);
+    }
+
+    private AipRequest receiptRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -721,8 +957,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.RECEIPT);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -758,8 +993,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject trainTicket(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(trainTicketRequest(image, options));
+    }
+
+    /**
+     * trainTicket的异步版本，参数与返回结果同trainTicket(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> trainTicket(byte[] image, HashMap<String, String> options,
+                                             AipCallback<JSONObject> callback) {
+        return requestServerAsync(trainTicketRequest(image, options), null, callback);
+    }
+
+    private AipRequest trainTicketRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -767,8 +1016,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.TRAIN_TICKET);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -800,8 +1048,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject taxiReceipt(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(taxiReceiptRequest(image, options));
+    }
+
+    /**
+     * taxiReceipt的异步版本，参数与返回结果同taxiReceipt(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> taxiReceipt(byte[] image, HashMap<String, String> options,
+                                             AipCallback<JSONObject> callback) {
+        return requestServerAsync(taxiReceiptRequest(image, options), null, callback);
+    }
+
+    private AipRequest taxiReceiptRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -809,8 +1071,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.TAXI_RECEIPT);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -842,8 +1103,21 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject form(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(formRequest(image, options));
+    }
+
+    /**
+     * form的异步版本，参数与返回结果同form(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> form(byte[] image, HashMap<String, String> options, AipCallback<JSONObject> callback) {
+        return requestServerAsync(formRequest(image, options), null, callback);
+    }
+
+    private AipRequest formRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -851,8 +1125,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.FORM);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -884,8 +1157,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject tableRecognitionAsync(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(tableRecognitionAsyncRequest(image, options));
+    }
+
+    /**
+     * tableRecognitionAsync的异步版本，参数与返回结果同tableRecognitionAsync(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> tableRecognitionAsync(byte[] image, HashMap<String, String> options,
+                                                       AipCallback<JSONObject> callback) {
+        return requestServerAsync(tableRecognitionAsyncRequest(image, options), null, callback);
+    }
+
+    private AipRequest tableRecognitionAsyncRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -893,8 +1180,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.TABLE_RECOGNIZE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -927,16 +1213,29 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject tableResultGet(String requestId, HashMap<String, String> options) {
+        return requestServerWithAuth(tableResultGetRequest(requestId, options));
+    }
+
+    /**
+     * tableResultGet的异步版本，参数与返回结果同tableResultGet(String, HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> tableResultGet(String requestId, HashMap<String, String> options,
+                                                AipCallback<JSONObject> callback) {
+        return requestServerAsync(tableResultGetRequest(requestId, options), null, callback);
+    }
+
+    private AipRequest tableResultGetRequest(String requestId, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         request.addBody("request_id", requestId);
         if (options != null) {
             request.addBody(options);
         }
         request.setUri(OcrConsts.TABLE_RESULT_GET);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -949,8 +1248,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject vinCode(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(vinCodeRequest(image, options));
+    }
+
+    /**
+     * vinCode的异步版本，参数与返回结果同vinCode(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> vinCode(byte[] image, HashMap<String, String> options,
+                                         AipCallback<JSONObject> callback) {
+        return requestServerAsync(vinCodeRequest(image, options), null, callback);
+    }
+
+    private AipRequest vinCodeRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -958,8 +1271,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.VIN_CODE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -991,8 +1303,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject quotaInvoice(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(quotaInvoiceRequest(image, options));
+    }
+
+    /**
+     * quotaInvoice的异步版本，参数与返回结果同quotaInvoice(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> quotaInvoice(byte[] image, HashMap<String, String> options,
+                                              AipCallback<JSONObject> callback) {
+        return requestServerAsync(quotaInvoiceRequest(image, options), null, callback);
+    }
+
+    private AipRequest quotaInvoiceRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -1000,8 +1326,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.QUOTA_INVOICE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -1033,8 +1358,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject householdRegister(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(householdRegisterRequest(image, options));
+    }
+
+    /**
+     * householdRegister的异步版本，参数与返回结果同householdRegister(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> householdRegister(byte[] image, HashMap<String, String> options,
+                                                   AipCallback<JSONObject> callback) {
+        return requestServerAsync(householdRegisterRequest(image, options), null, callback);
+    }
+
+    private AipRequest householdRegisterRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -1042,8 +1381,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.HOUSEHOLD_REGISTER);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -1075,8 +1413,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject HKMacauExitentrypermit(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(HKMacauExitentrypermitRequest(image, options));
+    }
+
+    /**
+     * HKMacauExitentrypermit的异步版本，参数与返回结果同HKMacauExitentrypermit(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> HKMacauExitentrypermit(byte[] image, HashMap<String, String> options,
+                                                        AipCallback<JSONObject> callback) {
+        return requestServerAsync(HKMacauExitentrypermitRequest(image, options), null, callback);
+    }
+
+    private AipRequest HKMacauExitentrypermitRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -1084,8 +1436,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.HK_MACAU_EXITENTRYPERMIT);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -1117,8 +1468,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject taiwanExitentrypermit(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(taiwanExitentrypermitRequest(image, options));
+    }
+
+    /**
+     * taiwanExitentrypermit的异步版本，参数与返回结果同taiwanExitentrypermit(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> taiwanExitentrypermit(byte[] image, HashMap<String, String> options,
+                                                       AipCallback<JSONObject> callback) {
+        return requestServerAsync(taiwanExitentrypermitRequest(image, options), null, callback);
+    }
+
+    private AipRequest taiwanExitentrypermitRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -1126,8 +1491,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.TAIWAN_EXITENTRYPERMIT);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -1159,8 +1523,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject birthCertificate(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(birthCertificateRequest(image, options));
+    }
+
+    /**
+     * birthCertificate的异步版本，参数与返回结果同birthCertificate(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> birthCertificate(byte[] image, HashMap<String, String> options,
+                                                  AipCallback<JSONObject> callback) {
+        return requestServerAsync(birthCertificateRequest(image, options), null, callback);
+    }
+
+    private AipRequest birthCertificateRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -1168,8 +1546,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.BIRTH_CERTIFICATE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -1201,8 +1578,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject vehicleInvoice(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(vehicleInvoiceRequest(image, options));
+    }
+
+    /**
+     * vehicleInvoice的异步版本，参数与返回结果同vehicleInvoice(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> vehicleInvoice(byte[] image, HashMap<String, String> options,
+                                                AipCallback<JSONObject> callback) {
+        return requestServerAsync(vehicleInvoiceRequest(image, options), null, callback);
+    }
+
+    private AipRequest vehicleInvoiceRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -1210,8 +1601,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.VEHICLE_INVOICE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -1243,8 +1633,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject vehicleCertificate(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(vehicleCertificateRequest(image, options));
+    }
+
+    /**
+     * vehicleCertificate的异步版本，参数与返回结果同vehicleCertificate(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> vehicleCertificate(byte[] image, HashMap<String, String> options,
+                                                    AipCallback<JSONObject> callback) {
+        return requestServerAsync(vehicleCertificateRequest(image, options), null, callback);
+    }
+
+    private AipRequest vehicleCertificateRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -1252,8 +1656,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.VEHICLE_CERTIFICATE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -1286,8 +1689,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject invoice(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(invoiceRequest(image, options));
+    }
+
+    /**
+     * invoice的异步版本，参数与返回结果同invoice(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> invoice(byte[] image, HashMap<String, String> options,
+                                         AipCallback<JSONObject> callback) {
+        return requestServerAsync(invoiceRequest(image, options), null, callback);
+    }
+
+    private AipRequest invoiceRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -1295,8 +1712,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.INVOICE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -1330,8 +1746,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject airTicket(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(airTicketRequest(image, options));
+    }
+
+    /**
+     * airTicket的异步版本，参数与返回结果同airTicket(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> airTicket(byte[] image, HashMap<String, String> options,
+                                           AipCallback<JSONObject> callback) {
+        return requestServerAsync(airTicketRequest(image, options), null, callback);
+    }
+
+    private AipRequest airTicketRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -1339,8 +1769,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.AIR_TICKET);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -1374,8 +1803,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject insuranceDocuments(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(insuranceDocumentsRequest(image, options));
+    }
+
+    /**
+     * insuranceDocuments的异步版本，参数与返回结果同insuranceDocuments(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> insuranceDocuments(byte[] image, HashMap<String, String> options,
+                                                    AipCallback<JSONObject> callback) {
+        return requestServerAsync(insuranceDocumentsRequest(image, options), null, callback);
+    }
+
+    private AipRequest insuranceDocumentsRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -1383,8 +1826,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.INSURANCE_DOCUMENTS);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -1417,8 +1859,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject vatInvoice(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(vatInvoiceRequest(image, options));
+    }
+
+    /**
+     * vatInvoice的异步版本，参数与返回结果同vatInvoice(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> vatInvoice(byte[] image, HashMap<String, String> options,
+                                            AipCallback<JSONObject> callback) {
+        return requestServerAsync(vatInvoiceRequest(image, options), null, callback);
+    }
+
+    private AipRequest vatInvoiceRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -1426,8 +1882,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.VAT_INVOICE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -1459,8 +1914,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject qrcode(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(qrcodeRequest(image, options));
+    }
+
+    /**
+     * qrcode的异步版本，参数与返回结果同qrcode(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> qrcode(byte[] image, HashMap<String, String> options,
+                                        AipCallback<JSONObject> callback) {
+        return requestServerAsync(qrcodeRequest(image, options), null, callback);
+    }
+
+    private AipRequest qrcodeRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -1468,8 +1937,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.QRCODE);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -1503,8 +1971,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject numbers(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(numbersRequest(image, options));
+    }
+
+    /**
+     * numbers的异步版本，参数与返回结果同numbers(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> numbers(byte[] image, HashMap<String, String> options,
+                                         AipCallback<JSONObject> callback) {
+        return requestServerAsync(numbersRequest(image, options), null, callback);
+    }
+
+    private AipRequest numbersRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -1512,8 +1994,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.NUMBERS);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -1548,8 +2029,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject lottery(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(lotteryRequest(image, options));
+    }
+
+    /**
+     * lottery的异步版本，参数与返回结果同lottery(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> lottery(byte[] image, HashMap<String, String> options,
+                                         AipCallback<JSONObject> callback) {
+        return requestServerAsync(lotteryRequest(image, options), null, callback);
+    }
+
+    private AipRequest lotteryRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -1557,8 +2052,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.LOTTERY);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -1591,8 +2085,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject passport(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(passportRequest(image, options));
+    }
+
+    /**
+     * passport的异步版本，参数与返回结果同passport(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> passport(byte[] image, HashMap<String, String> options,
+                                          AipCallback<JSONObject> callback) {
+        return requestServerAsync(passportRequest(image, options), null, callback);
+    }
+
+    private AipRequest passportRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -1600,8 +2108,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.PASSPORT);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -1633,8 +2140,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject businessCard(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(businessCardRequest(image, options));
+    }
+
+    /**
+     * businessCard的异步版本，参数与返回结果同businessCard(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> businessCard(byte[] image, HashMap<String, String> options,
+                                              AipCallback<JSONObject> callback) {
+        return requestServerAsync(businessCardRequest(image, options), null, callback);
+    }
+
+    private AipRequest businessCardRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -1642,8 +2163,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.BUSINESS_CARD);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -1676,8 +2196,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject handwriting(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(handwritingRequest(image, options));
+    }
+
+    /**
+     * handwriting的异步版本，参数与返回结果同handwriting(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> handwriting(byte[] image, HashMap<String, String> options,
+                                             AipCallback<JSONObject> callback) {
+        return requestServerAsync(handwritingRequest(image, options), null, callback);
+    }
+
+    private AipRequest handwritingRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -1685,8 +2219,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.HANDWRITING);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -1721,8 +2254,22 @@ public class AipOcr extends BaseClient {
      * @return JSONObject
      */
     public JSONObject custom(byte[] image, HashMap<String, String> options) {
+        return requestServerWithAuth(customRequest(image, options));
+    }
+
+    /**
+     * custom的异步版本，参数与返回结果同custom(byte[], HashMap)
+     * @param callback 结果回调，可以为null
+     * @return AipFuture，取消时中止正在进行的请求
+     */
+    public AipFuture<JSONObject> custom(byte[] image, HashMap<String, String> options,
+                                        AipCallback<JSONObject> callback) {
+        return requestServerAsync(customRequest(image, options), null, callback);
+    }
+
+    private AipRequest customRequest(byte[] image, HashMap<String, String> options) {
         AipRequest request = new AipRequest();
-        preOperation(request);
+        initRequest(request);
         
         String base64Content = Base64Util.encode(image);
         request.addBody("image", base64Content);
@@ -1730,8 +2277,7 @@ public class AipOcr extends BaseClient {
             request.addBody(options);
         }
         request.setUri(OcrConsts.CUSTOM);
-        postOperation(request);
-        return requestServer(request);
+        return request;
     }
 
     /**
@@ -1871,5 +2417,8 @@ public class AipOcr extends BaseClient {
         }
     }
 
-
-}
\ No newline at end of file
+    @Override
+    protected Set<String> getNonIdempotentUrls() {
+        return OcrConsts.NON_IDEMPOTENT_URLS;
+    }
+}
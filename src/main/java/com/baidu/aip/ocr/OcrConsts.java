@@ -13,6 +13,10 @@
 
 package com.baidu.aip.ocr;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
 public class OcrConsts {
 
     static final String GENERAL_BASIC = "https://aip.baidubce.com/rest/2.0/ocr/v1/general_basic";
@@ -90,4 +94,10 @@ public class OcrConsts {
     static final String CUSTOM = "https://aip.baidubce.com/rest/2.0/solution/v1/iocr/recognise";
 
     static final int ASYNC_TASK_STATUS_FINISHED = 3;
-}
\ No newline at end of file
+
+    /**
+     * 会修改服务端数据的接口，网络错误时不自动重试
+     */
+    static final Set<String> NON_IDEMPOTENT_URLS = new HashSet<String>(Arrays.asList(
+            TABLE_RECOGNIZE));
+}
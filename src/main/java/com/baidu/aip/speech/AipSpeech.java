@@ -15,17 +15,18 @@ package com.baidu.aip.speech;
 import com.baidu.aip.client.BaseClient;
 import com.baidu.aip.error.AipError;
 import com.baidu.aip.http.*;
+import com.baidu.aip.util.AipClientConfiguration;
 import com.baidu.aip.util.AipClientConst;
 import com.baidu.aip.util.Base64Util;
 import com.baidu.aip.util.SignUtil;
 import com.baidu.aip.util.Util;
-import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class AipSpeech extends BaseClient {
 
@@ -33,6 +34,26 @@ public class AipSpeech extends BaseClient {
         super(appId, apiKey, secretKey);
     }
 
+    /**
+     * @param appId 应用ID
+     * @param apiKey API Key
+     * @param secretKey Secret Key
+     * @param config 网络连接设置，开启warmUpOnInit时在构造后立即后台预热连接与access_token
+     */
+    public AipSpeech(String appId, String apiKey, String secretKey, AipClientConfiguration config) {
+        super(appId, apiKey, secretKey, config);
+    }
+
+    @Override
+    protected List<String> getWarmUpUrls() {
+        List<String> urls = new ArrayList<String>(super.getWarmUpUrls());
+        for (String url : new String[] {SpeechConsts.SPEECH_ASR_URL, SpeechConsts.SPEECH_TTS_URL}) {
+            URI uri = URI.create(url);
+            urls.add(String.format("%s://%s/", uri.getScheme(), uri.getHost()));
+        }
+        return urls;
+    }
+
     public JSONObject asr(String path, String format, int rate, HashMap<String, Object> options) {
         try {
             byte[] imgData = Util.readFileByBytes(path);
@@ -59,6 +80,7 @@ public class AipSpeech extends BaseClient {
         request.addBody("format", format);
         request.addBody("rate", rate);
         request.addBody("channel", 1);
+        String accessToken = getAccessTokenValue();
         String cuid = SignUtil.md5(accessToken, "UTF-8");
         request.addBody("cuid", cuid);
         request.addBody("token", accessToken);
@@ -89,6 +111,7 @@ public class AipSpeech extends BaseClient {
         request.addBody("format", format);
         request.addBody("rate", rate);
         request.addBody("channel", 1);
+        String accessToken = getAccessTokenValue();
         String cuid = SignUtil.md5(accessToken, "UTF-8");
         request.addBody("cuid", cuid);
         request.addBody("token", accessToken);
@@ -116,6 +139,7 @@ public class AipSpeech extends BaseClient {
         }
         request.addBody("tex", text);
         request.addBody("lan", lang);
+        String accessToken = getAccessTokenValue();
         request.addBody("tok", accessToken);
         request.addBody("ctp", ctp);
         String cuid = SignUtil.md5(accessToken, "UTF-8");
@@ -125,35 +149,13 @@ public class AipSpeech extends BaseClient {
         }
         request.setUri(SpeechConsts.SPEECH_TTS_URL);
 
+        // 与其他接口相同，经过限流、隔离舱、重试与超时控制
+        ServerResult result = requestServerForResponse(request);
         TtsResponse response = new TtsResponse();
-        AipResponse res = AipHttpClient.post(request);
-        if (res == null) {
-            response.setResult(Util.getGeneralError(-1,
-                    "null response from server"));
-            return response;
-        }
-        Map<String, List<String>> header = res.getHeader();
-        if (header.containsKey("content-type")) {
-            String contentType = res.getHeader().get("content-type").get(0);
-            if (contentType.contains("json")) {
-                String data = res.getBodyStr();
-                JSONObject json = new JSONObject(data);
-                response.setResult(json);
-            }
-            else {
-                byte[] binData = res.getBody();
-                response.setData(binData);
-            }
-        }
-        else {
-            LOGGER.error("synthesis get no content-type in header: " + header);
-            LOGGER.info("synthesis response status: " + res.getStatus());
-            try {
-                JSONObject json = new JSONObject(res.getBodyStr());
-                response.setResult(json);
-            } catch (JSONException e) {
-                response.setData(res.getBody());
-            }
+        if (result.getData() != null) {
+            response.setData(result.getData());
+        } else {
+            response.setResult(result.getResult());
         }
         return response;
     }
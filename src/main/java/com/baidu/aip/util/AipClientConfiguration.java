@@ -12,28 +12,144 @@
  */
 package com.baidu.aip.util;
 
+import com.baidu.aip.auth.AipTokenStore;
+import com.baidu.aip.auth.ECredentialType;
+import com.baidu.aip.client.AipBulkhead;
+import com.baidu.aip.client.AipCircuitBreaker;
+import com.baidu.aip.client.AipConcurrencyLimiter;
+import com.baidu.aip.client.AipHedgePolicy;
+import com.baidu.aip.client.AipRateLimiter;
+import com.baidu.aip.client.AipRetryPolicy;
+import com.baidu.aip.client.AipRouteLimiter;
+import com.baidu.aip.client.ERateLimitMode;
+import com.baidu.aip.http.AipTransport;
+import com.baidu.aip.http.AipTransportFactory;
+import com.baidu.aip.http.EBodyStreamingMode;
 
 import java.net.InetSocketAddress;
 import java.net.Proxy;
 import java.net.SocketAddress;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class AipClientConfiguration {
 
+    // 默认异步线程池的线程数上限，阻塞的传输层上每个进行中的异步调用占用一个线程
+    public static final int DEFAULT_ASYNC_THREADS = 64;
+
+    private static volatile ExecutorService defaultAsyncExecutor;
+
     // 连接超时设置
     private int connectionTimeoutMillis;
     private int socketTimeoutMillis;
     private Proxy proxy;
+    // 每个服务地址的并发请求数限制，为null时不限制
+    private AipRouteLimiter routeLimiter;
+    // 传输层实现
+    private AipTransport transport;
+    // Java 11+ 上是否使用HTTP/2传输层
+    private boolean http2Enabled;
+    // 异步调用线程池
+    private Executor asyncExecutor;
+    // 请求body发送方式
+    private EBodyStreamingMode bodyStreamingMode;
+    // 是否接受gzip/deflate压缩的响应
+    private boolean responseCompressionEnabled;
+    // 请求body的gzip压缩，仅对白名单中的接口生效
+    private boolean requestCompressionEnabled;
+    private Set<String> requestCompressionEndpoints;
+    // 构造客户端时是否立即在后台预热，以及预热时每个域名建立的连接数
+    private boolean warmUpOnInit;
+    private int warmUpConnections;
+    // 重试策略，为null时不重试
+    private AipRetryPolicy retryPolicy;
+    // QPS限流器，为null时使用同一API Key共享的限流器
+    private AipRateLimiter rateLimiter;
+    private ERateLimitMode rateLimitMode;
+    private long rateLimitTimeoutMillis;
+    // 自适应并发限制，为null时不限制
+    private AipConcurrencyLimiter concurrencyLimiter;
+    // 熔断器，为null时不熔断
+    private AipCircuitBreaker circuitBreaker;
+    // 只读接口的对冲请求策略，为null时不对冲
+    private AipHedgePolicy hedgePolicy;
+    // 客户端默认使用的隔离舱，为null时不隔离
+    private AipBulkhead bulkhead;
+    // 单独指定隔离舱的接口
+    private ConcurrentHashMap<String, AipBulkhead> endpointBulkheads;
+    // 替换所有接口地址的scheme、host与端口，用于连接本地stub服务，为null时使用接口的默认地址
+    private String endpoint;
+    // 是否在后台提前刷新access_token
+    private boolean tokenRefreshEnabled;
+    // access_token的持久化存储，为null时不持久化
+    private AipTokenStore tokenStore;
+    // 认证方式，AUTO时由oauth与公有云签名请求的结果判定
+    private ECredentialType credentialType;
 
     public AipClientConfiguration() {
         this.connectionTimeoutMillis = 0;
         this.socketTimeoutMillis = 0;
         this.proxy = Proxy.NO_PROXY;
+        this.routeLimiter = null;
+        this.transport = null;
+        this.http2Enabled = false;
+        this.asyncExecutor = null;
+        this.bodyStreamingMode = EBodyStreamingMode.NONE;
+        this.responseCompressionEnabled = true;
+        this.requestCompressionEnabled = false;
+        this.requestCompressionEndpoints = new CopyOnWriteArraySet<String>();
+        this.warmUpOnInit = false;
+        this.warmUpConnections = 1;
+        this.retryPolicy = null;
+        this.rateLimiter = null;
+        this.rateLimitMode = ERateLimitMode.BLOCK;
+        this.rateLimitTimeoutMillis = 0;
+        this.concurrencyLimiter = null;
+        this.circuitBreaker = null;
+        this.hedgePolicy = null;
+        this.bulkhead = null;
+        this.endpointBulkheads = new ConcurrentHashMap<String, AipBulkhead>();
+        this.endpoint = null;
+        this.tokenRefreshEnabled = false;
+        this.tokenStore = null;
+        this.credentialType = ECredentialType.AUTO;
     }
 
     public AipClientConfiguration(int connectionTimeoutMillis, int socketTimeoutMillis, Proxy proxy) {
         this.connectionTimeoutMillis = connectionTimeoutMillis;
         this.socketTimeoutMillis = socketTimeoutMillis;
         this.proxy = proxy;
+        this.routeLimiter = null;
+        this.transport = null;
+        this.http2Enabled = false;
+        this.asyncExecutor = null;
+        this.bodyStreamingMode = EBodyStreamingMode.NONE;
+        this.responseCompressionEnabled = true;
+        this.requestCompressionEnabled = false;
+        this.requestCompressionEndpoints = new CopyOnWriteArraySet<String>();
+        this.warmUpOnInit = false;
+        this.warmUpConnections = 1;
+        this.retryPolicy = null;
+        this.rateLimiter = null;
+        this.rateLimitMode = ERateLimitMode.BLOCK;
+        this.rateLimitTimeoutMillis = 0;
+        this.concurrencyLimiter = null;
+        this.circuitBreaker = null;
+        this.hedgePolicy = null;
+        this.bulkhead = null;
+        this.endpointBulkheads = new ConcurrentHashMap<String, AipBulkhead>();
+        this.endpoint = null;
+        this.tokenRefreshEnabled = false;
+        this.tokenStore = null;
+        this.credentialType = ECredentialType.AUTO;
     }
 
     public int getConnectionTimeoutMillis() {
@@ -64,4 +180,248 @@ public class AipClientConfiguration {
         SocketAddress addr = new InetSocketAddress(host, port);
         this.proxy = new Proxy(type, addr);
     }
+
+    public AipRouteLimiter getRouteLimiter() {
+        return routeLimiter;
+    }
+
+    public void setRouteLimiter(AipRouteLimiter routeLimiter) {
+        this.routeLimiter = routeLimiter;
+    }
+
+    /**
+     * @return 传输层实现，未设置时由AipTransportFactory按是否开启HTTP/2选择
+     */
+    public AipTransport getTransport() {
+        return transport == null ? AipTransportFactory.getTransport(http2Enabled) : transport;
+    }
+
+    public void setTransport(AipTransport transport) {
+        this.transport = transport;
+    }
+
+    public boolean isHttp2Enabled() {
+        return http2Enabled;
+    }
+
+    /**
+     * 在Java 11及以上版本使用基于java.net.http的HTTP/2传输层，低版本Java上不生效；
+     * 已通过setTransport()指定传输层时不生效
+     * @param http2Enabled 是否使用HTTP/2
+     */
+    public void setHttp2Enabled(boolean http2Enabled) {
+        this.http2Enabled = http2Enabled;
+    }
+
+    /**
+     * @return 异步调用使用的线程池，未设置时返回所有客户端共享的默认线程池
+     */
+    public Executor getAsyncExecutor() {
+        return asyncExecutor == null ? getDefaultAsyncExecutor() : asyncExecutor;
+    }
+
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    public EBodyStreamingMode getBodyStreamingMode() {
+        return bodyStreamingMode;
+    }
+
+    public void setBodyStreamingMode(EBodyStreamingMode bodyStreamingMode) {
+        this.bodyStreamingMode = bodyStreamingMode;
+    }
+
+    public boolean isResponseCompressionEnabled() {
+        return responseCompressionEnabled;
+    }
+
+    public void setResponseCompressionEnabled(boolean responseCompressionEnabled) {
+        this.responseCompressionEnabled = responseCompressionEnabled;
+    }
+
+    public boolean isRequestCompressionEnabled() {
+        return requestCompressionEnabled;
+    }
+
+    public void setRequestCompressionEnabled(boolean requestCompressionEnabled) {
+        this.requestCompressionEnabled = requestCompressionEnabled;
+    }
+
+    public Set<String> getRequestCompressionEndpoints() {
+        return requestCompressionEndpoints;
+    }
+
+    /**
+     * 将接口加入请求压缩白名单，只有服务端支持Content-Encoding: gzip的接口才能加入
+     * @param url 接口地址，如OcrConsts.GENERAL_BASIC
+     */
+    public void addRequestCompressionEndpoint(String url) {
+        this.requestCompressionEndpoints.add(url);
+    }
+
+    public boolean isWarmUpOnInit() {
+        return warmUpOnInit;
+    }
+
+    public void setWarmUpOnInit(boolean warmUpOnInit) {
+        this.warmUpOnInit = warmUpOnInit;
+    }
+
+    public int getWarmUpConnections() {
+        return warmUpConnections;
+    }
+
+    public void setWarmUpConnections(int warmUpConnections) {
+        this.warmUpConnections = warmUpConnections;
+    }
+
+    public AipRetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    public void setRetryPolicy(AipRetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    public AipRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    public void setRateLimiter(AipRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    public ERateLimitMode getRateLimitMode() {
+        return rateLimitMode;
+    }
+
+    public void setRateLimitMode(ERateLimitMode rateLimitMode) {
+        this.rateLimitMode = rateLimitMode;
+    }
+
+    public long getRateLimitTimeoutMillis() {
+        return rateLimitTimeoutMillis;
+    }
+
+    public void setRateLimitTimeoutMillis(long rateLimitTimeoutMillis) {
+        this.rateLimitTimeoutMillis = rateLimitTimeoutMillis;
+    }
+
+    public AipConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    public void setConcurrencyLimiter(AipConcurrencyLimiter concurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    public AipCircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public void setCircuitBreaker(AipCircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public AipHedgePolicy getHedgePolicy() {
+        return hedgePolicy;
+    }
+
+    public void setHedgePolicy(AipHedgePolicy hedgePolicy) {
+        this.hedgePolicy = hedgePolicy;
+    }
+
+    public AipBulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    public void setBulkhead(AipBulkhead bulkhead) {
+        this.bulkhead = bulkhead;
+    }
+
+    /**
+     * @param url 接口地址
+     * @return 接口使用的隔离舱，未单独指定时返回客户端默认的隔离舱
+     */
+    public AipBulkhead getBulkhead(String url) {
+        AipBulkhead endpointBulkhead = endpointBulkheads.get(url);
+        return endpointBulkhead == null ? bulkhead : endpointBulkhead;
+    }
+
+    /**
+     * 为接口单独指定隔离舱
+     * @param url 接口地址
+     * @param bulkhead 隔离舱，为null时恢复使用客户端默认的隔离舱
+     */
+    public void setBulkhead(String url, AipBulkhead bulkhead) {
+        if (bulkhead == null) {
+            endpointBulkheads.remove(url);
+        } else {
+            endpointBulkheads.put(url, bulkhead);
+        }
+    }
+
+    /**
+     * @return 默认的异步调用线程池，最多DEFAULT_ASYNC_THREADS个daemon线程，空闲60秒后回收，超出的任务排队等待
+     */
+    public static ExecutorService getDefaultAsyncExecutor() {
+        if (defaultAsyncExecutor == null) {
+            synchronized (AipClientConfiguration.class) {
+                if (defaultAsyncExecutor == null) {
+                    ThreadPoolExecutor executor = new ThreadPoolExecutor(DEFAULT_ASYNC_THREADS, DEFAULT_ASYNC_THREADS,
+                            60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        private final AtomicInteger count = new AtomicInteger(0);
+
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "aip-async-" + count.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                    executor.allowCoreThreadTimeOut(true);
+                    defaultAsyncExecutor = executor;
+                }
+            }
+        }
+        return defaultAsyncExecutor;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @param endpoint 如 http://127.0.0.1:8090，请求路径保持不变；为null时使用接口的默认地址
+     */
+    public void setEndpoint(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public boolean isTokenRefreshEnabled() {
+        return tokenRefreshEnabled;
+    }
+
+    public void setTokenRefreshEnabled(boolean tokenRefreshEnabled) {
+        this.tokenRefreshEnabled = tokenRefreshEnabled;
+    }
+
+    public AipTokenStore getTokenStore() {
+        return tokenStore;
+    }
+
+    public void setTokenStore(AipTokenStore tokenStore) {
+        this.tokenStore = tokenStore;
+    }
+
+    public ECredentialType getCredentialType() {
+        return credentialType;
+    }
+
+    /**
+     * @param credentialType 已知API Key的类型时直接指定，省去判定用户类型的请求；为null时视为AUTO
+     */
+    public void setCredentialType(ECredentialType credentialType) {
+        this.credentialType = credentialType == null ? ECredentialType.AUTO : credentialType;
+    }
 }
@@ -42,6 +42,11 @@ public class AipClientConst {
     public static final Integer IAM_ERROR_CODE = 14;
     public static final Integer OPENAPI_NO_ACCESS_ERROR_CODE = 6;
     public static final String OPENAPI_NO_ACCESS_ERROR_MSG = "No permission to access data";
+    // Open api qps request limit reached
+    public static final Integer QPS_LIMIT_ERROR_CODE = 18;
+    // Open api daily request limit reached
+    public static final Integer DAILY_LIMIT_ERROR_CODE = 17;
+    public static final String DAILY_LIMIT_ERROR_MSG = "Open api daily request limit reached";
 
     public static final String LOG4J_CONF_PROPERTY = "aip.log4j.conf";
 }
@@ -38,18 +38,24 @@ public class SignUtil {
 
     public static String md5(String data, String charset) {
         try {
-            byte[] msg = data.getBytes(charset);
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            return encodeHex(md.digest(msg));
+            return md5(data.getBytes(charset));
         } catch (UnsupportedEncodingException e) {
             e.printStackTrace();
+        }
+        return null;
+    }
+
+    public static String md5(byte[] data) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("MD5");
+            return encodeHex(md.digest(data));
         } catch (NoSuchAlgorithmException e) {
             e.printStackTrace();
         }
         return null;
     }
 
-    private static String encodeHex(byte[] data) {
+    public static String encodeHex(byte[] data) {
         int l = data.length;
         char[] out = new char[l << 1];
         int i = 0;
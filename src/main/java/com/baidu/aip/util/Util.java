@@ -23,6 +23,7 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.text.SimpleDateFormat;
 import java.util.BitSet;
@@ -35,6 +36,10 @@ public class Util {
 
     private static BitSet URI_UNRESERVED_CHARACTERS = new BitSet();
     private static String[] PERCENT_ENCODED_STRINGS = new String[256];
+    private static final byte[] HEX_DIGITS = {
+        '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'
+    };
+    private static final int ENCODE_BUFFER_SIZE = 8192;
 
 
     static {
@@ -107,6 +112,61 @@ public class Util {
         }
     }
 
+    /**
+     * Same normalization as {@link #uriEncode(String, boolean)}, but writes the encoded bytes straight to
+     * the output stream instead of building the UTF-8 byte array and the encoded string in memory.
+     *
+     * @param value the string to normalize.
+     * @param encodeSlash if encode '/'
+     * @param out output stream
+     * @throws IOException error writing to out
+     */
+    public static void uriEncode(String value, boolean encodeSlash, OutputStream out) throws IOException {
+        byte[] buffer = new byte[ENCODE_BUFFER_SIZE];
+        int pos = 0;
+        int len = value.length();
+        for (int i = 0; i < len; i++) {
+            // 每个字符最多编码为4个字节，即12个字符
+            if (pos > ENCODE_BUFFER_SIZE - 12) {
+                out.write(buffer, 0, pos);
+                pos = 0;
+            }
+            int c = value.charAt(i);
+            if (c < 0x80) {
+                if (URI_UNRESERVED_CHARACTERS.get(c) || (!encodeSlash && c == '/')) {
+                    buffer[pos++] = (byte) c;
+                } else {
+                    pos = percentEncode(c, buffer, pos);
+                }
+            } else if (c < 0x800) {
+                pos = percentEncode(0xC0 | (c >> 6), buffer, pos);
+                pos = percentEncode(0x80 | (c & 0x3F), buffer, pos);
+            } else if (Character.isHighSurrogate((char) c) && i + 1 < len
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int cp = Character.toCodePoint((char) c, value.charAt(++i));
+                pos = percentEncode(0xF0 | (cp >> 18), buffer, pos);
+                pos = percentEncode(0x80 | ((cp >> 12) & 0x3F), buffer, pos);
+                pos = percentEncode(0x80 | ((cp >> 6) & 0x3F), buffer, pos);
+                pos = percentEncode(0x80 | (cp & 0x3F), buffer, pos);
+            } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                // 与String.getBytes一致，不成对的代理字符编码为'?'
+                pos = percentEncode('?', buffer, pos);
+            } else {
+                pos = percentEncode(0xE0 | (c >> 12), buffer, pos);
+                pos = percentEncode(0x80 | ((c >> 6) & 0x3F), buffer, pos);
+                pos = percentEncode(0x80 | (c & 0x3F), buffer, pos);
+            }
+        }
+        out.write(buffer, 0, pos);
+    }
+
+    private static int percentEncode(int b, byte[] buffer, int pos) {
+        buffer[pos++] = '%';
+        buffer[pos++] = HEX_DIGITS[(b >> 4) & 0xF];
+        buffer[pos++] = HEX_DIGITS[b & 0xF];
+        return pos;
+    }
+
     public static String getCanonicalTime() {
         SimpleDateFormat utcDayFormat = new SimpleDateFormat("yyyy-MM-dd");
         SimpleDateFormat utcHourFormat = new SimpleDateFormat("hh:mm:ss");
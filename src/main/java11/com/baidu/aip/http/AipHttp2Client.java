@@ -0,0 +1,230 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.http;
+
+import com.baidu.aip.client.AipCallback;
+import com.baidu.aip.util.AipClientConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 基于java.net.http.HttpClient的传输层实现，仅在Java 11及以上版本中提供
+ *
+ * https请求通过ALPN协商HTTP/2，同一host的并发请求复用少量连接上的多个stream；
+ * 服务端不支持HTTP/2时自动降级为HTTP/1.1。流式body、gzip压缩的请求body以及SOCKS代理
+ * 不被java.net.http支持，这些请求交给AipHttpClient处理。
+ * 默认不启用，通过AipClientConfiguration.setHttp2Enabled(true)选用。
+ */
+public class AipHttp2Client implements AipAsyncTransport {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AipHttp2Client.class);
+
+    private static final String ACCEPT_ENCODING = "Accept-Encoding";
+
+    // 由HttpClient自行设置，不允许在请求中指定的header
+    private static final Set<String> RESTRICTED_HEADERS =
+            Set.of("connection", "content-length", "expect", "host", "upgrade", "transfer-encoding");
+
+    private final AipHttpClient fallback;
+    private final ConcurrentHashMap<String, HttpClient> clients;
+
+    public AipHttp2Client() {
+        this.fallback = AipHttpClient.getDefault();
+        this.clients = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public AipResponse execute(AipRequest request) {
+        if (!isSupported(request)) {
+            return fallback.execute(request);
+        }
+        if (request.isAborted()) {
+            return new AipResponse();
+        }
+        // 通过异步发送等待响应头，中止时取消future，不中断调用线程
+        CompletableFuture<HttpResponse<InputStream>> future = getClient(request.getConfig())
+                .sendAsync(buildRequest(request), HttpResponse.BodyHandlers.ofInputStream());
+        request.setAbortAction(() -> future.cancel(true));
+        try {
+            HttpResponse<InputStream> res = future.get();
+            try (InputStream is = res.body()) {
+                // 已收到响应头时，通过关闭body流中止读取
+                request.setAbortAction(() -> closeQuietly(is));
+                return toResponse(request, res.statusCode(), res.headers(), is);
+            }
+        } catch (CancellationException e) {
+            LOGGER.debug("request aborted: " + request.getUri());
+        } catch (ExecutionException e) {
+            if (!request.isAborted()) {
+                e.getCause().printStackTrace();
+            }
+        } catch (IOException e) {
+            if (!request.isAborted()) {
+                e.printStackTrace();
+            }
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+        } finally {
+            request.setAbortAction(null);
+        }
+        return new AipResponse();
+    }
+
+    /**
+     * 异步发送请求，等待响应期间不占用线程
+     * 不支持的请求交给AipHttpClient，在配置的异步线程池中执行
+     */
+    @Override
+    public void executeAsync(final AipRequest request, final AipCallback<AipResponse> callback) {
+        if (!isSupported(request)) {
+            AipClientConfiguration config = request.getConfig();
+            (config == null ? AipClientConfiguration.getDefaultAsyncExecutor() : config.getAsyncExecutor())
+                    .execute(() -> callback.onSuccess(fallback.execute(request)));
+            return;
+        }
+        if (request.isAborted()) {
+            callback.onSuccess(new AipResponse());
+            return;
+        }
+        CompletableFuture<HttpResponse<byte[]>> future = getClient(request.getConfig())
+                .sendAsync(buildRequest(request), HttpResponse.BodyHandlers.ofByteArray());
+        request.setAbortAction(() -> future.cancel(true));
+        future.whenComplete((res, e) -> {
+            request.setAbortAction(null);
+            AipResponse response = new AipResponse();
+            if (e != null) {
+                if (!request.isAborted()) {
+                    LOGGER.warn("async request failed: " + e.getMessage());
+                }
+            } else {
+                try {
+                    response = toResponse(request, res.statusCode(), res.headers(),
+                            new ByteArrayInputStream(res.body()));
+                } catch (IOException ex) {
+                    LOGGER.warn("read response body failed: " + ex.getMessage());
+                }
+            }
+            callback.onSuccess(response);
+        });
+    }
+
+    private static void closeQuietly(InputStream is) {
+        try {
+            is.close();
+        } catch (IOException e) {
+            LOGGER.debug("close response body failed: " + e.getMessage());
+        }
+    }
+
+    private boolean isSupported(AipRequest request) {
+        AipClientConfiguration config = request.getConfig();
+        if (config == null) {
+            return true;
+        }
+        return !request.isStreamingBody()
+                && !AipHttpClient.isRequestCompressed(request)
+                && config.getProxy().type() != Proxy.Type.SOCKS;
+    }
+
+    private HttpRequest buildRequest(AipRequest request) {
+        URI uri = URI.create(AipHttpClient.buildUrl(request));
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri);
+        if (!"https".equalsIgnoreCase(uri.getScheme())) {
+            // 不对明文http连接尝试h2c升级
+            builder.version(HttpClient.Version.HTTP_1_1);
+        }
+        AipClientConfiguration config = request.getConfig();
+        // 不超过调用的剩余时间，已超时的请求在发出前即被中止
+        long timeout = request.capTimeoutMillis(config == null ? 0 : config.getSocketTimeoutMillis());
+        if (timeout != 0) {
+            builder.timeout(Duration.ofMillis(Math.max(1, timeout)));
+        }
+        boolean hasAcceptEncoding = false;
+        for (Map.Entry<String, String> entry : request.getHeaders().entrySet()) {
+            String key = entry.getKey().toLowerCase();
+            if (RESTRICTED_HEADERS.contains(key)) {
+                continue;
+            }
+            hasAcceptEncoding |= key.equals(ACCEPT_ENCODING.toLowerCase());
+            builder.header(entry.getKey(), entry.getValue());
+        }
+        if (!hasAcceptEncoding && AipHttpClient.isResponseCompressionEnabled(request)) {
+            builder.header(ACCEPT_ENCODING, "gzip, deflate");
+        }
+        return builder.POST(HttpRequest.BodyPublishers.ofByteArray(request.getBodyBytes())).build();
+    }
+
+    private AipResponse toResponse(AipRequest request, int statusCode, HttpHeaders headers,
+                                   InputStream is) throws IOException {
+        AipResponse response = new AipResponse();
+        response.setHeader(headers.map());
+        response.setStatus(statusCode);
+        response.setCharset(request.getContentEncoding());
+        if (statusCode != 200) {
+            return response;
+        }
+        // 超出int范围的长度按未知长度读取，不截断为错误的值
+        long length = headers.firstValueAsLong("content-length").orElse(-1);
+        int contentLength = length >= 0 && length <= Integer.MAX_VALUE ? (int) length : -1;
+        AipHttpClient.readResponseBody(is, contentLength, headers.firstValue("content-encoding").orElse(null),
+                response);
+        return response;
+    }
+
+    /**
+     * HttpClient的代理与连接超时在创建时确定。与AipHttpClient一致，不跟随重定向，按配置缓存，相同配置的请求共享连接
+     */
+    private HttpClient getClient(AipClientConfiguration config) {
+        int connectTimeout = config == null ? 0 : config.getConnectionTimeoutMillis();
+        Proxy proxy = config == null ? Proxy.NO_PROXY : config.getProxy();
+        String key = connectTimeout + "|" + proxy;
+        HttpClient client = clients.get(key);
+        if (client == null) {
+            HttpClient.Builder builder = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .followRedirects(HttpClient.Redirect.NEVER);
+            if (connectTimeout > 0) {
+                builder.connectTimeout(Duration.ofMillis(connectTimeout));
+            }
+            if (proxy.type() == Proxy.Type.HTTP) {
+                builder.proxy(ProxySelector.of((InetSocketAddress) proxy.address()));
+            }
+            client = builder.build();
+            HttpClient existing = clients.putIfAbsent(key, client);
+            if (existing != null) {
+                client = existing;
+            }
+        }
+        return client;
+    }
+}
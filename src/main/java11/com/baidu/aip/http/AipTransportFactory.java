@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.http;
+
+/**
+ * 创建传输层实现，Java 11及以上版本使用
+ *
+ * 默认实现仍为基于HttpURLConnection的AipHttpClient，与低版本Java上的行为一致；
+ * 通过AipClientConfiguration.setHttp2Enabled(true)选用基于java.net.http.HttpClient、
+ * 支持HTTP/2多路复用的AipHttp2Client。
+ */
+public class AipTransportFactory {
+
+    private static final AipTransport DEFAULT_TRANSPORT = AipHttpClient.getDefault();
+
+    private static final AipTransport HTTP2_TRANSPORT = new AipHttp2Client();
+
+    /**
+     * @return 默认的传输层实现，基于HttpURLConnection
+     */
+    public static AipTransport getDefault() {
+        return DEFAULT_TRANSPORT;
+    }
+
+    /**
+     * @param http2Enabled 是否使用HTTP/2
+     * @return 传输层实现
+     */
+    public static AipTransport getTransport(boolean http2Enabled) {
+        return http2Enabled ? HTTP2_TRANSPORT : DEFAULT_TRANSPORT;
+    }
+
+    /**
+     * @return 当前运行环境是否提供HTTP/2传输层
+     */
+    public static boolean isHttp2Supported() {
+        return true;
+    }
+}
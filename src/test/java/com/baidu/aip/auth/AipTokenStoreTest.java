@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.auth;
+
+import com.baidu.aip.bench.AipStubServer;
+import com.baidu.aip.client.AipCredential;
+import com.baidu.aip.nlp.AipNlp;
+import com.baidu.aip.util.AipClientConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * token持久化：同一Secret Key可以读回，Secret Key不一致时视为没有保存
+ */
+public class AipTokenStoreTest {
+
+    private File directory;
+    private AipTokenStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("aip-token-store", "");
+        directory.delete();
+        store = new AipTokenStore(directory);
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void testRoundTrip() {
+        long expireTime = System.currentTimeMillis() + 3600 * 1000L;
+        store.save("store-key", "secret", new AipAccessToken("24.token", expireTime));
+
+        AipAccessToken loaded = store.load("store-key", "secret");
+        assertNotNull(loaded);
+        assertEquals("24.token", loaded.getAccessToken());
+        assertEquals(expireTime, loaded.getExpireTimeMillis());
+        assertEquals(ECredentialType.AIP, store.loadCredentialType("store-key", "secret"));
+    }
+
+    @Test
+    public void testMismatchedSecretKey() {
+        store.save("store-key", "secret", new AipAccessToken("24.token", System.currentTimeMillis() + 3600 * 1000L));
+
+        assertNull(store.load("store-key", "another-secret"));
+        assertNull(store.loadCredentialType("store-key", "another-secret"));
+    }
+
+    @Test
+    public void testExpiredTokenNotLoaded() {
+        store.save("store-key", "secret", new AipAccessToken("24.token", System.currentTimeMillis() - 1000));
+
+        assertNull(store.load("store-key", "secret"));
+    }
+
+    @Test
+    public void testClientRestoresTokenOnlyWithSameSecretKey() throws Exception {
+        AipStubServer server = new AipStubServer(0);
+        server.start();
+        try {
+            AipClientConfiguration config = new AipClientConfiguration();
+            config.setEndpoint(server.getEndpoint());
+            config.setTokenStore(store);
+
+            AipNlp client = new AipNlp("store", "store-client", "secret", config);
+            assertFalse(client.lexer("百度", null).has("error_code"));
+            assertEquals(1, server.getOauthCount());
+
+            // 模拟进程重启：丢弃进程内共享的token后，新客户端从文件恢复
+            AipCredential.invalidate("store-client");
+            AipNlp restored = new AipNlp("store", "store-client", "secret", config);
+            assertFalse(restored.lexer("百度", null).has("error_code"));
+            assertEquals(1, server.getOauthCount());
+
+            // Secret Key不一致时不使用保存的token
+            AipCredential.invalidate("store-client");
+            AipNlp changed = new AipNlp("store", "store-client", "another-secret", config);
+            assertFalse(changed.lexer("百度", null).has("error_code"));
+            assertEquals(2, server.getOauthCount());
+        } finally {
+            server.stop();
+        }
+    }
+}
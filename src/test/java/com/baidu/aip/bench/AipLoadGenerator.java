@@ -0,0 +1,443 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.bench;
+
+import com.baidu.aip.client.BaseClient;
+import com.baidu.aip.speech.TtsResponse;
+import com.baidu.aip.util.Util;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 开环压测工具：按固定的到达速率发起调用，不因前面的调用变慢而推迟后续调用
+ *
+ * 每个调用的延迟从其计划发起时间开始计算，包含排队与调度的延迟，避免闭环压测中的coordinated omission；
+ * 正在进行的调用达到maxConcurrency时新的调用记为丢弃而不是等待。分配速率只统计执行调用的线程
+ * 在调用期间分配的内存，不包含压测工具自身，需要JVM支持com.sun.management.ThreadMXBean。
+ */
+public class AipLoadGenerator {
+
+    private final Callable<?> call;
+    private final double rate;
+    private final int maxConcurrency;
+
+    /**
+     * @param call 每次调用执行的操作，返回值为JSONObject或TtsResponse时按其中的错误码统计失败
+     * @param rate 每秒发起的调用数
+     * @param maxConcurrency 最多同时进行的调用数
+     */
+    public AipLoadGenerator(Callable<?> call, double rate, int maxConcurrency) {
+        this.call = call;
+        this.rate = rate;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * 执行压测，预热期间的调用不计入结果
+     * @param warmUpMillis 预热时长(毫秒)
+     * @param durationMillis 统计时长(毫秒)
+     * @return 压测结果
+     * @throws InterruptedException 等待过程中线程被中断
+     */
+    public Report run(long warmUpMillis, long durationMillis) throws InterruptedException {
+        final long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        final long start = System.nanoTime();
+        final long measureStart = start + TimeUnit.MILLISECONDS.toNanos(warmUpMillis);
+        final long end = measureStart + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        final Recorder recorder = new Recorder((int) Math.min(Integer.MAX_VALUE - 8,
+                (long) (rate * durationMillis / 1000) + 16));
+        final AtomicInteger inFlight = new AtomicInteger();
+        ExecutorService executor = Executors.newCachedThreadPool(
+                new AipStubServer.DaemonThreadFactory("aip-load-"));
+        long dropped = 0;
+        try {
+            for (long i = 0; ; i++) {
+                final long intended = start + i * intervalNanos;
+                if (intended >= end) {
+                    break;
+                }
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                final boolean measured = intended >= measureStart;
+                if (inFlight.incrementAndGet() > maxConcurrency) {
+                    inFlight.decrementAndGet();
+                    if (measured) {
+                        dropped++;
+                    }
+                    continue;
+                }
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            invoke(recorder, intended, measured);
+                        } finally {
+                            inFlight.decrementAndGet();
+                        }
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+        }
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        long elapsedNanos = Math.max(1, System.nanoTime() - measureStart);
+        return recorder.toReport(dropped, elapsedNanos);
+    }
+
+    private void invoke(Recorder recorder, long intended, boolean measured) {
+        long allocatedBefore = Recorder.currentThreadAllocatedBytes();
+        boolean error;
+        try {
+            error = isError(call.call());
+        } catch (Exception e) {
+            error = true;
+        }
+        long latencyNanos = System.nanoTime() - intended;
+        long allocatedAfter = Recorder.currentThreadAllocatedBytes();
+        if (measured) {
+            recorder.record(latencyNanos, error,
+                    allocatedBefore < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocatedBefore);
+        }
+    }
+
+    private static boolean isError(Object result) {
+        JSONObject json = null;
+        if (result instanceof JSONObject) {
+            json = (JSONObject) result;
+        } else if (result instanceof TtsResponse) {
+            json = ((TtsResponse) result).getResult();
+        }
+        if (json == null) {
+            return result == null;
+        }
+        return isErrorCode(json.opt("error_code")) || isErrorCode(json.opt("err_no"));
+    }
+
+    /*
+     * 服务端的错误码为数字，SDK生成的错误码为SDK开头的字符串
+     */
+    private static boolean isErrorCode(Object code) {
+        return code != null && code != JSONObject.NULL && !"0".equals(code.toString());
+    }
+
+    /**
+     * 预分配的延迟样本，记录过程不产生额外的内存分配
+     */
+    private static class Recorder {
+        private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+
+        private final long[] latencies;
+        private final AtomicInteger count;
+        private final AtomicLong errors;
+        private final AtomicLong allocatedBytes;
+
+        Recorder(int capacity) {
+            this.latencies = new long[capacity];
+            this.count = new AtomicInteger();
+            this.errors = new AtomicLong();
+            this.allocatedBytes = new AtomicLong();
+        }
+
+        static long currentThreadAllocatedBytes() {
+            if (THREAD_BEAN instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) THREAD_BEAN;
+                if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+                    return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+                }
+            }
+            return -1;
+        }
+
+        void record(long latencyNanos, boolean error, long allocated) {
+            int index = count.getAndIncrement();
+            if (index < latencies.length) {
+                latencies[index] = latencyNanos;
+            }
+            if (error) {
+                errors.incrementAndGet();
+            }
+            if (allocated < 0 || allocatedBytes.get() < 0) {
+                allocatedBytes.set(-1);
+            } else {
+                allocatedBytes.addAndGet(allocated);
+            }
+        }
+
+        Report toReport(long dropped, long elapsedNanos) {
+            int completed = Math.min(count.get(), latencies.length);
+            long[] sorted = Arrays.copyOf(latencies, completed);
+            Arrays.sort(sorted);
+            return new Report(completed, errors.get(), dropped, elapsedNanos, sorted, allocatedBytes.get());
+        }
+    }
+
+    /**
+     * 压测结果
+     */
+    public static class Report {
+        private final long completed;
+        private final long errors;
+        private final long dropped;
+        private final long elapsedNanos;
+        private final long[] sortedLatencies;
+        private final long allocatedBytes;
+
+        Report(long completed, long errors, long dropped, long elapsedNanos, long[] sortedLatencies,
+               long allocatedBytes) {
+            this.completed = completed;
+            this.errors = errors;
+            this.dropped = dropped;
+            this.elapsedNanos = elapsedNanos;
+            this.sortedLatencies = sortedLatencies;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public long getCompleted() {
+            return completed;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getDropped() {
+            return dropped;
+        }
+
+        /**
+         * @return 每秒完成的调用数
+         */
+        public double getThroughput() {
+            return completed * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * @param percentile 百分位，如0.99
+         * @return 对应百分位的延迟(毫秒)
+         */
+        public double getLatencyMillis(double percentile) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+            index = Math.max(0, Math.min(sortedLatencies.length - 1, index));
+            return sortedLatencies[index] / 1e6;
+        }
+
+        /**
+         * @return 调用线程每秒分配的字节数，JVM不支持统计时返回-1
+         */
+        public double getAllocationRate() {
+            return allocatedBytes < 0 ? -1 : allocatedBytes * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * @return 平均每次调用分配的字节数，JVM不支持统计时返回-1
+         */
+        public double getAllocatedBytesPerCall() {
+            return allocatedBytes < 0 || completed == 0 ? -1 : (double) allocatedBytes / completed;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("completed: %d, errors: %d, dropped: %d, throughput: %.1f/s%n",
+                    completed, errors, dropped, getThroughput()));
+            sb.append(String.format("latency(ms) p50: %.2f, p90: %.2f, p99: %.2f, p99.9: %.2f, max: %.2f%n",
+                    getLatencyMillis(0.5), getLatencyMillis(0.9), getLatencyMillis(0.99),
+                    getLatencyMillis(0.999), getLatencyMillis(1)));
+            if (allocatedBytes < 0) {
+                sb.append("allocation: not supported by this JVM");
+            } else {
+                sb.append(String.format("allocation: %.1f MB/s, %.0f bytes/call",
+                        getAllocationRate() / (1024 * 1024), getAllocatedBytesPerCall()));
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * 通过反射构造客户端并调用其方法，参数按方法的参数类型转换:
+     * String原样传入，byte[]读取同名文件，数值与布尔类型解析，HashMap传入空的选项
+     */
+    static Callable<Object> reflectiveCall(BaseClient client, String methodName, List<String> args)
+            throws Exception {
+        List<Method> candidates = new ArrayList<Method>();
+        for (Method method : client.getClass().getMethods()) {
+            if (method.getName().equals(methodName)) {
+                candidates.add(method);
+            }
+        }
+        // 同名方法同时接受文件路径与byte[]时优先使用byte[]，避免每次调用读取文件
+        for (int pass = 0; pass < 2; pass++) {
+            for (Method method : candidates) {
+                final Object[] values = convert(method.getParameterTypes(), args, pass == 0);
+                if (values == null) {
+                    continue;
+                }
+                final Method target = method;
+                final BaseClient receiver = client;
+                return new Callable<Object>() {
+                    @Override
+                    public Object call() throws Exception {
+                        return target.invoke(receiver, values);
+                    }
+                };
+            }
+        }
+        throw new IllegalArgumentException(String.format("no method %s of %s accepts %d arguments",
+                methodName, client.getClass().getName(), args.size()));
+    }
+
+    private static Object[] convert(Class<?>[] types, List<String> args, boolean requireBytes) throws Exception {
+        Object[] values = new Object[types.length];
+        boolean hasBytes = false;
+        int next = 0;
+        for (int i = 0; i < types.length; i++) {
+            Class<?> type = types[i];
+            if (HashMap.class.isAssignableFrom(type) && next >= args.size()) {
+                values[i] = new HashMap<String, Object>();
+                continue;
+            }
+            if (next >= args.size()) {
+                return null;
+            }
+            String arg = args.get(next++);
+            if (type == String.class) {
+                values[i] = arg;
+            } else if (type == byte[].class) {
+                if (!new File(arg).isFile()) {
+                    return null;
+                }
+                values[i] = Util.readFileByBytes(arg);
+                hasBytes = true;
+            } else if (type == int.class || type == Integer.class) {
+                values[i] = Integer.valueOf(arg);
+            } else if (type == long.class || type == Long.class) {
+                values[i] = Long.valueOf(arg);
+            } else if (type == double.class || type == Double.class) {
+                values[i] = Double.valueOf(arg);
+            } else if (type == boolean.class || type == Boolean.class) {
+                values[i] = Boolean.valueOf(arg);
+            } else {
+                return null;
+            }
+        }
+        if (next != args.size() || (requireBytes && !hasBytes)) {
+            return null;
+        }
+        return values;
+    }
+
+    /**
+     * 命令行压测
+     * 参数: [--endpoint url | --stub] [--client 类名] [--method 方法名] [--arg 参数]...
+     *      [--rate 每秒调用数] [--duration 秒] [--warmup 秒] [--concurrency n]
+     *      [--app-id id] [--api-key key] [--secret-key key]
+     * 使用--stub时在进程内启动AipStubServer，默认压测AipNlp.lexer
+     */
+    public static void main(String[] args) throws Exception {
+        AipStubServer.enableNoDelay();
+        String endpoint = null;
+        boolean stub = false;
+        String clientClass = "com.baidu.aip.nlp.AipNlp";
+        String methodName = "lexer";
+        List<String> callArgs = new ArrayList<String>();
+        double rate = 100;
+        long durationSeconds = 30;
+        long warmUpSeconds = 5;
+        int concurrency = 1000;
+        String appId = "stub";
+        String apiKey = "stub";
+        String secretKey = "stub";
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if ("--endpoint".equals(arg)) {
+                endpoint = args[++i];
+            } else if ("--stub".equals(arg)) {
+                stub = true;
+            } else if ("--client".equals(arg)) {
+                clientClass = args[++i];
+            } else if ("--method".equals(arg)) {
+                methodName = args[++i];
+            } else if ("--arg".equals(arg)) {
+                callArgs.add(args[++i]);
+            } else if ("--rate".equals(arg)) {
+                rate = Double.parseDouble(args[++i]);
+            } else if ("--duration".equals(arg)) {
+                durationSeconds = Long.parseLong(args[++i]);
+            } else if ("--warmup".equals(arg)) {
+                warmUpSeconds = Long.parseLong(args[++i]);
+            } else if ("--concurrency".equals(arg)) {
+                concurrency = Integer.parseInt(args[++i]);
+            } else if ("--app-id".equals(arg)) {
+                appId = args[++i];
+            } else if ("--api-key".equals(arg)) {
+                apiKey = args[++i];
+            } else if ("--secret-key".equals(arg)) {
+                secretKey = args[++i];
+            } else {
+                System.err.println("unknown argument: " + arg);
+                System.exit(1);
+            }
+        }
+        if ("lexer".equals(methodName) && callArgs.isEmpty()) {
+            callArgs.add("百度是一家高科技公司");
+        }
+
+        AipStubServer server = null;
+        if (stub) {
+            server = new AipStubServer(0);
+            server.start();
+            endpoint = server.getEndpoint();
+        }
+        BaseClient client = (BaseClient) Class.forName(clientClass)
+                .getConstructor(String.class, String.class, String.class)
+                .newInstance(appId, apiKey, secretKey);
+        if (endpoint != null) {
+            client.setEndpoint(endpoint);
+        }
+        AipLoadGenerator generator = new AipLoadGenerator(reflectiveCall(client, methodName, callArgs),
+                rate, concurrency);
+        System.out.println(String.format("%s.%s at %.1f/s for %ds after %ds warm-up, endpoint: %s",
+                clientClass, methodName, rate, durationSeconds, warmUpSeconds,
+                endpoint == null ? "default" : endpoint));
+        Report report = generator.run(TimeUnit.SECONDS.toMillis(warmUpSeconds),
+                TimeUnit.SECONDS.toMillis(durationSeconds));
+        System.out.println(report);
+        if (server != null) {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,602 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.bench;
+
+import com.baidu.aip.util.AipClientConst;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 用于离线压测的本地stub服务，模拟开放平台的行为:
+ * 1. /oauth/2.0/token 返回access_token；关闭oauth后返回错误，客户端随之切换为BCE签名的云用户
+ * 2. 其他接口校验access_token参数或bce-auth-v1签名header，返回OCR、人脸、语音等接口的典型响应结构
+ * 3. 响应延迟服从对数正态分布，由中位数与p99确定
+ * 4. 按概率注入业务错误码与HTTP错误，并可模拟QPS上限(错误码18)与日配额(错误码17)
+ * 5. 解码Content-Encoding: gzip的请求body，并可对声明Accept-Encoding: gzip的请求返回chunked的gzip响应
+ *
+ * 响应在独立的调度线程中延迟写出，不占用处理线程，高延迟下也能承受开环压测的到达速率。
+ * 客户端通过BaseClient.setEndpoint将请求发往该服务。
+ */
+public class AipStubServer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AipStubServer.class);
+
+    public static final String ACCESS_TOKEN = "24.stub-access-token";
+    public static final int DEFAULT_PORT = 8090;
+
+    private static final String OAUTH_PATH = "/oauth/2.0/token";
+    private static final String BCE_AUTH_PREFIX = "bce-auth-v1/";
+    private static final int ACCESS_TOKEN_INVALID_ERROR_CODE = 110;
+    private static final long DEFAULT_TOKEN_EXPIRES_IN_SECONDS = 2592000;
+    private static final byte[] AUDIO_DATA = new byte[4096];
+    private static final double P99_Z_SCORE = 2.326;
+    private static final String NO_DELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    private final HttpServer server;
+    private final ExecutorService handlerExecutor;
+    private final ScheduledExecutorService responseScheduler;
+    private final Random random;
+    private final List<InjectedError> errors;
+
+    private volatile boolean oauthEnabled;
+    private volatile long tokenExpiresInSeconds;
+    private volatile double latencyMedianMillis;
+    private volatile double latencySigma;
+    private volatile int qpsLimit;
+    private volatile long dailyLimit;
+    private volatile boolean responseCompressionEnabled;
+    private volatile String lastRequestBody;
+    private volatile String lastRequestContentEncoding;
+    private volatile String lastRequestTransferEncoding;
+
+    private final AtomicLong requestCount;
+    private final AtomicLong oauthCount;
+    private final AtomicLong dailyCount;
+    private final AtomicLong currentSecond;
+    private final AtomicInteger currentSecondCount;
+
+    /**
+     * @param port 监听端口，0表示随机选择空闲端口
+     * @throws IOException 端口无法监听
+     */
+    public AipStubServer(int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        this.handlerExecutor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()),
+                new DaemonThreadFactory("aip-stub-handler-"));
+        this.responseScheduler = Executors.newScheduledThreadPool(2, new DaemonThreadFactory("aip-stub-response-"));
+        this.random = new Random();
+        this.errors = new CopyOnWriteArrayList<InjectedError>();
+        this.oauthEnabled = true;
+        this.tokenExpiresInSeconds = DEFAULT_TOKEN_EXPIRES_IN_SECONDS;
+        this.latencyMedianMillis = 0;
+        this.latencySigma = 0;
+        this.qpsLimit = 0;
+        this.dailyLimit = 0;
+        this.requestCount = new AtomicLong();
+        this.oauthCount = new AtomicLong();
+        this.dailyCount = new AtomicLong();
+        this.currentSecond = new AtomicLong();
+        this.currentSecondCount = new AtomicInteger();
+        server.createContext("/", new StubHandler());
+        server.setExecutor(handlerExecutor);
+    }
+
+    public void start() {
+        server.start();
+        LOGGER.info("stub server started at " + getEndpoint());
+    }
+
+    public void stop() {
+        server.stop(0);
+        handlerExecutor.shutdownNow();
+        responseScheduler.shutdownNow();
+    }
+
+    /**
+     * @return 供BaseClient.setEndpoint使用的地址
+     */
+    public String getEndpoint() {
+        return String.format("http://127.0.0.1:%d", server.getAddress().getPort());
+    }
+
+    /**
+     * 设置响应延迟，服从对数正态分布
+     * @param medianMillis 延迟中位数(毫秒)
+     * @param p99Millis 延迟p99(毫秒)，不大于中位数时延迟固定为中位数
+     */
+    public void setLatency(double medianMillis, double p99Millis) {
+        this.latencyMedianMillis = medianMillis;
+        this.latencySigma = p99Millis > medianMillis && medianMillis > 0
+                ? Math.log(p99Millis / medianMillis) / P99_Z_SCORE : 0;
+    }
+
+    /**
+     * 按概率返回HTTP 200与业务错误码
+     * @param probability 每个请求返回该错误的概率
+     * @param errorCode 错误码，如282000(服务内部错误)
+     * @param errorMsg 错误信息
+     */
+    public void injectError(double probability, int errorCode, String errorMsg) {
+        errors.add(new InjectedError(probability, 200, errorCode, errorMsg));
+    }
+
+    /**
+     * 按概率返回HTTP错误状态码
+     * @param probability 每个请求返回该错误的概率
+     * @param status HTTP状态码，如500、503
+     */
+    public void injectHttpError(double probability, int status) {
+        errors.add(new InjectedError(probability, status, 0, null));
+    }
+
+    public void clearErrors() {
+        errors.clear();
+    }
+
+    public boolean isOauthEnabled() {
+        return oauthEnabled;
+    }
+
+    /**
+     * @param oauthEnabled 为false时oauth返回invalid_client，模拟使用BCE AK/SK的云用户
+     */
+    public void setOauthEnabled(boolean oauthEnabled) {
+        this.oauthEnabled = oauthEnabled;
+    }
+
+    public long getTokenExpiresInSeconds() {
+        return tokenExpiresInSeconds;
+    }
+
+    /**
+     * @param tokenExpiresInSeconds oauth返回的expires_in，默认30天，用于测试token刷新
+     */
+    public void setTokenExpiresInSeconds(long tokenExpiresInSeconds) {
+        this.tokenExpiresInSeconds = tokenExpiresInSeconds;
+    }
+
+    public int getQpsLimit() {
+        return qpsLimit;
+    }
+
+    /**
+     * @param qpsLimit 每秒超过该数量的请求返回错误码18，0表示不限制
+     */
+    public void setQpsLimit(int qpsLimit) {
+        this.qpsLimit = qpsLimit;
+    }
+
+    public long getDailyLimit() {
+        return dailyLimit;
+    }
+
+    /**
+     * @param dailyLimit 累计超过该数量的请求返回错误码17，0表示不限制
+     */
+    public void setDailyLimit(long dailyLimit) {
+        this.dailyLimit = dailyLimit;
+        this.dailyCount.set(0);
+    }
+
+    /**
+     * @return 收到的接口请求数，不含oauth请求
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @return 收到的oauth请求数
+     */
+    public long getOauthCount() {
+        return oauthCount.get();
+    }
+
+    /**
+     * @param responseCompressionEnabled 是否对声明Accept-Encoding: gzip的请求返回gzip压缩的响应
+     */
+    public void setResponseCompressionEnabled(boolean responseCompressionEnabled) {
+        this.responseCompressionEnabled = responseCompressionEnabled;
+    }
+
+    /**
+     * @return 最近一次接口请求解码后的body
+     */
+    public String getLastRequestBody() {
+        return lastRequestBody;
+    }
+
+    /**
+     * @return 最近一次接口请求的Content-Encoding header，没有时为null
+     */
+    public String getLastRequestContentEncoding() {
+        return lastRequestContentEncoding;
+    }
+
+    /**
+     * @return 最近一次接口请求的Transfer-Encoding header，没有时为null
+     */
+    public String getLastRequestTransferEncoding() {
+        return lastRequestTransferEncoding;
+    }
+
+    private class StubHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String contentEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+            InputStream in = exchange.getRequestBody();
+            if ("gzip".equalsIgnoreCase(contentEncoding)) {
+                in = new GZIPInputStream(in);
+            }
+            String body = readBody(in);
+            String path = exchange.getRequestURI().getPath();
+            String query = exchange.getRequestURI().getRawQuery();
+            StubResponse response;
+            if (path.startsWith(OAUTH_PATH)) {
+                oauthCount.incrementAndGet();
+                response = oauth();
+            } else {
+                requestCount.incrementAndGet();
+                lastRequestBody = body;
+                lastRequestContentEncoding = contentEncoding;
+                lastRequestTransferEncoding = exchange.getRequestHeaders().getFirst("Transfer-Encoding");
+                response = api(path, query, body, exchange.getRequestHeaders().getFirst("Authorization"));
+            }
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            if (responseCompressionEnabled && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                response = response.gzip();
+            }
+            long delay = nextLatencyMillis();
+            if (delay <= 0) {
+                send(exchange, response);
+            } else {
+                responseScheduler.schedule(new DelayedResponse(exchange, response), delay, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private StubResponse oauth() {
+        JSONObject json = new JSONObject();
+        if (!oauthEnabled) {
+            json.put("error", "invalid_client");
+            json.put("error_description", "unknown client id");
+            return StubResponse.json(401, json);
+        }
+        json.put("access_token", ACCESS_TOKEN);
+        json.put("expires_in", tokenExpiresInSeconds);
+        json.put("refresh_token", "25.stub-refresh-token");
+        json.put("scope", "public brain_all_scope audio_voice_assistant_get audio_tts_post");
+        json.put("session_key", "stub-session-key");
+        json.put("session_secret", "stub-session-secret");
+        return StubResponse.json(200, json);
+    }
+
+    private StubResponse api(String path, String query, String body, String authorization) {
+        boolean speech = path.startsWith("/server_api") || path.startsWith("/text2audio");
+        // 语音接口的token放在body中
+        boolean hasToken = speech ? body.contains("tok=") || body.contains("\"token\"")
+                : query != null && query.contains("access_token=");
+        boolean signed = authorization != null && authorization.startsWith(BCE_AUTH_PREFIX);
+        if (!hasToken && !signed) {
+            return error(speech, ACCESS_TOKEN_INVALID_ERROR_CODE, "Access token invalid or no longer valid");
+        }
+        if (dailyLimit > 0 && dailyCount.incrementAndGet() > dailyLimit) {
+            return error(speech, AipClientConst.DAILY_LIMIT_ERROR_CODE, AipClientConst.DAILY_LIMIT_ERROR_MSG);
+        }
+        if (qpsLimit > 0 && !tryAcquireQps()) {
+            return error(speech, AipClientConst.QPS_LIMIT_ERROR_CODE, "Open api qps request limit reached");
+        }
+        for (InjectedError injected : errors) {
+            if (random.nextDouble() < injected.probability) {
+                if (injected.status != 200) {
+                    return StubResponse.json(injected.status, new JSONObject());
+                }
+                return error(speech, injected.errorCode, injected.errorMsg);
+            }
+        }
+        if (path.startsWith("/text2audio")) {
+            return new StubResponse(200, "audio/mp3", AUDIO_DATA);
+        }
+        if (path.startsWith("/server_api")) {
+            JSONObject json = new JSONObject();
+            json.put("err_no", 0);
+            json.put("err_msg", "success.");
+            json.put("corpus_no", Long.toString(random.nextLong() & Long.MAX_VALUE));
+            json.put("sn", Long.toString(random.nextLong() & Long.MAX_VALUE));
+            json.put("result", new JSONArray().put("stub"));
+            return StubResponse.json(200, json);
+        }
+        if (path.contains("/face/")) {
+            return StubResponse.json(200, faceResult());
+        }
+        if (path.contains("/ocr/")) {
+            return StubResponse.json(200, ocrResult());
+        }
+        JSONObject json = new JSONObject();
+        json.put("log_id", nextLogId());
+        json.put("result", new JSONObject());
+        return StubResponse.json(200, json);
+    }
+
+    private JSONObject ocrResult() {
+        JSONObject location = new JSONObject();
+        location.put("left", 10);
+        location.put("top", 10);
+        location.put("width", 100);
+        location.put("height", 20);
+        JSONObject words = new JSONObject();
+        words.put("words", "stub");
+        words.put("location", location);
+        JSONObject json = new JSONObject();
+        json.put("log_id", nextLogId());
+        json.put("words_result_num", 1);
+        json.put("words_result", new JSONArray().put(words));
+        return json;
+    }
+
+    private JSONObject faceResult() {
+        JSONObject location = new JSONObject();
+        location.put("left", 100.0);
+        location.put("top", 100.0);
+        location.put("width", 200);
+        location.put("height", 200);
+        location.put("rotation", 0);
+        JSONObject face = new JSONObject();
+        face.put("face_token", "stub-face-token");
+        face.put("location", location);
+        face.put("face_probability", 1);
+        JSONObject result = new JSONObject();
+        result.put("face_num", 1);
+        result.put("face_list", new JSONArray().put(face));
+        JSONObject json = new JSONObject();
+        json.put("error_code", 0);
+        json.put("error_msg", "SUCCESS");
+        json.put("log_id", nextLogId());
+        json.put("timestamp", System.currentTimeMillis() / 1000);
+        json.put("cached", 0);
+        json.put("result", result);
+        return json;
+    }
+
+    private StubResponse error(boolean speech, int errorCode, String errorMsg) {
+        JSONObject json = new JSONObject();
+        if (speech) {
+            json.put("err_no", errorCode);
+            json.put("err_msg", errorMsg);
+        } else {
+            json.put("error_code", errorCode);
+            json.put("error_msg", errorMsg);
+            json.put("log_id", nextLogId());
+        }
+        return StubResponse.json(200, json);
+    }
+
+    private boolean tryAcquireQps() {
+        long second = System.currentTimeMillis() / 1000;
+        long previous = currentSecond.get();
+        if (previous != second && currentSecond.compareAndSet(previous, second)) {
+            currentSecondCount.set(0);
+        }
+        return currentSecondCount.incrementAndGet() <= qpsLimit;
+    }
+
+    private long nextLogId() {
+        return random.nextLong() & Long.MAX_VALUE;
+    }
+
+    private long nextLatencyMillis() {
+        double median = latencyMedianMillis;
+        if (median <= 0) {
+            return 0;
+        }
+        return Math.round(median * Math.exp(latencySigma * random.nextGaussian()));
+    }
+
+    /*
+     * 读完请求body，连接才能被复用
+     */
+    private static String readBody(InputStream is) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        try {
+            int n;
+            while ((n = is.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+        } finally {
+            is.close();
+        }
+        return out.toString(AipClientConst.DEFAULT_ENCODING);
+    }
+
+    private static void send(HttpExchange exchange, StubResponse response) {
+        try {
+            exchange.getResponseHeaders().set("Content-Type", response.contentType);
+            if (response.gzip) {
+                // 压缩响应以chunked方式发送，客户端按未知长度读取
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                exchange.sendResponseHeaders(response.status, 0);
+            } else {
+                exchange.sendResponseHeaders(response.status, response.body.length);
+            }
+            OutputStream os = exchange.getResponseBody();
+            os.write(response.body);
+            os.close();
+        } catch (IOException e) {
+            LOGGER.debug("write stub response failed: " + e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static class DelayedResponse implements Runnable {
+        private final HttpExchange exchange;
+        private final StubResponse response;
+
+        DelayedResponse(HttpExchange exchange, StubResponse response) {
+            this.exchange = exchange;
+            this.response = response;
+        }
+
+        @Override
+        public void run() {
+            send(exchange, response);
+        }
+    }
+
+    private static class StubResponse {
+        private final int status;
+        private final String contentType;
+        private final byte[] body;
+        private final boolean gzip;
+
+        StubResponse(int status, String contentType, byte[] body) {
+            this(status, contentType, body, false);
+        }
+
+        private StubResponse(int status, String contentType, byte[] body, boolean gzip) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+            this.gzip = gzip;
+        }
+
+        StubResponse gzip() throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            GZIPOutputStream gzipOut = new GZIPOutputStream(out);
+            gzipOut.write(body);
+            gzipOut.close();
+            return new StubResponse(status, contentType, out.toByteArray(), true);
+        }
+
+        static StubResponse json(int status, JSONObject json) {
+            try {
+                return new StubResponse(status, "application/json;charset=utf-8",
+                        json.toString().getBytes(AipClientConst.DEFAULT_ENCODING));
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static class InjectedError {
+        private final double probability;
+        private final int status;
+        private final int errorCode;
+        private final String errorMsg;
+
+        InjectedError(double probability, int status, int errorCode, String errorMsg) {
+            this.probability = probability;
+            this.status = status;
+            this.errorCode = errorCode;
+            this.errorMsg = errorMsg;
+        }
+    }
+
+    static class DaemonThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        DaemonThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, prefix + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+
+    /**
+     * 命令行启动stub服务
+     * 参数: [--port 8090] [--latency 中位数,p99] [--error 概率:错误码] [--http-error 概率:状态码]
+     *      [--qps-limit n] [--daily-limit n] [--token-expires-in 秒] [--cloud-user]
+     */
+    /**
+     * 关闭com.sun.net.httpserver的Nagle算法，需在创建服务前调用，对整个JVM生效，只在独立运行压测工具时使用；
+     * 单元测试通过surefire的系统属性设置
+     * 响应头与body分两次写出，开启Nagle时与客户端的延迟ACK叠加，每个请求额外增加约40ms
+     */
+    static void enableNoDelay() {
+        if (System.getProperty(NO_DELAY_PROPERTY) == null) {
+            System.setProperty(NO_DELAY_PROPERTY, "true");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        enableNoDelay();
+        int port = DEFAULT_PORT;
+        for (int i = 0; i < args.length; i++) {
+            if ("--port".equals(args[i])) {
+                port = Integer.parseInt(args[++i]);
+            }
+        }
+        AipStubServer server = new AipStubServer(port);
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if ("--port".equals(arg)) {
+                i++;
+            } else if ("--latency".equals(arg)) {
+                String[] parts = args[++i].split(",");
+                double median = Double.parseDouble(parts[0]);
+                server.setLatency(median, parts.length > 1 ? Double.parseDouble(parts[1]) : median);
+            } else if ("--error".equals(arg)) {
+                String[] parts = args[++i].split(":");
+                server.injectError(Double.parseDouble(parts[0]), Integer.parseInt(parts[1]), "stub injected error");
+            } else if ("--http-error".equals(arg)) {
+                String[] parts = args[++i].split(":");
+                server.injectHttpError(Double.parseDouble(parts[0]), Integer.parseInt(parts[1]));
+            } else if ("--qps-limit".equals(arg)) {
+                server.setQpsLimit(Integer.parseInt(args[++i]));
+            } else if ("--daily-limit".equals(arg)) {
+                server.setDailyLimit(Long.parseLong(args[++i]));
+            } else if ("--token-expires-in".equals(arg)) {
+                server.setTokenExpiresInSeconds(Long.parseLong(args[++i]));
+            } else if ("--cloud-user".equals(arg)) {
+                server.setOauthEnabled(false);
+            } else {
+                System.err.println("unknown argument: " + arg);
+                System.exit(1);
+            }
+        }
+        server.start();
+        System.out.println("stub server listening on " + server.getEndpoint());
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.client;
+
+import com.baidu.aip.bench.AipStubServer;
+import com.baidu.aip.nlp.AipNlp;
+import com.baidu.aip.util.AipClientConfiguration;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 接口的异步版本：获取token与发送请求不阻塞调用线程，使用配置的线程池，可以取消
+ */
+public class AipAsyncTest {
+
+    private AipStubServer server;
+    private AipClientConfiguration config;
+    private AipNlp client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new AipStubServer(0);
+        server.start();
+        config = new AipClientConfiguration();
+        config.setEndpoint(server.getEndpoint());
+        client = new AipNlp("async", "async-" + System.nanoTime(), "secret", config);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testAsyncDoesNotBlockCaller() throws Exception {
+        // 获取token与请求各需要约300ms
+        server.setLatency(300, 300);
+        final AtomicReference<JSONObject> result = new AtomicReference<JSONObject>();
+        final CountDownLatch done = new CountDownLatch(1);
+        long start = System.currentTimeMillis();
+        Future<JSONObject> future = client.lexer("百度", null, new AipCallback<JSONObject>() {
+            @Override
+            public void onSuccess(JSONObject res) {
+                result.set(res);
+                done.countDown();
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                done.countDown();
+            }
+        });
+        assertTrue(System.currentTimeMillis() - start < 200);
+        assertFalse(future.isDone());
+
+        JSONObject res = future.get(5, TimeUnit.SECONDS);
+        assertFalse(res.toString(), res.has("error_code"));
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        assertEquals(res, result.get());
+        assertEquals(1, server.getOauthCount());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void testUsesConfiguredExecutor() throws Exception {
+        final AtomicInteger executed = new AtomicInteger();
+        final Executor executor = AipClientConfiguration.getDefaultAsyncExecutor();
+        client.setAsyncExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                executed.incrementAndGet();
+                executor.execute(command);
+            }
+        });
+        JSONObject res = client.lexer("百度", null, null).get(5, TimeUnit.SECONDS);
+        assertFalse(res.toString(), res.has("error_code"));
+        assertTrue(executed.get() >= 1);
+    }
+
+    @Test
+    public void testCancelAbortsRequest() throws Exception {
+        client.lexer("warm up", null);
+        server.setLatency(3000, 3000);
+        final AtomicInteger callbacks = new AtomicInteger();
+        Future<JSONObject> future = client.lexer("百度", null, new AipCallback<JSONObject>() {
+            @Override
+            public void onSuccess(JSONObject res) {
+                callbacks.incrementAndGet();
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                callbacks.incrementAndGet();
+            }
+        });
+        try {
+            future.get(200, TimeUnit.MILLISECONDS);
+            fail("request should still be running");
+        } catch (TimeoutException e) {
+            // expected
+        }
+        long start = System.currentTimeMillis();
+        assertTrue(future.cancel(true));
+        assertTrue(future.isCancelled());
+        try {
+            future.get();
+            fail("future should be cancelled");
+        } catch (CancellationException e) {
+            // expected
+        }
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        assertFalse(future.cancel(true));
+        assertEquals(0, callbacks.get());
+    }
+
+    @Test
+    public void testAsyncCallableWithSeveralRequests() throws Exception {
+        Future<Integer> future = client.async(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                int succeeded = 0;
+                for (String text : new String[] {"百度", "北京"}) {
+                    if (!client.lexer(text, null).has("error_code")) {
+                        succeeded++;
+                    }
+                }
+                return succeeded;
+            }
+        });
+        assertEquals(Integer.valueOf(2), future.get(5, TimeUnit.SECONDS));
+        assertEquals(2, server.getRequestCount());
+    }
+}
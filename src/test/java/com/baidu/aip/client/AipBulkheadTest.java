@@ -0,0 +1,156 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.client;
+
+import com.baidu.aip.bench.AipStubServer;
+import com.baidu.aip.error.AipError;
+import com.baidu.aip.http.AipRequest;
+import com.baidu.aip.nlp.AipNlp;
+import com.baidu.aip.speech.AipSpeech;
+import com.baidu.aip.speech.TtsResponse;
+import com.baidu.aip.util.AipClientConfiguration;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 隔离舱的并发名额与公平性，以及语音合成与其他接口一样经过隔离舱与截止时间控制
+ */
+public class AipBulkheadTest {
+
+    private static final String TTS_URL = "http://tsn.baidu.com/text2audio";
+
+    private AipStubServer server;
+    private AipClientConfiguration config;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new AipStubServer(0);
+        server.start();
+        config = new AipClientConfiguration();
+        config.setEndpoint(server.getEndpoint());
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testBulkheadFull() throws Exception {
+        AipBulkhead bulkhead = new AipBulkhead("full-" + System.nanoTime(), 1);
+        bulkhead.setMaxWaitMillis(50);
+        AipNlp client = new AipNlp("bulkhead", "bulkhead-" + System.nanoTime(), "secret", config);
+        client.setBulkhead(bulkhead);
+        client.lexer("warm up", null);
+
+        server.setLatency(500, 500);
+        Future<JSONObject> first = client.lexer("百度", null, null);
+        while (bulkhead.getActiveCount() == 0) {
+            Thread.sleep(1);
+        }
+        JSONObject res = client.lexer("百度", null);
+        assertEquals(AipError.BULKHEAD_FULL_ERROR.getErrorCode(), res.getString("error_code"));
+        assertFalse(first.get(5, TimeUnit.SECONDS).has("error_code"));
+        assertEquals(0, bulkhead.getActiveCount());
+    }
+
+    @Test
+    public void testNoBarging() throws Exception {
+        final AipBulkhead bulkhead = new AipBulkhead("fair-" + System.nanoTime(), 1);
+        assertTrue(bulkhead.tryAcquire(new AipRequest()));
+
+        bulkhead.setMaxWaitMillis(5000);
+        final AtomicBoolean waiterAcquired = new AtomicBoolean(false);
+        final CountDownLatch done = new CountDownLatch(1);
+        Thread waiter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                waiterAcquired.set(bulkhead.tryAcquire(new AipRequest()));
+                done.countDown();
+            }
+        });
+        waiter.start();
+        while (bulkhead.getQueueLength() == 0) {
+            Thread.sleep(1);
+        }
+
+        // 归还名额后，不等待的调用也不能插队到正在等待的调用之前
+        bulkhead.setMaxWaitMillis(0);
+        bulkhead.release();
+        assertFalse(bulkhead.tryAcquire(new AipRequest()));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(waiterAcquired.get());
+        bulkhead.release();
+        assertEquals(0, bulkhead.getActiveCount());
+    }
+
+    @Test
+    public void testSynthesisUsesSharedPath() throws Exception {
+        AipSpeech client = new AipSpeech("speech", "speech-" + System.nanoTime(), "secret", config);
+        TtsResponse tts = client.synthesis("百度", "zh", 1, null);
+        assertNull(tts.getResult());
+        assertEquals(4096, tts.getData().length);
+
+        AipBulkhead bulkhead = new AipBulkhead("tts-" + System.nanoTime(), 1);
+        client.setBulkhead(bulkhead, TTS_URL);
+        assertTrue(bulkhead.tryAcquire(new AipRequest()));
+        tts = client.synthesis("百度", "zh", 1, null);
+        assertNull(tts.getData());
+        assertEquals(AipError.BULKHEAD_FULL_ERROR.getErrorCode(), tts.getResult().getString("error_code"));
+        bulkhead.release();
+
+        // 截止时间同样中止语音合成
+        server.setLatency(3000, 3000);
+        AipCallOptions options = AipCallOptions.withTimeout(200).attach();
+        long start = System.currentTimeMillis();
+        try {
+            tts = client.synthesis("百度", "zh", 1, null);
+        } finally {
+            options.detach();
+        }
+        assertTrue(System.currentTimeMillis() - start < 1500);
+        assertEquals(AipError.DEADLINE_EXCEEDED_ERROR.getErrorCode(), tts.getResult().getString("error_code"));
+    }
+
+    @Test
+    public void testRouteLimit() throws Exception {
+        AipRouteLimiter routeLimiter = new AipRouteLimiter(1, 10);
+        routeLimiter.setMaxWaitMillis(50);
+        AipNlp client = new AipNlp("route", "route-" + System.nanoTime(), "secret", config);
+        client.setRouteLimiter(routeLimiter);
+        client.lexer("warm up", null);
+        assertEquals(0, routeLimiter.getActiveCount());
+
+        server.setLatency(500, 500);
+        Future<JSONObject> first = client.lexer("百度", null, null);
+        while (routeLimiter.getActiveCount() == 0) {
+            Thread.sleep(1);
+        }
+        JSONObject res = client.lexer("百度", null);
+        assertEquals(AipError.ROUTE_LIMIT_ERROR.getErrorCode(), res.getString("error_code"));
+        assertFalse(first.get(5, TimeUnit.SECONDS).has("error_code"));
+        assertEquals(0, routeLimiter.getActiveCount());
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.client;
+
+import com.baidu.aip.bench.AipStubServer;
+import com.baidu.aip.error.AipError;
+import com.baidu.aip.nlp.AipNlp;
+import com.baidu.aip.util.AipClientConfiguration;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 调用的截止时间与取消：中止进行中的请求，限制排队时间，以及选项在多个线程上的绑定
+ */
+public class AipCallOptionsTest {
+
+    private static final String LEXER_URL = "https://aip.baidubce.com/rpc/2.0/nlp/v1/lexer";
+
+    private AipStubServer server;
+    private AipNlp client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new AipStubServer(0);
+        server.start();
+        AipClientConfiguration config = new AipClientConfiguration();
+        config.setEndpoint(server.getEndpoint());
+        client = new AipNlp("options", "options-" + System.nanoTime(), "secret", config);
+        client.lexer("warm up", null);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testDeadlineAbortsRequest() {
+        server.setLatency(3000, 3000);
+        AipCallOptions options = AipCallOptions.withTimeout(200).attach();
+        long start = System.currentTimeMillis();
+        JSONObject res;
+        try {
+            res = client.lexer("百度", null);
+        } finally {
+            options.detach();
+        }
+        assertEquals(AipError.DEADLINE_EXCEEDED_ERROR.getErrorCode(), res.getString("error_code"));
+        assertTrue(System.currentTimeMillis() - start < 1500);
+        assertNull(AipCallOptions.current());
+    }
+
+    @Test
+    public void testDeadlineBoundsQueueing() {
+        client.setQpsLimit(LEXER_URL, 1);
+        client.lexer("百度", null);
+        AipCallOptions options = AipCallOptions.withTimeout(200).attach();
+        long start = System.currentTimeMillis();
+        JSONObject res;
+        try {
+            res = client.lexer("百度", null);
+        } finally {
+            options.detach();
+        }
+        // 等待QPS令牌的时间不超过调用的剩余时间，请求没有发出
+        String code = res.getString("error_code");
+        assertTrue(code, AipError.RATE_LIMIT_ERROR.getErrorCode().equals(code)
+                || AipError.DEADLINE_EXCEEDED_ERROR.getErrorCode().equals(code));
+        assertTrue(System.currentTimeMillis() - start < 800);
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void testCancelFromAnotherThread() throws Exception {
+        server.setLatency(3000, 3000);
+        final AipCallOptions options = new AipCallOptions().attach();
+        Thread canceller = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                options.cancel();
+            }
+        });
+        canceller.start();
+        long start = System.currentTimeMillis();
+        JSONObject res;
+        try {
+            res = client.lexer("百度", null);
+        } finally {
+            options.detach();
+        }
+        canceller.join();
+        assertEquals(AipError.CALL_CANCELLED_ERROR.getErrorCode(), res.getString("error_code"));
+        assertTrue(System.currentTimeMillis() - start < 1500);
+        assertTrue(options.isCancelled());
+    }
+
+    @Test
+    public void testAsyncInheritsDeadline() throws Exception {
+        server.setLatency(3000, 3000);
+        AipCallOptions options = AipCallOptions.withTimeout(200).attach();
+        Future<JSONObject> future;
+        try {
+            future = client.async(new Callable<JSONObject>() {
+                @Override
+                public JSONObject call() {
+                    return client.lexer("百度", null);
+                }
+            });
+        } finally {
+            options.detach();
+        }
+        JSONObject res = future.get(1500, TimeUnit.MILLISECONDS);
+        assertEquals(AipError.DEADLINE_EXCEEDED_ERROR.getErrorCode(), res.getString("error_code"));
+    }
+
+    @Test
+    public void testAttachOnSeveralThreads() throws Exception {
+        final AipCallOptions shared = AipCallOptions.withTimeout(60000);
+        final AipCallOptions outer = new AipCallOptions();
+        final CountDownLatch attached = new CountDownLatch(1);
+        final CountDownLatch detached = new CountDownLatch(1);
+        final AtomicReference<AipCallOptions> seen = new AtomicReference<AipCallOptions>();
+        final AtomicReference<AipCallOptions> restored = new AtomicReference<AipCallOptions>();
+        Thread other = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                outer.attach();
+                shared.attach();
+                attached.countDown();
+                try {
+                    detached.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                // 另一个线程解除绑定不影响本线程
+                seen.set(AipCallOptions.current());
+                shared.detach();
+                restored.set(AipCallOptions.current());
+                outer.detach();
+            }
+        });
+        other.start();
+        attached.await();
+
+        shared.attach();
+        assertSame(shared, AipCallOptions.current());
+        shared.detach();
+        assertNull(AipCallOptions.current());
+        detached.countDown();
+        other.join();
+
+        assertSame(shared, seen.get());
+        assertSame(outer, restored.get());
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.client;
+
+import com.baidu.aip.bench.AipStubServer;
+import com.baidu.aip.error.AipError;
+import com.baidu.aip.nlp.AipNlp;
+import com.baidu.aip.util.AipClientConfiguration;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * 熔断器的状态转移：CLOSED -> OPEN -> HALF_OPEN -> CLOSED，以及探测失败时重新进入OPEN
+ */
+public class AipCircuitBreakerTest {
+
+    private static final String LEXER_URL = "https://aip.baidubce.com/rpc/2.0/nlp/v1/lexer";
+
+    private AipStubServer server;
+    private AipCircuitBreaker breaker;
+    private AipNlp client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new AipStubServer(0);
+        server.start();
+        breaker = new AipCircuitBreaker();
+        breaker.setWindowSize(4);
+        breaker.setMinimumCalls(4);
+        breaker.setOpenDurationMillis(200);
+        breaker.setHalfOpenCalls(2);
+        AipClientConfiguration config = new AipClientConfiguration();
+        config.setEndpoint(server.getEndpoint());
+        config.setCircuitBreaker(breaker);
+        client = new AipNlp("breaker", "breaker-" + System.nanoTime(), "secret", config);
+        // 先完成获取token，再从空的统计窗口开始
+        client.lexer("warm up", null);
+        breaker.reset(LEXER_URL);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testOpenHalfOpenClose() throws Exception {
+        openCircuit();
+
+        // OPEN状态下不发出请求
+        long before = server.getRequestCount();
+        JSONObject res = client.lexer("百度", null);
+        assertEquals(AipError.CIRCUIT_OPEN_ERROR.getErrorCode(), res.getString("error_code"));
+        assertEquals(before, server.getRequestCount());
+
+        // 熔断时间过后放行探测请求，全部成功后恢复
+        server.clearErrors();
+        Thread.sleep(250);
+        assertFalse(client.lexer("百度", null).has("error_code"));
+        assertEquals(ECircuitState.HALF_OPEN, breaker.getState(LEXER_URL));
+        assertFalse(client.lexer("百度", null).has("error_code"));
+        assertEquals(ECircuitState.CLOSED, breaker.getState(LEXER_URL));
+    }
+
+    @Test
+    public void testFailedProbesReopen() throws Exception {
+        openCircuit();
+
+        Thread.sleep(250);
+        client.lexer("百度", null);
+        assertEquals(ECircuitState.HALF_OPEN, breaker.getState(LEXER_URL));
+        client.lexer("百度", null);
+        assertEquals(ECircuitState.OPEN, breaker.getState(LEXER_URL));
+    }
+
+    private void openCircuit() {
+        server.injectHttpError(1.0, 503);
+        for (int i = 0; i < 3; i++) {
+            client.lexer("百度", null);
+            assertEquals(ECircuitState.CLOSED, breaker.getState(LEXER_URL));
+        }
+        client.lexer("百度", null);
+        assertEquals(ECircuitState.OPEN, breaker.getState(LEXER_URL));
+    }
+}
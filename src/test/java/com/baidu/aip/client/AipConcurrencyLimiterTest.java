@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.client;
+
+import com.baidu.aip.bench.AipStubServer;
+import com.baidu.aip.error.AipError;
+import com.baidu.aip.nlp.AipNlp;
+import com.baidu.aip.util.AipClientConfiguration;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 并发窗口的排队与超时，以及窗口随RTT与服务端拒绝的调整
+ */
+public class AipConcurrencyLimiterTest {
+
+    private static final String HOST = "aip.baidubce.com";
+
+    @Test
+    public void testQueueTimeout() throws Exception {
+        AipConcurrencyLimiter limiter = new AipConcurrencyLimiter(2, 1, 10);
+        AipConcurrencyLimiter.Permit first = limiter.acquire(HOST, 50);
+        AipConcurrencyLimiter.Permit second = limiter.acquire(HOST, 50);
+        assertNotNull(first);
+        assertNotNull(second);
+        assertEquals(2, limiter.getInFlight(HOST));
+
+        assertNull(limiter.acquire(HOST, 50));
+        assertEquals(0, limiter.getQueueDepth(HOST));
+
+        first.cancel();
+        AipConcurrencyLimiter.Permit third = limiter.acquire(HOST, 50);
+        assertNotNull(third);
+        third.cancel();
+        second.cancel();
+        assertEquals(0, limiter.getInFlight(HOST));
+        // 取消的请求不调整窗口
+        assertEquals(2, limiter.getLimit(HOST));
+    }
+
+    @Test
+    public void testBackoffWhenDropped() throws Exception {
+        AipConcurrencyLimiter limiter = new AipConcurrencyLimiter(10, 1, 10);
+        limiter.acquire(HOST).release(true);
+        assertEquals(9, limiter.getLimit(HOST));
+    }
+
+    @Test
+    public void testLimitFollowsRtt() throws Exception {
+        AipConcurrencyLimiter limiter = new AipConcurrencyLimiter(4, 1, 100);
+        for (int i = 0; i < 10; i++) {
+            runRound(limiter, 5);
+        }
+        int grown = limiter.getLimit(HOST);
+        assertTrue(String.valueOf(grown), grown > 4);
+
+        // 延迟明显上升时窗口收缩
+        for (int i = 0; i < 5; i++) {
+            runRound(limiter, 40);
+        }
+        assertTrue(limiter.getLimit(HOST) < grown);
+    }
+
+    @Test
+    public void testClientQueueTimeout() throws Exception {
+        AipStubServer server = new AipStubServer(0);
+        server.start();
+        try {
+            AipConcurrencyLimiter limiter = new AipConcurrencyLimiter(1, 1, 1);
+            limiter.setQueueTimeoutMillis(50);
+            AipClientConfiguration config = new AipClientConfiguration();
+            config.setEndpoint(server.getEndpoint());
+            config.setConcurrencyLimiter(limiter);
+            AipNlp client = new AipNlp("concurrency", "concurrency-" + System.nanoTime(), "secret", config);
+            client.lexer("warm up", null);
+
+            server.setLatency(500, 500);
+            Future<JSONObject> first = client.lexer("百度", null, null);
+            while (limiter.getInFlight(HOST) == 0) {
+                Thread.sleep(1);
+            }
+            JSONObject res = client.lexer("百度", null);
+            assertEquals(AipError.CONCURRENCY_LIMIT_ERROR.getErrorCode(), res.getString("error_code"));
+            assertFalse(first.get(5, TimeUnit.SECONDS).has("error_code"));
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * 同时发出一个窗口的请求，每个请求耗时rttMillis
+     */
+    private static void runRound(AipConcurrencyLimiter limiter, long rttMillis) throws InterruptedException {
+        List<AipConcurrencyLimiter.Permit> permits = new ArrayList<AipConcurrencyLimiter.Permit>();
+        int limit = limiter.getLimit(HOST);
+        for (int i = 0; i < limit; i++) {
+            permits.add(limiter.acquire(HOST));
+        }
+        Thread.sleep(rttMillis);
+        for (AipConcurrencyLimiter.Permit permit : permits) {
+            permit.release(false);
+        }
+    }
+}
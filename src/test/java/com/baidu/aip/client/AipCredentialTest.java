@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.client;
+
+import com.baidu.aip.bench.AipStubServer;
+import com.baidu.aip.nlp.AipNlp;
+import com.baidu.aip.util.AipClientConfiguration;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * 同一API Key的客户端共享access_token，并发的首次调用只请求一次oauth
+ */
+public class AipCredentialTest {
+
+    private AipStubServer server;
+    private AipClientConfiguration config;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new AipStubServer(0);
+        server.start();
+        // oauth响应较慢，使并发调用都在等待同一次刷新
+        server.setLatency(100, 100);
+        config = new AipClientConfiguration();
+        config.setEndpoint(server.getEndpoint());
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testConcurrentColdCallsRequestOneToken() throws Exception {
+        final AipNlp client = new AipNlp("credential", "credential-single-flight", "secret", config);
+        int threads = 50;
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<JSONObject>> results = new ArrayList<Future<JSONObject>>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(new Callable<JSONObject>() {
+                    @Override
+                    public JSONObject call() throws Exception {
+                        start.await();
+                        return client.lexer("百度", null);
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<JSONObject> result : results) {
+                assertFalse(result.get().toString(), result.get().has("error_code"));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, server.getOauthCount());
+        assertEquals(threads, server.getRequestCount());
+    }
+
+    @Test
+    public void testClientsShareToken() {
+        AipNlp nlp = new AipNlp("credential", "credential-shared", "secret", config);
+        AipNlp other = new AipNlp("credential", "credential-shared", "secret", config);
+        assertFalse(nlp.lexer("百度", null).has("error_code"));
+        assertFalse(other.lexer("百度", null).has("error_code"));
+        assertEquals(1, server.getOauthCount());
+    }
+}
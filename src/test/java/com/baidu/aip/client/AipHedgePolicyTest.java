@@ -0,0 +1,143 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.client;
+
+import com.baidu.aip.bench.AipStubServer;
+import com.baidu.aip.face.AipFace;
+import com.baidu.aip.http.AipHttpClient;
+import com.baidu.aip.http.AipRequest;
+import com.baidu.aip.http.AipResponse;
+import com.baidu.aip.http.AipTransport;
+import com.baidu.aip.util.AipClientConfiguration;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 对冲请求：只对客户端声明的只读接口生效，原请求变慢时由先返回的对冲请求胜出并中止原请求
+ */
+public class AipHedgePolicyTest {
+
+    private static final String SEARCH_URL = "https://aip.baidubce.com/rest/2.0/face/v3/search";
+    private static final String DETECT_URL = "https://aip.baidubce.com/rest/2.0/face/v3/detect";
+    private static final long SLOW_MILLIS = 1000;
+
+    private AipStubServer server;
+    private AipHedgePolicy policy;
+    private SlowTransport transport;
+    private AipFace client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new AipStubServer(0);
+        server.start();
+        policy = new AipHedgePolicy();
+        policy.setMinSamples(5);
+        policy.setBudgetRatio(1);
+        transport = new SlowTransport();
+        AipClientConfiguration config = new AipClientConfiguration();
+        config.setEndpoint(server.getEndpoint());
+        config.setHedgePolicy(policy);
+        config.setTransport(transport);
+        client = new AipFace("hedge", "hedge-" + System.nanoTime(), "secret", config);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, search().getInt("error_code"));
+            assertEquals(0, detect().getInt("error_code"));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testHedgeWinsWhenPrimaryIsSlow() {
+        assertTrue(policy.getHedgeDelayMillis(SEARCH_URL) >= 0);
+        long before = server.getRequestCount();
+        transport.slowNext.set(true);
+        long start = System.currentTimeMillis();
+        JSONObject res = search();
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertEquals(0, res.getInt("error_code"));
+        assertTrue(String.valueOf(elapsed), elapsed < SLOW_MILLIS);
+        assertEquals(1, policy.getHedgedRequests());
+        assertEquals(1, policy.getHedgeWins());
+        // 慢的原请求被中止，没有到达服务端
+        assertEquals(before + 1, server.getRequestCount());
+        assertEquals(1, transport.aborted.get());
+    }
+
+    @Test
+    public void testOnlyDeclaredReadOnlyEndpoints() {
+        // 策略中添加的接口只能缩小范围，不能对客户端未声明为只读的接口对冲
+        policy.addEndpoint(DETECT_URL);
+        assertEquals(-1, policy.getHedgeDelayMillis(DETECT_URL));
+        transport.slowNext.set(true);
+        long start = System.currentTimeMillis();
+        assertEquals(0, detect().getInt("error_code"));
+        assertTrue(System.currentTimeMillis() - start >= SLOW_MILLIS);
+        assertEquals(0, policy.getHedgedRequests());
+
+        // search不在策略限定的范围内，同样不对冲
+        transport.slowNext.set(true);
+        start = System.currentTimeMillis();
+        assertEquals(0, search().getInt("error_code"));
+        assertTrue(System.currentTimeMillis() - start >= SLOW_MILLIS);
+        assertEquals(0, policy.getHedgedRequests());
+    }
+
+    private JSONObject search() {
+        return client.search("image", "BASE64", "group", null);
+    }
+
+    private JSONObject detect() {
+        return client.detect("image", "BASE64", null);
+    }
+
+    /**
+     * slowNext设置后，下一个请求在SLOW_MILLIS后才发出，期间被中止则直接返回
+     */
+    private static class SlowTransport implements AipTransport {
+        private final AtomicBoolean slowNext = new AtomicBoolean(false);
+        private final AtomicInteger aborted = new AtomicInteger();
+
+        @Override
+        public AipResponse execute(AipRequest request) {
+            if (slowNext.compareAndSet(true, false)) {
+                long deadline = System.currentTimeMillis() + SLOW_MILLIS;
+                while (System.currentTimeMillis() < deadline) {
+                    if (request.isAborted()) {
+                        aborted.incrementAndGet();
+                        return new AipResponse();
+                    }
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return new AipResponse();
+                    }
+                }
+            }
+            return AipHttpClient.getDefault().execute(request);
+        }
+    }
+}
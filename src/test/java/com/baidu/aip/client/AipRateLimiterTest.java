@@ -0,0 +1,179 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.client;
+
+import com.baidu.aip.bench.AipStubServer;
+import com.baidu.aip.error.AipError;
+import com.baidu.aip.nlp.AipNlp;
+import com.baidu.aip.util.AipClientConfiguration;
+import com.baidu.aip.util.AipClientConst;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 令牌桶限流、按优先级发放令牌，以及根据服务端QPS超限与日配额错误调整限流
+ */
+public class AipRateLimiterTest {
+
+    private static final String URL = "https://aip.baidubce.com/test/limited";
+    private static final String LEXER_URL = "https://aip.baidubce.com/rpc/2.0/nlp/v1/lexer";
+
+    private AipStubServer server;
+    private AipNlp client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new AipStubServer(0);
+        server.start();
+        AipClientConfiguration config = new AipClientConfiguration();
+        config.setEndpoint(server.getEndpoint());
+        client = new AipNlp("limiter", "limiter-" + System.nanoTime(), "secret", config);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testTokenBucket() throws Exception {
+        AipRateLimiter limiter = new AipRateLimiter();
+        assertTrue(limiter.acquire(URL, ERateLimitMode.FAIL_FAST, 0));
+
+        limiter.setQps(URL, 10);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.acquire(URL, ERateLimitMode.FAIL_FAST, 0));
+        }
+        assertFalse(limiter.acquire(URL, ERateLimitMode.FAIL_FAST, 0));
+        // 每100ms生成一个令牌
+        assertFalse(limiter.acquire(URL, ERateLimitMode.TIMEOUT, 10));
+        assertTrue(limiter.acquire(URL, ERateLimitMode.TIMEOUT, 500));
+
+        limiter.setQps(URL, 0);
+        assertEquals(0, limiter.getQps(URL), 0);
+        assertTrue(limiter.acquire(URL, ERateLimitMode.FAIL_FAST, 0));
+    }
+
+    @Test
+    public void testInteractiveBeforeBatch() throws Exception {
+        AipRateLimiter limiter = new AipRateLimiter();
+        limiter.setMinBatchShare(0);
+        limiter.setQps(URL, 10, 1);
+        assertTrue(limiter.acquire(URL, ERateLimitMode.FAIL_FAST, 0));
+
+        List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        List<Thread> threads = new ArrayList<Thread>();
+        threads.add(startWaiter(limiter, EPriority.BATCH, "B", order));
+        threads.add(startWaiter(limiter, EPriority.INTERACTIVE, "I1", order));
+        threads.add(startWaiter(limiter, EPriority.INTERACTIVE, "I2", order));
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+        assertEquals("[I1, I2, B]", order.toString());
+    }
+
+    @Test
+    public void testBatchNotStarved() throws Exception {
+        AipRateLimiter limiter = new AipRateLimiter();
+        // 两种请求都在等待时，BATCH请求至少获得一半的令牌
+        limiter.setMinBatchShare(0.5);
+        limiter.setQps(URL, 10, 1);
+        assertTrue(limiter.acquire(URL, ERateLimitMode.FAIL_FAST, 0));
+
+        List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        List<Thread> threads = new ArrayList<Thread>();
+        threads.add(startWaiter(limiter, EPriority.BATCH, "B1", order));
+        threads.add(startWaiter(limiter, EPriority.BATCH, "B2", order));
+        threads.add(startWaiter(limiter, EPriority.INTERACTIVE, "I1", order));
+        threads.add(startWaiter(limiter, EPriority.INTERACTIVE, "I2", order));
+        threads.add(startWaiter(limiter, EPriority.INTERACTIVE, "I3", order));
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+        assertEquals("[I1, B1, I2, B2, I3]", order.toString());
+    }
+
+    @Test
+    public void testClientFailFast() {
+        client.setQpsLimit(LEXER_URL, 1);
+        client.setRateLimitMode(ERateLimitMode.FAIL_FAST, 0);
+        assertFalse(client.lexer("百度", null).has("error_code"));
+        JSONObject res = client.lexer("百度", null);
+        assertEquals(AipError.RATE_LIMIT_ERROR.getErrorCode(), res.getString("error_code"));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void testLearnFromQpsLimitError() {
+        server.setQpsLimit(5);
+        boolean limited = false;
+        for (int i = 0; i < 20 && !limited; i++) {
+            limited = client.lexer("百度", null).optInt("error_code") == AipClientConst.QPS_LIMIT_ERROR_CODE;
+        }
+        assertTrue(limited);
+        double learned = client.getRateLimiter().getLearnedQps(LEXER_URL);
+        assertTrue(String.valueOf(learned), learned > 0 && learned < 10);
+        assertEquals(learned, client.getRateLimiter().getQps(LEXER_URL), 0.001);
+    }
+
+    @Test
+    public void testDailyLimit() {
+        server.setDailyLimit(1);
+        assertFalse(client.lexer("百度", null).has("error_code"));
+        assertEquals(AipClientConst.DAILY_LIMIT_ERROR_CODE.intValue(), client.lexer("百度", null).getInt("error_code"));
+        assertTrue(client.getRateLimiter().isDailyLimitReached(LEXER_URL));
+
+        // 配额重置前不再发出请求
+        long before = server.getRequestCount();
+        assertEquals(AipClientConst.DAILY_LIMIT_ERROR_CODE.intValue(), client.lexer("百度", null).getInt("error_code"));
+        assertEquals(before, server.getRequestCount());
+
+        client.getRateLimiter().resetDailyLimit(LEXER_URL);
+        assertFalse(client.getRateLimiter().isDailyLimitReached(LEXER_URL));
+    }
+
+    /**
+     * 启动一个等待令牌的线程，返回前确认它已在队列中，从而确定排队顺序
+     */
+    private static Thread startWaiter(final AipRateLimiter limiter, final EPriority priority, final String name,
+                                      final List<String> order) throws InterruptedException {
+        int queued = limiter.getQueueDepth(URL, priority);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (limiter.acquire(URL, priority, ERateLimitMode.BLOCK, 0)) {
+                        order.add(name);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        thread.start();
+        while (limiter.getQueueDepth(URL, priority) == queued) {
+            Thread.sleep(1);
+        }
+        return thread;
+    }
+}
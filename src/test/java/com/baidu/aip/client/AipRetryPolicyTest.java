@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.client;
+
+import com.baidu.aip.bench.AipStubServer;
+import com.baidu.aip.face.AipFace;
+import com.baidu.aip.nlp.AipNlp;
+import com.baidu.aip.util.AipClientConfiguration;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 重试策略与接口幂等性：HTTP错误只对幂等接口重试，表示请求未被处理的错误码对所有接口重试
+ */
+public class AipRetryPolicyTest {
+
+    private AipStubServer server;
+    private AipClientConfiguration config;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new AipStubServer(0);
+        server.start();
+        config = new AipClientConfiguration();
+        config.setEndpoint(server.getEndpoint());
+        config.setRetryPolicy(new AipRetryPolicy(3, 10, 50));
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testIdempotentRequestRetriedOnHttpError() {
+        AipNlp client = new AipNlp("retry", "retry-idempotent", "secret", config);
+        client.lexer("warm up", null);
+        long before = server.getRequestCount();
+
+        server.injectHttpError(1.0, 503);
+        JSONObject res = client.lexer("百度", null);
+
+        assertEquals("SDK108", res.getString("error_code"));
+        assertEquals(3, server.getRequestCount() - before);
+    }
+
+    @Test
+    public void testNonIdempotentRequestNotRetriedOnHttpError() {
+        AipFace client = new AipFace("retry", "retry-non-idempotent", "secret", config);
+        client.search("image", "URL", "group", null);
+        long before = server.getRequestCount();
+
+        server.injectHttpError(1.0, 503);
+        JSONObject res = client.addUser("image", "URL", "group", "user", null);
+
+        assertEquals("SDK108", res.getString("error_code"));
+        assertEquals(1, server.getRequestCount() - before);
+    }
+
+    @Test
+    public void testNonIdempotentRequestRetriedOnUnprocessedErrorCode() {
+        AipFace client = new AipFace("retry", "retry-error-code", "secret", config);
+        client.search("image", "URL", "group", null);
+        long before = server.getRequestCount();
+
+        // 282000表示服务端内部错误、请求未被处理，非幂等接口同样可以重试
+        server.injectError(1.0, 282000, "internal error");
+        JSONObject res = client.addUser("image", "URL", "group", "user", null);
+
+        assertEquals(282000, res.getInt("error_code"));
+        assertEquals(3, server.getRequestCount() - before);
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.http;
+
+import com.baidu.aip.bench.AipStubServer;
+import com.baidu.aip.client.AipCallback;
+import com.baidu.aip.nlp.AipNlp;
+import com.baidu.aip.speech.AipSpeech;
+import com.baidu.aip.speech.TtsResponse;
+import com.baidu.aip.util.AipClientConfiguration;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 在Java 11+上针对multi-release jar运行(failsafe，java11 profile)，覆盖META-INF/versions/11下的AipHttp2Client
+ */
+public class AipHttp2ClientIT {
+
+    private static final String HTTP2_CLIENT = "com.baidu.aip.http.AipHttp2Client";
+
+    private AipStubServer server;
+    private AipClientConfiguration config;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new AipStubServer(0);
+        server.start();
+        config = new AipClientConfiguration();
+        config.setEndpoint(server.getEndpoint());
+        config.setHttp2Enabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testHttp2IsOptIn() {
+        assertTrue(AipTransportFactory.isHttp2Supported());
+        assertEquals(HTTP2_CLIENT, config.getTransport().getClass().getName());
+        assertTrue(new AipClientConfiguration().getTransport() instanceof AipHttpClient);
+        assertTrue(AipTransportFactory.getDefault() instanceof AipHttpClient);
+    }
+
+    @Test
+    public void testClientCalls() {
+        AipNlp nlp = new AipNlp("http2", "http2-" + System.nanoTime(), "secret", config);
+        JSONObject res = nlp.lexer("百度", null);
+        assertFalse(res.toString(), res.has("error_code"));
+
+        // HTTP/2的header名为小写，按名字读取时不区分大小写
+        AipSpeech speech = new AipSpeech("http2", "http2-speech-" + System.nanoTime(), "secret", config);
+        TtsResponse tts = speech.synthesis("百度", "zh", 1, null);
+        assertNull(tts.getResult());
+        assertEquals(4096, tts.getData().length);
+    }
+
+    @Test
+    public void testExecuteAsync() throws Exception {
+        AipTransport transport = config.getTransport();
+        assertTrue(transport instanceof AipAsyncTransport);
+        final AtomicReference<AipResponse> result = new AtomicReference<AipResponse>();
+        final CountDownLatch done = new CountDownLatch(1);
+        ((AipAsyncTransport) transport).executeAsync(newRequest(), new AipCallback<AipResponse>() {
+            @Override
+            public void onSuccess(AipResponse response) {
+                result.set(response);
+                done.countDown();
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(200, result.get().getStatus());
+        assertNotNull(result.get().getHeaderValue("Content-Type"));
+    }
+
+    @Test
+    public void testAbortDoesNotInterruptCaller() throws Exception {
+        server.setLatency(3000, 3000);
+        final AipRequest request = newRequest();
+        Thread aborter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                request.abort();
+            }
+        });
+        aborter.start();
+        long start = System.currentTimeMillis();
+        AipResponse response = config.getTransport().execute(request);
+        assertEquals(0, response.getStatus());
+        assertTrue(System.currentTimeMillis() - start < 2000);
+        assertFalse(Thread.interrupted());
+        aborter.join();
+    }
+
+    @Test
+    public void testRedirectNotFollowed() throws Exception {
+        HttpServer redirect = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        redirect.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.getResponseHeaders().set("Location", server.getEndpoint() + "/rpc/2.0/nlp/v1/lexer");
+                exchange.sendResponseHeaders(302, -1);
+                exchange.close();
+            }
+        });
+        redirect.start();
+        try {
+            config.setEndpoint("http://127.0.0.1:" + redirect.getAddress().getPort());
+            AipResponse http2 = config.getTransport().execute(newRequest());
+            AipResponse http1 = AipHttpClient.getDefault().execute(newRequest());
+            assertEquals(302, http2.getStatus());
+            assertEquals(302, http1.getStatus());
+            assertEquals(0, server.getRequestCount());
+        } finally {
+            redirect.stop(0);
+        }
+    }
+
+    private AipRequest newRequest() {
+        AipRequest request = new AipRequest();
+        request.setUri("https://aip.baidubce.com/rpc/2.0/nlp/v1/lexer");
+        request.setHttpMethod(HttpMethodName.POST);
+        request.setConfig(config);
+        request.addBody("text", "百度");
+        request.addParam("access_token", AipStubServer.ACCESS_TOKEN);
+        return request;
+    }
+}
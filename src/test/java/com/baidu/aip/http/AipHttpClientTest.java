@@ -0,0 +1,174 @@
+/*
+ * Copyright 2017 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.aip.http;
+
+import com.baidu.aip.bench.AipStubServer;
+import com.baidu.aip.nlp.AipNlp;
+import com.baidu.aip.util.AipClientConfiguration;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * HTTP/1.1传输层：流式body、请求与响应的gzip压缩、响应读取使用的池化缓冲区
+ */
+public class AipHttpClientTest {
+
+    private static final String LEXER_URL = "https://aip.baidubce.com/rpc/2.0/nlp/v1/lexer";
+
+    private AipStubServer server;
+    private String text;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new AipStubServer(0);
+        server.start();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            sb.append("百度是拥有强大互联网基础的领先AI公司");
+        }
+        text = sb.toString();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    private AipNlp newClient() {
+        AipClientConfiguration config = new AipClientConfiguration();
+        config.setEndpoint(server.getEndpoint());
+        return new AipNlp("http", "http-" + System.nanoTime(), "secret", config);
+    }
+
+    @Test
+    public void testStreamingBodyModes() {
+        AipNlp client = newClient();
+        assertFalse(client.lexer(text, null).has("error_code"));
+        String expected = server.getLastRequestBody();
+        // NLP接口以GBK编码body，stub按UTF-8解码，只比较各模式下收到的内容是否一致
+        assertTrue(expected.contains("\"text\""));
+        assertNull(server.getLastRequestTransferEncoding());
+
+        client.setBodyStreamingMode(EBodyStreamingMode.FIXED_LENGTH);
+        assertFalse(client.lexer(text, null).has("error_code"));
+        assertEquals(expected, server.getLastRequestBody());
+        assertNull(server.getLastRequestTransferEncoding());
+
+        client.setBodyStreamingMode(EBodyStreamingMode.CHUNKED);
+        assertFalse(client.lexer(text, null).has("error_code"));
+        assertEquals(expected, server.getLastRequestBody());
+        assertEquals("chunked", server.getLastRequestTransferEncoding());
+    }
+
+    @Test
+    public void testRequestCompression() {
+        AipNlp client = newClient();
+        assertFalse(client.lexer(text, null).has("error_code"));
+        String expected = server.getLastRequestBody();
+        assertFalse("gzip".equalsIgnoreCase(server.getLastRequestContentEncoding()));
+
+        client.enableRequestCompression(LEXER_URL);
+        assertFalse(client.lexer(text, null).has("error_code"));
+        assertEquals("gzip", server.getLastRequestContentEncoding());
+        assertEquals("chunked", server.getLastRequestTransferEncoding());
+        assertEquals(expected, server.getLastRequestBody());
+    }
+
+    @Test
+    public void testCompressedResponse() {
+        server.setResponseCompressionEnabled(true);
+        AipNlp client = newClient();
+        JSONObject res = client.lexer("百度", null);
+        assertFalse(res.has("error_code"));
+        assertTrue(res.has("log_id"));
+    }
+
+    @Test
+    public void testReadGzipBodyOfUnknownLength() throws Exception {
+        // 解压后的长度跨越多个池化缓冲区
+        byte[] data = new byte[AipBufferPool.DEFAULT_BUFFER_SIZE * 3 + 123];
+        new Random(1).nextBytes(data);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(out);
+        gzip.write(data);
+        gzip.close();
+        byte[] compressed = out.toByteArray();
+
+        int pooled = AipBufferPool.getDefault().getPooledCount();
+        AipResponse response = new AipResponse();
+        AipHttpClient.readResponseBody(new ByteArrayInputStream(compressed), -1, "gzip", response);
+        assertArrayEquals(data, response.getBody());
+        assertEquals(data.length, response.getBodyLength());
+        assertEquals(compressed.length, response.getRawBodyLength());
+        // 读取使用的缓冲区全部归还
+        assertTrue(AipBufferPool.getDefault().getPooledCount() >= Math.min(pooled + 4,
+                AipBufferPool.DEFAULT_MAX_POOLED));
+    }
+
+    @Test
+    public void testReadBodyOfKnownLength() throws Exception {
+        byte[] data = "{\"log_id\": 1}".getBytes("UTF-8");
+        AipResponse response = new AipResponse();
+        AipHttpClient.readResponseBody(new ByteArrayInputStream(data), data.length, null, response);
+        assertArrayEquals(data, response.getBody());
+        assertEquals(data.length, response.getRawBodyLength());
+
+        try {
+            AipHttpClient.readResponseBody(new ByteArrayInputStream(data), data.length + 1, null,
+                    new AipResponse());
+            fail("truncated body should fail");
+        } catch (EOFException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testBufferPool() {
+        AipBufferPool pool = new AipBufferPool(1024, 2);
+        byte[] first = pool.acquire();
+        byte[] second = pool.acquire();
+        byte[] third = pool.acquire();
+        assertEquals(1024, first.length);
+        assertNotSame(first, second);
+
+        pool.release(first);
+        pool.release(second);
+        pool.release(third);
+        assertEquals(2, pool.getPooledCount());
+        // 长度不符的缓冲区不入池
+        pool.release(new byte[512]);
+        assertEquals(2, pool.getPooledCount());
+
+        assertSame(first, pool.acquire());
+        assertEquals(1, pool.getPooledCount());
+        assertSame(second, pool.acquire());
+        assertEquals(0, pool.getPooledCount());
+    }
+}